@@ -0,0 +1,51 @@
+package io.inisos.bank4j.benchmarks;
+
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import io.inisos.bank4j.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a credit transfer, which only validates and copies its transactions since its JAXB tree is created lazily,
+ * then building and marshalling it to a null sink, which creates its JAXB tree as well
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BuildBenchmark {
+
+    @Param({"V03", "V09", "V03_CH_02", "V003_03"})
+    private CustomerCreditTransferInitiationVersion version;
+
+    @Param({"1", "100", "10000", "1000000"})
+    private int transactionCount;
+
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setUp() {
+        transactions = Fixtures.transactions(version, transactionCount);
+    }
+
+    @Benchmark
+    public CreditTransferOperation build() {
+        return Fixtures.builder(version)
+                .transactions(transactions)
+                .build();
+    }
+
+    @Benchmark
+    public void buildAndMarshal() {
+        Fixtures.builder(version)
+                .transactions(transactions)
+                .build()
+                .marshal(OutputStream.nullOutputStream());
+    }
+}
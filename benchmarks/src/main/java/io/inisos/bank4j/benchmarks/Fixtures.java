@@ -0,0 +1,71 @@
+package io.inisos.bank4j.benchmarks;
+
+import io.inisos.bank4j.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Benchmark data, valid for all versions
+ */
+final class Fixtures {
+
+    private static final LocalDateTime NEW_YEAR_2021 = LocalDateTime.of(2021, 1, 1, 0, 0, 0, 0);
+
+    /**
+     * Number of distinct transactions, larger counts reuse them to keep setup memory low
+     */
+    private static final int DISTINCT_TRANSACTIONS = 1000;
+
+    private Fixtures() {
+    }
+
+    static CreditTransferOperationBuilder builder(CustomerCreditTransferInitiationVersion version) {
+        return Bank.jaxbCreditTransferSepa(version)
+                .debtor(Bank.simpleParty()
+                        .name("Banque de France")
+                        .build())
+                .debtorAccount(Bank.simpleBankAccount()
+                        .iban("FR7630001007941234567890185")
+                        .bic("BDFEFRPPXXX")
+                        .build())
+                .id("MYID")
+                .creationDateTime(NEW_YEAR_2021)
+                .requestedExecutionDate(NEW_YEAR_2021.toLocalDate().plusDays(1));
+    }
+
+    static List<Transaction> transactions(CustomerCreditTransferInitiationVersion version, int count) {
+        List<Transaction> distinct = new ArrayList<>();
+        for (int i = 1; i <= Math.min(count, DISTINCT_TRANSACTIONS); i++) {
+            TransactionBuilder builder = Bank.simpleTransaction()
+                    .party(Bank.simpleParty()
+                            .name("Creditor " + i)
+                            .postalAddress(Bank.simplePostalAddress()
+                                    .addressLine("1, rue de La Vrilliere")
+                                    .addressLine("75001 PARIS")
+                                    .country("FR")
+                                    .build())
+                            .build())
+                    .account(Bank.simpleBankAccount()
+                            .iban("FR7610011000201234567890188")
+                            .bic("PSSTFRPP")
+                            .build())
+                    .amount(i + ".34")
+                    .currency("EUR")
+                    .endToEndId("ENDTOEND" + i)
+                    .id("ID" + i)
+                    .remittanceInformationUnstructured(Collections.singleton("Invoice " + i));
+            if (version != CustomerCreditTransferInitiationVersion.V003_03) {
+                builder.chargeBearerCode(ChargeBearer.SLEV);
+            }
+            distinct.add(builder.build());
+        }
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(distinct.get(i % distinct.size()));
+        }
+        return transactions;
+    }
+}
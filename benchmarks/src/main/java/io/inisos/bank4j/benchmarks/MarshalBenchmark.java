@@ -0,0 +1,58 @@
+package io.inisos.bank4j.benchmarks;
+
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import io.inisos.bank4j.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marshalling a built credit transfer to null sinks, so that only marshalling is measured
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MarshalBenchmark {
+
+    @Param({"V03", "V09", "V03_CH_02", "V003_03"})
+    private CustomerCreditTransferInitiationVersion version;
+
+    @Param({"1", "100", "10000", "1000000"})
+    private int transactionCount;
+
+    private CreditTransferOperation creditTransfer;
+    private CreditTransferOperation streamedCreditTransfer;
+
+    @Setup
+    public void setUp() {
+        List<Transaction> transactions = Fixtures.transactions(version, transactionCount);
+        creditTransfer = Fixtures.builder(version)
+                .transactions(transactions)
+                .build();
+        streamedCreditTransfer = Fixtures.builder(version)
+                .transactions(transactions::stream)
+                .build();
+    }
+
+    @Benchmark
+    public void marshalToWriter() {
+        creditTransfer.marshal(Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void marshalToOutputStream() {
+        creditTransfer.marshal(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void marshalStreamedToOutputStream() {
+        streamedCreditTransfer.marshal(OutputStream.nullOutputStream());
+    }
+}
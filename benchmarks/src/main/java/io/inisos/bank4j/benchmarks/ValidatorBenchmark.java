@@ -0,0 +1,69 @@
+package io.inisos.bank4j.benchmarks;
+
+import io.inisos.bank4j.util.BicCheck;
+import io.inisos.bank4j.util.IbanCheck;
+import io.inisos.bank4j.util.Iso20022ReferenceElementValidator;
+import io.inisos.bank4j.validator.constraintvalidators.BICValidator;
+import io.inisos.bank4j.validator.constraintvalidators.IBANValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validating and sanitizing single values, valid or not
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private final IBANValidator ibanValidator = new IBANValidator();
+    private final BICValidator bicValidator = new BICValidator();
+
+    @Param({"true", "false"})
+    private boolean valid;
+
+    private String iban;
+    private String bic;
+    private String reference;
+
+    @Setup
+    public void setUp() {
+        iban = valid ? "FR7630001007941234567890185" : "FR7630001007941234567890186";
+        bic = valid ? "BDFEFRPPXXX" : "BDFEZZPPXXX";
+        reference = valid ? "INVOICE 2021/01-0001" : "/INVOICE 2021//01#0001 ";
+    }
+
+    @Benchmark
+    public boolean iban() {
+        return ibanValidator.isValid(iban, null);
+    }
+
+    @Benchmark
+    public IbanCheck.Result ibanCheck() {
+        return IbanCheck.check(iban);
+    }
+
+    @Benchmark
+    public boolean bic() {
+        return bicValidator.isValid(bic, null);
+    }
+
+    @Benchmark
+    public BicCheck.Result bicCheck() {
+        return BicCheck.check(bic);
+    }
+
+    @Benchmark
+    public boolean referenceIsValidCharacterSet() {
+        return Iso20022ReferenceElementValidator.isValidCharacterSet(reference);
+    }
+
+    @Benchmark
+    public String referenceSanitizeToCharacterSet() {
+        return Iso20022ReferenceElementValidator.sanitizeToCharacterSet(reference);
+    }
+}
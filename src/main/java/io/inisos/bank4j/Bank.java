@@ -2,6 +2,8 @@ package io.inisos.bank4j;
 
 import io.inisos.bank4j.impl.*;
 
+import java.util.function.Function;
+
 /**
  * Builder Factory
  */
@@ -23,6 +25,20 @@ public class Bank {
         return new SimpleTransactionBuilder();
     }
 
+    /**
+     * @return a builder of transactions holding amounts in minor units of their currency
+     */
+    public static CompactTransactionBuilder compactTransaction() {
+        return new CompactTransactionBuilder();
+    }
+
+    /**
+     * @return an empty batch of transactions, held column by column
+     */
+    public static TransactionBatch transactionBatch() {
+        return new TransactionBatch();
+    }
+
     public static CreditTransferOperationBuilder jaxbCreditTransferSepa() {
         return jaxbCreditTransferSepa(CustomerCreditTransferInitiationVersion.V03);
     }
@@ -39,6 +55,30 @@ public class Bank {
         return new JAXBCreditTransferBuilder().version(version);
     }
 
+    public static CreditTransferMessageBuilder jaxbCreditTransferMessage(CustomerCreditTransferInitiationVersion version) {
+        return new JAXBCreditTransferMessageBuilder(version);
+    }
+
+    public static <K> CreditTransferPartitioner<K> creditTransferPartitioner(Function<? super Transaction, ? extends K> key) {
+        return new ExecutorCreditTransferPartitioner<>(key);
+    }
+
+    public static StAXCreditTransferValidator staxCreditTransferValidator(CustomerCreditTransferInitiationVersion version) {
+        return new StAXCreditTransferValidator(version);
+    }
+
+    public static StAXCreditTransferReader staxCreditTransferReader() {
+        return new StAXCreditTransferReader();
+    }
+
+    public static StAXCreditTransferReader staxCreditTransferReader(CustomerCreditTransferInitiationVersion version) {
+        return new StAXCreditTransferReader(version);
+    }
+
+    public static StAXCreditTransferConverter staxCreditTransferConverter(CustomerCreditTransferInitiationVersion version) {
+        return new StAXCreditTransferConverter(version);
+    }
+
     private Bank() {
     }
 
@@ -5,7 +5,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * A Credit Transfer
@@ -43,6 +46,13 @@ public interface CreditTransfer {
         return getControlSum();
     }
 
+    /**
+     * @return the number of transactions
+     */
+    default int getNumberOfTransactions() {
+        return getTransactions().size();
+    }
+
     /**
      * @return the sum of all transaction amounts, regardless of currencies
      */
@@ -53,4 +63,13 @@ public interface CreditTransfer {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
+    /**
+     * @return the sum of transaction amounts by currency code, sorted by currency code
+     */
+    default Map<String, BigDecimal> getControlSumByCurrency() {
+        return getTransactions()
+                .stream()
+                .collect(Collectors.groupingBy(Transaction::getCurrencyCode, TreeMap::new, Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount, BigDecimal::add)));
+    }
+
 }
@@ -0,0 +1,37 @@
+package io.inisos.bank4j;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A Credit Transfer message with a single group header and several payment information
+ */
+public interface CreditTransferMessage extends Operation {
+
+    String getId();
+
+    LocalDateTime getCreationDateTime();
+
+    Optional<Party> getInitiatingParty();
+
+    /**
+     * @return credit transfers, each one being a payment information
+     */
+    List<CreditTransferOperation> getPaymentInformation();
+
+    default int getNumberOfTransactions() {
+        return getPaymentInformation()
+                .stream()
+                .mapToInt(paymentInformation -> paymentInformation.getTransactions().size())
+                .sum();
+    }
+
+    default BigDecimal getControlSum() {
+        return getPaymentInformation()
+                .stream()
+                .map(CreditTransfer::getControlSum)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
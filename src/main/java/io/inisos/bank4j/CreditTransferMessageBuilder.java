@@ -0,0 +1,42 @@
+package io.inisos.bank4j;
+
+import java.time.LocalDateTime;
+
+public interface CreditTransferMessageBuilder {
+
+    CreditTransferMessageBuilder id(String id);
+
+    CreditTransferMessageBuilder creationDateTime(LocalDateTime creationDateTime);
+
+    /**
+     * @param initiatingParty initiating party, defaults to the debtor of the first payment information
+     * @return this
+     */
+    CreditTransferMessageBuilder initiatingParty(Party initiatingParty);
+
+    /**
+     * Validate output against the schema of its version while marshalling, in the same pass.
+     * <p>
+     * Builders of messages without such a schema ignore it.
+     *
+     * @param schemaValidation optional, true to validate output while marshalling, defaults to false
+     * @return this
+     */
+    default CreditTransferMessageBuilder schemaValidation(Boolean schemaValidation) {
+        return this;
+    }
+
+    /**
+     * Add the transactions of a credit transfer to the message.
+     * <p>
+     * Credit transfers sharing debtor, debtor account, requested execution date, service level, charge bearer,
+     * priority and batch booking are grouped into a single payment information, identified by the id of the first one.
+     * Message id and creation date time of credit transfers are ignored.
+     *
+     * @param creditTransfer credit transfer
+     * @return this
+     */
+    CreditTransferMessageBuilder paymentInformation(CreditTransfer creditTransfer);
+
+    CreditTransferMessage build();
+}
@@ -1,9 +1,18 @@
 package io.inisos.bank4j;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface CreditTransferOperationBuilder {
     /**
@@ -28,6 +37,61 @@ public interface CreditTransferOperationBuilder {
 
     CreditTransferOperationBuilder transaction(Transaction transaction);
 
+    /**
+     * Stream transactions while marshalling instead of holding them in memory.
+     * Totals are written before transactions, hence they must be declared; they are checked once the stream is exhausted.
+     * The resulting operation can only be marshalled once, and the stream is closed afterwards.
+     * <p>
+     * Builders that cannot stream transactions collect them right away, check them against the declared totals and
+     * close the stream.
+     *
+     * @param transactions         transactions, cannot be combined with other transactions
+     * @param numberOfTransactions number of streamed transactions
+     * @param controlSum           sum of all streamed transaction amounts
+     * @return this
+     * @throws IllegalArgumentException if collected transactions do not match declared totals
+     */
+    default CreditTransferOperationBuilder transactions(Stream<Transaction> transactions, int numberOfTransactions, BigDecimal controlSum) {
+        List<Transaction> collected;
+        try (Stream<Transaction> stream = transactions) {
+            collected = stream.collect(Collectors.toList());
+        }
+        BigDecimal sum = collected.stream().map(Transaction::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (collected.size() != numberOfTransactions || sum.compareTo(controlSum) != 0) {
+            throw new IllegalArgumentException("Declared " + numberOfTransactions + " transactions summing to " + controlSum + " but got " + collected.size() + " summing to " + sum);
+        }
+        return transactions(collected);
+    }
+
+    /**
+     * Stream transactions while marshalling instead of holding them in memory.
+     * A first pass over the source aggregates totals, which are written before transactions,
+     * then each marshalling streams transactions again and checks totals did not change.
+     * <p>
+     * Builders that cannot stream transactions collect a single stream right away, and close it.
+     *
+     * @param transactions supplies a new stream over the same transactions on each call, e.g. over a database cursor or a file;
+     *                     cannot be combined with other transactions
+     * @return this
+     */
+    default CreditTransferOperationBuilder transactions(Supplier<? extends Stream<Transaction>> transactions) {
+        try (Stream<Transaction> stream = transactions.get()) {
+            return transactions(stream.collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Shortcut for {@link #transactions(Stream, int, BigDecimal)}
+     *
+     * @param transactions         transactions, cannot be combined with other transactions
+     * @param numberOfTransactions number of transactions
+     * @param controlSum           sum of all transaction amounts
+     * @return this
+     */
+    default CreditTransferOperationBuilder transactions(Iterator<Transaction> transactions, int numberOfTransactions, BigDecimal controlSum) {
+        return transactions(StreamSupport.stream(Spliterators.spliteratorUnknownSize(transactions, Spliterator.ORDERED), false), numberOfTransactions, controlSum);
+    }
+
     CreditTransferOperationBuilder id(String id);
 
     CreditTransferOperationBuilder creationDateTime(LocalDateTime creationDateTime);
@@ -42,5 +106,30 @@ public interface CreditTransferOperationBuilder {
 
     CreditTransferOperationBuilder instantPayment(Boolean instantPayment);
 
+    /**
+     * The JAXB document is built on first marshalling, and kept for later ones by default.
+     * Not retaining it builds the document again on each marshalling, so that it can be collected once marshalled.
+     * <p>
+     * Builders of operations without such a document ignore it.
+     *
+     * @param retainDocument optional, false to discard the document after each marshalling, defaults to true
+     * @return this
+     */
+    default CreditTransferOperationBuilder retainDocument(Boolean retainDocument) {
+        return this;
+    }
+
+    /**
+     * Validate output against the schema of its version while marshalling, in the same pass.
+     * <p>
+     * Builders of operations without such a schema ignore it.
+     *
+     * @param schemaValidation optional, true to validate output while marshalling, defaults to false
+     * @return this
+     */
+    default CreditTransferOperationBuilder schemaValidation(Boolean schemaValidation) {
+        return this;
+    }
+
     CreditTransferOperation build();
 }
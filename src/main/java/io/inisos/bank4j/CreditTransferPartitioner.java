@@ -0,0 +1,96 @@
+package io.inisos.bank4j;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Splits one stream of transactions into many credit transfers, built and written concurrently.
+ * <p>
+ * Transactions are grouped by a partition key, e.g. debtor account, currency or execution date.
+ * At most a given number of transactions is held per partition: once reached, a credit transfer is handed over
+ * to the executor and the partition continues with its next part.
+ *
+ * @param <K> partition key type
+ */
+public interface CreditTransferPartitioner<K> {
+
+    /**
+     * @param builder creates a builder, without transactions, for a partition key and a part number starting at 1;
+     *                the id of the credit transfer must be unique
+     * @return this
+     */
+    CreditTransferPartitioner<K> builder(BiFunction<? super K, Integer, CreditTransferOperationBuilder> builder);
+
+    /**
+     * @param writer writes a credit transfer, e.g. {@code operation -> operation.marshal(directory.resolve(operation.getId() + ".xml"))}
+     * @return this
+     */
+    CreditTransferPartitioner<K> writer(Consumer<? super CreditTransferOperation> writer);
+
+    /**
+     * @param discard called, once generation failed and all pending credit transfers are done, for each one written,
+     *                e.g. {@code entry -> directory.resolve(entry.getId() + ".xml").toFile().delete()};
+     *                defaults to doing nothing
+     * @return this
+     */
+    CreditTransferPartitioner<K> discard(Consumer<? super ManifestEntry<K>> discard);
+
+    /**
+     * @param executor builds and writes credit transfers, e.g. a fork-join pool or virtual threads;
+     *                 defaults to the common fork-join pool
+     * @return this
+     */
+    CreditTransferPartitioner<K> executor(Executor executor);
+
+    /**
+     * @param maxTransactionsPerFile maximum number of transactions per credit transfer, bounding memory per partition
+     * @return this
+     */
+    CreditTransferPartitioner<K> maxTransactionsPerFile(int maxTransactionsPerFile);
+
+    /**
+     * @param maxPendingFiles maximum number of credit transfers handed over to the executor and not yet written;
+     *                        reading transactions waits beyond
+     * @return this
+     */
+    CreditTransferPartitioner<K> maxPendingFiles(int maxPendingFiles);
+
+    /**
+     * Consume transactions, then wait for all credit transfers to be written
+     * <p>
+     * Once a credit transfer fails to be built or written, reading transactions stops and pending credit transfers
+     * are skipped; those already written are discarded before the failure is thrown.
+     *
+     * @param transactions transactions, consumed on the calling thread
+     * @return one entry per credit transfer, by order of first appearance of partition keys then by part
+     */
+    List<ManifestEntry<K>> generate(Stream<Transaction> transactions);
+
+    /**
+     * A written credit transfer
+     *
+     * @param <K> partition key type
+     */
+    interface ManifestEntry<K> {
+
+        K getKey();
+
+        /**
+         * @return part number within the partition, starting at 1
+         */
+        int getPart();
+
+        /**
+         * @return credit transfer id
+         */
+        String getId();
+
+        int getNumberOfTransactions();
+
+        BigDecimal getControlSum();
+    }
+}
@@ -1,7 +1,18 @@
 package io.inisos.bank4j;
 
+import io.inisos.bank4j.util.FileChannelOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * An Operation that can be marshalled
@@ -46,4 +57,91 @@ public interface Operation {
      */
     void marshal(Writer writer, boolean formatted);
 
+    /**
+     * Marshall to output stream as UTF-8 without formatting
+     *
+     * @param outputStream output stream, left open
+     */
+    default void marshal(OutputStream outputStream) {
+        marshal(outputStream, false);
+    }
+
+    /**
+     * Marshall to output stream as UTF-8
+     *
+     * @param outputStream output stream, left open
+     * @param formatted    true to format output, false to leave unformatted
+     */
+    default void marshal(OutputStream outputStream, boolean formatted) {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        marshal(writer, formatted);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Marshall to channel as UTF-8 without formatting
+     *
+     * @param channel channel, left open
+     */
+    default void marshal(WritableByteChannel channel) {
+        marshal(channel, false);
+    }
+
+    /**
+     * Marshall to channel as UTF-8
+     *
+     * @param channel   channel, left open
+     * @param formatted true to format output, false to leave unformatted
+     */
+    default void marshal(WritableByteChannel channel, boolean formatted) {
+        marshal(Channels.newOutputStream(channel), formatted);
+    }
+
+    /**
+     * Marshall to file as UTF-8 without formatting
+     *
+     * @param path file path, created or truncated
+     */
+    default void marshal(Path path) {
+        marshal(path, false);
+    }
+
+    /**
+     * Marshall to file as UTF-8
+     *
+     * @param path      file path, created or truncated
+     * @param formatted true to format output, false to leave unformatted
+     */
+    default void marshal(Path path, boolean formatted) {
+        marshal(path, formatted, SyncPolicy.NONE);
+    }
+
+    /**
+     * Marshall to file as UTF-8 through a file channel
+     * <p>
+     * If marshalling fails, e.g. while streaming transactions, the partially written file is deleted.
+     *
+     * @param path       file path, created or truncated
+     * @param formatted  true to format output, false to leave unformatted
+     * @param syncPolicy what to force to storage before closing the file
+     */
+    default void marshal(Path path, boolean formatted, SyncPolicy syncPolicy) {
+        try (OutputStream outputStream = new FileChannelOutputStream(path, syncPolicy)) {
+            marshal(outputStream, formatted);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException deletion) {
+                e.addSuppressed(deletion);
+            }
+            throw e;
+        }
+    }
+
 }
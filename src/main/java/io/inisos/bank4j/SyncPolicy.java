@@ -0,0 +1,19 @@
+package io.inisos.bank4j;
+
+/**
+ * Whether written files are forced to storage before being closed
+ */
+public enum SyncPolicy {
+    /**
+     * Leave it to the operating system
+     */
+    NONE,
+    /**
+     * Force content
+     */
+    DATA,
+    /**
+     * Force content and metadata, such as the last modification time
+     */
+    DATA_AND_METADATA
+}
@@ -0,0 +1,24 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Transaction;
+
+import java.util.Collection;
+
+/**
+ * Transactions held outside of an object graph, whose totals are aggregated as they are added, and that are streamed
+ * while marshalling rather than copied.
+ *
+ * @author Patrice Blanchardie
+ */
+interface AggregatedTransactions extends Collection<Transaction> {
+
+    /**
+     * @return totals of transactions added so far
+     */
+    TransactionTotals getTotals();
+
+    /**
+     * @return transactions added so far, streamed while marshalling, with their totals
+     */
+    StreamedTransactions streamed();
+}
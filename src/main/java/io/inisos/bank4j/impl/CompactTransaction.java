@@ -0,0 +1,178 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.BankAccount;
+import io.inisos.bank4j.ChargeBearer;
+import io.inisos.bank4j.Party;
+import io.inisos.bank4j.Transaction;
+import io.inisos.bank4j.validator.constraints.Iso20022CharacterSet;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Compact Transaction, whose amount is held as a number of minor units of its currency
+ * <p>
+ * The scale of the amount is the default number of fraction digits of the currency, e.g. 12.34 EUR is held as 1234.
+ * Totals of compact transactions are aggregated without allocating, and amounts are rendered with exactly that scale.
+ *
+ * @author Patrice Blanchardie
+ */
+public class CompactTransaction implements Transaction {
+
+    private final Party party;
+    private final BankAccount account;
+    private final long unscaledAmount;
+    private final Currency currency;
+    @Iso20022CharacterSet
+    @Size(max = 35)
+    private final String endToEndId;
+    @Iso20022CharacterSet
+    private final String id;
+    private final ChargeBearer chargeBearer;
+    private final List<BankAccount> intermediaryAgents;
+    private final Set<@Valid @Size(max = 140) String> remittanceInformationUnstructured;
+
+    /**
+     * Constructor
+     *
+     * @param party                             optional third party
+     * @param account                           cash account
+     * @param unscaledAmount                    amount in minor units of the currency, e.g. cents
+     * @param currency                          currency, having minor units
+     * @param endToEndId                        end-to-end identifier
+     * @param id                                optional identifier
+     * @param chargeBearer                      optional charge bearer
+     * @param intermediaryAgents                optional intermediary agents, at most 3
+     * @param remittanceInformationUnstructured optional unstructured remittance information
+     */
+    public CompactTransaction(Party party, BankAccount account, long unscaledAmount, Currency currency, String endToEndId, String id, ChargeBearer chargeBearer, List<BankAccount> intermediaryAgents, Set<String> remittanceInformationUnstructured) {
+        this.party = party;
+        this.account = Objects.requireNonNull(account, "Account cannot be null");
+        this.unscaledAmount = unscaledAmount;
+        this.currency = Objects.requireNonNull(currency, "Currency cannot be null");
+        this.endToEndId = Objects.requireNonNull(endToEndId, "End to end id cannot be null");
+        this.id = id;
+        this.chargeBearer = chargeBearer;
+        this.intermediaryAgents = Optional.ofNullable(intermediaryAgents).orElse(Collections.emptyList());
+        this.remittanceInformationUnstructured = Optional.ofNullable(remittanceInformationUnstructured).orElse(Collections.emptySet());
+        scale(this.currency);
+        if (this.intermediaryAgents.size() > 3) {
+            throw new IllegalArgumentException("Intermediary agents cannot be more than 3");
+        }
+    }
+
+    /**
+     * @param amount   amount
+     * @param currency currency, having minor units
+     * @return the amount in minor units of the currency
+     * @throws IllegalArgumentException if the amount has more fraction digits than the currency, or does not fit in a long
+     */
+    public static long unscaledAmount(BigDecimal amount, Currency currency) {
+        Objects.requireNonNull(amount, "Amount cannot be null");
+        try {
+            return amount.setScale(scale(Objects.requireNonNull(currency, "Currency cannot be null"))).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount + " cannot be held in minor units of " + currency, e);
+        }
+    }
+
+    private static int scale(Currency currency) {
+        int scale = currency.getDefaultFractionDigits();
+        if (scale < 0) {
+            throw new IllegalArgumentException("Currency " + currency + " has no minor unit");
+        }
+        return scale;
+    }
+
+    @Override
+    public Optional<Party> getParty() {
+        return Optional.ofNullable(party);
+    }
+
+    @Override
+    public BankAccount getAccount() {
+        return account;
+    }
+
+    /**
+     * @return the amount, with the scale of the currency
+     */
+    @Override
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(unscaledAmount, getScale());
+    }
+
+    /**
+     * @return the amount in minor units of the currency
+     */
+    public long getUnscaledAmount() {
+        return unscaledAmount;
+    }
+
+    /**
+     * @return the scale of the amount, being the default number of fraction digits of the currency
+     */
+    public int getScale() {
+        return currency.getDefaultFractionDigits();
+    }
+
+    @Override
+    public String getCurrencyCode() {
+        return currency.getCurrencyCode();
+    }
+
+    @Override
+    public String getEndToEndId() {
+        return endToEndId;
+    }
+
+    @Override
+    public Optional<String> getId() {
+        return Optional.ofNullable(id);
+    }
+
+    @Override
+    public Optional<ChargeBearer> getChargeBearer() {
+        return Optional.ofNullable(chargeBearer);
+    }
+
+    @Override
+    public List<BankAccount> getIntermediaryAgents() {
+        return intermediaryAgents;
+    }
+
+    @Override
+    public Set<String> getRemittanceInformationUnstructured() {
+        return remittanceInformationUnstructured;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactTransaction)) return false;
+        CompactTransaction that = (CompactTransaction) o;
+        return unscaledAmount == that.unscaledAmount && getParty().equals(that.getParty()) && getAccount().equals(that.getAccount()) && currency.equals(that.currency) && getEndToEndId().equals(that.getEndToEndId()) && Objects.equals(getId(), that.getId()) && getChargeBearer().equals(that.getChargeBearer()) && getIntermediaryAgents().equals(that.getIntermediaryAgents()) && getRemittanceInformationUnstructured().equals(that.getRemittanceInformationUnstructured());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getParty(), getAccount(), unscaledAmount, currency, getEndToEndId(), getId(), getChargeBearer(), getIntermediaryAgents(), getRemittanceInformationUnstructured());
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CompactTransaction.class.getSimpleName() + "[", "]")
+                .add("party=" + party)
+                .add("account=" + account)
+                .add("amount=" + getAmount())
+                .add("currency=" + currency)
+                .add("endToEndId='" + endToEndId + "'")
+                .add("id='" + id + "'")
+                .add("chargeBearerCode=" + chargeBearer)
+                .add("intermediaryAgents=" + intermediaryAgents)
+                .add("remittanceInformationUnstructured=" + getRemittanceInformationUnstructured())
+                .toString();
+    }
+}
@@ -0,0 +1,105 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.BankAccount;
+import io.inisos.bank4j.ChargeBearer;
+import io.inisos.bank4j.Party;
+import io.inisos.bank4j.TransactionBuilder;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+public class CompactTransactionBuilder implements TransactionBuilder {
+    private Party party;
+    private BankAccount account;
+    private BigDecimal amount;
+    private Long unscaledAmount;
+    private Currency currency;
+    private String endToEndId;
+    private String id;
+    private ChargeBearer chargeBearer;
+    private final List<BankAccount> intermediaryAgents = new ArrayList<>();
+    private final Set<String> remittanceInformationUnstructured = new HashSet<>();
+
+    @Override
+    public CompactTransactionBuilder party(Party party) {
+        this.party = party;
+        return this;
+    }
+
+    @Override
+    public CompactTransactionBuilder account(BankAccount account) {
+        this.account = account;
+        return this;
+    }
+
+    /**
+     * @param amount amount, with at most as many fraction digits as the currency
+     * @return this
+     */
+    @Override
+    public CompactTransactionBuilder amount(BigDecimal amount) {
+        this.amount = amount;
+        this.unscaledAmount = null;
+        return this;
+    }
+
+    /**
+     * @param unscaledAmount amount in minor units of the currency, e.g. cents
+     * @return this
+     */
+    public CompactTransactionBuilder unscaledAmount(long unscaledAmount) {
+        this.unscaledAmount = unscaledAmount;
+        this.amount = null;
+        return this;
+    }
+
+    @Override
+    public CompactTransactionBuilder currency(Currency currency) {
+        this.currency = currency;
+        return this;
+    }
+
+    @Override
+    public CompactTransactionBuilder endToEndId(String endToEndId) {
+        this.endToEndId = endToEndId;
+        return this;
+    }
+
+    @Override
+    public CompactTransactionBuilder id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    @Override
+    public TransactionBuilder intermediaryAgents(List<BankAccount> intermediaryAgents) {
+        this.intermediaryAgents.addAll(intermediaryAgents);
+        return this;
+    }
+
+    @Override
+    public TransactionBuilder chargeBearerCode(ChargeBearer chargeBearer) {
+        this.chargeBearer = chargeBearer;
+        return this;
+    }
+
+    @Override
+    public TransactionBuilder intermediaryAgent(BankAccount intermediaryAgent) {
+        this.intermediaryAgents.add(intermediaryAgent);
+        return this;
+    }
+
+    @Override
+    public TransactionBuilder remittanceInformationUnstructured(Set<String> remittanceInformationUnstructured) {
+        this.remittanceInformationUnstructured.addAll(remittanceInformationUnstructured);
+        return this;
+    }
+
+    @Override
+    public CompactTransaction build() {
+        if (unscaledAmount == null) {
+            return new CompactTransaction(party, account, CompactTransaction.unscaledAmount(amount, currency), currency, endToEndId, id, chargeBearer, intermediaryAgents, remittanceInformationUnstructured);
+        }
+        return new CompactTransaction(party, account, unscaledAmount, currency, endToEndId, id, chargeBearer, intermediaryAgents, remittanceInformationUnstructured);
+    }
+}
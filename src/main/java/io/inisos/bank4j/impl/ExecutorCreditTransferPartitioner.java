@@ -0,0 +1,286 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.CreditTransferOperationBuilder;
+import io.inisos.bank4j.CreditTransferPartitioner;
+import io.inisos.bank4j.Transaction;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Partitions transactions on the calling thread and builds and writes credit transfers on an executor
+ *
+ * @param <K> partition key type
+ * @author Patrice Blanchardie
+ */
+public class ExecutorCreditTransferPartitioner<K> implements CreditTransferPartitioner<K> {
+
+    /**
+     * Default maximum number of transactions per credit transfer
+     */
+    public static final int DEFAULT_MAX_TRANSACTIONS_PER_FILE = 100_000;
+
+    private final Function<? super Transaction, ? extends K> key;
+    private BiFunction<? super K, Integer, CreditTransferOperationBuilder> builder;
+    private Consumer<? super CreditTransferOperation> writer;
+    private Consumer<? super ManifestEntry<K>> discard = entry -> {
+    };
+    private Executor executor = ForkJoinPool.commonPool();
+    private int maxTransactionsPerFile = DEFAULT_MAX_TRANSACTIONS_PER_FILE;
+    private int maxPendingFiles = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Constructor
+     *
+     * @param key partition key of a transaction
+     */
+    public ExecutorCreditTransferPartitioner(Function<? super Transaction, ? extends K> key) {
+        this.key = Objects.requireNonNull(key, "Key cannot be null");
+    }
+
+    @Override
+    public CreditTransferPartitioner<K> builder(BiFunction<? super K, Integer, CreditTransferOperationBuilder> builder) {
+        this.builder = builder;
+        return this;
+    }
+
+    @Override
+    public CreditTransferPartitioner<K> writer(Consumer<? super CreditTransferOperation> writer) {
+        this.writer = writer;
+        return this;
+    }
+
+    @Override
+    public CreditTransferPartitioner<K> discard(Consumer<? super ManifestEntry<K>> discard) {
+        this.discard = discard;
+        return this;
+    }
+
+    @Override
+    public CreditTransferPartitioner<K> executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    @Override
+    public CreditTransferPartitioner<K> maxTransactionsPerFile(int maxTransactionsPerFile) {
+        this.maxTransactionsPerFile = maxTransactionsPerFile;
+        return this;
+    }
+
+    @Override
+    public CreditTransferPartitioner<K> maxPendingFiles(int maxPendingFiles) {
+        this.maxPendingFiles = maxPendingFiles;
+        return this;
+    }
+
+    @Override
+    public List<ManifestEntry<K>> generate(Stream<Transaction> transactions) {
+        Objects.requireNonNull(transactions, "Transactions cannot be null");
+        Objects.requireNonNull(builder, "Builder cannot be null");
+        Objects.requireNonNull(writer, "Writer cannot be null");
+        Objects.requireNonNull(discard, "Discard cannot be null");
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        if (maxTransactionsPerFile < 1) {
+            throw new IllegalArgumentException("Max transactions per file must be at least 1");
+        }
+        if (maxPendingFiles < 1) {
+            throw new IllegalArgumentException("Max pending files must be at least 1");
+        }
+
+        Semaphore pending = new Semaphore(maxPendingFiles);
+        AtomicBoolean failed = new AtomicBoolean();
+        Map<K, Partition> partitions = new LinkedHashMap<>();
+        List<CompletableFuture<ManifestEntry<K>>> files = new ArrayList<>();
+
+        try (Stream<Transaction> stream = transactions) {
+            Iterator<Transaction> iterator = stream.iterator();
+            while (!failed.get() && iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                K partitionKey = key.apply(transaction);
+                Partition partition = partitions.computeIfAbsent(partitionKey, k -> new Partition());
+                partition.transactions.add(transaction);
+                if (partition.transactions.size() == maxTransactionsPerFile) {
+                    files.add(submit(partitionKey, partition, pending, failed));
+                }
+            }
+            for (Map.Entry<K, Partition> partition : partitions.entrySet()) {
+                if (!failed.get() && !partition.getValue().transactions.isEmpty()) {
+                    files.add(submit(partition.getKey(), partition.getValue(), pending, failed));
+                }
+            }
+        } catch (RuntimeException e) {
+            failed.set(true);
+            discard(await(files, e), e);
+            throw e;
+        }
+
+        return join(files, partitions);
+    }
+
+    private CompletableFuture<ManifestEntry<K>> submit(K partitionKey, Partition partition, Semaphore pending, AtomicBoolean failed) {
+        int part = ++partition.parts;
+        List<Transaction> transactions = partition.transactions;
+        partition.transactions = new ArrayList<>();
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for pending files", e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> write(partitionKey, part, transactions, failed), executor)
+                    .whenComplete((entry, e) -> pending.release());
+        } catch (RuntimeException e) {
+            pending.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Build and write a credit transfer, unless another one already failed
+     *
+     * @return its manifest entry, or null if skipped
+     */
+    private ManifestEntry<K> write(K partitionKey, int part, List<Transaction> transactions, AtomicBoolean failed) {
+        if (failed.get()) {
+            return null;
+        }
+        try {
+            CreditTransferOperation operation = Objects.requireNonNull(builder.apply(partitionKey, part), "Builder cannot be null")
+                    .transactions(transactions)
+                    .build();
+            writer.accept(operation);
+            return new Entry<>(partitionKey, part, operation.getId(), transactions.size(), operation.getControlSum());
+        } catch (RuntimeException e) {
+            failed.set(true);
+            throw e;
+        }
+    }
+
+    private List<ManifestEntry<K>> join(List<CompletableFuture<ManifestEntry<K>>> files, Map<K, Partition> partitions) {
+        List<ManifestEntry<K>> manifest = new ArrayList<>(files.size());
+        RuntimeException failure = null;
+        for (CompletableFuture<ManifestEntry<K>> file : files) {
+            try {
+                manifest.add(file.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            manifest.removeIf(Objects::isNull);
+            discard(manifest, failure);
+            throw failure;
+        }
+        Map<K, Integer> order = new HashMap<>();
+        partitions.keySet().forEach(partitionKey -> order.put(partitionKey, order.size()));
+        manifest.sort(Comparator.<ManifestEntry<K>>comparingInt(entry -> order.get(entry.getKey()))
+                .thenComparingInt(ManifestEntry::getPart));
+        return manifest;
+    }
+
+    /**
+     * Wait for credit transfers handed over to the executor, once reading transactions failed
+     *
+     * @return entries of credit transfers written
+     */
+    private List<ManifestEntry<K>> await(List<CompletableFuture<ManifestEntry<K>>> files, RuntimeException failure) {
+        List<ManifestEntry<K>> written = new ArrayList<>(files.size());
+        for (CompletableFuture<ManifestEntry<K>> file : files) {
+            try {
+                ManifestEntry<K> entry = file.join();
+                if (entry != null) {
+                    written.add(entry);
+                }
+            } catch (CompletionException e) {
+                failure.addSuppressed(e.getCause());
+            }
+        }
+        return written;
+    }
+
+    private void discard(List<ManifestEntry<K>> written, RuntimeException failure) {
+        for (ManifestEntry<K> entry : written) {
+            try {
+                discard.accept(entry);
+            } catch (RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private static final class Partition {
+
+        private List<Transaction> transactions = new ArrayList<>();
+        private int parts;
+    }
+
+    private static final class Entry<K> implements ManifestEntry<K> {
+
+        private final K key;
+        private final int part;
+        private final String id;
+        private final int numberOfTransactions;
+        private final BigDecimal controlSum;
+
+        private Entry(K key, int part, String id, int numberOfTransactions, BigDecimal controlSum) {
+            this.key = key;
+            this.part = part;
+            this.id = id;
+            this.numberOfTransactions = numberOfTransactions;
+            this.controlSum = controlSum;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public int getPart() {
+            return part;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public int getNumberOfTransactions() {
+            return numberOfTransactions;
+        }
+
+        @Override
+        public BigDecimal getControlSum() {
+            return controlSum;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", ManifestEntry.class.getSimpleName() + "[", "]")
+                    .add("key=" + key)
+                    .add("part=" + part)
+                    .add("id='" + id + "'")
+                    .add("numberOfTransactions=" + numberOfTransactions)
+                    .add("controlSum=" + controlSum)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide registry of JAXB contexts, lazily created once per pain.001 version,
+ * with a bounded pool of configured marshallers per version.
+ * <p>
+ * Creating a {@link JAXBContext} is expensive and contexts are thread-safe, whereas marshallers are cheap but not
+ * thread-safe: a marshaller is borrowed for the duration of a marshalling and given back afterwards.
+ * When all marshallers of a version are in use, callers wait for one to be released.
+ * <p>
+ * Schema validation is requested per marshalling: marshallers then validate output against the schemas of
+ * {@link SchemaRegistry} while marshalling, in the same pass.
+ *
+ * @author Patrice Blanchardie
+ */
+public final class JAXBContextRegistry {
+
+    /**
+     * Default maximum number of pooled marshallers per version
+     */
+    public static final int DEFAULT_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final JAXBContextRegistry INSTANCE = new JAXBContextRegistry(DEFAULT_POOL_SIZE);
+
+    private final int poolSize;
+    private final Map<CustomerCreditTransferInitiationVersion, Entry> entries = new EnumMap<>(CustomerCreditTransferInitiationVersion.class);
+
+    private final LongAdder contextHits = new LongAdder();
+    private final LongAdder contextMisses = new LongAdder();
+    private final LongAdder marshallerHits = new LongAdder();
+    private final LongAdder marshallerMisses = new LongAdder();
+    private final LongAdder poolWaits = new LongAdder();
+    private final LongAdder poolWaitNanos = new LongAdder();
+
+    /**
+     * Constructor
+     *
+     * @param poolSize maximum number of marshallers per version
+     */
+    public JAXBContextRegistry(int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.poolSize = poolSize;
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            this.entries.put(version, new Entry(version, poolSize));
+        }
+    }
+
+    /**
+     * @return the shared registry
+     */
+    public static JAXBContextRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the JAXB context of a version, creating it on first use
+     *
+     * @param version pain.001 version
+     * @return the shared JAXB context
+     */
+    public JAXBContext getContext(CustomerCreditTransferInitiationVersion version) {
+        return entry(version).context();
+    }
+
+    /**
+     * Borrow a configured marshaller, waiting if all marshallers of this version are in use.
+     * It must be given back with {@link #releaseMarshaller(CustomerCreditTransferInitiationVersion, Marshaller)}.
+     *
+     * @param version   pain.001 version
+     * @param formatted true to format output, false to leave unformatted
+     * @return a marshaller for this version only, not validating output
+     */
+    public Marshaller acquireMarshaller(CustomerCreditTransferInitiationVersion version, boolean formatted) {
+        return acquireMarshaller(version, formatted, false);
+    }
+
+    /**
+     * Same as {@link #acquireMarshaller(CustomerCreditTransferInitiationVersion, boolean)}, optionally validating output
+     *
+     * @param version   pain.001 version
+     * @param formatted true to format output, false to leave unformatted
+     * @param validated true to validate output against the schema of this version
+     * @return a marshaller for this version only
+     */
+    public Marshaller acquireMarshaller(CustomerCreditTransferInitiationVersion version, boolean formatted, boolean validated) {
+        Marshaller marshaller = entry(version).acquire();
+        try {
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
+            marshaller.setSchema(validated ? SchemaRegistry.getInstance().getSchema(version) : null);
+        } catch (JAXBException e) {
+            releaseMarshaller(version, marshaller);
+            throw new XmlException(e);
+        } catch (RuntimeException e) {
+            releaseMarshaller(version, marshaller);
+            throw e;
+        }
+        return marshaller;
+    }
+
+    /**
+     * Give back a borrowed marshaller
+     *
+     * @param version    pain.001 version the marshaller was borrowed for
+     * @param marshaller marshaller
+     */
+    public void releaseMarshaller(CustomerCreditTransferInitiationVersion version, Marshaller marshaller) {
+        entry(version).release(marshaller);
+    }
+
+    /**
+     * Marshal a JAXB element with a pooled marshaller
+     *
+     * @param version    pain.001 version
+     * @param jaxbElement element to marshal
+     * @param writer     writer
+     * @param formatted  true to format output, false to leave unformatted
+     */
+    public void marshal(CustomerCreditTransferInitiationVersion version, Object jaxbElement, Writer writer, boolean formatted) {
+        marshal(version, jaxbElement, writer, formatted, false);
+    }
+
+    /**
+     * Marshal a JAXB element with a pooled marshaller, optionally validating output
+     *
+     * @param version     pain.001 version
+     * @param jaxbElement element to marshal
+     * @param writer      writer
+     * @param formatted   true to format output, false to leave unformatted
+     * @param validated   true to validate output against the schema of this version while marshalling
+     */
+    public void marshal(CustomerCreditTransferInitiationVersion version, Object jaxbElement, Writer writer, boolean formatted, boolean validated) {
+        Marshaller marshaller = acquireMarshaller(version, formatted, validated);
+        try {
+            marshaller.marshal(jaxbElement, writer);
+        } catch (JAXBException e) {
+            throw new XmlException(e);
+        } finally {
+            releaseMarshaller(version, marshaller);
+        }
+    }
+
+    /**
+     * Marshal a JAXB element as UTF-8 with a pooled marshaller
+     * <p>
+     * Characters are encoded as they are marshalled, through a writer rather than JAXB's own UTF-8 output, which orders
+     * root element attributes differently, so that output is the same as {@link #marshal(CustomerCreditTransferInitiationVersion, Object, Writer, boolean)}.
+     *
+     * @param version      pain.001 version
+     * @param jaxbElement  element to marshal
+     * @param outputStream output stream
+     * @param formatted    true to format output, false to leave unformatted
+     */
+    public void marshal(CustomerCreditTransferInitiationVersion version, Object jaxbElement, OutputStream outputStream, boolean formatted) {
+        marshal(version, jaxbElement, outputStream, formatted, false);
+    }
+
+    /**
+     * Marshal a JAXB element as UTF-8 with a pooled marshaller, optionally validating output
+     *
+     * @param version      pain.001 version
+     * @param jaxbElement  element to marshal
+     * @param outputStream output stream
+     * @param formatted    true to format output, false to leave unformatted
+     * @param validated    true to validate output against the schema of this version while marshalling
+     */
+    public void marshal(CustomerCreditTransferInitiationVersion version, Object jaxbElement, OutputStream outputStream, boolean formatted, boolean validated) {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        marshal(version, jaxbElement, writer, formatted, validated);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return maximum number of marshallers per version
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * @return a snapshot of usage counters
+     */
+    public Statistics getStatistics() {
+        return new Statistics(contextHits.sum(), contextMisses.sum(), marshallerHits.sum(), marshallerMisses.sum(), poolWaits.sum(), poolWaitNanos.sum());
+    }
+
+    private Entry entry(CustomerCreditTransferInitiationVersion version) {
+        Entry entry = entries.get(version);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+        return entry;
+    }
+
+    private static Class<?> documentClass(CustomerCreditTransferInitiationVersion version) {
+        switch (version) {
+            case V03:
+                return iso._20022.pain_001_001_03.Document.class;
+            case V09:
+                return iso._20022.pain_001_001_09.Document.class;
+            case V03_CH_02:
+                return iso._20022.pain_001_001_03_ch_02.Document.class;
+            case V003_03:
+                return iso._20022.pain_001_003_03.Document.class;
+            default:
+                throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+    }
+
+    private static String schemaLocation(CustomerCreditTransferInitiationVersion version) {
+        switch (version) {
+            case V03_CH_02:
+                return "http://www.six-interbank-clearing.com/de/pain.001.001.03.ch.02.xsd";
+            case V003_03:
+                return "urn:iso:std:iso:20022:tech:xsd:pain.001.003.03.xsd";
+            default:
+                return null;
+        }
+    }
+
+    private final class Entry {
+
+        private final CustomerCreditTransferInitiationVersion version;
+        private final BlockingQueue<Marshaller> idle;
+        private final AtomicInteger created = new AtomicInteger();
+        private volatile JAXBContext context;
+
+        private Entry(CustomerCreditTransferInitiationVersion version, int poolSize) {
+            this.version = version;
+            this.idle = new ArrayBlockingQueue<>(poolSize);
+        }
+
+        private JAXBContext context() {
+            JAXBContext result = context;
+            if (result != null) {
+                contextHits.increment();
+                return result;
+            }
+            synchronized (this) {
+                if (context == null) {
+                    contextMisses.increment();
+                    try {
+                        context = JAXBContext.newInstance(documentClass(version));
+                    } catch (JAXBException e) {
+                        throw new XmlException(e);
+                    }
+                } else {
+                    contextHits.increment();
+                }
+                return context;
+            }
+        }
+
+        private Marshaller acquire() {
+            Marshaller marshaller = idle.poll();
+            if (marshaller != null) {
+                marshallerHits.increment();
+                return marshaller;
+            }
+            if (created.incrementAndGet() <= poolSize) {
+                marshallerMisses.increment();
+                return create();
+            }
+            created.decrementAndGet();
+            poolWaits.increment();
+            long start = System.nanoTime();
+            try {
+                marshaller = idle.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a marshaller", e);
+            } finally {
+                poolWaitNanos.add(System.nanoTime() - start);
+            }
+            marshallerHits.increment();
+            return marshaller;
+        }
+
+        private Marshaller create() {
+            try {
+                Marshaller marshaller = context().createMarshaller();
+                String schemaLocation = schemaLocation(version);
+                if (schemaLocation != null) {
+                    marshaller.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, schemaLocation);
+                }
+                return marshaller;
+            } catch (JAXBException e) {
+                created.decrementAndGet();
+                throw new XmlException(e);
+            } catch (RuntimeException e) {
+                created.decrementAndGet();
+                throw e;
+            }
+        }
+
+        private void release(Marshaller marshaller) {
+            if (!idle.offer(marshaller)) {
+                throw new IllegalStateException("More marshallers released than acquired for " + version);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of registry counters
+     */
+    public static final class Statistics {
+
+        private final long contextHits;
+        private final long contextMisses;
+        private final long marshallerHits;
+        private final long marshallerMisses;
+        private final long poolWaits;
+        private final long poolWaitNanos;
+
+        private Statistics(long contextHits, long contextMisses, long marshallerHits, long marshallerMisses, long poolWaits, long poolWaitNanos) {
+            this.contextHits = contextHits;
+            this.contextMisses = contextMisses;
+            this.marshallerHits = marshallerHits;
+            this.marshallerMisses = marshallerMisses;
+            this.poolWaits = poolWaits;
+            this.poolWaitNanos = poolWaitNanos;
+        }
+
+        /**
+         * @return number of times an existing JAXB context was reused
+         */
+        public long getContextHits() {
+            return contextHits;
+        }
+
+        /**
+         * @return number of JAXB contexts created
+         */
+        public long getContextMisses() {
+            return contextMisses;
+        }
+
+        /**
+         * @return number of times a pooled marshaller was reused
+         */
+        public long getMarshallerHits() {
+            return marshallerHits;
+        }
+
+        /**
+         * @return number of marshallers created
+         */
+        public long getMarshallerMisses() {
+            return marshallerMisses;
+        }
+
+        /**
+         * @return number of times a caller had to wait for a marshaller to be released
+         */
+        public long getPoolWaits() {
+            return poolWaits;
+        }
+
+        /**
+         * @return total time spent waiting for a marshaller, in nanoseconds
+         */
+        public long getPoolWaitNanos() {
+            return poolWaitNanos;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Statistics.class.getSimpleName() + "[", "]")
+                    .add("contextHits=" + contextHits)
+                    .add("contextMisses=" + contextMisses)
+                    .add("marshallerHits=" + marshallerHits)
+                    .add("marshallerMisses=" + marshallerMisses)
+                    .add("poolWaits=" + poolWaits)
+                    .add("poolWaitNanos=" + poolWaitNanos)
+                    .toString();
+        }
+    }
+}
@@ -2,11 +2,13 @@ package io.inisos.bank4j.impl;
 
 import io.inisos.bank4j.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class JAXBCreditTransferBuilder implements CreditTransferOperationBuilder {
     private CustomerCreditTransferInitiationVersion version;
@@ -14,7 +16,8 @@ public class JAXBCreditTransferBuilder implements CreditTransferOperationBuilder
     private String serviceLevelCode;
     private Party debtor;
     private BankAccount debtorAccount;
-    private final Collection<Transaction> transactions = new ArrayList<>();
+    private final TransactionList transactions = new TransactionList();
+    private StreamedTransactions streamedTransactions;
     private String id;
     private LocalDateTime creationDateTime;
     private LocalDate requestedExecutionDate;
@@ -22,6 +25,8 @@ public class JAXBCreditTransferBuilder implements CreditTransferOperationBuilder
     private ChargeBearer chargeBearer;
     private Boolean batchBooking;
     private Boolean instantPayment;
+    private Boolean retainDocument;
+    private Boolean schemaValidation;
 
     public JAXBCreditTransferBuilder version(CustomerCreditTransferInitiationVersion version) {
         this.version = version;
@@ -54,6 +59,15 @@ public class JAXBCreditTransferBuilder implements CreditTransferOperationBuilder
 
     @Override
     public CreditTransferOperationBuilder transactions(Collection<Transaction> transactions) {
+        if (StreamedTransactions.isStreamed(transactions) || transactions instanceof AggregatedTransactions) {
+            if (this.streamedTransactions != null) {
+                throw new IllegalStateException("Streamed transactions can only be set once");
+            }
+            this.streamedTransactions = transactions instanceof AggregatedTransactions
+                    ? ((AggregatedTransactions) transactions).streamed()
+                    : (StreamedTransactions) transactions;
+            return this;
+        }
         this.transactions.addAll(transactions);
         return this;
     }
@@ -64,6 +78,24 @@ public class JAXBCreditTransferBuilder implements CreditTransferOperationBuilder
         return this;
     }
 
+    @Override
+    public CreditTransferOperationBuilder transactions(Stream<Transaction> transactions, int numberOfTransactions, BigDecimal controlSum) {
+        if (this.streamedTransactions != null) {
+            throw new IllegalStateException("Streamed transactions can only be set once");
+        }
+        this.streamedTransactions = StreamedTransactions.declared(transactions, numberOfTransactions, controlSum);
+        return this;
+    }
+
+    @Override
+    public CreditTransferOperationBuilder transactions(Supplier<? extends Stream<Transaction>> transactions) {
+        if (this.streamedTransactions != null) {
+            throw new IllegalStateException("Streamed transactions can only be set once");
+        }
+        this.streamedTransactions = StreamedTransactions.reiterable(transactions);
+        return this;
+    }
+
     @Override
     public CreditTransferOperationBuilder id(String id) {
         this.id = id;
@@ -118,20 +150,39 @@ public class JAXBCreditTransferBuilder implements CreditTransferOperationBuilder
         return this;
     }
 
+    @Override
+    public CreditTransferOperationBuilder retainDocument(Boolean retainDocument) {
+        this.retainDocument = retainDocument;
+        return this;
+    }
+
+    @Override
+    public CreditTransferOperationBuilder schemaValidation(Boolean schemaValidation) {
+        this.schemaValidation = schemaValidation;
+        return this;
+    }
+
     @Override
     public CreditTransferOperation build() {
         if (version == null) {
             throw new IllegalStateException("Version must be set");
         }
+        Collection<Transaction> transactions = this.transactions;
+        if (streamedTransactions != null) {
+            if (!this.transactions.isEmpty()) {
+                throw new IllegalStateException("Streamed transactions cannot be combined with other transactions");
+            }
+            transactions = streamedTransactions;
+        }
         switch (version) {
             case V03:
-                return new JAXBCreditTransferV03(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, chargeBearer, batchBooking);
+                return new JAXBCreditTransferV03(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, chargeBearer, batchBooking, retainDocument, schemaValidation);
             case V09:
-                return new JAXBCreditTransferV09(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, requestedExecutionDateTime, chargeBearer, batchBooking, instantPayment);
+                return new JAXBCreditTransferV09(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, requestedExecutionDateTime, chargeBearer, batchBooking, instantPayment, retainDocument, schemaValidation);
             case V03_CH_02:
-                return new JAXBCreditTransferV03Ch02(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, chargeBearer, batchBooking);
+                return new JAXBCreditTransferV03Ch02(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, chargeBearer, batchBooking, retainDocument, schemaValidation);
             case V003_03:
-                return new JAXBSepaCreditTransfer003V03(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, chargeBearer, batchBooking);
+                return new JAXBSepaCreditTransfer003V03(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, chargeBearer, batchBooking, retainDocument, schemaValidation);
             default:
                 throw new IllegalArgumentException("Unsupported version: " + version);
         }
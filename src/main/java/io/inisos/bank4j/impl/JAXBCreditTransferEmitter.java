@@ -0,0 +1,88 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import io.inisos.bank4j.Party;
+import io.inisos.bank4j.Transaction;
+import jakarta.xml.bind.JAXBElement;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Creates the JAXB objects of one pain.001 version.
+ * <p>
+ * The document structure, the transaction loop and streaming are driven by {@link JAXBCreditTransferMapper}, parties,
+ * postal addresses, accounts and agents are mapped by {@link JAXBFragments}: an emitter only knows its generated types.
+ * Fragments are mapped through the cache of the current build, so that they are shared within a document.
+ *
+ * @param <E> credit transfer
+ * @param <D> document
+ * @param <C> customer credit transfer initiation
+ * @param <P> payment instruction
+ * @param <T> credit transfer transaction
+ * @author Patrice Blanchardie
+ */
+interface JAXBCreditTransferEmitter<E extends CreditTransferOperation, D, C, P, T> {
+
+    /**
+     * @return emitted pain.001 version
+     */
+    CustomerCreditTransferInitiationVersion getVersion();
+
+    /**
+     * @param initiation customer credit transfer initiation
+     * @return the document element holding it
+     */
+    JAXBElement<D> document(C initiation);
+
+    /**
+     * @return an empty customer credit transfer initiation
+     */
+    C initiation();
+
+    /**
+     * Set the group header of a customer credit transfer initiation
+     *
+     * @param initiation           customer credit transfer initiation
+     * @param id                   message id
+     * @param creationDateTime     message creation date time
+     * @param numberOfTransactions number of transactions
+     * @param controlSum           control sum
+     * @param initiatingParty      optional initiating party
+     * @param fragments            fragments of the current build
+     */
+    void groupHeader(C initiation, String id, XMLGregorianCalendar creationDateTime, String numberOfTransactions, BigDecimal controlSum, Party initiatingParty, JAXBFragments.Cache fragments);
+
+    /**
+     * @param initiation customer credit transfer initiation
+     * @return its live list of payment instructions
+     */
+    List<P> paymentInstructions(C initiation);
+
+    /**
+     * @return an empty payment instruction
+     */
+    P paymentInstruction();
+
+    /**
+     * @param creditTransfer credit transfer
+     * @param fragments      fragments of the current build
+     * @return its payment instruction, without transactions
+     */
+    P paymentInstruction(E creditTransfer, JAXBFragments.Cache fragments);
+
+    /**
+     * @param paymentInstruction payment instruction
+     * @return its live list of transactions
+     */
+    List<T> transactions(P paymentInstruction);
+
+    /**
+     * @param transaction transaction
+     * @param fragments   fragments of the current build
+     * @return the credit transfer transaction
+     */
+    T transaction(Transaction transaction, JAXBFragments.Cache fragments);
+}
@@ -0,0 +1,211 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import io.inisos.bank4j.Party;
+import io.inisos.bank4j.Transaction;
+import jakarta.xml.bind.JAXBElement;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Version-agnostic mapping of credit transfers to JAXB documents, delegating version-specific objects to an emitter.
+ * <p>
+ * Builds documents, messages and the headers of streamed payment information, runs the transaction loop and picks
+ * between in-memory and streaming marshalling, once for all versions.
+ * Each build, and each run of streamed transactions, maps its repeated fragments once through its own
+ * {@link JAXBFragments.Cache}.
+ *
+ * @param <E> credit transfer
+ * @param <D> document
+ * @param <C> customer credit transfer initiation
+ * @param <P> payment instruction
+ * @param <T> credit transfer transaction
+ * @author Patrice Blanchardie
+ */
+final class JAXBCreditTransferMapper<E extends CreditTransferOperation, D, C, P, T> {
+
+    private final JAXBCreditTransferEmitter<E, D, C, P, T> emitter;
+
+    /**
+     * Constructor
+     *
+     * @param emitter version emitter
+     */
+    JAXBCreditTransferMapper(JAXBCreditTransferEmitter<E, D, C, P, T> emitter) {
+        this.emitter = Objects.requireNonNull(emitter, "Emitter cannot be null");
+    }
+
+    /**
+     * @return mapped pain.001 version
+     */
+    CustomerCreditTransferInitiationVersion getVersion() {
+        return emitter.getVersion();
+    }
+
+    /**
+     * Build the customer credit transfer initiation of a credit transfer, its debtor being the initiating party
+     *
+     * @param creditTransfer   credit transfer
+     * @param withTransactions false to leave transactions out, e.g. to stream them
+     * @return customer credit transfer initiation
+     */
+    C build(E creditTransfer, boolean withTransactions) {
+        JAXBFragments.Cache fragments = new JAXBFragments.Cache();
+        C initiation = emitter.initiation();
+        emitter.groupHeader(initiation,
+                creditTransfer.getId(),
+                XmlDateTimes.dateTime(creditTransfer.getCreationDateTime()),
+                String.valueOf(creditTransfer.getNumberOfTransactions()),
+                creditTransfer.getControlSum(),
+                creditTransfer.getDebtor().orElse(null),
+                fragments);
+
+        P paymentInstruction = emitter.paymentInstruction(creditTransfer, fragments);
+        if (withTransactions) {
+            List<T> transactions = emitter.transactions(paymentInstruction);
+            for (Transaction transaction : creditTransfer.getTransactions()) {
+                transactions.add(emitter.transaction(transaction, fragments));
+            }
+        }
+        emitter.paymentInstructions(initiation).add(paymentInstruction);
+
+        return initiation;
+    }
+
+    /**
+     * @param initiation customer credit transfer initiation
+     * @return Document containing it
+     */
+    JAXBElement<D> createDocument(C initiation) {
+        return emitter.document(initiation);
+    }
+
+    /**
+     * Create the JAXB Document of a credit transfer
+     * <p>
+     * Streamed transactions are consumed to build the whole document.
+     *
+     * @param creditTransfer credit transfer
+     * @param initiation     its customer credit transfer initiation, built on first use, without transactions if they are streamed
+     * @return Document containing the credit transfer
+     */
+    JAXBElement<D> createDocument(E creditTransfer, LazyInitiation<C> initiation) {
+        if (StreamedTransactions.isStreamed(creditTransfer.getTransactions())) {
+            return emitter.document(build(creditTransfer, true));
+        }
+        return emitter.document(initiation.get());
+    }
+
+    /**
+     * Create a JAXB Document holding a single transaction, to be marshalled on its own
+     *
+     * @param transaction transaction
+     * @param fragments   fragments of the current run of streamed transactions
+     * @return Document containing only the transaction
+     */
+    JAXBElement<D> createTransactionDocument(Transaction transaction, JAXBFragments.Cache fragments) {
+        P paymentInstruction = emitter.paymentInstruction();
+        emitter.transactions(paymentInstruction).add(emitter.transaction(transaction, fragments));
+        C initiation = emitter.initiation();
+        emitter.paymentInstructions(initiation).add(paymentInstruction);
+        return emitter.document(initiation);
+    }
+
+    /**
+     * Create the JAXB Document of a message holding the payment information of several credit transfers
+     *
+     * @param id                 message id
+     * @param creationDateTime   message creation date time
+     * @param initiatingParty    initiating party
+     * @param paymentInformation credit transfers, each one being a payment information
+     * @param initiation         customer credit transfer initiation of a credit transfer, with its transactions
+     * @return Document containing the message
+     */
+    JAXBElement<D> createMessageDocument(String id, LocalDateTime creationDateTime, Party initiatingParty, List<? extends E> paymentInformation, Function<? super E, C> initiation) {
+        C message = emitter.initiation();
+        emitter.groupHeader(message,
+                id,
+                XmlDateTimes.dateTime(creationDateTime),
+                String.valueOf(paymentInformation.stream().mapToInt(CreditTransferOperation::getNumberOfTransactions).sum()),
+                paymentInformation.stream().map(CreditTransferOperation::getControlSum).reduce(BigDecimal.ZERO, BigDecimal::add),
+                initiatingParty,
+                new JAXBFragments.Cache());
+
+        List<P> paymentInstructions = emitter.paymentInstructions(message);
+        for (E creditTransfer : paymentInformation) {
+            paymentInstructions.addAll(emitter.paymentInstructions(initiation.apply(creditTransfer)));
+        }
+        return emitter.document(message);
+    }
+
+    /**
+     * Payment information whose transactions are streamed, within the header document of a message
+     *
+     * @param creditTransfer       credit transfer
+     * @param id                   message id
+     * @param creationDateTime     message creation date time
+     * @param initiatingParty      initiating party
+     * @param numberOfTransactions number of transactions of the message
+     * @param controlSum           control sum of the message
+     * @return the first payment information of a streamed message
+     */
+    JAXBStreamingMarshaller.PaymentInformation paymentInformation(E creditTransfer, String id, LocalDateTime creationDateTime, Party initiatingParty, int numberOfTransactions, BigDecimal controlSum) {
+        JAXBFragments.Cache fragments = new JAXBFragments.Cache();
+        C message = emitter.initiation();
+        emitter.groupHeader(message, id, XmlDateTimes.dateTime(creationDateTime), String.valueOf(numberOfTransactions), controlSum, initiatingParty, fragments);
+        emitter.paymentInstructions(message).add(emitter.paymentInstruction(creditTransfer, fragments));
+        return new JAXBStreamingMarshaller.PaymentInformation(emitter.document(message), creditTransfer.getTransactions().iterator(), transaction -> createTransactionDocument(transaction, fragments));
+    }
+
+    /**
+     * @param creditTransfer credit transfer
+     * @return payment information whose transactions are streamed, following the first one of a streamed message
+     */
+    JAXBStreamingMarshaller.PaymentInformation paymentInformation(E creditTransfer) {
+        JAXBFragments.Cache fragments = new JAXBFragments.Cache();
+        return new JAXBStreamingMarshaller.PaymentInformation(emitter.document(build(creditTransfer, false)), creditTransfer.getTransactions().iterator(), transaction -> createTransactionDocument(transaction, fragments));
+    }
+
+    /**
+     * Marshal a credit transfer, streaming its transactions if needed
+     *
+     * @param creditTransfer credit transfer
+     * @param initiation     its customer credit transfer initiation, built on first use, without transactions if they are streamed
+     * @param writer         writer
+     * @param formatted      true to format the output
+     * @param validated      true to validate the output against the schema of the version
+     */
+    void marshal(E creditTransfer, LazyInitiation<C> initiation, Writer writer, boolean formatted, boolean validated) {
+        if (StreamedTransactions.isStreamed(creditTransfer.getTransactions())) {
+            JAXBFragments.Cache fragments = new JAXBFragments.Cache();
+            JAXBStreamingMarshaller.marshal(getVersion(), emitter.document(initiation.get()), creditTransfer.getTransactions().iterator(), transaction -> createTransactionDocument(transaction, fragments), writer, formatted, validated);
+        } else {
+            JAXBContextRegistry.getInstance().marshal(getVersion(), emitter.document(initiation.get()), writer, formatted, validated);
+        }
+    }
+
+    /**
+     * Marshal a credit transfer, streaming its transactions if needed
+     *
+     * @param creditTransfer credit transfer
+     * @param initiation     its customer credit transfer initiation, built on first use, without transactions if they are streamed
+     * @param outputStream   output stream
+     * @param formatted      true to format the output
+     * @param validated      true to validate the output against the schema of the version
+     */
+    void marshal(E creditTransfer, LazyInitiation<C> initiation, OutputStream outputStream, boolean formatted, boolean validated) {
+        if (StreamedTransactions.isStreamed(creditTransfer.getTransactions())) {
+            JAXBFragments.Cache fragments = new JAXBFragments.Cache();
+            JAXBStreamingMarshaller.marshal(getVersion(), emitter.document(initiation.get()), creditTransfer.getTransactions().iterator(), transaction -> createTransactionDocument(transaction, fragments), outputStream, formatted, validated);
+        } else {
+            JAXBContextRegistry.getInstance().marshal(getVersion(), emitter.document(initiation.get()), outputStream, formatted, validated);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.*;
+import jakarta.xml.bind.JAXBElement;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * A JAXB ISO 20022 Credit Transfer message with several payment information
+ *
+ * @author Patrice Blanchardie
+ */
+public class JAXBCreditTransferMessage implements CreditTransferMessage {
+
+    private static final DateTimeFormatter FORMAT_AS_ID = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final CustomerCreditTransferInitiationVersion version;
+    private final String id;
+    private final LocalDateTime creationDateTime;
+    private final Party initiatingParty;
+    private final List<CreditTransferOperation> paymentInformation;
+    private final boolean schemaValidation;
+
+    /**
+     * Constructor
+     *
+     * @param version            version
+     * @param id                 optional identifier, defaults to creation date and time
+     * @param creationDateTime   optional message creation date and time, defaults to now
+     * @param initiatingParty    optional initiating party, defaults to the debtor of the first payment information
+     * @param paymentInformation JAXB credit transfers of this version, each one being a payment information
+     */
+    public JAXBCreditTransferMessage(CustomerCreditTransferInitiationVersion version, String id, LocalDateTime creationDateTime, Party initiatingParty, List<CreditTransferOperation> paymentInformation) {
+        this(version, id, creationDateTime, initiatingParty, paymentInformation, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param version            version
+     * @param id                 optional identifier, defaults to creation date and time
+     * @param creationDateTime   optional message creation date and time, defaults to now
+     * @param initiatingParty    optional initiating party, defaults to the debtor of the first payment information
+     * @param paymentInformation JAXB credit transfers of this version, each one being a payment information
+     * @param schemaValidation   optional, true to validate output against the schema of its version while marshalling, defaults to false
+     */
+    public JAXBCreditTransferMessage(CustomerCreditTransferInitiationVersion version, String id, LocalDateTime creationDateTime, Party initiatingParty, List<CreditTransferOperation> paymentInformation, Boolean schemaValidation) {
+        this.version = Objects.requireNonNull(version, "Version cannot be null");
+        this.paymentInformation = Collections.unmodifiableList(new ArrayList<>(Objects.requireNonNull(paymentInformation, "Payment information cannot be null")));
+        if (this.paymentInformation.isEmpty()) {
+            throw new IllegalArgumentException("At least 1 payment information is required");
+        }
+        Set<String> paymentInformationIds = new HashSet<>();
+        for (CreditTransferOperation creditTransfer : this.paymentInformation) {
+            if (!paymentInformationIds.add(creditTransfer.getId())) {
+                throw new IllegalArgumentException("Duplicate payment information id: " + creditTransfer.getId());
+            }
+        }
+        this.creationDateTime = Optional.ofNullable(creationDateTime).orElse(LocalDateTime.now());
+        this.id = Optional.ofNullable(id).orElseGet(() -> FORMAT_AS_ID.format(this.creationDateTime));
+        this.initiatingParty = Optional.ofNullable(initiatingParty).orElseGet(() -> this.paymentInformation.get(0).getDebtor().orElse(null));
+        this.schemaValidation = Optional.ofNullable(schemaValidation).orElse(false);
+        paymentInformation(creditTransferClass(this.version));
+    }
+
+    /**
+     * Marshal the message, streaming payment information one after the other if any of them has streamed transactions
+     *
+     * @param writer    writer
+     * @param formatted true to format output, false to leave unformatted
+     */
+    @Override
+    public void marshal(Writer writer, boolean formatted) {
+        if (isStreamed()) {
+            JAXBStreamingMarshaller.marshal(version, streamedPaymentInformation(), writer, formatted, schemaValidation);
+        } else {
+            JAXBContextRegistry.getInstance().marshal(version, createDocument(), writer, formatted, schemaValidation);
+        }
+    }
+
+    /**
+     * Marshal the message, streaming payment information one after the other if any of them has streamed transactions
+     *
+     * @param outputStream output stream
+     * @param formatted    true to format output, false to leave unformatted
+     */
+    @Override
+    public void marshal(OutputStream outputStream, boolean formatted) {
+        if (isStreamed()) {
+            JAXBStreamingMarshaller.marshal(version, streamedPaymentInformation(), outputStream, formatted, schemaValidation);
+        } else {
+            JAXBContextRegistry.getInstance().marshal(version, createDocument(), outputStream, formatted, schemaValidation);
+        }
+    }
+
+    /**
+     * Create the JAXB Document
+     * <p>
+     * Streamed transactions are consumed to build the whole document.
+     * <p>
+     * The document must be treated as read-only: it may be the one retained for later marshallings, and repeated
+     * parties, postal addresses, accounts and agents share a single JAXB instance across transactions.
+     *
+     * @return Document containing the message
+     */
+    public JAXBElement<?> createDocument() {
+        switch (version) {
+            case V03:
+                return JAXBCreditTransferV03.createMessageDocument(id, creationDateTime, initiatingParty, paymentInformation(JAXBCreditTransferV03.class));
+            case V09:
+                return JAXBCreditTransferV09.createMessageDocument(id, creationDateTime, initiatingParty, paymentInformation(JAXBCreditTransferV09.class));
+            case V03_CH_02:
+                return JAXBCreditTransferV03Ch02.createMessageDocument(id, creationDateTime, initiatingParty, paymentInformation(JAXBCreditTransferV03Ch02.class));
+            case V003_03:
+                return JAXBSepaCreditTransfer003V03.createMessageDocument(id, creationDateTime, initiatingParty, paymentInformation(JAXBSepaCreditTransfer003V03.class));
+            default:
+                throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+    }
+
+    private boolean isStreamed() {
+        return paymentInformation.stream().anyMatch(creditTransfer -> StreamedTransactions.isStreamed(creditTransfer.getTransactions()));
+    }
+
+    private Iterator<JAXBStreamingMarshaller.PaymentInformation> streamedPaymentInformation() {
+        int numberOfTransactions = paymentInformation.stream().mapToInt(CreditTransferOperation::getNumberOfTransactions).sum();
+        BigDecimal controlSum = paymentInformation.stream().map(CreditTransferOperation::getControlSum).reduce(BigDecimal.ZERO, BigDecimal::add);
+        Iterator<CreditTransferOperation> creditTransfers = paymentInformation.iterator();
+        return new Iterator<JAXBStreamingMarshaller.PaymentInformation>() {
+
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                return creditTransfers.hasNext();
+            }
+
+            @Override
+            public JAXBStreamingMarshaller.PaymentInformation next() {
+                CreditTransferOperation creditTransfer = creditTransfers.next();
+                if (first) {
+                    first = false;
+                    return paymentInformation(version, creditTransfer, id, creationDateTime, initiatingParty, numberOfTransactions, controlSum);
+                }
+                return paymentInformation(version, creditTransfer);
+            }
+        };
+    }
+
+    /**
+     * Payment information whose transactions are streamed, within the header document of a message
+     *
+     * @param version              pain.001 version
+     * @param creditTransfer       JAXB credit transfer of this version
+     * @param id                   message id
+     * @param creationDateTime     message creation date time
+     * @param initiatingParty      initiating party
+     * @param numberOfTransactions number of transactions of the message
+     * @param controlSum           control sum of the message
+     * @return the first payment information of a streamed message
+     */
+    static JAXBStreamingMarshaller.PaymentInformation paymentInformation(CustomerCreditTransferInitiationVersion version, CreditTransferOperation creditTransfer, String id, LocalDateTime creationDateTime, Party initiatingParty, int numberOfTransactions, BigDecimal controlSum) {
+        return mapper(version, creditTransfer).paymentInformation(creditTransfer, id, creationDateTime, initiatingParty, numberOfTransactions, controlSum);
+    }
+
+    /**
+     * @param version        pain.001 version
+     * @param creditTransfer JAXB credit transfer of this version
+     * @return payment information whose transactions are streamed, following the first one of a streamed message
+     */
+    static JAXBStreamingMarshaller.PaymentInformation paymentInformation(CustomerCreditTransferInitiationVersion version, CreditTransferOperation creditTransfer) {
+        return mapper(version, creditTransfer).paymentInformation(creditTransfer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JAXBCreditTransferMapper<CreditTransferOperation, ?, ?, ?, ?> mapper(CustomerCreditTransferInitiationVersion version, CreditTransferOperation creditTransfer) {
+        Class<? extends CreditTransferOperation> type = creditTransferClass(version);
+        if (!type.isInstance(creditTransfer)) {
+            throw new IllegalArgumentException("Expected a " + type.getSimpleName() + " but got " + creditTransfer.getClass().getSimpleName());
+        }
+        switch (version) {
+            case V03:
+                return (JAXBCreditTransferMapper<CreditTransferOperation, ?, ?, ?, ?>) (JAXBCreditTransferMapper<?, ?, ?, ?, ?>) JAXBCreditTransferV03.MAPPER;
+            case V09:
+                return (JAXBCreditTransferMapper<CreditTransferOperation, ?, ?, ?, ?>) (JAXBCreditTransferMapper<?, ?, ?, ?, ?>) JAXBCreditTransferV09.MAPPER;
+            case V03_CH_02:
+                return (JAXBCreditTransferMapper<CreditTransferOperation, ?, ?, ?, ?>) (JAXBCreditTransferMapper<?, ?, ?, ?, ?>) JAXBCreditTransferV03Ch02.MAPPER;
+            case V003_03:
+                return (JAXBCreditTransferMapper<CreditTransferOperation, ?, ?, ?, ?>) (JAXBCreditTransferMapper<?, ?, ?, ?, ?>) JAXBSepaCreditTransfer003V03.MAPPER;
+            default:
+                throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+    }
+
+    private static Class<? extends CreditTransferOperation> creditTransferClass(CustomerCreditTransferInitiationVersion version) {
+        switch (version) {
+            case V03:
+                return JAXBCreditTransferV03.class;
+            case V09:
+                return JAXBCreditTransferV09.class;
+            case V03_CH_02:
+                return JAXBCreditTransferV03Ch02.class;
+            case V003_03:
+                return JAXBSepaCreditTransfer003V03.class;
+            default:
+                throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+    }
+
+    private <T> List<T> paymentInformation(Class<T> type) {
+        return paymentInformation.stream()
+                .map(creditTransfer -> {
+                    if (!type.isInstance(creditTransfer)) {
+                        throw new IllegalArgumentException("Payment information must be " + type.getSimpleName() + " for version " + version);
+                    }
+                    return type.cast(creditTransfer);
+                })
+                .collect(Collectors.toList());
+    }
+
+    public CustomerCreditTransferInitiationVersion getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public LocalDateTime getCreationDateTime() {
+        return creationDateTime;
+    }
+
+    @Override
+    public Optional<Party> getInitiatingParty() {
+        return Optional.ofNullable(initiatingParty);
+    }
+
+    @Override
+    public List<CreditTransferOperation> getPaymentInformation() {
+        return paymentInformation;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof JAXBCreditTransferMessage)) return false;
+        JAXBCreditTransferMessage that = (JAXBCreditTransferMessage) o;
+        return version == that.version && Objects.equals(id, that.id) && Objects.equals(creationDateTime, that.creationDateTime) && Objects.equals(initiatingParty, that.initiatingParty) && Objects.equals(paymentInformation, that.paymentInformation);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, id, creationDateTime, initiatingParty, paymentInformation);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", JAXBCreditTransferMessage.class.getSimpleName() + "[", "]")
+                .add("version=" + version)
+                .add("id='" + id + "'")
+                .add("creationDateTime=" + creationDateTime)
+                .add("initiatingParty=" + initiatingParty)
+                .add("paymentInformation=" + paymentInformation)
+                .toString();
+    }
+}
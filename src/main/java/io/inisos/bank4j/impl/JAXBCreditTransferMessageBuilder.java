@@ -0,0 +1,161 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+public class JAXBCreditTransferMessageBuilder implements CreditTransferMessageBuilder {
+    private final CustomerCreditTransferInitiationVersion version;
+    private String id;
+    private LocalDateTime creationDateTime;
+    private Party initiatingParty;
+    private Boolean schemaValidation;
+    private final Map<GroupKey, Group> groups = new LinkedHashMap<>();
+
+    public JAXBCreditTransferMessageBuilder(CustomerCreditTransferInitiationVersion version) {
+        this.version = Objects.requireNonNull(version, "Version cannot be null");
+    }
+
+    @Override
+    public CreditTransferMessageBuilder id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    @Override
+    public CreditTransferMessageBuilder creationDateTime(LocalDateTime creationDateTime) {
+        this.creationDateTime = creationDateTime;
+        return this;
+    }
+
+    @Override
+    public CreditTransferMessageBuilder initiatingParty(Party initiatingParty) {
+        this.initiatingParty = initiatingParty;
+        return this;
+    }
+
+    @Override
+    public CreditTransferMessageBuilder schemaValidation(Boolean schemaValidation) {
+        this.schemaValidation = schemaValidation;
+        return this;
+    }
+
+    @Override
+    public CreditTransferMessageBuilder paymentInformation(CreditTransfer creditTransfer) {
+        Objects.requireNonNull(creditTransfer, "Credit transfer cannot be null");
+        Group group = groups.computeIfAbsent(new GroupKey(creditTransfer), key -> new Group(creditTransfer));
+        group.add(creditTransfer.getTransactions());
+        return this;
+    }
+
+    @Override
+    public CreditTransferMessage build() {
+        List<CreditTransferOperation> paymentInformation = new ArrayList<>(groups.size());
+        for (Group group : groups.values()) {
+            CreditTransfer first = group.first;
+            JAXBCreditTransferBuilder builder = new JAXBCreditTransferBuilder().version(version);
+            builder.instructionPriority(first.getInstructionPriority())
+                    .serviceLevelCode(first.getServiceLevelCode())
+                    .debtor(first.getDebtor().orElse(null))
+                    .debtorAccount(first.getDebtorAccount())
+                    .transactions(group.transactions())
+                    .id(first.getId())
+                    .creationDateTime(creationDateTime)
+                    .chargeBearer(first.getChargeBearer())
+                    .batchBooking(first.isBatchBooking());
+            if (first.getRequestedExecutionDateTime() != null) {
+                builder.requestedExecutionDateTime(first.getRequestedExecutionDateTime());
+            } else {
+                builder.requestedExecutionDate(first.getRequestedExecutionDate());
+            }
+            if (isInstantPayment(first)) {
+                builder.instantPayment(true);
+            }
+            paymentInformation.add(builder.build());
+        }
+        return new JAXBCreditTransferMessage(version, id, creationDateTime, initiatingParty, paymentInformation, schemaValidation);
+    }
+
+    private static boolean isInstantPayment(CreditTransfer creditTransfer) {
+        if (creditTransfer instanceof StAXCreditTransferReader.ReadCreditTransfer) {
+            return ((StAXCreditTransferReader.ReadCreditTransfer) creditTransfer).isInstantPayment();
+        }
+        return creditTransfer instanceof JAXBCreditTransferV09 && ((JAXBCreditTransferV09) creditTransfer).isInstantPayment();
+    }
+
+    /**
+     * Credit transfers grouped into a single payment information.
+     * <p>
+     * In-memory transactions are copied, streamed ones are chained so that they are still streamed while marshalling.
+     */
+    private static final class Group {
+
+        private final CreditTransfer first;
+        private final List<Collection<Transaction>> parts = new ArrayList<>();
+
+        private Group(CreditTransfer first) {
+            this.first = first;
+        }
+
+        private void add(Collection<Transaction> transactions) {
+            if (StreamedTransactions.isStreamed(transactions)) {
+                parts.add(transactions);
+                return;
+            }
+            Collection<Transaction> last = parts.isEmpty() ? null : parts.get(parts.size() - 1);
+            if (!(last instanceof TransactionList)) {
+                last = new TransactionList();
+                parts.add(last);
+            }
+            last.addAll(transactions);
+        }
+
+        private Collection<Transaction> transactions() {
+            return parts.size() == 1 ? parts.get(0) : StreamedTransactions.concat(parts);
+        }
+    }
+
+    /**
+     * Payment information level attributes of a credit transfer
+     */
+    private static final class GroupKey {
+
+        private final Party debtor;
+        private final BankAccount debtorAccount;
+        private final LocalDate requestedExecutionDate;
+        private final ZonedDateTime requestedExecutionDateTime;
+        private final String serviceLevelCode;
+        private final ChargeBearer chargeBearer;
+        private final Priority instructionPriority;
+        private final boolean batchBooking;
+        private final boolean instantPayment;
+
+        private GroupKey(CreditTransfer creditTransfer) {
+            this.debtor = creditTransfer.getDebtor().orElse(null);
+            this.debtorAccount = creditTransfer.getDebtorAccount();
+            this.requestedExecutionDate = creditTransfer.getRequestedExecutionDate();
+            this.requestedExecutionDateTime = creditTransfer.getRequestedExecutionDateTime();
+            this.serviceLevelCode = creditTransfer.getServiceLevelCode();
+            this.chargeBearer = creditTransfer.getChargeBearer();
+            this.instructionPriority = creditTransfer.getInstructionPriority();
+            this.batchBooking = creditTransfer.isBatchBooking();
+            this.instantPayment = isInstantPayment(creditTransfer);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof GroupKey)) return false;
+            GroupKey that = (GroupKey) o;
+            return batchBooking == that.batchBooking && instantPayment == that.instantPayment && Objects.equals(debtor, that.debtor) && Objects.equals(debtorAccount, that.debtorAccount) && Objects.equals(requestedExecutionDate, that.requestedExecutionDate) && Objects.equals(requestedExecutionDateTime, that.requestedExecutionDateTime) && Objects.equals(serviceLevelCode, that.serviceLevelCode) && chargeBearer == that.chargeBearer && instructionPriority == that.instructionPriority;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(debtor, debtorAccount, requestedExecutionDate, requestedExecutionDateTime, serviceLevelCode, chargeBearer, instructionPriority, batchBooking, instantPayment);
+        }
+    }
+}
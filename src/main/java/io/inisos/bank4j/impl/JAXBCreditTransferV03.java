@@ -2,17 +2,13 @@ package io.inisos.bank4j.impl;
 
 import io.inisos.bank4j.*;
 import iso._20022.pain_001_001_03.*;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
-import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
-import org.iban4j.BicUtil;
-import org.iban4j.IbanUtil;
 
-import javax.xml.datatype.DatatypeConfigurationException;
-import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
@@ -27,21 +23,22 @@ import java.util.*;
 public class JAXBCreditTransferV03 implements CreditTransferOperation {
 
     private static final DateTimeFormatter FORMAT_AS_ID = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    static final JAXBCreditTransferMapper<JAXBCreditTransferV03, Document, CustomerCreditTransferInitiationV03, PaymentInstructionInformation3, CreditTransferTransactionInformation10> MAPPER = new JAXBCreditTransferMapper<>(new Emitter());
 
     private final Priority instructionPriority;
     private final String serviceLevelCode;
     private final Party debtor;
     private final BankAccount debtorAccount;
     private final Collection<Transaction> transactions;
+    private final TransactionTotals totals;
     private final String id;
     private final LocalDateTime creationDateTime;
     private final LocalDate requestedExecutionDate;
     private final ChargeBearer chargeBearer;
     private final boolean batchBooking;
+    private final boolean schemaValidation;
 
-    private final DatatypeFactory datatypeFactory;
-
-    private final CustomerCreditTransferInitiationV03 customerCreditTransferInitiation;
+    private final LazyInitiation<CustomerCreditTransferInitiationV03> customerCreditTransferInitiation;
 
     /**
      * Constructor
@@ -50,236 +47,86 @@ public class JAXBCreditTransferV03 implements CreditTransferOperation {
      * @param serviceLevelCode       optional e.g. "SEPA"
      * @param debtor                 optional debtor
      * @param debtorAccount          debtor account
-     * @param transactions           transactions (cannot contain duplicates)
+     * @param transactions           transactions (cannot contain duplicates), copied unless streamed
      * @param id                     optional identifier, defaults to execution date and time
      * @param creationDateTime       optional message creation date and time, defaults to now
      * @param requestedExecutionDate optional requested execution date, defaults to tomorrow
      * @param chargeBearer           optional charge bearer code defines who is bearing the charges of the transfer, by default it is set to 'SLEV' (Service Level)
      */
     public JAXBCreditTransferV03(Priority instructionPriority, String serviceLevelCode, Party debtor, BankAccount debtorAccount, Collection<Transaction> transactions, String id, LocalDateTime creationDateTime, LocalDate requestedExecutionDate, ChargeBearer chargeBearer, Boolean batchBooking) {
+        this(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, chargeBearer, batchBooking, null, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param instructionPriority    optional priority
+     * @param serviceLevelCode       optional e.g. "SEPA"
+     * @param debtor                 optional debtor
+     * @param debtorAccount          debtor account
+     * @param transactions           transactions (cannot contain duplicates), copied unless streamed
+     * @param id                     optional identifier, defaults to execution date and time
+     * @param creationDateTime       optional message creation date and time, defaults to now
+     * @param requestedExecutionDate optional requested execution date, defaults to tomorrow
+     * @param chargeBearer           optional charge bearer code defines who is bearing the charges of the transfer, by default it is set to 'SLEV' (Service Level)
+     * @param retainDocument         optional, false to build the document on each marshalling and discard it afterwards, defaults to true
+     * @param schemaValidation       optional, true to validate output against the schema of its version while marshalling, defaults to false
+     */
+    public JAXBCreditTransferV03(Priority instructionPriority, String serviceLevelCode, Party debtor, BankAccount debtorAccount, Collection<Transaction> transactions, String id, LocalDateTime creationDateTime, LocalDate requestedExecutionDate, ChargeBearer chargeBearer, Boolean batchBooking, Boolean retainDocument, Boolean schemaValidation) {
         this.instructionPriority = instructionPriority;
         this.serviceLevelCode = serviceLevelCode;
         this.debtor = debtor;
         this.debtorAccount = Objects.requireNonNull(debtorAccount, "Debtor account cannot be null");
-        this.transactions = requireTransaction(Objects.requireNonNull(transactions));
+        this.transactions = requireTransaction(TransactionList.snapshot(Objects.requireNonNull(transactions)));
+        this.totals = StreamedTransactions.isStreamed(this.transactions) ? null : TransactionTotals.of(this.transactions);
         this.creationDateTime = Optional.ofNullable(creationDateTime).orElse(LocalDateTime.now());
         this.requestedExecutionDate = Optional.ofNullable(requestedExecutionDate).orElse(LocalDate.now().plusDays(1));
         this.id = Optional.ofNullable(id).orElseGet(() -> FORMAT_AS_ID.format(this.creationDateTime));
         this.chargeBearer = Optional.ofNullable(chargeBearer).orElse(ChargeBearer.SLEV);
         this.batchBooking = Optional.ofNullable(batchBooking).orElse(false);
-
-        try {
-            this.datatypeFactory = DatatypeFactory.newInstance();
-        } catch (DatatypeConfigurationException e) {
-            throw new XmlException(e);
-        }
-        this.customerCreditTransferInitiation = build();
+        this.schemaValidation = Optional.ofNullable(schemaValidation).orElse(false);
+        this.customerCreditTransferInitiation = new LazyInitiation<>(() -> MAPPER.build(this, !StreamedTransactions.isStreamed(this.transactions)), Optional.ofNullable(retainDocument).orElse(true));
     }
 
     @Override
     public void marshal(Writer writer, boolean formatted) {
-        try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(Document.class);
-
-            Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-
-            jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
-
-            jaxbMarshaller.marshal(createDocument(), writer);
+        MAPPER.marshal(this, this.customerCreditTransferInitiation, writer, formatted, schemaValidation);
+    }
 
-        } catch (JAXBException e) {
-            throw new XmlException(e);
-        }
+    @Override
+    public void marshal(OutputStream outputStream, boolean formatted) {
+        MAPPER.marshal(this, this.customerCreditTransferInitiation, outputStream, formatted, schemaValidation);
     }
 
     /**
      * Create the JAXB Document
+     * <p>
+     * Streamed transactions are consumed to build the whole document.
+     * <p>
+     * The document must be treated as read-only: it may be the one retained for later marshallings, and repeated
+     * parties, postal addresses, accounts and agents share a single JAXB instance across transactions.
      *
      * @return Document containing the credit transfer
      */
     public JAXBElement<Document> createDocument() {
-
-        Document document = new ObjectFactory().createDocument();
-        document.setCstmrCdtTrfInitn(this.customerCreditTransferInitiation);
-
-        return new JAXBElement<>(
-                new QName("urn:iso:std:iso:20022:tech:xsd:pain.001.001.03", "Document"),
-                Document.class,
-                document);
-    }
-
-    private CustomerCreditTransferInitiationV03 build() {
-
-        CustomerCreditTransferInitiationV03 cti = new CustomerCreditTransferInitiationV03();
-
-        cti.setGrpHdr(header());
-
-        PaymentInstructionInformation3 paymentInstructionInformationSCT3 = new PaymentInstructionInformation3();
-        paymentInstructionInformationSCT3.setPmtInfId(this.id);
-        paymentInstructionInformationSCT3.setPmtMtd(PaymentMethod3Code.TRF);
-        paymentInstructionInformationSCT3.setBtchBookg(this.batchBooking);
-        paymentInstructionInformationSCT3.setNbOfTxs(String.valueOf(this.transactions.size()));
-        paymentInstructionInformationSCT3.setCtrlSum(this.getControlSum());
-        paymentInstructionInformationSCT3.setDbtr(partyIdentification(this.debtor));
-        paymentInstructionInformationSCT3.setDbtrAcct(cashAccount(this.debtorAccount));
-        paymentInstructionInformationSCT3.setDbtrAgt(mandatoryBranchAndFinancialInstitutionIdentification(this.debtorAccount));
-
-        PaymentTypeInformation19 paymentTypeInformation = new PaymentTypeInformation19();
-        if (this.instructionPriority != null) {
-            paymentTypeInformation.setInstrPrty(Priority2Code.fromValue(this.instructionPriority.name()));
-        }
-        if (this.serviceLevelCode != null) {
-            ServiceLevel8Choice serviceLevel = new ServiceLevel8Choice();
-            serviceLevel.setCd(this.serviceLevelCode);
-            paymentTypeInformation.setSvcLvl(serviceLevel);
-        }
-        paymentInstructionInformationSCT3.setPmtTpInf(paymentTypeInformation);
-
-        paymentInstructionInformationSCT3.setReqdExctnDt(this.datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE.format(requestedExecutionDate)));
-
-        paymentInstructionInformationSCT3.setChrgBr(ChargeBearerType1Code.fromValue(this.chargeBearer.name()));
-
-        for (Transaction transaction : this.transactions) {
-            paymentInstructionInformationSCT3.getCdtTrfTxInf().add(transaction(transaction));
-        }
-
-        cti.getPmtInf().add(paymentInstructionInformationSCT3);
-
-        return cti;
-    }
-
-    private GroupHeader32 header() {
-        GroupHeader32 head = new GroupHeader32();
-        head.setMsgId(id);
-        head.setCreDtTm(this.datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(creationDateTime)));
-        head.setNbOfTxs(String.valueOf(this.transactions.size()));
-        head.setCtrlSum(this.getControlSum());
-        head.setInitgPty(partyIdentification(this.debtor));
-        return head;
-    }
-
-    private CreditTransferTransactionInformation10 transaction(Transaction transaction) {
-
-        // payment identification
-        PaymentIdentification1 paymentIdentificationSEPA = new PaymentIdentification1();
-        paymentIdentificationSEPA.setEndToEndId(transaction.getEndToEndId());
-        transaction.getId().ifPresent(paymentIdentificationSEPA::setInstrId);
-
-        // amount
-        ActiveOrHistoricCurrencyAndAmount activeOrHistoricCurrencyAndAmount = new ActiveOrHistoricCurrencyAndAmount();
-        activeOrHistoricCurrencyAndAmount.setCcy(transaction.getCurrencyCode());
-        activeOrHistoricCurrencyAndAmount.setValue(transaction.getAmount());
-        AmountType3Choice amountType = new AmountType3Choice();
-        amountType.setInstdAmt(activeOrHistoricCurrencyAndAmount);
-
-        // transaction
-        CreditTransferTransactionInformation10 creditTransferTransactionInformation = new CreditTransferTransactionInformation10();
-        creditTransferTransactionInformation.setPmtId(paymentIdentificationSEPA);
-        creditTransferTransactionInformation.setAmt(amountType);
-        creditTransferTransactionInformation.setCdtr(partyIdentification(transaction.getParty().orElse(null)));
-        creditTransferTransactionInformation.setCdtrAcct(cashAccount(transaction.getAccount()));
-
-        // remittance information
-        if (!transaction.getRemittanceInformationUnstructured().isEmpty()) {
-            RemittanceInformation5 remittanceInformation = new RemittanceInformation5();
-            remittanceInformation.getUstrd().addAll(transaction.getRemittanceInformationUnstructured());
-            creditTransferTransactionInformation.setRmtInf(remittanceInformation);
-        }
-
-        transaction.getChargeBearer()
-                .map(cb -> ChargeBearerType1Code.fromValue(cb.name()))
-                .ifPresent(creditTransferTransactionInformation::setChrgBr);
-
-        optionalBranchAndFinancialInstitutionIdentificationOpt(transaction.getAccount()).ifPresent(creditTransferTransactionInformation::setCdtrAgt);
-        Iterator<BankAccount> intermediaryAgentsIterator = transaction.getIntermediaryAgents().iterator();
-        if (intermediaryAgentsIterator.hasNext()) {
-            BankAccount first = intermediaryAgentsIterator.next();
-            creditTransferTransactionInformation.setIntrmyAgt1Acct(cashAccount(first));
-            optionalBranchAndFinancialInstitutionIdentificationOpt(first).ifPresent(creditTransferTransactionInformation::setIntrmyAgt1);
-        }
-        if (intermediaryAgentsIterator.hasNext()) {
-            BankAccount second = intermediaryAgentsIterator.next();
-            creditTransferTransactionInformation.setIntrmyAgt2Acct(cashAccount(second));
-            optionalBranchAndFinancialInstitutionIdentificationOpt(second).ifPresent(creditTransferTransactionInformation::setIntrmyAgt2);
-        }
-        if (intermediaryAgentsIterator.hasNext()) {
-            BankAccount third = intermediaryAgentsIterator.next();
-            creditTransferTransactionInformation.setIntrmyAgt3Acct(cashAccount(third));
-            optionalBranchAndFinancialInstitutionIdentificationOpt(third).ifPresent(creditTransferTransactionInformation::setIntrmyAgt3);
-        }
-
-        return creditTransferTransactionInformation;
-    }
-
-    private Optional<BranchAndFinancialInstitutionIdentification4> optionalBranchAndFinancialInstitutionIdentificationOpt(BankAccount bankAccount) {
-        return bankAccount.getBic().map(bic -> {
-            BicUtil.validate(bic);
-            FinancialInstitutionIdentification7 financialInstitutionIdentification = new FinancialInstitutionIdentification7();
-            financialInstitutionIdentification.setBIC(bic);
-            BranchAndFinancialInstitutionIdentification4 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification4();
-            branchAndFinancialInstitutionIdentification.setFinInstnId(financialInstitutionIdentification);
-            return branchAndFinancialInstitutionIdentification;
-        });
+        return MAPPER.createDocument(this, this.customerCreditTransferInitiation);
     }
 
-    private BranchAndFinancialInstitutionIdentification4 mandatoryBranchAndFinancialInstitutionIdentification(BankAccount bankAccount) {
-        BranchAndFinancialInstitutionIdentification4 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification4();
-        FinancialInstitutionIdentification7 financialInstitutionIdentification = new FinancialInstitutionIdentification7();
-        bankAccount.getBic().ifPresent(bic -> {
-            BicUtil.validate(bic);
-            financialInstitutionIdentification.setBIC(bic);
-        });
-        branchAndFinancialInstitutionIdentification.setFinInstnId(financialInstitutionIdentification);
-        return branchAndFinancialInstitutionIdentification;
-    }
-
-    private PartyIdentification32 partyIdentification(Party party) {
-        PartyIdentification32 partyIdentification = new PartyIdentification32();
-        if (party != null) {
-            party.getName().ifPresent(partyIdentification::setNm);
-            party.getPostalAddress().map(this::postalAddress).ifPresent(partyIdentification::setPstlAdr);
-        }
-        return partyIdentification;
-    }
-
-    private PostalAddress6 postalAddress(PostalAddress postalAddress) {
-        PostalAddress6 postalAddress6 = new PostalAddress6();
-        postalAddress.getType().ifPresent(typeCode -> postalAddress6.setAdrTp(AddressType2Code.fromValue(typeCode)));
-        postalAddress.getDepartment().ifPresent(postalAddress6::setDept);
-        postalAddress.getSubDepartment().ifPresent(postalAddress6::setSubDept);
-        postalAddress.getStreetName().ifPresent(postalAddress6::setStrtNm);
-        postalAddress.getBuildingNumber().ifPresent(postalAddress6::setBldgNb);
-        postalAddress.getTownName().ifPresent(postalAddress6::setTwnNm);
-        postalAddress.getPostCode().ifPresent(postalAddress6::setPstCd);
-        postalAddress.getCountrySubDivision().ifPresent(postalAddress6::setCtrySubDvsn);
-        postalAddress.getCountry().ifPresent(postalAddress6::setCtry);
-        postalAddress.getAddressLines().forEach(addressLine -> postalAddress6.getAdrLine().add(addressLine));
-        return postalAddress6;
-    }
-
-    private CashAccount16 cashAccount(BankAccount bankAccount) {
-        CashAccount16 cashAccount = new CashAccount16();
-        cashAccount.setId(accountIdentification(bankAccount));
-        bankAccount.getName().ifPresent(cashAccount::setNm);
-        return cashAccount;
+    /**
+     * Create the JAXB Document of a message holding the payment information of several credit transfers
+     *
+     * @param id                 message id
+     * @param creationDateTime   message creation date time
+     * @param initiatingParty    initiating party
+     * @param paymentInformation credit transfers, each one being a payment information
+     * @return Document containing the message
+     */
+    static JAXBElement<Document> createMessageDocument(String id, LocalDateTime creationDateTime, Party initiatingParty, List<JAXBCreditTransferV03> paymentInformation) {
+        return MAPPER.createMessageDocument(id, creationDateTime, initiatingParty, paymentInformation, JAXBCreditTransferV03::initiation);
     }
 
-    private AccountIdentification4Choice accountIdentification(BankAccount bankAccount) {
-        AccountIdentification4Choice accountIdentification = new AccountIdentification4Choice();
-        Optional<String> optionalIban = bankAccount.getIban();
-        Optional<String> optionalOtherId = bankAccount.getOtherId();
-        if (optionalIban.isPresent()) {
-            String iban = optionalIban.get();
-            IbanUtil.validate(iban);
-            accountIdentification.setIBAN(iban);
-        } else if (optionalOtherId.isPresent()) {
-            GenericAccountIdentification1 genericAccountIdentification = new GenericAccountIdentification1();
-            genericAccountIdentification.setId(optionalOtherId.get());
-            accountIdentification.setOthr(genericAccountIdentification);
-        } else {
-            throw new IllegalArgumentException("IBAN or otherId must be provided");
-        }
-        return accountIdentification;
+    private CustomerCreditTransferInitiationV03 initiation() {
+        return StreamedTransactions.isStreamed(this.transactions) ? MAPPER.build(this, true) : this.customerCreditTransferInitiation.get();
     }
 
     @Override
@@ -337,6 +184,29 @@ public class JAXBCreditTransferV03 implements CreditTransferOperation {
         return batchBooking;
     }
 
+    @Override
+    public int getNumberOfTransactions() {
+        return totals().getNumberOfTransactions();
+    }
+
+    @Override
+    public BigDecimal getControlSum() {
+        return totals().getControlSum();
+    }
+
+    /**
+     * @return the sum of transaction amounts by currency code, sorted by currency code
+     * @throws IllegalStateException if transactions are streamed with declared totals
+     */
+    @Override
+    public Map<String, BigDecimal> getControlSumByCurrency() {
+        return totals().getControlSumByCurrency();
+    }
+
+    private TransactionTotals totals() {
+        return totals == null ? TransactionTotals.of(transactions) : totals;
+    }
+
     private <T> Collection<T> requireTransaction(Collection<T> collection) {
         if (collection.isEmpty()) {
             throw new IllegalArgumentException("At least 1 transaction is required");
@@ -371,4 +241,179 @@ public class JAXBCreditTransferV03 implements CreditTransferOperation {
                 .add("batchBooking=" + batchBooking)
                 .toString();
     }
+
+    /**
+     * Emits PAIN.001.001.03 objects
+     */
+    private static final class Emitter implements JAXBCreditTransferEmitter<JAXBCreditTransferV03, Document, CustomerCreditTransferInitiationV03, PaymentInstructionInformation3, CreditTransferTransactionInformation10> {
+
+        private static final JAXBFragments.PostalAddresses<PostalAddress6> POSTAL_ADDRESSES = new JAXBFragments.PostalAddresses<>(PostalAddress6::new, PostalAddress6::getAdrLine, Integer.MAX_VALUE)
+                .type((postalAddress, typeCode) -> postalAddress.setAdrTp(AddressType2Code.fromValue(typeCode)))
+                .department(PostalAddress6::setDept)
+                .subDepartment(PostalAddress6::setSubDept)
+                .streetName(PostalAddress6::setStrtNm)
+                .buildingNumber(PostalAddress6::setBldgNb)
+                .townName(PostalAddress6::setTwnNm)
+                .postCode(PostalAddress6::setPstCd)
+                .countrySubDivision(PostalAddress6::setCtrySubDvsn)
+                .country(PostalAddress6::setCtry);
+
+        private static final JAXBFragments.Parties<PartyIdentification32> PARTIES = new JAXBFragments.Parties<>(PartyIdentification32::new, PartyIdentification32::setNm)
+                .postalAddress(POSTAL_ADDRESSES, PartyIdentification32::setPstlAdr);
+
+        private static final JAXBFragments.Accounts<CashAccount16> ACCOUNTS = new JAXBFragments.Accounts<>(Emitter::cashAccount, (cashAccount, iban) -> cashAccount.getId().setIBAN(iban))
+                .otherId((cashAccount, otherId) -> {
+                    GenericAccountIdentification1 genericAccountIdentification = new GenericAccountIdentification1();
+                    genericAccountIdentification.setId(otherId);
+                    cashAccount.getId().setOthr(genericAccountIdentification);
+                })
+                .name(CashAccount16::setNm);
+
+        private static final JAXBFragments.Agents<BranchAndFinancialInstitutionIdentification4> AGENTS = new JAXBFragments.Agents<>(Emitter::agent, (agent, bic) -> agent.getFinInstnId().setBIC(bic));
+
+        @Override
+        public CustomerCreditTransferInitiationVersion getVersion() {
+            return CustomerCreditTransferInitiationVersion.V03;
+        }
+
+        @Override
+        public JAXBElement<Document> document(CustomerCreditTransferInitiationV03 initiation) {
+
+            Document document = new ObjectFactory().createDocument();
+            document.setCstmrCdtTrfInitn(initiation);
+
+            return new JAXBElement<>(
+                    new QName("urn:iso:std:iso:20022:tech:xsd:pain.001.001.03", "Document"),
+                    Document.class,
+                    document);
+        }
+
+        @Override
+        public CustomerCreditTransferInitiationV03 initiation() {
+            return new CustomerCreditTransferInitiationV03();
+        }
+
+        @Override
+        public void groupHeader(CustomerCreditTransferInitiationV03 initiation, String id, XMLGregorianCalendar creationDateTime, String numberOfTransactions, BigDecimal controlSum, Party initiatingParty, JAXBFragments.Cache fragments) {
+            GroupHeader32 head = new GroupHeader32();
+            head.setMsgId(id);
+            head.setCreDtTm(creationDateTime);
+            head.setNbOfTxs(numberOfTransactions);
+            head.setCtrlSum(controlSum);
+            head.setInitgPty(PARTIES.map(initiatingParty, fragments));
+            initiation.setGrpHdr(head);
+        }
+
+        @Override
+        public List<PaymentInstructionInformation3> paymentInstructions(CustomerCreditTransferInitiationV03 initiation) {
+            return initiation.getPmtInf();
+        }
+
+        @Override
+        public PaymentInstructionInformation3 paymentInstruction() {
+            return new PaymentInstructionInformation3();
+        }
+
+        @Override
+        public PaymentInstructionInformation3 paymentInstruction(JAXBCreditTransferV03 creditTransfer, JAXBFragments.Cache fragments) {
+
+            PaymentInstructionInformation3 paymentInstructionInformationSCT3 = new PaymentInstructionInformation3();
+            paymentInstructionInformationSCT3.setPmtInfId(creditTransfer.id);
+            paymentInstructionInformationSCT3.setPmtMtd(PaymentMethod3Code.TRF);
+            paymentInstructionInformationSCT3.setBtchBookg(creditTransfer.batchBooking);
+            paymentInstructionInformationSCT3.setNbOfTxs(String.valueOf(creditTransfer.getNumberOfTransactions()));
+            paymentInstructionInformationSCT3.setCtrlSum(creditTransfer.getControlSum());
+            paymentInstructionInformationSCT3.setDbtr(PARTIES.map(creditTransfer.debtor, fragments));
+            paymentInstructionInformationSCT3.setDbtrAcct(ACCOUNTS.map(creditTransfer.debtorAccount, fragments));
+            paymentInstructionInformationSCT3.setDbtrAgt(AGENTS.mandatory(creditTransfer.debtorAccount, fragments));
+
+            PaymentTypeInformation19 paymentTypeInformation = new PaymentTypeInformation19();
+            if (creditTransfer.instructionPriority != null) {
+                paymentTypeInformation.setInstrPrty(Priority2Code.fromValue(creditTransfer.instructionPriority.name()));
+            }
+            if (creditTransfer.serviceLevelCode != null) {
+                ServiceLevel8Choice serviceLevel = new ServiceLevel8Choice();
+                serviceLevel.setCd(creditTransfer.serviceLevelCode);
+                paymentTypeInformation.setSvcLvl(serviceLevel);
+            }
+            paymentInstructionInformationSCT3.setPmtTpInf(paymentTypeInformation);
+
+            paymentInstructionInformationSCT3.setReqdExctnDt(XmlDateTimes.date(creditTransfer.requestedExecutionDate));
+
+            paymentInstructionInformationSCT3.setChrgBr(ChargeBearerType1Code.fromValue(creditTransfer.chargeBearer.name()));
+
+            return paymentInstructionInformationSCT3;
+        }
+
+        @Override
+        public List<CreditTransferTransactionInformation10> transactions(PaymentInstructionInformation3 paymentInstruction) {
+            return paymentInstruction.getCdtTrfTxInf();
+        }
+
+        @Override
+        public CreditTransferTransactionInformation10 transaction(Transaction transaction, JAXBFragments.Cache fragments) {
+
+            // payment identification
+            PaymentIdentification1 paymentIdentificationSEPA = new PaymentIdentification1();
+            paymentIdentificationSEPA.setEndToEndId(transaction.getEndToEndId());
+            transaction.getId().ifPresent(paymentIdentificationSEPA::setInstrId);
+
+            // amount
+            ActiveOrHistoricCurrencyAndAmount activeOrHistoricCurrencyAndAmount = new ActiveOrHistoricCurrencyAndAmount();
+            activeOrHistoricCurrencyAndAmount.setCcy(transaction.getCurrencyCode());
+            activeOrHistoricCurrencyAndAmount.setValue(transaction.getAmount());
+            AmountType3Choice amountType = new AmountType3Choice();
+            amountType.setInstdAmt(activeOrHistoricCurrencyAndAmount);
+
+            // transaction
+            CreditTransferTransactionInformation10 creditTransferTransactionInformation = new CreditTransferTransactionInformation10();
+            creditTransferTransactionInformation.setPmtId(paymentIdentificationSEPA);
+            creditTransferTransactionInformation.setAmt(amountType);
+            creditTransferTransactionInformation.setCdtr(PARTIES.map(transaction.getParty().orElse(null), fragments));
+            creditTransferTransactionInformation.setCdtrAcct(ACCOUNTS.map(transaction.getAccount(), fragments));
+
+            // remittance information
+            if (!transaction.getRemittanceInformationUnstructured().isEmpty()) {
+                RemittanceInformation5 remittanceInformation = new RemittanceInformation5();
+                remittanceInformation.getUstrd().addAll(transaction.getRemittanceInformationUnstructured());
+                creditTransferTransactionInformation.setRmtInf(remittanceInformation);
+            }
+
+            transaction.getChargeBearer()
+                    .map(cb -> ChargeBearerType1Code.fromValue(cb.name()))
+                    .ifPresent(creditTransferTransactionInformation::setChrgBr);
+
+            AGENTS.optional(transaction.getAccount(), fragments).ifPresent(creditTransferTransactionInformation::setCdtrAgt);
+            Iterator<BankAccount> intermediaryAgentsIterator = transaction.getIntermediaryAgents().iterator();
+            if (intermediaryAgentsIterator.hasNext()) {
+                BankAccount first = intermediaryAgentsIterator.next();
+                creditTransferTransactionInformation.setIntrmyAgt1Acct(ACCOUNTS.map(first, fragments));
+                AGENTS.optional(first, fragments).ifPresent(creditTransferTransactionInformation::setIntrmyAgt1);
+            }
+            if (intermediaryAgentsIterator.hasNext()) {
+                BankAccount second = intermediaryAgentsIterator.next();
+                creditTransferTransactionInformation.setIntrmyAgt2Acct(ACCOUNTS.map(second, fragments));
+                AGENTS.optional(second, fragments).ifPresent(creditTransferTransactionInformation::setIntrmyAgt2);
+            }
+            if (intermediaryAgentsIterator.hasNext()) {
+                BankAccount third = intermediaryAgentsIterator.next();
+                creditTransferTransactionInformation.setIntrmyAgt3Acct(ACCOUNTS.map(third, fragments));
+                AGENTS.optional(third, fragments).ifPresent(creditTransferTransactionInformation::setIntrmyAgt3);
+            }
+
+            return creditTransferTransactionInformation;
+        }
+
+        private static CashAccount16 cashAccount() {
+            CashAccount16 cashAccount = new CashAccount16();
+            cashAccount.setId(new AccountIdentification4Choice());
+            return cashAccount;
+        }
+
+        private static BranchAndFinancialInstitutionIdentification4 agent() {
+            BranchAndFinancialInstitutionIdentification4 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification4();
+            branchAndFinancialInstitutionIdentification.setFinInstnId(new FinancialInstitutionIdentification7());
+            return branchAndFinancialInstitutionIdentification;
+        }
+    }
 }
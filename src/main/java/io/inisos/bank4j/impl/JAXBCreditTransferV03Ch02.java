@@ -2,17 +2,13 @@ package io.inisos.bank4j.impl;
 
 import io.inisos.bank4j.*;
 import iso._20022.pain_001_001_03_ch_02.*;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
-import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
-import org.iban4j.BicUtil;
-import org.iban4j.IbanUtil;
 
-import javax.xml.datatype.DatatypeConfigurationException;
-import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
@@ -28,6 +24,7 @@ import java.util.*;
 public class JAXBCreditTransferV03Ch02 implements CreditTransferOperation {
 
     private static final DateTimeFormatter FORMAT_AS_ID = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    static final JAXBCreditTransferMapper<JAXBCreditTransferV03Ch02, Document, CustomerCreditTransferInitiationV03CH, PaymentInstructionInformation3CH, CreditTransferTransactionInformation10CH> MAPPER = new JAXBCreditTransferMapper<>(new Emitter());
     private static final String SCHEMA_LOCATION = "http://www.six-interbank-clearing.com/de/pain.001.001.03.ch.02.xsd";
 
     private final Priority instructionPriority;
@@ -35,15 +32,15 @@ public class JAXBCreditTransferV03Ch02 implements CreditTransferOperation {
     private final Party debtor;
     private final BankAccount debtorAccount;
     private final Collection<Transaction> transactions;
+    private final TransactionTotals totals;
     private final String id;
     private final LocalDateTime creationDateTime;
     private final LocalDate requestedExecutionDate;
     private final ChargeBearer chargeBearer;
     private final boolean batchBooking;
+    private final boolean schemaValidation;
 
-    private final DatatypeFactory datatypeFactory;
-
-    private final CustomerCreditTransferInitiationV03CH customerCreditTransferInitiation;
+    private final LazyInitiation<CustomerCreditTransferInitiationV03CH> customerCreditTransferInitiation;
 
     /**
      * Constructor
@@ -52,260 +49,86 @@ public class JAXBCreditTransferV03Ch02 implements CreditTransferOperation {
      * @param serviceLevelCode       optional e.g. "SEPA"
      * @param debtor                 optional debtor
      * @param debtorAccount          debtor account
-     * @param transactions           transactions (cannot contain duplicates)
+     * @param transactions           transactions (cannot contain duplicates), copied unless streamed
      * @param id                     optional identifier, defaults to execution date and time
      * @param creationDateTime       optional message creation date and time, defaults to now
      * @param requestedExecutionDate optional requested execution date, defaults to tomorrow
      * @param chargeBearer           optional charge bearer code defines who is bearing the charges of the transfer, by default it is set to 'SLEV' (Service Level)
      */
     public JAXBCreditTransferV03Ch02(Priority instructionPriority, String serviceLevelCode, Party debtor, BankAccount debtorAccount, Collection<Transaction> transactions, String id, LocalDateTime creationDateTime, LocalDate requestedExecutionDate, ChargeBearer chargeBearer, Boolean batchBooking) {
+        this(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, chargeBearer, batchBooking, null, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param instructionPriority    optional priority
+     * @param serviceLevelCode       optional e.g. "SEPA"
+     * @param debtor                 optional debtor
+     * @param debtorAccount          debtor account
+     * @param transactions           transactions (cannot contain duplicates), copied unless streamed
+     * @param id                     optional identifier, defaults to execution date and time
+     * @param creationDateTime       optional message creation date and time, defaults to now
+     * @param requestedExecutionDate optional requested execution date, defaults to tomorrow
+     * @param chargeBearer           optional charge bearer code defines who is bearing the charges of the transfer, by default it is set to 'SLEV' (Service Level)
+     * @param retainDocument         optional, false to build the document on each marshalling and discard it afterwards, defaults to true
+     * @param schemaValidation       optional, true to validate output against the schema of its version while marshalling, defaults to false
+     */
+    public JAXBCreditTransferV03Ch02(Priority instructionPriority, String serviceLevelCode, Party debtor, BankAccount debtorAccount, Collection<Transaction> transactions, String id, LocalDateTime creationDateTime, LocalDate requestedExecutionDate, ChargeBearer chargeBearer, Boolean batchBooking, Boolean retainDocument, Boolean schemaValidation) {
         this.instructionPriority = instructionPriority;
         this.serviceLevelCode = serviceLevelCode;
         this.debtor = debtor;
         this.debtorAccount = Objects.requireNonNull(debtorAccount, "Debtor account cannot be null");
-        this.transactions = requireTransaction(Objects.requireNonNull(transactions));
+        this.transactions = requireTransaction(TransactionList.snapshot(Objects.requireNonNull(transactions)));
+        this.totals = StreamedTransactions.isStreamed(this.transactions) ? null : TransactionTotals.of(this.transactions);
         this.creationDateTime = Optional.ofNullable(creationDateTime).orElse(LocalDateTime.now());
         this.requestedExecutionDate = Optional.ofNullable(requestedExecutionDate).orElse(LocalDate.now().plusDays(1));
         this.id = Optional.ofNullable(id).orElseGet(() -> FORMAT_AS_ID.format(this.creationDateTime));
         this.chargeBearer = Optional.ofNullable(chargeBearer).orElse(ChargeBearer.SLEV);
         this.batchBooking = Optional.ofNullable(batchBooking).orElse(false);
-
-        try {
-            this.datatypeFactory = DatatypeFactory.newInstance();
-        } catch (DatatypeConfigurationException e) {
-            throw new XmlException(e);
-        }
-        this.customerCreditTransferInitiation = build();
+        this.schemaValidation = Optional.ofNullable(schemaValidation).orElse(false);
+        this.customerCreditTransferInitiation = new LazyInitiation<>(() -> MAPPER.build(this, !StreamedTransactions.isStreamed(this.transactions)), Optional.ofNullable(retainDocument).orElse(true));
     }
 
     @Override
     public void marshal(Writer writer, boolean formatted) {
-        try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(Document.class);
-
-            Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-
-            jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
-            jaxbMarshaller.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, SCHEMA_LOCATION);
-
-            jaxbMarshaller.marshal(createDocument(), writer);
+        MAPPER.marshal(this, this.customerCreditTransferInitiation, writer, formatted, schemaValidation);
+    }
 
-        } catch (JAXBException e) {
-            throw new XmlException(e);
-        }
+    @Override
+    public void marshal(OutputStream outputStream, boolean formatted) {
+        MAPPER.marshal(this, this.customerCreditTransferInitiation, outputStream, formatted, schemaValidation);
     }
 
     /**
      * Create the JAXB Document
+     * <p>
+     * Streamed transactions are consumed to build the whole document.
+     * <p>
+     * The document must be treated as read-only: it may be the one retained for later marshallings, and repeated
+     * parties, postal addresses, accounts and agents share a single JAXB instance across transactions.
      *
      * @return Document containing the credit transfer
      */
     public JAXBElement<Document> createDocument() {
-
-        Document document = new ObjectFactory().createDocument();
-        document.setCstmrCdtTrfInitn(this.customerCreditTransferInitiation);
-
-        return new JAXBElement<>(
-                new QName(SCHEMA_LOCATION, "Document"),
-                Document.class,
-                document);
+        return MAPPER.createDocument(this, this.customerCreditTransferInitiation);
     }
 
-    private CustomerCreditTransferInitiationV03CH build() {
-
-        CustomerCreditTransferInitiationV03CH cti = new CustomerCreditTransferInitiationV03CH();
-
-        cti.setGrpHdr(header());
-
-        PaymentInstructionInformation3CH paymentInstructionInformation = new PaymentInstructionInformation3CH();
-        paymentInstructionInformation.setPmtInfId(this.id);
-        paymentInstructionInformation.setPmtMtd(PaymentMethod3Code.TRF);
-        paymentInstructionInformation.setBtchBookg(this.batchBooking);
-        paymentInstructionInformation.setNbOfTxs(String.valueOf(this.transactions.size()));
-        paymentInstructionInformation.setCtrlSum(this.getControlSum());
-        paymentInstructionInformation.setDbtr(partyIdentification(this.debtor));
-        paymentInstructionInformation.setDbtrAcct(debtorCashAccount(this.debtorAccount));
-        paymentInstructionInformation.setDbtrAgt(mandatoryBranchAndFinancialInstitutionIdentification(this.debtorAccount));
-
-        PaymentTypeInformation19CH paymentTypeInformation = new PaymentTypeInformation19CH();
-        if (this.instructionPriority != null) {
-            paymentTypeInformation.setInstrPrty(Priority2Code.fromValue(this.instructionPriority.name()));
-        }
-        if (this.serviceLevelCode != null) {
-            ServiceLevel8Choice serviceLevel = new ServiceLevel8Choice();
-            serviceLevel.setCd(this.serviceLevelCode);
-            paymentTypeInformation.setSvcLvl(serviceLevel);
-        }
-        paymentInstructionInformation.setPmtTpInf(paymentTypeInformation);
-
-        paymentInstructionInformation.setReqdExctnDt(this.datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE.format(requestedExecutionDate)));
-
-        paymentInstructionInformation.setChrgBr(ChargeBearerType1Code.fromValue(this.chargeBearer.name()));
-
-        for (Transaction transaction : this.transactions) {
-            paymentInstructionInformation.getCdtTrfTxInf().add(transaction(transaction));
-        }
-
-        cti.getPmtInf().add(paymentInstructionInformation);
-
-        return cti;
-    }
-
-    private GroupHeader32CH header() {
-        GroupHeader32CH head = new GroupHeader32CH();
-        head.setMsgId(id);
-        head.setCreDtTm(this.datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(creationDateTime)));
-        head.setNbOfTxs(String.valueOf(this.transactions.size()));
-        head.setCtrlSum(this.getControlSum());
-        head.setInitgPty(partyIdentificationHeader(this.debtor));
-        return head;
-    }
-
-    private CreditTransferTransactionInformation10CH transaction(Transaction transaction) {
-
-        // payment identification
-        PaymentIdentification1 paymentIdentification = new PaymentIdentification1();
-        paymentIdentification.setEndToEndId(transaction.getEndToEndId());
-        transaction.getId().ifPresent(paymentIdentification::setInstrId);
-
-        // amount
-        ActiveOrHistoricCurrencyAndAmount activeOrHistoricCurrencyAndAmount = new ActiveOrHistoricCurrencyAndAmount();
-        activeOrHistoricCurrencyAndAmount.setCcy(transaction.getCurrencyCode());
-        activeOrHistoricCurrencyAndAmount.setValue(transaction.getAmount());
-        AmountType3Choice amountType = new AmountType3Choice();
-        amountType.setInstdAmt(activeOrHistoricCurrencyAndAmount);
-
-        // transaction
-        CreditTransferTransactionInformation10CH creditTransferTransactionInformation = new CreditTransferTransactionInformation10CH();
-        creditTransferTransactionInformation.setPmtId(paymentIdentification);
-        creditTransferTransactionInformation.setAmt(amountType);
-        PartyIdentification32CHName creditor = partyIdentificationName(transaction.getParty().orElse(null));
-        if (creditor != null) {
-            creditTransferTransactionInformation.setCdtr(creditor);
-        }
-        creditTransferTransactionInformation.setCdtrAcct(creditorCashAccount(transaction.getAccount()));
-
-        // remittance information
-        if (!transaction.getRemittanceInformationUnstructured().isEmpty()) {
-            RemittanceInformation5CH remittanceInformation = new RemittanceInformation5CH();
-            remittanceInformation.setUstrd(transaction.getRemittanceInformationUnstructured().iterator().next());
-            creditTransferTransactionInformation.setRmtInf(remittanceInformation);
-        }
-
-        transaction.getChargeBearer()
-                .map(cb -> ChargeBearerType1Code.fromValue(cb.name()))
-                .ifPresent(creditTransferTransactionInformation::setChrgBr);
-
-        optionalBranchAndFinancialInstitutionIdentificationOpt(transaction.getAccount()).ifPresent(creditTransferTransactionInformation::setCdtrAgt);
-        Iterator<BankAccount> intermediaryAgentsIterator = transaction.getIntermediaryAgents().iterator();
-        if (intermediaryAgentsIterator.hasNext()) {
-            BankAccount first = intermediaryAgentsIterator.next();
-            optionalBranchAndFinancialInstitutionIdentificationOpt(first).ifPresent(creditTransferTransactionInformation::setIntrmyAgt1);
-        }
-
-        return creditTransferTransactionInformation;
-    }
-
-    private Optional<BranchAndFinancialInstitutionIdentification4CH> optionalBranchAndFinancialInstitutionIdentificationOpt(BankAccount bankAccount) {
-        return bankAccount.getBic().map(bic -> {
-            BicUtil.validate(bic);
-            FinancialInstitutionIdentification7CH financialInstitutionIdentification = new FinancialInstitutionIdentification7CH();
-            financialInstitutionIdentification.setBIC(bic);
-            BranchAndFinancialInstitutionIdentification4CH branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification4CH();
-            branchAndFinancialInstitutionIdentification.setFinInstnId(financialInstitutionIdentification);
-            return branchAndFinancialInstitutionIdentification;
-        });
-    }
-
-    private BranchAndFinancialInstitutionIdentification4CHBicOrClrId mandatoryBranchAndFinancialInstitutionIdentification(BankAccount bankAccount) {
-        BranchAndFinancialInstitutionIdentification4CHBicOrClrId branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification4CHBicOrClrId();
-        FinancialInstitutionIdentification7CHBicOrClrId financialInstitutionIdentification = new FinancialInstitutionIdentification7CHBicOrClrId();
-        bankAccount.getBic().ifPresent(bic -> {
-            BicUtil.validate(bic);
-            financialInstitutionIdentification.setBIC(bic);
-        });
-        branchAndFinancialInstitutionIdentification.setFinInstnId(financialInstitutionIdentification);
-        return branchAndFinancialInstitutionIdentification;
-    }
-
-    private PartyIdentification32CH partyIdentification(Party party) {
-        PartyIdentification32CH partyIdentification = new PartyIdentification32CH();
-        if (party != null) {
-            party.getName().ifPresent(partyIdentification::setNm);
-            party.getPostalAddress().map(this::postalAddress).ifPresent(partyIdentification::setPstlAdr);
-        }
-        return partyIdentification;
-    }
-
-    private PartyIdentification32CHNameAndId partyIdentificationHeader(Party party) {
-        PartyIdentification32CHNameAndId partyIdentification = new PartyIdentification32CHNameAndId();
-        if (party != null) {
-            party.getName().ifPresent(partyIdentification::setNm);
-        }
-        return partyIdentification;
-    }
-
-    private PartyIdentification32CHName partyIdentificationName(Party party) {
-        if (party == null) {
-            return null;
-        }
-        PartyIdentification32CHName partyIdentification = new PartyIdentification32CHName();
-        partyIdentification.setNm(party.getName()
-                .orElseThrow(() -> new IllegalArgumentException("Party name is required for pain.001.001.03.ch.02")));
-        party.getPostalAddress().map(this::postalAddress).ifPresent(partyIdentification::setPstlAdr);
-        return partyIdentification;
-    }
-
-    private PostalAddress6CH postalAddress(PostalAddress postalAddress) {
-        PostalAddress6CH postalAddress6 = new PostalAddress6CH();
-        postalAddress.getType().ifPresent(typeCode -> postalAddress6.setAdrTp(AddressType2Code.fromValue(typeCode)));
-        postalAddress.getDepartment().ifPresent(postalAddress6::setDept);
-        postalAddress.getSubDepartment().ifPresent(postalAddress6::setSubDept);
-        postalAddress.getStreetName().ifPresent(postalAddress6::setStrtNm);
-        postalAddress.getBuildingNumber().ifPresent(postalAddress6::setBldgNb);
-        postalAddress.getTownName().ifPresent(postalAddress6::setTwnNm);
-        postalAddress.getPostCode().ifPresent(postalAddress6::setPstCd);
-        postalAddress.getCountrySubDivision().ifPresent(postalAddress6::setCtrySubDvsn);
-        postalAddress.getCountry().ifPresent(postalAddress6::setCtry);
-        int lines = 0;
-        for (String addressLine : postalAddress.getAddressLines()) {
-            if (lines >= 2) {
-                break;
-            }
-            postalAddress6.getAdrLine().add(addressLine);
-            lines++;
-        }
-        return postalAddress6;
-    }
-
-    private CashAccount16CHIdTpCcy debtorCashAccount(BankAccount bankAccount) {
-        CashAccount16CHIdTpCcy cashAccount = new CashAccount16CHIdTpCcy();
-        cashAccount.setId(accountIdentification(bankAccount));
-        return cashAccount;
-    }
-
-    private CashAccount16CHId creditorCashAccount(BankAccount bankAccount) {
-        CashAccount16CHId cashAccount = new CashAccount16CHId();
-        cashAccount.setId(accountIdentification(bankAccount));
-        return cashAccount;
+    /**
+     * Create the JAXB Document of a message holding the payment information of several credit transfers
+     *
+     * @param id                 message id
+     * @param creationDateTime   message creation date time
+     * @param initiatingParty    initiating party
+     * @param paymentInformation credit transfers, each one being a payment information
+     * @return Document containing the message
+     */
+    static JAXBElement<Document> createMessageDocument(String id, LocalDateTime creationDateTime, Party initiatingParty, List<JAXBCreditTransferV03Ch02> paymentInformation) {
+        return MAPPER.createMessageDocument(id, creationDateTime, initiatingParty, paymentInformation, JAXBCreditTransferV03Ch02::initiation);
     }
 
-    private AccountIdentification4ChoiceCH accountIdentification(BankAccount bankAccount) {
-        AccountIdentification4ChoiceCH accountIdentification = new AccountIdentification4ChoiceCH();
-        Optional<String> optionalIban = bankAccount.getIban();
-        Optional<String> optionalOtherId = bankAccount.getOtherId();
-        if (optionalIban.isPresent()) {
-            String iban = optionalIban.get();
-            IbanUtil.validate(iban);
-            accountIdentification.setIBAN(iban);
-        } else if (optionalOtherId.isPresent()) {
-            GenericAccountIdentification1CH genericAccountIdentification = new GenericAccountIdentification1CH();
-            genericAccountIdentification.setId(optionalOtherId.get());
-            accountIdentification.setOthr(genericAccountIdentification);
-        } else {
-            throw new IllegalArgumentException("IBAN or otherId must be provided");
-        }
-        return accountIdentification;
+    private CustomerCreditTransferInitiationV03CH initiation() {
+        return StreamedTransactions.isStreamed(this.transactions) ? MAPPER.build(this, true) : this.customerCreditTransferInitiation.get();
     }
 
     @Override
@@ -363,6 +186,29 @@ public class JAXBCreditTransferV03Ch02 implements CreditTransferOperation {
         return batchBooking;
     }
 
+    @Override
+    public int getNumberOfTransactions() {
+        return totals().getNumberOfTransactions();
+    }
+
+    @Override
+    public BigDecimal getControlSum() {
+        return totals().getControlSum();
+    }
+
+    /**
+     * @return the sum of transaction amounts by currency code, sorted by currency code
+     * @throws IllegalStateException if transactions are streamed with declared totals
+     */
+    @Override
+    public Map<String, BigDecimal> getControlSumByCurrency() {
+        return totals().getControlSumByCurrency();
+    }
+
+    private TransactionTotals totals() {
+        return totals == null ? TransactionTotals.of(transactions) : totals;
+    }
+
     private <T> Collection<T> requireTransaction(Collection<T> collection) {
         if (collection.isEmpty()) {
             throw new IllegalArgumentException("At least 1 transaction is required");
@@ -397,4 +243,192 @@ public class JAXBCreditTransferV03Ch02 implements CreditTransferOperation {
                 .add("batchBooking=" + batchBooking)
                 .toString();
     }
+
+    /**
+     * Emits PAIN.001.001.03.CH.02 objects
+     */
+    private static final class Emitter implements JAXBCreditTransferEmitter<JAXBCreditTransferV03Ch02, Document, CustomerCreditTransferInitiationV03CH, PaymentInstructionInformation3CH, CreditTransferTransactionInformation10CH> {
+
+        private static final JAXBFragments.PostalAddresses<PostalAddress6CH> POSTAL_ADDRESSES = new JAXBFragments.PostalAddresses<>(PostalAddress6CH::new, PostalAddress6CH::getAdrLine, 2)
+                .type((postalAddress, typeCode) -> postalAddress.setAdrTp(AddressType2Code.fromValue(typeCode)))
+                .department(PostalAddress6CH::setDept)
+                .subDepartment(PostalAddress6CH::setSubDept)
+                .streetName(PostalAddress6CH::setStrtNm)
+                .buildingNumber(PostalAddress6CH::setBldgNb)
+                .townName(PostalAddress6CH::setTwnNm)
+                .postCode(PostalAddress6CH::setPstCd)
+                .countrySubDivision(PostalAddress6CH::setCtrySubDvsn)
+                .country(PostalAddress6CH::setCtry);
+
+        private static final JAXBFragments.Parties<PartyIdentification32CHNameAndId> INITIATING_PARTIES = new JAXBFragments.Parties<>(PartyIdentification32CHNameAndId::new, PartyIdentification32CHNameAndId::setNm);
+
+        private static final JAXBFragments.Parties<PartyIdentification32CH> DEBTORS = new JAXBFragments.Parties<>(PartyIdentification32CH::new, PartyIdentification32CH::setNm)
+                .postalAddress(POSTAL_ADDRESSES, PartyIdentification32CH::setPstlAdr);
+
+        private static final JAXBFragments.Parties<PartyIdentification32CHName> CREDITORS = new JAXBFragments.Parties<>(PartyIdentification32CHName::new, PartyIdentification32CHName::setNm)
+                .postalAddress(POSTAL_ADDRESSES, PartyIdentification32CHName::setPstlAdr)
+                .requireName("Party name is required for pain.001.001.03.ch.02");
+
+        private static final JAXBFragments.Accounts<CashAccount16CHIdTpCcy> DEBTOR_ACCOUNTS = new JAXBFragments.Accounts<>(Emitter::debtorCashAccount, (cashAccount, iban) -> cashAccount.getId().setIBAN(iban))
+                .otherId((cashAccount, otherId) -> cashAccount.getId().setOthr(genericAccountIdentification(otherId)));
+
+        private static final JAXBFragments.Accounts<CashAccount16CHId> CREDITOR_ACCOUNTS = new JAXBFragments.Accounts<>(Emitter::creditorCashAccount, (cashAccount, iban) -> cashAccount.getId().setIBAN(iban))
+                .otherId((cashAccount, otherId) -> cashAccount.getId().setOthr(genericAccountIdentification(otherId)));
+
+        private static final JAXBFragments.Agents<BranchAndFinancialInstitutionIdentification4CHBicOrClrId> DEBTOR_AGENTS = new JAXBFragments.Agents<>(Emitter::debtorAgent, (agent, bic) -> agent.getFinInstnId().setBIC(bic));
+
+        private static final JAXBFragments.Agents<BranchAndFinancialInstitutionIdentification4CH> AGENTS = new JAXBFragments.Agents<>(Emitter::agent, (agent, bic) -> agent.getFinInstnId().setBIC(bic));
+
+        @Override
+        public CustomerCreditTransferInitiationVersion getVersion() {
+            return CustomerCreditTransferInitiationVersion.V03_CH_02;
+        }
+
+        @Override
+        public JAXBElement<Document> document(CustomerCreditTransferInitiationV03CH initiation) {
+
+            Document document = new ObjectFactory().createDocument();
+            document.setCstmrCdtTrfInitn(initiation);
+
+            return new JAXBElement<>(
+                    new QName(SCHEMA_LOCATION, "Document"),
+                    Document.class,
+                    document);
+        }
+
+        @Override
+        public CustomerCreditTransferInitiationV03CH initiation() {
+            return new CustomerCreditTransferInitiationV03CH();
+        }
+
+        @Override
+        public void groupHeader(CustomerCreditTransferInitiationV03CH initiation, String id, XMLGregorianCalendar creationDateTime, String numberOfTransactions, BigDecimal controlSum, Party initiatingParty, JAXBFragments.Cache fragments) {
+            GroupHeader32CH head = new GroupHeader32CH();
+            head.setMsgId(id);
+            head.setCreDtTm(creationDateTime);
+            head.setNbOfTxs(numberOfTransactions);
+            head.setCtrlSum(controlSum);
+            head.setInitgPty(INITIATING_PARTIES.map(initiatingParty, fragments));
+            initiation.setGrpHdr(head);
+        }
+
+        @Override
+        public List<PaymentInstructionInformation3CH> paymentInstructions(CustomerCreditTransferInitiationV03CH initiation) {
+            return initiation.getPmtInf();
+        }
+
+        @Override
+        public PaymentInstructionInformation3CH paymentInstruction() {
+            return new PaymentInstructionInformation3CH();
+        }
+
+        @Override
+        public PaymentInstructionInformation3CH paymentInstruction(JAXBCreditTransferV03Ch02 creditTransfer, JAXBFragments.Cache fragments) {
+
+            PaymentInstructionInformation3CH paymentInstructionInformation = new PaymentInstructionInformation3CH();
+            paymentInstructionInformation.setPmtInfId(creditTransfer.id);
+            paymentInstructionInformation.setPmtMtd(PaymentMethod3Code.TRF);
+            paymentInstructionInformation.setBtchBookg(creditTransfer.batchBooking);
+            paymentInstructionInformation.setNbOfTxs(String.valueOf(creditTransfer.getNumberOfTransactions()));
+            paymentInstructionInformation.setCtrlSum(creditTransfer.getControlSum());
+            paymentInstructionInformation.setDbtr(DEBTORS.map(creditTransfer.debtor, fragments));
+            paymentInstructionInformation.setDbtrAcct(DEBTOR_ACCOUNTS.map(creditTransfer.debtorAccount, fragments));
+            paymentInstructionInformation.setDbtrAgt(DEBTOR_AGENTS.mandatory(creditTransfer.debtorAccount, fragments));
+
+            PaymentTypeInformation19CH paymentTypeInformation = new PaymentTypeInformation19CH();
+            if (creditTransfer.instructionPriority != null) {
+                paymentTypeInformation.setInstrPrty(Priority2Code.fromValue(creditTransfer.instructionPriority.name()));
+            }
+            if (creditTransfer.serviceLevelCode != null) {
+                ServiceLevel8Choice serviceLevel = new ServiceLevel8Choice();
+                serviceLevel.setCd(creditTransfer.serviceLevelCode);
+                paymentTypeInformation.setSvcLvl(serviceLevel);
+            }
+            paymentInstructionInformation.setPmtTpInf(paymentTypeInformation);
+
+            paymentInstructionInformation.setReqdExctnDt(XmlDateTimes.date(creditTransfer.requestedExecutionDate));
+
+            paymentInstructionInformation.setChrgBr(ChargeBearerType1Code.fromValue(creditTransfer.chargeBearer.name()));
+
+            return paymentInstructionInformation;
+        }
+
+        @Override
+        public List<CreditTransferTransactionInformation10CH> transactions(PaymentInstructionInformation3CH paymentInstruction) {
+            return paymentInstruction.getCdtTrfTxInf();
+        }
+
+        @Override
+        public CreditTransferTransactionInformation10CH transaction(Transaction transaction, JAXBFragments.Cache fragments) {
+
+            // payment identification
+            PaymentIdentification1 paymentIdentification = new PaymentIdentification1();
+            paymentIdentification.setEndToEndId(transaction.getEndToEndId());
+            transaction.getId().ifPresent(paymentIdentification::setInstrId);
+
+            // amount
+            ActiveOrHistoricCurrencyAndAmount activeOrHistoricCurrencyAndAmount = new ActiveOrHistoricCurrencyAndAmount();
+            activeOrHistoricCurrencyAndAmount.setCcy(transaction.getCurrencyCode());
+            activeOrHistoricCurrencyAndAmount.setValue(transaction.getAmount());
+            AmountType3Choice amountType = new AmountType3Choice();
+            amountType.setInstdAmt(activeOrHistoricCurrencyAndAmount);
+
+            // transaction
+            CreditTransferTransactionInformation10CH creditTransferTransactionInformation = new CreditTransferTransactionInformation10CH();
+            creditTransferTransactionInformation.setPmtId(paymentIdentification);
+            creditTransferTransactionInformation.setAmt(amountType);
+            transaction.getParty().map(party -> CREDITORS.map(party, fragments)).ifPresent(creditTransferTransactionInformation::setCdtr);
+            creditTransferTransactionInformation.setCdtrAcct(CREDITOR_ACCOUNTS.map(transaction.getAccount(), fragments));
+
+            // remittance information
+            if (!transaction.getRemittanceInformationUnstructured().isEmpty()) {
+                RemittanceInformation5CH remittanceInformation = new RemittanceInformation5CH();
+                remittanceInformation.setUstrd(transaction.getRemittanceInformationUnstructured().iterator().next());
+                creditTransferTransactionInformation.setRmtInf(remittanceInformation);
+            }
+
+            transaction.getChargeBearer()
+                    .map(cb -> ChargeBearerType1Code.fromValue(cb.name()))
+                    .ifPresent(creditTransferTransactionInformation::setChrgBr);
+
+            AGENTS.optional(transaction.getAccount(), fragments).ifPresent(creditTransferTransactionInformation::setCdtrAgt);
+            Iterator<BankAccount> intermediaryAgentsIterator = transaction.getIntermediaryAgents().iterator();
+            if (intermediaryAgentsIterator.hasNext()) {
+                BankAccount first = intermediaryAgentsIterator.next();
+                AGENTS.optional(first, fragments).ifPresent(creditTransferTransactionInformation::setIntrmyAgt1);
+            }
+
+            return creditTransferTransactionInformation;
+        }
+
+        private static CashAccount16CHIdTpCcy debtorCashAccount() {
+            CashAccount16CHIdTpCcy cashAccount = new CashAccount16CHIdTpCcy();
+            cashAccount.setId(new AccountIdentification4ChoiceCH());
+            return cashAccount;
+        }
+
+        private static CashAccount16CHId creditorCashAccount() {
+            CashAccount16CHId cashAccount = new CashAccount16CHId();
+            cashAccount.setId(new AccountIdentification4ChoiceCH());
+            return cashAccount;
+        }
+
+        private static GenericAccountIdentification1CH genericAccountIdentification(String otherId) {
+            GenericAccountIdentification1CH genericAccountIdentification = new GenericAccountIdentification1CH();
+            genericAccountIdentification.setId(otherId);
+            return genericAccountIdentification;
+        }
+
+        private static BranchAndFinancialInstitutionIdentification4CHBicOrClrId debtorAgent() {
+            BranchAndFinancialInstitutionIdentification4CHBicOrClrId branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification4CHBicOrClrId();
+            branchAndFinancialInstitutionIdentification.setFinInstnId(new FinancialInstitutionIdentification7CHBicOrClrId());
+            return branchAndFinancialInstitutionIdentification;
+        }
+
+        private static BranchAndFinancialInstitutionIdentification4CH agent() {
+            BranchAndFinancialInstitutionIdentification4CH branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification4CH();
+            branchAndFinancialInstitutionIdentification.setFinInstnId(new FinancialInstitutionIdentification7CH());
+            return branchAndFinancialInstitutionIdentification;
+        }
+    }
 }
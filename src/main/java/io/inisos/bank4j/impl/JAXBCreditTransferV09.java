@@ -2,17 +2,13 @@ package io.inisos.bank4j.impl;
 
 import io.inisos.bank4j.*;
 import iso._20022.pain_001_001_09.*;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
-import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
-import org.iban4j.BicUtil;
-import org.iban4j.IbanUtil;
 
-import javax.xml.datatype.DatatypeConfigurationException;
-import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
@@ -27,12 +23,14 @@ import java.util.*;
 public class JAXBCreditTransferV09 implements CreditTransferOperation {
 
     private static final DateTimeFormatter FORMAT_AS_ID = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    static final JAXBCreditTransferMapper<JAXBCreditTransferV09, Document, CustomerCreditTransferInitiationV09, PaymentInstruction30, CreditTransferTransaction34> MAPPER = new JAXBCreditTransferMapper<>(new Emitter());
 
     private final Priority instructionPriority;
     private final String serviceLevelCode;
     private final Party debtor;
     private final BankAccount debtorAccount;
     private final Collection<Transaction> transactions;
+    private final TransactionTotals totals;
     private final String id;
     private final LocalDateTime creationDateTime;
     private final LocalDate requestedExecutionDate;
@@ -40,10 +38,9 @@ public class JAXBCreditTransferV09 implements CreditTransferOperation {
     private final ChargeBearer chargeBearer;
     private final boolean batchBooking;
     private final Boolean instantPayment;
+    private final boolean schemaValidation;
 
-    private final DatatypeFactory datatypeFactory;
-
-    private final CustomerCreditTransferInitiationV09 customerCreditTransferInitiation;
+    private final LazyInitiation<CustomerCreditTransferInitiationV09> customerCreditTransferInitiation;
 
     /**
      * Constructor
@@ -52,7 +49,7 @@ public class JAXBCreditTransferV09 implements CreditTransferOperation {
      * @param serviceLevelCode           optional e.g. "SEPA"
      * @param debtor                     optional debtor
      * @param debtorAccount              debtor account
-     * @param transactions               transactions (cannot contain duplicates)
+     * @param transactions               transactions (cannot contain duplicates), copied unless streamed
      * @param id                         optional identifier, defaults to execution date and time
      * @param creationDateTime           optional message creation date and time, defaults to now
      * @param requestedExecutionDate     optional requested execution date, defaults to tomorrow
@@ -71,11 +68,45 @@ public class JAXBCreditTransferV09 implements CreditTransferOperation {
                                  ChargeBearer chargeBearer,
                                  Boolean batchBooking,
                                  Boolean instantPayment) {
+        this(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, requestedExecutionDateTime, chargeBearer, batchBooking, instantPayment, null, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param instructionPriority        optional priority
+     * @param serviceLevelCode           optional e.g. "SEPA"
+     * @param debtor                     optional debtor
+     * @param debtorAccount              debtor account
+     * @param transactions               transactions (cannot contain duplicates), copied unless streamed
+     * @param id                         optional identifier, defaults to execution date and time
+     * @param creationDateTime           optional message creation date and time, defaults to now
+     * @param requestedExecutionDate     optional requested execution date, defaults to tomorrow
+     * @param requestedExecutionDateTime optional requested execution date and time
+     * @param chargeBearer               optional charge bearer code defines who is bearing the charges of the transfer, by default it is set to 'SLEV' (Service Level)
+     * @param retainDocument             optional, false to build the document on each marshalling and discard it afterwards, defaults to true
+     * @param schemaValidation           optional, true to validate output against the schema of its version while marshalling, defaults to false
+     */
+    public JAXBCreditTransferV09(Priority instructionPriority,
+                                 String serviceLevelCode,
+                                 Party debtor,
+                                 BankAccount debtorAccount,
+                                 Collection<Transaction> transactions,
+                                 String id,
+                                 LocalDateTime creationDateTime,
+                                 LocalDate requestedExecutionDate,
+                                 ZonedDateTime requestedExecutionDateTime,
+                                 ChargeBearer chargeBearer,
+                                 Boolean batchBooking,
+                                 Boolean instantPayment,
+                                 Boolean retainDocument,
+                                 Boolean schemaValidation) {
         this.instructionPriority = instructionPriority;
         this.serviceLevelCode = serviceLevelCode;
         this.debtor = debtor;
         this.debtorAccount = Objects.requireNonNull(debtorAccount, "Debtor account cannot be null");
-        this.transactions = requireTransaction(Objects.requireNonNull(transactions));
+        this.transactions = requireTransaction(TransactionList.snapshot(Objects.requireNonNull(transactions)));
+        this.totals = StreamedTransactions.isStreamed(this.transactions) ? null : TransactionTotals.of(this.transactions);
         this.creationDateTime = Optional.ofNullable(creationDateTime).orElse(LocalDateTime.now());
         this.instantPayment = instantPayment;
         if(requestedExecutionDate != null && requestedExecutionDateTime != null) {
@@ -90,240 +121,49 @@ public class JAXBCreditTransferV09 implements CreditTransferOperation {
         this.id = Optional.ofNullable(id).orElseGet(() -> FORMAT_AS_ID.format(this.creationDateTime));
         this.chargeBearer = Optional.ofNullable(chargeBearer).orElse(ChargeBearer.SLEV);
         this.batchBooking = Optional.ofNullable(batchBooking).orElse(false);
-
-        try {
-            this.datatypeFactory = DatatypeFactory.newInstance();
-        } catch (DatatypeConfigurationException e) {
-            throw new XmlException(e);
-        }
-        this.customerCreditTransferInitiation = build();
+        this.schemaValidation = Optional.ofNullable(schemaValidation).orElse(false);
+        this.customerCreditTransferInitiation = new LazyInitiation<>(() -> MAPPER.build(this, !StreamedTransactions.isStreamed(this.transactions)), Optional.ofNullable(retainDocument).orElse(true));
     }
 
     @Override
     public void marshal(Writer writer, boolean formatted) {
-        try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(Document.class);
-
-            Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-
-            jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
-
-            jaxbMarshaller.marshal(createDocument(), writer);
+        MAPPER.marshal(this, this.customerCreditTransferInitiation, writer, formatted, schemaValidation);
+    }
 
-        } catch (JAXBException e) {
-            throw new XmlException(e);
-        }
+    @Override
+    public void marshal(OutputStream outputStream, boolean formatted) {
+        MAPPER.marshal(this, this.customerCreditTransferInitiation, outputStream, formatted, schemaValidation);
     }
 
     /**
      * Create the JAXB Document
+     * <p>
+     * Streamed transactions are consumed to build the whole document.
+     * <p>
+     * The document must be treated as read-only: it may be the one retained for later marshallings, and repeated
+     * parties, postal addresses, accounts and agents share a single JAXB instance across transactions.
      *
      * @return Document containing the credit transfer
      */
     public JAXBElement<Document> createDocument() {
-
-        Document document = new ObjectFactory().createDocument();
-        document.setCstmrCdtTrfInitn(this.customerCreditTransferInitiation);
-
-        return new JAXBElement<>(
-                new QName("urn:iso:std:iso:20022:tech:xsd:pain.001.001.09", "Document"),
-                Document.class,
-                document);
-    }
-
-    private CustomerCreditTransferInitiationV09 build() {
-
-        CustomerCreditTransferInitiationV09 cti = new CustomerCreditTransferInitiationV09();
-
-        cti.setGrpHdr(header());
-
-        PaymentInstruction30 paymentInstructionInformationSCT3 = new PaymentInstruction30();
-        paymentInstructionInformationSCT3.setPmtInfId(this.id);
-        paymentInstructionInformationSCT3.setPmtMtd(PaymentMethod3Code.TRF);
-        paymentInstructionInformationSCT3.setBtchBookg(this.batchBooking);
-        paymentInstructionInformationSCT3.setNbOfTxs(String.valueOf(this.transactions.size()));
-        paymentInstructionInformationSCT3.setCtrlSum(this.getControlSum());
-        paymentInstructionInformationSCT3.setDbtr(partyIdentification(this.debtor));
-        paymentInstructionInformationSCT3.setDbtrAcct(cashAccount(this.debtorAccount));
-        paymentInstructionInformationSCT3.setDbtrAgt(mandatoryBranchAndFinancialInstitutionIdentification(this.debtorAccount));
-
-        PaymentTypeInformation26 paymentTypeInformation = new PaymentTypeInformation26();
-        if (this.instructionPriority != null) {
-            paymentTypeInformation.setInstrPrty(Priority2Code.fromValue(this.instructionPriority.name()));
-        }
-        if (this.serviceLevelCode != null) {
-            ServiceLevel8Choice serviceLevel = new ServiceLevel8Choice();
-            serviceLevel.setCd(this.serviceLevelCode);
-            paymentTypeInformation.getSvcLvl().add(serviceLevel);
-        }
-        if (this.instantPayment != null && this.instantPayment) {
-            paymentTypeInformation.setLclInstrm(new LocalInstrument2Choice());
-            paymentTypeInformation.getLclInstrm().setCd("INST");
-        }
-
-        paymentInstructionInformationSCT3.setPmtTpInf(paymentTypeInformation);
-
-        DateAndDateTime2Choice dateAndDateTime2Choice = new DateAndDateTime2Choice();
-        if(requestedExecutionDate != null) {
-            dateAndDateTime2Choice.setDt(this.datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE.format(requestedExecutionDate)));
-        } else if(requestedExecutionDateTime != null) {
-            dateAndDateTime2Choice.setDtTm(this.datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(requestedExecutionDateTime)));
-        } else {
-            throw new IllegalArgumentException("Either requestedExecutionDate or requestedExecutionDateTime must be set");
-        }
-        paymentInstructionInformationSCT3.setReqdExctnDt(dateAndDateTime2Choice);
-
-        paymentInstructionInformationSCT3.setChrgBr(ChargeBearerType1Code.fromValue(this.chargeBearer.name()));
-
-        for (Transaction transaction : this.transactions) {
-            paymentInstructionInformationSCT3.getCdtTrfTxInf().add(transaction(transaction));
-        }
-
-        cti.getPmtInf().add(paymentInstructionInformationSCT3);
-
-        return cti;
+        return MAPPER.createDocument(this, this.customerCreditTransferInitiation);
     }
 
-    private GroupHeader85 header() {
-        GroupHeader85 head = new GroupHeader85();
-        head.setMsgId(id);
-        head.setCreDtTm(this.datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(creationDateTime)));
-        head.setNbOfTxs(String.valueOf(this.transactions.size()));
-        head.setCtrlSum(this.getControlSum());
-        head.setInitgPty(partyIdentification(this.debtor));
-        return head;
-    }
-
-    private CreditTransferTransaction34 transaction(Transaction transaction) {
-
-        // payment identification
-        PaymentIdentification6 paymentIdentificationSEPA = new PaymentIdentification6();
-        paymentIdentificationSEPA.setEndToEndId(transaction.getEndToEndId());
-        transaction.getId().ifPresent(paymentIdentificationSEPA::setInstrId);
-
-        // amount
-        ActiveOrHistoricCurrencyAndAmount activeOrHistoricCurrencyAndAmount = new ActiveOrHistoricCurrencyAndAmount();
-        activeOrHistoricCurrencyAndAmount.setCcy(transaction.getCurrencyCode());
-        activeOrHistoricCurrencyAndAmount.setValue(transaction.getAmount());
-        AmountType4Choice amountType = new AmountType4Choice();
-        amountType.setInstdAmt(activeOrHistoricCurrencyAndAmount);
-
-        // transaction
-        CreditTransferTransaction34 creditTransferTransactionInformation = new CreditTransferTransaction34();
-        creditTransferTransactionInformation.setPmtId(paymentIdentificationSEPA);
-        creditTransferTransactionInformation.setAmt(amountType);
-        creditTransferTransactionInformation.setCdtr(partyIdentification(transaction.getParty().orElse(null)));
-        creditTransferTransactionInformation.setCdtrAcct(cashAccount(transaction.getAccount()));
-
-        // remittance information
-        if (!transaction.getRemittanceInformationUnstructured().isEmpty()) {
-            RemittanceInformation16 remittanceInformation = new RemittanceInformation16();
-            remittanceInformation.getUstrd().addAll(transaction.getRemittanceInformationUnstructured());
-            creditTransferTransactionInformation.setRmtInf(remittanceInformation);
-        }
-
-        transaction.getChargeBearer()
-                .map(cb -> ChargeBearerType1Code.fromValue(cb.name()))
-                .ifPresent(creditTransferTransactionInformation::setChrgBr);
-
-        optionalBranchAndFinancialInstitutionIdentificationOpt(transaction.getAccount()).ifPresent(creditTransferTransactionInformation::setCdtrAgt);
-        Iterator<BankAccount> intermediaryAgentsIterator = transaction.getIntermediaryAgents().iterator();
-        if (intermediaryAgentsIterator.hasNext()) {
-            BankAccount first = intermediaryAgentsIterator.next();
-            creditTransferTransactionInformation.setIntrmyAgt1Acct(cashAccount(first));
-            optionalBranchAndFinancialInstitutionIdentificationOpt(first).ifPresent(creditTransferTransactionInformation::setIntrmyAgt1);
-        }
-        if (intermediaryAgentsIterator.hasNext()) {
-            BankAccount second = intermediaryAgentsIterator.next();
-            creditTransferTransactionInformation.setIntrmyAgt2Acct(cashAccount(second));
-            optionalBranchAndFinancialInstitutionIdentificationOpt(second).ifPresent(creditTransferTransactionInformation::setIntrmyAgt2);
-        }
-        if (intermediaryAgentsIterator.hasNext()) {
-            BankAccount third = intermediaryAgentsIterator.next();
-            creditTransferTransactionInformation.setIntrmyAgt3Acct(cashAccount(third));
-            optionalBranchAndFinancialInstitutionIdentificationOpt(third).ifPresent(creditTransferTransactionInformation::setIntrmyAgt3);
-        }
-
-        return creditTransferTransactionInformation;
-    }
-
-    private Optional<BranchAndFinancialInstitutionIdentification6> optionalBranchAndFinancialInstitutionIdentificationOpt(BankAccount bankAccount) {
-        return bankAccount.getBic().map(bic -> {
-            BicUtil.validate(bic);
-            FinancialInstitutionIdentification18 financialInstitutionIdentification = new FinancialInstitutionIdentification18();
-            financialInstitutionIdentification.setBICFI(bic);
-            BranchAndFinancialInstitutionIdentification6 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification6();
-            branchAndFinancialInstitutionIdentification.setFinInstnId(financialInstitutionIdentification);
-            return branchAndFinancialInstitutionIdentification;
-        });
-    }
-
-    private BranchAndFinancialInstitutionIdentification6 mandatoryBranchAndFinancialInstitutionIdentification(BankAccount bankAccount) {
-        BranchAndFinancialInstitutionIdentification6 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification6();
-        FinancialInstitutionIdentification18 financialInstitutionIdentification = new FinancialInstitutionIdentification18();
-        bankAccount.getBic().ifPresent(bic -> {
-            BicUtil.validate(bic);
-            financialInstitutionIdentification.setBICFI(bic);
-        });
-        branchAndFinancialInstitutionIdentification.setFinInstnId(financialInstitutionIdentification);
-        return branchAndFinancialInstitutionIdentification;
-    }
-
-    private PartyIdentification135 partyIdentification(Party party) {
-        PartyIdentification135 partyIdentification = new PartyIdentification135();
-        if (party != null) {
-            party.getName().ifPresent(partyIdentification::setNm);
-            party.getPostalAddress().map(this::postalAddress).ifPresent(partyIdentification::setPstlAdr);
-        }
-        return partyIdentification;
-    }
-
-    private PostalAddress24 postalAddress(PostalAddress postalAddress) {
-        PostalAddress24 postalAddress24 = new PostalAddress24();
-
-        postalAddress.getType()
-                .map(AddressType2Code::fromValue)
-                .map(addressType2Code -> {
-                    AddressType3Choice addressType3Choice = new AddressType3Choice();
-                    addressType3Choice.setCd(addressType2Code);
-                    return addressType3Choice;
-                })
-                .ifPresent(postalAddress24::setAdrTp);
-        postalAddress.getDepartment().ifPresent(postalAddress24::setDept);
-        postalAddress.getSubDepartment().ifPresent(postalAddress24::setSubDept);
-        postalAddress.getStreetName().ifPresent(postalAddress24::setStrtNm);
-        postalAddress.getBuildingNumber().ifPresent(postalAddress24::setBldgNb);
-        postalAddress.getTownName().ifPresent(postalAddress24::setTwnNm);
-        postalAddress.getPostCode().ifPresent(postalAddress24::setPstCd);
-        postalAddress.getCountrySubDivision().ifPresent(postalAddress24::setCtrySubDvsn);
-        postalAddress.getCountry().ifPresent(postalAddress24::setCtry);
-        postalAddress.getAddressLines().forEach(addressLine -> postalAddress24.getAdrLine().add(addressLine));
-        return postalAddress24;
-    }
-
-    private CashAccount38 cashAccount(BankAccount bankAccount) {
-        CashAccount38 cashAccount = new CashAccount38();
-        cashAccount.setId(accountIdentification(bankAccount));
-        bankAccount.getName().ifPresent(cashAccount::setNm);
-        return cashAccount;
+    /**
+     * Create the JAXB Document of a message holding the payment information of several credit transfers
+     *
+     * @param id                 message id
+     * @param creationDateTime   message creation date time
+     * @param initiatingParty    initiating party
+     * @param paymentInformation credit transfers, each one being a payment information
+     * @return Document containing the message
+     */
+    static JAXBElement<Document> createMessageDocument(String id, LocalDateTime creationDateTime, Party initiatingParty, List<JAXBCreditTransferV09> paymentInformation) {
+        return MAPPER.createMessageDocument(id, creationDateTime, initiatingParty, paymentInformation, JAXBCreditTransferV09::initiation);
     }
 
-    private AccountIdentification4Choice accountIdentification(BankAccount bankAccount) {
-        AccountIdentification4Choice accountIdentification = new AccountIdentification4Choice();
-        Optional<String> optionalIban = bankAccount.getIban();
-        Optional<String> optionalOtherId = bankAccount.getOtherId();
-        if (optionalIban.isPresent()) {
-            String iban = optionalIban.get();
-            IbanUtil.validate(iban);
-            accountIdentification.setIBAN(iban);
-        } else if (optionalOtherId.isPresent()) {
-            GenericAccountIdentification1 genericAccountIdentification = new GenericAccountIdentification1();
-            genericAccountIdentification.setId(optionalOtherId.get());
-            accountIdentification.setOthr(genericAccountIdentification);
-        } else {
-            throw new IllegalArgumentException("IBAN or otherId must be provided");
-        }
-        return accountIdentification;
+    private CustomerCreditTransferInitiationV09 initiation() {
+        return StreamedTransactions.isStreamed(this.transactions) ? MAPPER.build(this, true) : this.customerCreditTransferInitiation.get();
     }
 
     @Override
@@ -381,6 +221,33 @@ public class JAXBCreditTransferV09 implements CreditTransferOperation {
         return batchBooking;
     }
 
+    public boolean isInstantPayment() {
+        return Boolean.TRUE.equals(instantPayment);
+    }
+
+    @Override
+    public int getNumberOfTransactions() {
+        return totals().getNumberOfTransactions();
+    }
+
+    @Override
+    public BigDecimal getControlSum() {
+        return totals().getControlSum();
+    }
+
+    /**
+     * @return the sum of transaction amounts by currency code, sorted by currency code
+     * @throws IllegalStateException if transactions are streamed with declared totals
+     */
+    @Override
+    public Map<String, BigDecimal> getControlSumByCurrency() {
+        return totals().getControlSumByCurrency();
+    }
+
+    private TransactionTotals totals() {
+        return totals == null ? TransactionTotals.of(transactions) : totals;
+    }
+
     private <T> Collection<T> requireTransaction(Collection<T> collection) {
         if (collection.isEmpty()) {
             throw new IllegalArgumentException("At least 1 transaction is required");
@@ -416,4 +283,195 @@ public class JAXBCreditTransferV09 implements CreditTransferOperation {
                 .add("batchBooking=" + batchBooking)
                 .toString();
     }
+
+    /**
+     * Emits PAIN.001.001.09 objects
+     */
+    private static final class Emitter implements JAXBCreditTransferEmitter<JAXBCreditTransferV09, Document, CustomerCreditTransferInitiationV09, PaymentInstruction30, CreditTransferTransaction34> {
+
+        private static final JAXBFragments.PostalAddresses<PostalAddress24> POSTAL_ADDRESSES = new JAXBFragments.PostalAddresses<>(PostalAddress24::new, PostalAddress24::getAdrLine, Integer.MAX_VALUE)
+                .type((postalAddress, typeCode) -> {
+                    AddressType3Choice addressType3Choice = new AddressType3Choice();
+                    addressType3Choice.setCd(AddressType2Code.fromValue(typeCode));
+                    postalAddress.setAdrTp(addressType3Choice);
+                })
+                .department(PostalAddress24::setDept)
+                .subDepartment(PostalAddress24::setSubDept)
+                .streetName(PostalAddress24::setStrtNm)
+                .buildingNumber(PostalAddress24::setBldgNb)
+                .townName(PostalAddress24::setTwnNm)
+                .postCode(PostalAddress24::setPstCd)
+                .countrySubDivision(PostalAddress24::setCtrySubDvsn)
+                .country(PostalAddress24::setCtry);
+
+        private static final JAXBFragments.Parties<PartyIdentification135> PARTIES = new JAXBFragments.Parties<>(PartyIdentification135::new, PartyIdentification135::setNm)
+                .postalAddress(POSTAL_ADDRESSES, PartyIdentification135::setPstlAdr);
+
+        private static final JAXBFragments.Accounts<CashAccount38> ACCOUNTS = new JAXBFragments.Accounts<>(Emitter::cashAccount, (cashAccount, iban) -> cashAccount.getId().setIBAN(iban))
+                .otherId((cashAccount, otherId) -> {
+                    GenericAccountIdentification1 genericAccountIdentification = new GenericAccountIdentification1();
+                    genericAccountIdentification.setId(otherId);
+                    cashAccount.getId().setOthr(genericAccountIdentification);
+                })
+                .name(CashAccount38::setNm);
+
+        private static final JAXBFragments.Agents<BranchAndFinancialInstitutionIdentification6> AGENTS = new JAXBFragments.Agents<>(Emitter::agent, (agent, bic) -> agent.getFinInstnId().setBICFI(bic));
+
+        @Override
+        public CustomerCreditTransferInitiationVersion getVersion() {
+            return CustomerCreditTransferInitiationVersion.V09;
+        }
+
+        @Override
+        public JAXBElement<Document> document(CustomerCreditTransferInitiationV09 initiation) {
+
+            Document document = new ObjectFactory().createDocument();
+            document.setCstmrCdtTrfInitn(initiation);
+
+            return new JAXBElement<>(
+                    new QName("urn:iso:std:iso:20022:tech:xsd:pain.001.001.09", "Document"),
+                    Document.class,
+                    document);
+        }
+
+        @Override
+        public CustomerCreditTransferInitiationV09 initiation() {
+            return new CustomerCreditTransferInitiationV09();
+        }
+
+        @Override
+        public void groupHeader(CustomerCreditTransferInitiationV09 initiation, String id, XMLGregorianCalendar creationDateTime, String numberOfTransactions, BigDecimal controlSum, Party initiatingParty, JAXBFragments.Cache fragments) {
+            GroupHeader85 head = new GroupHeader85();
+            head.setMsgId(id);
+            head.setCreDtTm(creationDateTime);
+            head.setNbOfTxs(numberOfTransactions);
+            head.setCtrlSum(controlSum);
+            head.setInitgPty(PARTIES.map(initiatingParty, fragments));
+            initiation.setGrpHdr(head);
+        }
+
+        @Override
+        public List<PaymentInstruction30> paymentInstructions(CustomerCreditTransferInitiationV09 initiation) {
+            return initiation.getPmtInf();
+        }
+
+        @Override
+        public PaymentInstruction30 paymentInstruction() {
+            return new PaymentInstruction30();
+        }
+
+        @Override
+        public PaymentInstruction30 paymentInstruction(JAXBCreditTransferV09 creditTransfer, JAXBFragments.Cache fragments) {
+
+            PaymentInstruction30 paymentInstructionInformationSCT3 = new PaymentInstruction30();
+            paymentInstructionInformationSCT3.setPmtInfId(creditTransfer.id);
+            paymentInstructionInformationSCT3.setPmtMtd(PaymentMethod3Code.TRF);
+            paymentInstructionInformationSCT3.setBtchBookg(creditTransfer.batchBooking);
+            paymentInstructionInformationSCT3.setNbOfTxs(String.valueOf(creditTransfer.getNumberOfTransactions()));
+            paymentInstructionInformationSCT3.setCtrlSum(creditTransfer.getControlSum());
+            paymentInstructionInformationSCT3.setDbtr(PARTIES.map(creditTransfer.debtor, fragments));
+            paymentInstructionInformationSCT3.setDbtrAcct(ACCOUNTS.map(creditTransfer.debtorAccount, fragments));
+            paymentInstructionInformationSCT3.setDbtrAgt(AGENTS.mandatory(creditTransfer.debtorAccount, fragments));
+
+            PaymentTypeInformation26 paymentTypeInformation = new PaymentTypeInformation26();
+            if (creditTransfer.instructionPriority != null) {
+                paymentTypeInformation.setInstrPrty(Priority2Code.fromValue(creditTransfer.instructionPriority.name()));
+            }
+            if (creditTransfer.serviceLevelCode != null) {
+                ServiceLevel8Choice serviceLevel = new ServiceLevel8Choice();
+                serviceLevel.setCd(creditTransfer.serviceLevelCode);
+                paymentTypeInformation.getSvcLvl().add(serviceLevel);
+            }
+            if (creditTransfer.isInstantPayment()) {
+                paymentTypeInformation.setLclInstrm(new LocalInstrument2Choice());
+                paymentTypeInformation.getLclInstrm().setCd("INST");
+            }
+            paymentInstructionInformationSCT3.setPmtTpInf(paymentTypeInformation);
+
+            DateAndDateTime2Choice dateAndDateTime2Choice = new DateAndDateTime2Choice();
+            if (creditTransfer.requestedExecutionDate != null) {
+                dateAndDateTime2Choice.setDt(XmlDateTimes.date(creditTransfer.requestedExecutionDate));
+            } else if (creditTransfer.requestedExecutionDateTime != null) {
+                dateAndDateTime2Choice.setDtTm(XmlDateTimes.dateTime(creditTransfer.requestedExecutionDateTime));
+            } else {
+                throw new IllegalArgumentException("Either requestedExecutionDate or requestedExecutionDateTime must be set");
+            }
+            paymentInstructionInformationSCT3.setReqdExctnDt(dateAndDateTime2Choice);
+
+            paymentInstructionInformationSCT3.setChrgBr(ChargeBearerType1Code.fromValue(creditTransfer.chargeBearer.name()));
+
+            return paymentInstructionInformationSCT3;
+        }
+
+        @Override
+        public List<CreditTransferTransaction34> transactions(PaymentInstruction30 paymentInstruction) {
+            return paymentInstruction.getCdtTrfTxInf();
+        }
+
+        @Override
+        public CreditTransferTransaction34 transaction(Transaction transaction, JAXBFragments.Cache fragments) {
+
+            // payment identification
+            PaymentIdentification6 paymentIdentificationSEPA = new PaymentIdentification6();
+            paymentIdentificationSEPA.setEndToEndId(transaction.getEndToEndId());
+            transaction.getId().ifPresent(paymentIdentificationSEPA::setInstrId);
+
+            // amount
+            ActiveOrHistoricCurrencyAndAmount activeOrHistoricCurrencyAndAmount = new ActiveOrHistoricCurrencyAndAmount();
+            activeOrHistoricCurrencyAndAmount.setCcy(transaction.getCurrencyCode());
+            activeOrHistoricCurrencyAndAmount.setValue(transaction.getAmount());
+            AmountType4Choice amountType = new AmountType4Choice();
+            amountType.setInstdAmt(activeOrHistoricCurrencyAndAmount);
+
+            // transaction
+            CreditTransferTransaction34 creditTransferTransactionInformation = new CreditTransferTransaction34();
+            creditTransferTransactionInformation.setPmtId(paymentIdentificationSEPA);
+            creditTransferTransactionInformation.setAmt(amountType);
+            creditTransferTransactionInformation.setCdtr(PARTIES.map(transaction.getParty().orElse(null), fragments));
+            creditTransferTransactionInformation.setCdtrAcct(ACCOUNTS.map(transaction.getAccount(), fragments));
+
+            // remittance information
+            if (!transaction.getRemittanceInformationUnstructured().isEmpty()) {
+                RemittanceInformation16 remittanceInformation = new RemittanceInformation16();
+                remittanceInformation.getUstrd().addAll(transaction.getRemittanceInformationUnstructured());
+                creditTransferTransactionInformation.setRmtInf(remittanceInformation);
+            }
+
+            transaction.getChargeBearer()
+                    .map(cb -> ChargeBearerType1Code.fromValue(cb.name()))
+                    .ifPresent(creditTransferTransactionInformation::setChrgBr);
+
+            AGENTS.optional(transaction.getAccount(), fragments).ifPresent(creditTransferTransactionInformation::setCdtrAgt);
+            Iterator<BankAccount> intermediaryAgentsIterator = transaction.getIntermediaryAgents().iterator();
+            if (intermediaryAgentsIterator.hasNext()) {
+                BankAccount first = intermediaryAgentsIterator.next();
+                creditTransferTransactionInformation.setIntrmyAgt1Acct(ACCOUNTS.map(first, fragments));
+                AGENTS.optional(first, fragments).ifPresent(creditTransferTransactionInformation::setIntrmyAgt1);
+            }
+            if (intermediaryAgentsIterator.hasNext()) {
+                BankAccount second = intermediaryAgentsIterator.next();
+                creditTransferTransactionInformation.setIntrmyAgt2Acct(ACCOUNTS.map(second, fragments));
+                AGENTS.optional(second, fragments).ifPresent(creditTransferTransactionInformation::setIntrmyAgt2);
+            }
+            if (intermediaryAgentsIterator.hasNext()) {
+                BankAccount third = intermediaryAgentsIterator.next();
+                creditTransferTransactionInformation.setIntrmyAgt3Acct(ACCOUNTS.map(third, fragments));
+                AGENTS.optional(third, fragments).ifPresent(creditTransferTransactionInformation::setIntrmyAgt3);
+            }
+
+            return creditTransferTransactionInformation;
+        }
+
+        private static CashAccount38 cashAccount() {
+            CashAccount38 cashAccount = new CashAccount38();
+            cashAccount.setId(new AccountIdentification4Choice());
+            return cashAccount;
+        }
+
+        private static BranchAndFinancialInstitutionIdentification6 agent() {
+            BranchAndFinancialInstitutionIdentification6 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentification6();
+            branchAndFinancialInstitutionIdentification.setFinInstnId(new FinancialInstitutionIdentification18());
+            return branchAndFinancialInstitutionIdentification;
+        }
+    }
 }
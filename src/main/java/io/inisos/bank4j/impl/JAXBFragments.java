@@ -0,0 +1,455 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.BankAccount;
+import io.inisos.bank4j.Party;
+import io.inisos.bank4j.PostalAddress;
+import io.inisos.bank4j.util.ValidationCache;
+import org.iban4j.Iban4jException;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Version-agnostic mappings of parties, postal addresses, accounts and agents to JAXB fragments.
+ * <p>
+ * Each version describes its generated types with constructors and setters, a missing setter leaving the element out.
+ * Optional values, limits and IBAN or BIC validation are handled here for all versions.
+ * Within one build, a {@link Cache} maps repeated parties, postal addresses, accounts and agents once.
+ *
+ * @author Patrice Blanchardie
+ */
+final class JAXBFragments {
+
+    private JAXBFragments() {
+    }
+
+    /**
+     * Fragments mapped during one build, shared by every element referring to the same source.
+     * <p>
+     * Payment runs often repeat the same debtor, creditor or agent BIC: each is then mapped and validated once,
+     * and the document refers to a single fragment. Parties, postal addresses and accounts are keyed by identity,
+     * agents by BIC. Each mapping keeps at most {@value #MAXIMUM_SIZE} fragments, so that streaming a large number
+     * of distinct transactions keeps a flat footprint.
+     * <p>
+     * Not thread-safe: a cache belongs to a single build.
+     * Since fragments are shared, documents built with a cache, including those returned by {@code createDocument()},
+     * are read-only: changing a fragment would change every element referring to it.
+     */
+    static final class Cache {
+
+        /**
+         * Maximum number of fragments kept per mapping
+         */
+        static final int MAXIMUM_SIZE = 1024;
+
+        private final Map<Object, Map<Object, Object>> fragments = new IdentityHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        private <S, F> F computeIfAbsent(Object mapping, boolean identity, S source, Function<S, F> mapper) {
+            Map<Object, Object> mapped = fragments.get(mapping);
+            if (mapped == null) {
+                mapped = identity ? new IdentityHashMap<>() : new HashMap<>();
+                fragments.put(mapping, mapped);
+            }
+            Object fragment = mapped.get(source);
+            if (fragment == null) {
+                fragment = mapper.apply(source);
+                if (mapped.size() >= MAXIMUM_SIZE) {
+                    mapped.clear();
+                }
+                mapped.put(source, fragment);
+            }
+            return (F) fragment;
+        }
+    }
+
+    private static <S, F> F map(Cache cache, Object mapping, boolean identity, S source, Function<S, F> mapper) {
+        if (cache == null) {
+            return mapper.apply(source);
+        }
+        return cache.computeIfAbsent(mapping, identity, source, mapper);
+    }
+
+    private static <F> BiConsumer<F, String> ignored() {
+        return (fragment, value) -> {
+        };
+    }
+
+    /**
+     * Postal address mapping
+     *
+     * @param <A> postal address type
+     */
+    static final class PostalAddresses<A> {
+
+        private final Supplier<A> factory;
+        private final Function<A, List<String>> addressLines;
+        private final int maximumAddressLines;
+        private BiConsumer<A, String> type = ignored();
+        private BiConsumer<A, String> department = ignored();
+        private BiConsumer<A, String> subDepartment = ignored();
+        private BiConsumer<A, String> streetName = ignored();
+        private BiConsumer<A, String> buildingNumber = ignored();
+        private BiConsumer<A, String> townName = ignored();
+        private BiConsumer<A, String> postCode = ignored();
+        private BiConsumer<A, String> countrySubDivision = ignored();
+        private BiConsumer<A, String> country = ignored();
+
+        /**
+         * Constructor
+         *
+         * @param factory             creates an empty postal address
+         * @param addressLines        live list of address lines
+         * @param maximumAddressLines address lines beyond are left out
+         */
+        PostalAddresses(Supplier<A> factory, Function<A, List<String>> addressLines, int maximumAddressLines) {
+            this.factory = Objects.requireNonNull(factory);
+            this.addressLines = Objects.requireNonNull(addressLines);
+            this.maximumAddressLines = maximumAddressLines;
+        }
+
+        PostalAddresses<A> type(BiConsumer<A, String> setter) {
+            this.type = setter;
+            return this;
+        }
+
+        PostalAddresses<A> department(BiConsumer<A, String> setter) {
+            this.department = setter;
+            return this;
+        }
+
+        PostalAddresses<A> subDepartment(BiConsumer<A, String> setter) {
+            this.subDepartment = setter;
+            return this;
+        }
+
+        PostalAddresses<A> streetName(BiConsumer<A, String> setter) {
+            this.streetName = setter;
+            return this;
+        }
+
+        PostalAddresses<A> buildingNumber(BiConsumer<A, String> setter) {
+            this.buildingNumber = setter;
+            return this;
+        }
+
+        PostalAddresses<A> townName(BiConsumer<A, String> setter) {
+            this.townName = setter;
+            return this;
+        }
+
+        PostalAddresses<A> postCode(BiConsumer<A, String> setter) {
+            this.postCode = setter;
+            return this;
+        }
+
+        PostalAddresses<A> countrySubDivision(BiConsumer<A, String> setter) {
+            this.countrySubDivision = setter;
+            return this;
+        }
+
+        PostalAddresses<A> country(BiConsumer<A, String> setter) {
+            this.country = setter;
+            return this;
+        }
+
+        /**
+         * @param postalAddress postal address
+         * @return the postal address fragment
+         */
+        A map(PostalAddress postalAddress) {
+            return map(postalAddress, null);
+        }
+
+        /**
+         * @param postalAddress postal address
+         * @param cache         fragments of the current build, null to map without caching
+         * @return the postal address fragment, shared with previous mappings of the same postal address
+         */
+        A map(PostalAddress postalAddress, Cache cache) {
+            return JAXBFragments.map(cache, this, true, postalAddress, this::create);
+        }
+
+        private A create(PostalAddress postalAddress) {
+            A fragment = factory.get();
+            postalAddress.getType().ifPresent(value -> type.accept(fragment, value));
+            postalAddress.getDepartment().ifPresent(value -> department.accept(fragment, value));
+            postalAddress.getSubDepartment().ifPresent(value -> subDepartment.accept(fragment, value));
+            postalAddress.getStreetName().ifPresent(value -> streetName.accept(fragment, value));
+            postalAddress.getBuildingNumber().ifPresent(value -> buildingNumber.accept(fragment, value));
+            postalAddress.getTownName().ifPresent(value -> townName.accept(fragment, value));
+            postalAddress.getPostCode().ifPresent(value -> postCode.accept(fragment, value));
+            postalAddress.getCountrySubDivision().ifPresent(value -> countrySubDivision.accept(fragment, value));
+            postalAddress.getCountry().ifPresent(value -> country.accept(fragment, value));
+            List<String> lines = addressLines.apply(fragment);
+            for (String addressLine : postalAddress.getAddressLines()) {
+                if (lines.size() >= maximumAddressLines) {
+                    break;
+                }
+                lines.add(addressLine);
+            }
+            return fragment;
+        }
+    }
+
+    /**
+     * Party mapping
+     *
+     * @param <N> party type
+     */
+    static final class Parties<N> {
+
+        private final Supplier<N> factory;
+        private final BiConsumer<N, String> name;
+        private PostalAddressSetter<N> postalAddress = (fragment, value, cache) -> {
+        };
+        private String requiredName;
+
+        /**
+         * Constructor
+         *
+         * @param factory creates an empty party
+         * @param name    name setter
+         */
+        Parties(Supplier<N> factory, BiConsumer<N, String> name) {
+            this.factory = Objects.requireNonNull(factory);
+            this.name = Objects.requireNonNull(name);
+        }
+
+        /**
+         * @param postalAddresses postal address mapping
+         * @param setter          postal address setter
+         * @param <A>             postal address type
+         * @return this mapping
+         */
+        <A> Parties<N> postalAddress(PostalAddresses<A> postalAddresses, BiConsumer<N, A> setter) {
+            this.postalAddress = (fragment, value, cache) -> setter.accept(fragment, postalAddresses.map(value, cache));
+            return this;
+        }
+
+        /**
+         * @param message error message if a party has no name
+         * @return this mapping
+         */
+        Parties<N> requireName(String message) {
+            this.requiredName = message;
+            return this;
+        }
+
+        /**
+         * @param party optional party
+         * @return the party fragment, empty if the party is null
+         */
+        N map(Party party) {
+            return map(party, null);
+        }
+
+        /**
+         * @param party optional party
+         * @param cache fragments of the current build, null to map without caching
+         * @return the party fragment, shared with previous mappings of the same party, empty if the party is null
+         */
+        N map(Party party, Cache cache) {
+            if (party == null) {
+                return factory.get();
+            }
+            return JAXBFragments.map(cache, this, true, party, value -> create(value, cache));
+        }
+
+        private N create(Party party, Cache cache) {
+            N fragment = factory.get();
+            if (requiredName != null) {
+                name.accept(fragment, party.getName().orElseThrow(() -> new IllegalArgumentException(requiredName)));
+            } else {
+                party.getName().ifPresent(value -> name.accept(fragment, value));
+            }
+            party.getPostalAddress().ifPresent(value -> postalAddress.set(fragment, value, cache));
+            return fragment;
+        }
+    }
+
+    /**
+     * Cash account mapping, whose identification is an IBAN or another identifier
+     *
+     * @param <K> cash account type
+     */
+    static final class Accounts<K> {
+
+        private final Supplier<K> factory;
+        private final BiConsumer<K, String> iban;
+        private BiConsumer<K, String> otherId;
+        private String requiredIban = "IBAN or otherId must be provided";
+        private BiConsumer<K, String> name = ignored();
+
+        /**
+         * Constructor
+         *
+         * @param factory creates a cash account with an empty identification
+         * @param iban    IBAN setter
+         */
+        Accounts(Supplier<K> factory, BiConsumer<K, String> iban) {
+            this.factory = Objects.requireNonNull(factory);
+            this.iban = Objects.requireNonNull(iban);
+        }
+
+        /**
+         * @param setter other identifier setter
+         * @return this mapping
+         */
+        Accounts<K> otherId(BiConsumer<K, String> setter) {
+            this.otherId = setter;
+            return this;
+        }
+
+        /**
+         * @param message error message if an account has no IBAN
+         * @return this mapping, which accepts IBAN only
+         */
+        Accounts<K> requireIban(String message) {
+            this.otherId = null;
+            this.requiredIban = message;
+            return this;
+        }
+
+        Accounts<K> name(BiConsumer<K, String> setter) {
+            this.name = setter;
+            return this;
+        }
+
+        /**
+         * @param bankAccount bank account
+         * @return the cash account fragment
+         * @throws Iban4jException          if the IBAN is invalid
+         * @throws IllegalArgumentException if the account has no supported identification
+         */
+        K map(BankAccount bankAccount) {
+            return map(bankAccount, null);
+        }
+
+        /**
+         * @param bankAccount bank account
+         * @param cache       fragments of the current build, null to map without caching
+         * @return the cash account fragment, shared with previous mappings of the same account
+         * @throws Iban4jException          if the IBAN is invalid
+         * @throws IllegalArgumentException if the account has no supported identification
+         */
+        K map(BankAccount bankAccount, Cache cache) {
+            return JAXBFragments.map(cache, this, true, bankAccount, this::create);
+        }
+
+        private K create(BankAccount bankAccount) {
+            K fragment = factory.get();
+            Optional<String> optionalIban = bankAccount.getIban();
+            Optional<String> optionalOtherId = otherId == null ? Optional.empty() : bankAccount.getOtherId();
+            if (optionalIban.isPresent()) {
+                String value = optionalIban.get();
+                ValidationCache.getInstance().validateIban(value);
+                iban.accept(fragment, value);
+            } else if (optionalOtherId.isPresent()) {
+                otherId.accept(fragment, optionalOtherId.get());
+            } else {
+                throw new IllegalArgumentException(requiredIban);
+            }
+            bankAccount.getName().ifPresent(value -> name.accept(fragment, value));
+            return fragment;
+        }
+    }
+
+    /**
+     * Financial institution mapping, identified by BIC
+     *
+     * @param <G> agent type
+     */
+    static final class Agents<G> {
+
+        private final Supplier<G> factory;
+        private final BiConsumer<G, String> bic;
+        private Consumer<G> notProvided = fragment -> {
+        };
+
+        /**
+         * Constructor
+         *
+         * @param factory creates an agent with an empty financial institution identification
+         * @param bic     BIC setter
+         */
+        Agents(Supplier<G> factory, BiConsumer<G, String> bic) {
+            this.factory = Objects.requireNonNull(factory);
+            this.bic = Objects.requireNonNull(bic);
+        }
+
+        /**
+         * @param setter marks a mandatory agent without BIC as not provided
+         * @return this mapping
+         */
+        Agents<G> notProvided(Consumer<G> setter) {
+            this.notProvided = setter;
+            return this;
+        }
+
+        /**
+         * @param bankAccount bank account
+         * @return the agent fragment, if the account has a BIC
+         * @throws Iban4jException if the BIC is invalid
+         */
+        Optional<G> optional(BankAccount bankAccount) {
+            return optional(bankAccount, null);
+        }
+
+        /**
+         * @param bankAccount bank account
+         * @param cache       fragments of the current build, null to map without caching
+         * @return the agent fragment, shared with previous mappings of the same BIC, if the account has a BIC
+         * @throws Iban4jException if the BIC is invalid
+         */
+        Optional<G> optional(BankAccount bankAccount, Cache cache) {
+            return bankAccount.getBic().map(value -> JAXBFragments.map(cache, this, false, value, this::agent));
+        }
+
+        /**
+         * @param bankAccount bank account
+         * @return the agent fragment, marked as not provided if the account has no BIC
+         * @throws Iban4jException if the BIC is invalid
+         */
+        G mandatory(BankAccount bankAccount) {
+            return mandatory(bankAccount, null);
+        }
+
+        /**
+         * @param bankAccount bank account
+         * @param cache       fragments of the current build, null to map without caching
+         * @return the agent fragment, shared with previous mappings of the same BIC, marked as not provided if the account has no BIC
+         * @throws Iban4jException if the BIC is invalid
+         */
+        G mandatory(BankAccount bankAccount, Cache cache) {
+            Optional<String> optionalBic = bankAccount.getBic();
+            if (optionalBic.isPresent()) {
+                return JAXBFragments.map(cache, this, false, optionalBic.get(), this::agent);
+            }
+            G fragment = factory.get();
+            notProvided.accept(fragment);
+            return fragment;
+        }
+
+        private G agent(String value) {
+            ValidationCache.getInstance().validateBic(value);
+            G fragment = factory.get();
+            bic.accept(fragment, value);
+            return fragment;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PostalAddressSetter<N> {
+
+        void set(N fragment, PostalAddress postalAddress, Cache cache);
+    }
+}
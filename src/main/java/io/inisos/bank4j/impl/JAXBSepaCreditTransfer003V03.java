@@ -2,22 +2,20 @@ package io.inisos.bank4j.impl;
 
 import io.inisos.bank4j.*;
 import iso._20022.pain_001_003_03.*;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
-import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
-import org.iban4j.BicUtil;
-import org.iban4j.IbanUtil;
 
-import javax.xml.datatype.DatatypeConfigurationException;
-import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.StringJoiner;
@@ -31,6 +29,7 @@ import java.util.StringJoiner;
 public class JAXBSepaCreditTransfer003V03 implements CreditTransferOperation {
 
     private static final DateTimeFormatter FORMAT_AS_ID = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    static final JAXBCreditTransferMapper<JAXBSepaCreditTransfer003V03, Document, CustomerCreditTransferInitiationV03, PaymentInstructionInformationSCT, CreditTransferTransactionInformationSCT> MAPPER = new JAXBCreditTransferMapper<>(new Emitter());
     private static final String DEFAULT_SERVICE_LEVEL = "SEPA";
     private static final String CURRENCY_EUR = "EUR";
 
@@ -39,15 +38,15 @@ public class JAXBSepaCreditTransfer003V03 implements CreditTransferOperation {
     private final Party debtor;
     private final BankAccount debtorAccount;
     private final Collection<Transaction> transactions;
+    private final TransactionTotals totals;
     private final String id;
     private final LocalDateTime creationDateTime;
     private final LocalDate requestedExecutionDate;
     private final ChargeBearer chargeBearer;
     private final boolean batchBooking;
+    private final boolean schemaValidation;
 
-    private final DatatypeFactory datatypeFactory;
-
-    private final CustomerCreditTransferInitiationV03 customerCreditTransferInitiation;
+    private final LazyInitiation<CustomerCreditTransferInitiationV03> customerCreditTransferInitiation;
 
     /**
      * Constructor
@@ -56,18 +55,38 @@ public class JAXBSepaCreditTransfer003V03 implements CreditTransferOperation {
      * @param serviceLevelCode       optional e.g. "SEPA"
      * @param debtor                 optional debtor
      * @param debtorAccount          debtor account
-     * @param transactions           transactions (cannot contain duplicates)
+     * @param transactions           transactions (cannot contain duplicates), copied unless streamed
      * @param id                     optional identifier, defaults to execution date and time
      * @param creationDateTime       optional message creation date and time, defaults to now
      * @param requestedExecutionDate optional requested execution date, defaults to tomorrow
      * @param chargeBearer           optional charge bearer code defines who is bearing the charges of the transfer, by default it is set to 'SLEV' (Service Level)
      */
     public JAXBSepaCreditTransfer003V03(Priority instructionPriority, String serviceLevelCode, Party debtor, BankAccount debtorAccount, Collection<Transaction> transactions, String id, LocalDateTime creationDateTime, LocalDate requestedExecutionDate, ChargeBearer chargeBearer, Boolean batchBooking) {
+        this(instructionPriority, serviceLevelCode, debtor, debtorAccount, transactions, id, creationDateTime, requestedExecutionDate, chargeBearer, batchBooking, null, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param instructionPriority    optional priority
+     * @param serviceLevelCode       optional e.g. "SEPA"
+     * @param debtor                 optional debtor
+     * @param debtorAccount          debtor account
+     * @param transactions           transactions (cannot contain duplicates), copied unless streamed
+     * @param id                     optional identifier, defaults to execution date and time
+     * @param creationDateTime       optional message creation date and time, defaults to now
+     * @param requestedExecutionDate optional requested execution date, defaults to tomorrow
+     * @param chargeBearer           optional charge bearer code defines who is bearing the charges of the transfer, by default it is set to 'SLEV' (Service Level)
+     * @param retainDocument         optional, false to build the document on each marshalling and discard it afterwards, defaults to true
+     * @param schemaValidation       optional, true to validate output against the schema of its version while marshalling, defaults to false
+     */
+    public JAXBSepaCreditTransfer003V03(Priority instructionPriority, String serviceLevelCode, Party debtor, BankAccount debtorAccount, Collection<Transaction> transactions, String id, LocalDateTime creationDateTime, LocalDate requestedExecutionDate, ChargeBearer chargeBearer, Boolean batchBooking, Boolean retainDocument, Boolean schemaValidation) {
         this.instructionPriority = instructionPriority;
         this.serviceLevelCode = Optional.ofNullable(serviceLevelCode).orElse(DEFAULT_SERVICE_LEVEL);
         this.debtor = debtor;
         this.debtorAccount = Objects.requireNonNull(debtorAccount, "Debtor account cannot be null");
-        this.transactions = requireTransaction(Objects.requireNonNull(transactions));
+        this.transactions = requireTransaction(TransactionList.snapshot(Objects.requireNonNull(transactions)));
+        this.totals = StreamedTransactions.isStreamed(this.transactions) ? null : TransactionTotals.of(this.transactions);
         this.creationDateTime = Optional.ofNullable(creationDateTime).orElse(LocalDateTime.now());
         this.requestedExecutionDate = Optional.ofNullable(requestedExecutionDate).orElse(LocalDate.now().plusDays(1));
         this.id = Optional.ofNullable(id).orElseGet(() -> FORMAT_AS_ID.format(this.creationDateTime));
@@ -76,218 +95,49 @@ public class JAXBSepaCreditTransfer003V03 implements CreditTransferOperation {
             throw new IllegalArgumentException("Only SLEV charge bearer is supported for pain.001.003.03");
         }
         this.batchBooking = Optional.ofNullable(batchBooking).orElse(false);
-
-        try {
-            this.datatypeFactory = DatatypeFactory.newInstance();
-        } catch (DatatypeConfigurationException e) {
-            throw new XmlException(e);
-        }
-        this.customerCreditTransferInitiation = build();
+        this.schemaValidation = Optional.ofNullable(schemaValidation).orElse(false);
+        this.customerCreditTransferInitiation = new LazyInitiation<>(() -> MAPPER.build(this, !StreamedTransactions.isStreamed(this.transactions)), Optional.ofNullable(retainDocument).orElse(true));
     }
 
     @Override
     public void marshal(Writer writer, boolean formatted) {
-        try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(Document.class);
-
-            Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-
-            jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
-            jaxbMarshaller.setProperty(Marshaller.JAXB_SCHEMA_LOCATION,
-                    "urn:iso:std:iso:20022:tech:xsd:pain.001.003.03.xsd");
-
-            jaxbMarshaller.marshal(createDocument(), writer);
+        MAPPER.marshal(this, this.customerCreditTransferInitiation, writer, formatted, schemaValidation);
+    }
 
-        } catch (JAXBException e) {
-            throw new XmlException(e);
-        }
+    @Override
+    public void marshal(OutputStream outputStream, boolean formatted) {
+        MAPPER.marshal(this, this.customerCreditTransferInitiation, outputStream, formatted, schemaValidation);
     }
 
     /**
      * Create the JAXB Document
+     * <p>
+     * Streamed transactions are consumed to build the whole document.
+     * <p>
+     * The document must be treated as read-only: it may be the one retained for later marshallings, and repeated
+     * parties, postal addresses, accounts and agents share a single JAXB instance across transactions.
      *
      * @return Document containing the credit transfer
      */
     public JAXBElement<Document> createDocument() {
-
-        Document document = new ObjectFactory().createDocument();
-        document.setCstmrCdtTrfInitn(this.customerCreditTransferInitiation);
-
-        return new JAXBElement<>(
-                new QName("urn:iso:std:iso:20022:tech:xsd:pain.001.003.03", "Document"),
-                Document.class,
-                document);
+        return MAPPER.createDocument(this, this.customerCreditTransferInitiation);
     }
 
-    private CustomerCreditTransferInitiationV03 build() {
-
-        CustomerCreditTransferInitiationV03 cti = new CustomerCreditTransferInitiationV03();
-
-        cti.setGrpHdr(header());
-
-        PaymentInstructionInformationSCT paymentInstructionInformation = new PaymentInstructionInformationSCT();
-        paymentInstructionInformation.setPmtInfId(this.id);
-        paymentInstructionInformation.setPmtMtd(PaymentMethodSCTCode.TRF);
-        paymentInstructionInformation.setBtchBookg(this.batchBooking);
-        paymentInstructionInformation.setNbOfTxs(String.valueOf(this.transactions.size()));
-        paymentInstructionInformation.setCtrlSum(this.getControlSum());
-        paymentInstructionInformation.setDbtr(partyIdentification(this.debtor));
-        paymentInstructionInformation.setDbtrAcct(debtorCashAccount(this.debtorAccount));
-        paymentInstructionInformation.setDbtrAgt(mandatoryBranchAndFinancialInstitutionIdentification(this.debtorAccount));
-
-        PaymentTypeInformationSCT1 paymentTypeInformation = new PaymentTypeInformationSCT1();
-        if (this.instructionPriority != null) {
-            paymentTypeInformation.setInstrPrty(Priority2Code.fromValue(this.instructionPriority.name()));
-        }
-        ServiceLevelSEPA serviceLevel = new ServiceLevelSEPA();
-        serviceLevel.setCd(this.serviceLevelCode);
-        paymentTypeInformation.setSvcLvl(serviceLevel);
-        paymentInstructionInformation.setPmtTpInf(paymentTypeInformation);
-
-        paymentInstructionInformation.setReqdExctnDt(this.datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE.format(requestedExecutionDate)));
-        paymentInstructionInformation.setChrgBr(ChargeBearerTypeSEPACode.SLEV);
-
-        for (Transaction transaction : this.transactions) {
-            paymentInstructionInformation.getCdtTrfTxInf().add(transaction(transaction));
-        }
-
-        cti.getPmtInf().add(paymentInstructionInformation);
-
-        return cti;
-    }
-
-    private GroupHeaderSCT header() {
-        GroupHeaderSCT head = new GroupHeaderSCT();
-        head.setMsgId(id);
-        head.setCreDtTm(this.datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(creationDateTime)));
-        head.setNbOfTxs(String.valueOf(this.transactions.size()));
-        head.setCtrlSum(this.getControlSum());
-        head.setInitgPty(partyIdentificationHeader(this.debtor));
-        return head;
-    }
-
-    private CreditTransferTransactionInformationSCT transaction(Transaction transaction) {
-        requireEurCurrency(transaction);
-
-        // payment identification
-        PaymentIdentificationSEPA paymentIdentificationSEPA = new PaymentIdentificationSEPA();
-        paymentIdentificationSEPA.setEndToEndId(transaction.getEndToEndId());
-        transaction.getId().ifPresent(paymentIdentificationSEPA::setInstrId);
-
-        // amount
-        ActiveOrHistoricCurrencyAndAmountSEPA activeOrHistoricCurrencyAndAmount = new ActiveOrHistoricCurrencyAndAmountSEPA();
-        activeOrHistoricCurrencyAndAmount.setCcy(ActiveOrHistoricCurrencyCodeEUR.EUR);
-        activeOrHistoricCurrencyAndAmount.setValue(transaction.getAmount());
-        AmountTypeSEPA amountType = new AmountTypeSEPA();
-        amountType.setInstdAmt(activeOrHistoricCurrencyAndAmount);
-
-        // transaction
-        CreditTransferTransactionInformationSCT creditTransferTransactionInformation = new CreditTransferTransactionInformationSCT();
-        creditTransferTransactionInformation.setPmtId(paymentIdentificationSEPA);
-        creditTransferTransactionInformation.setAmt(amountType);
-        creditTransferTransactionInformation.setCdtr(partyIdentification(transaction.getParty().orElse(null)));
-        creditTransferTransactionInformation.setCdtrAcct(creditorCashAccount(transaction.getAccount()));
-
-        // remittance information
-        if (!transaction.getRemittanceInformationUnstructured().isEmpty()) {
-            RemittanceInformationSEPA1Choice remittanceInformation = new RemittanceInformationSEPA1Choice();
-            remittanceInformation.setUstrd(transaction.getRemittanceInformationUnstructured().iterator().next());
-            creditTransferTransactionInformation.setRmtInf(remittanceInformation);
-        }
-
-        transaction.getChargeBearer().ifPresent(cb -> {
-            if (cb != ChargeBearer.SLEV) {
-                throw new IllegalArgumentException("Only SLEV charge bearer is supported for pain.001.003.03");
-            }
-            creditTransferTransactionInformation.setChrgBr(ChargeBearerTypeSEPACode.SLEV);
-        });
-
-        optionalBranchAndFinancialInstitutionIdentificationOpt(transaction.getAccount()).ifPresent(creditTransferTransactionInformation::setCdtrAgt);
-
-        return creditTransferTransactionInformation;
-    }
-
-    private Optional<BranchAndFinancialInstitutionIdentificationSEPA1> optionalBranchAndFinancialInstitutionIdentificationOpt(BankAccount bankAccount) {
-        return bankAccount.getBic().map(bic -> {
-            BicUtil.validate(bic);
-            FinancialInstitutionIdentificationSEPA1 financialInstitutionIdentification = new FinancialInstitutionIdentificationSEPA1();
-            financialInstitutionIdentification.setBIC(bic);
-            BranchAndFinancialInstitutionIdentificationSEPA1 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentificationSEPA1();
-            branchAndFinancialInstitutionIdentification.setFinInstnId(financialInstitutionIdentification);
-            return branchAndFinancialInstitutionIdentification;
-        });
-    }
-
-    private BranchAndFinancialInstitutionIdentificationSEPA3 mandatoryBranchAndFinancialInstitutionIdentification(BankAccount bankAccount) {
-        BranchAndFinancialInstitutionIdentificationSEPA3 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentificationSEPA3();
-        FinancialInstitutionIdentificationSEPA3 financialInstitutionIdentification = new FinancialInstitutionIdentificationSEPA3();
-        Optional<String> bic = bankAccount.getBic();
-        if (bic.isPresent()) {
-            BicUtil.validate(bic.get());
-            financialInstitutionIdentification.setBIC(bic.get());
-        } else {
-            OthrIdentification othrIdentification = new OthrIdentification();
-            othrIdentification.setId(OthrIdentificationCode.NOTPROVIDED);
-            financialInstitutionIdentification.setOthr(othrIdentification);
-        }
-        branchAndFinancialInstitutionIdentification.setFinInstnId(financialInstitutionIdentification);
-        return branchAndFinancialInstitutionIdentification;
-    }
-
-    private PartyIdentificationSEPA2 partyIdentification(Party party) {
-        PartyIdentificationSEPA2 partyIdentification = new PartyIdentificationSEPA2();
-        if (party != null) {
-            party.getName().ifPresent(partyIdentification::setNm);
-            party.getPostalAddress().map(this::postalAddress).ifPresent(partyIdentification::setPstlAdr);
-        }
-        return partyIdentification;
-    }
-
-    private PartyIdentificationSEPA1 partyIdentificationHeader(Party party) {
-        PartyIdentificationSEPA1 partyIdentification = new PartyIdentificationSEPA1();
-        if (party != null) {
-            party.getName().ifPresent(partyIdentification::setNm);
-        }
-        return partyIdentification;
-    }
-
-    private PostalAddressSEPA postalAddress(PostalAddress postalAddress) {
-        PostalAddressSEPA postalAddressSepa = new PostalAddressSEPA();
-        postalAddress.getCountry().ifPresent(postalAddressSepa::setCtry);
-        int lines = 0;
-        for (String addressLine : postalAddress.getAddressLines()) {
-            if (lines >= 2) {
-                break;
-            }
-            postalAddressSepa.getAdrLine().add(addressLine);
-            lines++;
-        }
-        return postalAddressSepa;
-    }
-
-    private CashAccountSEPA1 debtorCashAccount(BankAccount bankAccount) {
-        CashAccountSEPA1 cashAccount = new CashAccountSEPA1();
-        cashAccount.setId(accountIdentification(bankAccount));
-        return cashAccount;
-    }
-
-    private CashAccountSEPA2 creditorCashAccount(BankAccount bankAccount) {
-        CashAccountSEPA2 cashAccount = new CashAccountSEPA2();
-        cashAccount.setId(accountIdentification(bankAccount));
-        return cashAccount;
+    /**
+     * Create the JAXB Document of a message holding the payment information of several credit transfers
+     *
+     * @param id                 message id
+     * @param creationDateTime   message creation date time
+     * @param initiatingParty    initiating party
+     * @param paymentInformation credit transfers, each one being a payment information
+     * @return Document containing the message
+     */
+    static JAXBElement<Document> createMessageDocument(String id, LocalDateTime creationDateTime, Party initiatingParty, List<JAXBSepaCreditTransfer003V03> paymentInformation) {
+        return MAPPER.createMessageDocument(id, creationDateTime, initiatingParty, paymentInformation, JAXBSepaCreditTransfer003V03::initiation);
     }
 
-    private AccountIdentificationSEPA accountIdentification(BankAccount bankAccount) {
-        AccountIdentificationSEPA accountIdentification = new AccountIdentificationSEPA();
-        Optional<String> optionalIban = bankAccount.getIban();
-        if (optionalIban.isPresent()) {
-            String iban = optionalIban.get();
-            IbanUtil.validate(iban);
-            accountIdentification.setIBAN(iban);
-        } else {
-            throw new IllegalArgumentException("IBAN must be provided for pain.001.003.03");
-        }
-        return accountIdentification;
+    private CustomerCreditTransferInitiationV03 initiation() {
+        return StreamedTransactions.isStreamed(this.transactions) ? MAPPER.build(this, true) : this.customerCreditTransferInitiation.get();
     }
 
     @Override
@@ -345,6 +195,29 @@ public class JAXBSepaCreditTransfer003V03 implements CreditTransferOperation {
         return batchBooking;
     }
 
+    @Override
+    public int getNumberOfTransactions() {
+        return totals().getNumberOfTransactions();
+    }
+
+    @Override
+    public BigDecimal getControlSum() {
+        return totals().getControlSum();
+    }
+
+    /**
+     * @return the sum of transaction amounts by currency code, sorted by currency code
+     * @throws IllegalStateException if transactions are streamed with declared totals
+     */
+    @Override
+    public Map<String, BigDecimal> getControlSumByCurrency() {
+        return totals().getControlSumByCurrency();
+    }
+
+    private TransactionTotals totals() {
+        return totals == null ? TransactionTotals.of(transactions) : totals;
+    }
+
     private <T> Collection<T> requireTransaction(Collection<T> collection) {
         if (collection.isEmpty()) {
             throw new IllegalArgumentException("At least 1 transaction is required");
@@ -352,12 +225,6 @@ public class JAXBSepaCreditTransfer003V03 implements CreditTransferOperation {
         return collection;
     }
 
-    private void requireEurCurrency(Transaction transaction) {
-        if (!CURRENCY_EUR.equals(transaction.getCurrencyCode())) {
-            throw new IllegalArgumentException("Only EUR currency is supported for pain.001.003.03");
-        }
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -385,4 +252,181 @@ public class JAXBSepaCreditTransfer003V03 implements CreditTransferOperation {
                 .add("batchBooking=" + batchBooking)
                 .toString();
     }
+
+    /**
+     * Emits PAIN.001.003.03 objects
+     */
+    private static final class Emitter implements JAXBCreditTransferEmitter<JAXBSepaCreditTransfer003V03, Document, CustomerCreditTransferInitiationV03, PaymentInstructionInformationSCT, CreditTransferTransactionInformationSCT> {
+
+        private static final JAXBFragments.PostalAddresses<PostalAddressSEPA> POSTAL_ADDRESSES = new JAXBFragments.PostalAddresses<>(PostalAddressSEPA::new, PostalAddressSEPA::getAdrLine, 2)
+                .country(PostalAddressSEPA::setCtry);
+
+        private static final JAXBFragments.Parties<PartyIdentificationSEPA1> INITIATING_PARTIES = new JAXBFragments.Parties<>(PartyIdentificationSEPA1::new, PartyIdentificationSEPA1::setNm);
+
+        private static final JAXBFragments.Parties<PartyIdentificationSEPA2> PARTIES = new JAXBFragments.Parties<>(PartyIdentificationSEPA2::new, PartyIdentificationSEPA2::setNm)
+                .postalAddress(POSTAL_ADDRESSES, PartyIdentificationSEPA2::setPstlAdr);
+
+        private static final JAXBFragments.Accounts<CashAccountSEPA1> DEBTOR_ACCOUNTS = new JAXBFragments.Accounts<>(Emitter::debtorCashAccount, (cashAccount, iban) -> cashAccount.getId().setIBAN(iban))
+                .requireIban("IBAN must be provided for pain.001.003.03");
+
+        private static final JAXBFragments.Accounts<CashAccountSEPA2> CREDITOR_ACCOUNTS = new JAXBFragments.Accounts<>(Emitter::creditorCashAccount, (cashAccount, iban) -> cashAccount.getId().setIBAN(iban))
+                .requireIban("IBAN must be provided for pain.001.003.03");
+
+        private static final JAXBFragments.Agents<BranchAndFinancialInstitutionIdentificationSEPA3> DEBTOR_AGENTS = new JAXBFragments.Agents<>(Emitter::debtorAgent, (agent, bic) -> agent.getFinInstnId().setBIC(bic))
+                .notProvided(agent -> {
+                    OthrIdentification othrIdentification = new OthrIdentification();
+                    othrIdentification.setId(OthrIdentificationCode.NOTPROVIDED);
+                    agent.getFinInstnId().setOthr(othrIdentification);
+                });
+
+        private static final JAXBFragments.Agents<BranchAndFinancialInstitutionIdentificationSEPA1> AGENTS = new JAXBFragments.Agents<>(Emitter::agent, (agent, bic) -> agent.getFinInstnId().setBIC(bic));
+
+        @Override
+        public CustomerCreditTransferInitiationVersion getVersion() {
+            return CustomerCreditTransferInitiationVersion.V003_03;
+        }
+
+        @Override
+        public JAXBElement<Document> document(CustomerCreditTransferInitiationV03 initiation) {
+
+            Document document = new ObjectFactory().createDocument();
+            document.setCstmrCdtTrfInitn(initiation);
+
+            return new JAXBElement<>(
+                    new QName("urn:iso:std:iso:20022:tech:xsd:pain.001.003.03", "Document"),
+                    Document.class,
+                    document);
+        }
+
+        @Override
+        public CustomerCreditTransferInitiationV03 initiation() {
+            return new CustomerCreditTransferInitiationV03();
+        }
+
+        @Override
+        public void groupHeader(CustomerCreditTransferInitiationV03 initiation, String id, XMLGregorianCalendar creationDateTime, String numberOfTransactions, BigDecimal controlSum, Party initiatingParty, JAXBFragments.Cache fragments) {
+            GroupHeaderSCT head = new GroupHeaderSCT();
+            head.setMsgId(id);
+            head.setCreDtTm(creationDateTime);
+            head.setNbOfTxs(numberOfTransactions);
+            head.setCtrlSum(controlSum);
+            head.setInitgPty(INITIATING_PARTIES.map(initiatingParty, fragments));
+            initiation.setGrpHdr(head);
+        }
+
+        @Override
+        public List<PaymentInstructionInformationSCT> paymentInstructions(CustomerCreditTransferInitiationV03 initiation) {
+            return initiation.getPmtInf();
+        }
+
+        @Override
+        public PaymentInstructionInformationSCT paymentInstruction() {
+            return new PaymentInstructionInformationSCT();
+        }
+
+        @Override
+        public PaymentInstructionInformationSCT paymentInstruction(JAXBSepaCreditTransfer003V03 creditTransfer, JAXBFragments.Cache fragments) {
+
+            PaymentInstructionInformationSCT paymentInstructionInformation = new PaymentInstructionInformationSCT();
+            paymentInstructionInformation.setPmtInfId(creditTransfer.id);
+            paymentInstructionInformation.setPmtMtd(PaymentMethodSCTCode.TRF);
+            paymentInstructionInformation.setBtchBookg(creditTransfer.batchBooking);
+            paymentInstructionInformation.setNbOfTxs(String.valueOf(creditTransfer.getNumberOfTransactions()));
+            paymentInstructionInformation.setCtrlSum(creditTransfer.getControlSum());
+            paymentInstructionInformation.setDbtr(PARTIES.map(creditTransfer.debtor, fragments));
+            paymentInstructionInformation.setDbtrAcct(DEBTOR_ACCOUNTS.map(creditTransfer.debtorAccount, fragments));
+            paymentInstructionInformation.setDbtrAgt(DEBTOR_AGENTS.mandatory(creditTransfer.debtorAccount, fragments));
+
+            PaymentTypeInformationSCT1 paymentTypeInformation = new PaymentTypeInformationSCT1();
+            if (creditTransfer.instructionPriority != null) {
+                paymentTypeInformation.setInstrPrty(Priority2Code.fromValue(creditTransfer.instructionPriority.name()));
+            }
+            ServiceLevelSEPA serviceLevel = new ServiceLevelSEPA();
+            serviceLevel.setCd(creditTransfer.serviceLevelCode);
+            paymentTypeInformation.setSvcLvl(serviceLevel);
+            paymentInstructionInformation.setPmtTpInf(paymentTypeInformation);
+
+            paymentInstructionInformation.setReqdExctnDt(XmlDateTimes.date(creditTransfer.requestedExecutionDate));
+            paymentInstructionInformation.setChrgBr(ChargeBearerTypeSEPACode.SLEV);
+
+            return paymentInstructionInformation;
+        }
+
+        @Override
+        public List<CreditTransferTransactionInformationSCT> transactions(PaymentInstructionInformationSCT paymentInstruction) {
+            return paymentInstruction.getCdtTrfTxInf();
+        }
+
+        @Override
+        public CreditTransferTransactionInformationSCT transaction(Transaction transaction, JAXBFragments.Cache fragments) {
+            requireEurCurrency(transaction);
+
+            // payment identification
+            PaymentIdentificationSEPA paymentIdentificationSEPA = new PaymentIdentificationSEPA();
+            paymentIdentificationSEPA.setEndToEndId(transaction.getEndToEndId());
+            transaction.getId().ifPresent(paymentIdentificationSEPA::setInstrId);
+
+            // amount
+            ActiveOrHistoricCurrencyAndAmountSEPA activeOrHistoricCurrencyAndAmount = new ActiveOrHistoricCurrencyAndAmountSEPA();
+            activeOrHistoricCurrencyAndAmount.setCcy(ActiveOrHistoricCurrencyCodeEUR.EUR);
+            activeOrHistoricCurrencyAndAmount.setValue(transaction.getAmount());
+            AmountTypeSEPA amountType = new AmountTypeSEPA();
+            amountType.setInstdAmt(activeOrHistoricCurrencyAndAmount);
+
+            // transaction
+            CreditTransferTransactionInformationSCT creditTransferTransactionInformation = new CreditTransferTransactionInformationSCT();
+            creditTransferTransactionInformation.setPmtId(paymentIdentificationSEPA);
+            creditTransferTransactionInformation.setAmt(amountType);
+            creditTransferTransactionInformation.setCdtr(PARTIES.map(transaction.getParty().orElse(null), fragments));
+            creditTransferTransactionInformation.setCdtrAcct(CREDITOR_ACCOUNTS.map(transaction.getAccount(), fragments));
+
+            // remittance information
+            if (!transaction.getRemittanceInformationUnstructured().isEmpty()) {
+                RemittanceInformationSEPA1Choice remittanceInformation = new RemittanceInformationSEPA1Choice();
+                remittanceInformation.setUstrd(transaction.getRemittanceInformationUnstructured().iterator().next());
+                creditTransferTransactionInformation.setRmtInf(remittanceInformation);
+            }
+
+            transaction.getChargeBearer().ifPresent(cb -> {
+                if (cb != ChargeBearer.SLEV) {
+                    throw new IllegalArgumentException("Only SLEV charge bearer is supported for pain.001.003.03");
+                }
+                creditTransferTransactionInformation.setChrgBr(ChargeBearerTypeSEPACode.SLEV);
+            });
+
+            AGENTS.optional(transaction.getAccount(), fragments).ifPresent(creditTransferTransactionInformation::setCdtrAgt);
+
+            return creditTransferTransactionInformation;
+        }
+
+        private static void requireEurCurrency(Transaction transaction) {
+            if (!CURRENCY_EUR.equals(transaction.getCurrencyCode())) {
+                throw new IllegalArgumentException("Only EUR currency is supported for pain.001.003.03");
+            }
+        }
+
+        private static CashAccountSEPA1 debtorCashAccount() {
+            CashAccountSEPA1 cashAccount = new CashAccountSEPA1();
+            cashAccount.setId(new AccountIdentificationSEPA());
+            return cashAccount;
+        }
+
+        private static CashAccountSEPA2 creditorCashAccount() {
+            CashAccountSEPA2 cashAccount = new CashAccountSEPA2();
+            cashAccount.setId(new AccountIdentificationSEPA());
+            return cashAccount;
+        }
+
+        private static BranchAndFinancialInstitutionIdentificationSEPA3 debtorAgent() {
+            BranchAndFinancialInstitutionIdentificationSEPA3 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentificationSEPA3();
+            branchAndFinancialInstitutionIdentification.setFinInstnId(new FinancialInstitutionIdentificationSEPA3());
+            return branchAndFinancialInstitutionIdentification;
+        }
+
+        private static BranchAndFinancialInstitutionIdentificationSEPA1 agent() {
+            BranchAndFinancialInstitutionIdentificationSEPA1 branchAndFinancialInstitutionIdentification = new BranchAndFinancialInstitutionIdentificationSEPA1();
+            branchAndFinancialInstitutionIdentification.setFinInstnId(new FinancialInstitutionIdentificationSEPA1());
+            return branchAndFinancialInstitutionIdentification;
+        }
+    }
 }
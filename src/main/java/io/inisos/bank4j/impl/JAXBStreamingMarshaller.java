@@ -0,0 +1,633 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Marshals a credit transfer one transaction at a time.
+ * <p>
+ * The header document holds the group header and the payment information without any transaction.
+ * Each transaction is then marshalled within its own minimal document, from which only the transaction is kept.
+ * Every fragment goes through the same JAXB marshaller, hence output is identical to marshalling the whole tree,
+ * formatted or not, while only one transaction is held in memory at a time.
+ * Several payment information are marshalled the same way, one after the other.
+ * <p>
+ * Fragments are not valid documents on their own: with schema validation enabled, each fragment is also marshalled
+ * as SAX events, spliced the same way into a single document fed to a schema validator.
+ *
+ * @author Patrice Blanchardie
+ */
+final class JAXBStreamingMarshaller {
+
+    private static final String PAYMENT_INFORMATION_START = "<PmtInf>";
+    private static final String PAYMENT_INFORMATION_END = "</PmtInf>";
+    private static final String PAYMENT_INFORMATION = "PmtInf";
+
+    private JAXBStreamingMarshaller() {
+    }
+
+    /**
+     * @param version             pain.001 version
+     * @param header              document without any transaction
+     * @param transactions        transactions
+     * @param transactionDocument creates a document with a single payment information holding a single transaction
+     * @param writer              writer
+     * @param formatted           true to format output, false to leave unformatted
+     * @param validated           true to validate output against the schema of this version while marshalling
+     * @param <T>                 transaction type
+     */
+    static <T> void marshal(CustomerCreditTransferInitiationVersion version,
+                            Object header,
+                            Iterator<T> transactions,
+                            Function<T, Object> transactionDocument,
+                            Writer writer,
+                            boolean formatted,
+                            boolean validated) {
+        marshal(version, Collections.singletonList(new PaymentInformation(header, transactions, transactionDocument)).iterator(), writer, formatted, validated);
+    }
+
+    /**
+     * Same as {@link #marshal(CustomerCreditTransferInitiationVersion, Object, Iterator, Function, Writer, boolean, boolean)},
+     * encoding fragments straight to UTF-8
+     *
+     * @param version             pain.001 version
+     * @param header              document without any transaction
+     * @param transactions        transactions
+     * @param transactionDocument creates a document with a single payment information holding a single transaction
+     * @param outputStream        output stream
+     * @param formatted           true to format output, false to leave unformatted
+     * @param validated           true to validate output against the schema of this version while marshalling
+     * @param <T>                 transaction type
+     */
+    static <T> void marshal(CustomerCreditTransferInitiationVersion version,
+                            Object header,
+                            Iterator<T> transactions,
+                            Function<T, Object> transactionDocument,
+                            OutputStream outputStream,
+                            boolean formatted,
+                            boolean validated) {
+        marshal(version, Collections.singletonList(new PaymentInformation(header, transactions, transactionDocument)).iterator(), outputStream, formatted, validated);
+    }
+
+    /**
+     * Marshal a message of several payment information, each one read only once the previous one is written.
+     * <p>
+     * The group header is taken from the header document of the first payment information,
+     * only the payment information is taken from the header documents of the others.
+     *
+     * @param version            pain.001 version
+     * @param paymentInformation payment information
+     * @param writer             writer
+     * @param formatted          true to format output, false to leave unformatted
+     * @param validated          true to validate output against the schema of this version while marshalling
+     */
+    static void marshal(CustomerCreditTransferInitiationVersion version,
+                        Iterator<PaymentInformation> paymentInformation,
+                        Writer writer,
+                        boolean formatted,
+                        boolean validated) {
+        marshal(version, paymentInformation, new CharFragmentBuffer(writer), formatted, validated);
+    }
+
+    /**
+     * Same as {@link #marshal(CustomerCreditTransferInitiationVersion, Iterator, Writer, boolean, boolean)},
+     * encoding fragments straight to UTF-8
+     *
+     * @param version            pain.001 version
+     * @param paymentInformation payment information
+     * @param outputStream       output stream
+     * @param formatted          true to format output, false to leave unformatted
+     * @param validated          true to validate output against the schema of this version while marshalling
+     */
+    static void marshal(CustomerCreditTransferInitiationVersion version,
+                        Iterator<PaymentInformation> paymentInformation,
+                        OutputStream outputStream,
+                        boolean formatted,
+                        boolean validated) {
+        marshal(version, paymentInformation, new ByteFragmentBuffer(outputStream), formatted, validated);
+    }
+
+    private static void marshal(CustomerCreditTransferInitiationVersion version,
+                                Iterator<PaymentInformation> paymentInformation,
+                                FragmentBuffer buffer,
+                                boolean formatted,
+                                boolean validated) {
+        if (!paymentInformation.hasNext()) {
+            throw new IllegalArgumentException("At least 1 payment information is required");
+        }
+        JAXBContextRegistry registry = JAXBContextRegistry.getInstance();
+        Marshaller marshaller = registry.acquireMarshaller(version, formatted, false);
+        ValidatingSplice validation = validated
+                ? new ValidatingSplice(SchemaRegistry.getInstance().getSchema(version).newValidatorHandler())
+                : null;
+        try {
+            int footerSplit;
+            try (PaymentInformation first = paymentInformation.next()) {
+                if (validation != null) {
+                    marshaller.marshal(first.header, validation);
+                }
+                buffer.marshalHeader(marshaller, first.header);
+                int split = buffer.lineStartBefore(buffer.lastIndexOf(PAYMENT_INFORMATION_END));
+                footerSplit = buffer.skipLineTerminators(buffer.lastIndexOf(PAYMENT_INFORMATION_END) + PAYMENT_INFORMATION_END.length()) - split;
+                buffer.writeTo(0, split);
+                buffer.keepFooter(split);
+
+                marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+                marshalTransactions(first, marshaller, validation, buffer, formatted);
+            }
+            buffer.writeFooter(0, footerSplit);
+            if (validation != null) {
+                validation.endPaymentInformation();
+            }
+
+            while (paymentInformation.hasNext()) {
+                try (PaymentInformation next = paymentInformation.next()) {
+                    buffer.reset();
+                    if (validation != null) {
+                        validation.startPaymentInformation();
+                        marshaller.marshal(next.header, validation);
+                    }
+                    buffer.marshalHeader(marshaller, next.header);
+                    int start = buffer.lineStartBefore(buffer.indexOf(PAYMENT_INFORMATION_START));
+                    int end = buffer.lineStartBefore(buffer.lastIndexOf(PAYMENT_INFORMATION_END));
+                    buffer.writeTo(start, end);
+                    marshalTransactions(next, marshaller, validation, buffer, formatted);
+                }
+                buffer.writeFooter(0, footerSplit);
+                if (validation != null) {
+                    validation.endPaymentInformation();
+                }
+            }
+
+            if (validation != null) {
+                validation.end();
+            }
+            buffer.writeFooter(footerSplit, buffer.footerLength());
+            buffer.flush();
+        } catch (JAXBException | SAXException e) {
+            throw new XmlException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                marshaller.setProperty(Marshaller.JAXB_FRAGMENT, false);
+            } catch (JAXBException e) {
+                // cannot happen with standard properties
+            }
+            registry.releaseMarshaller(version, marshaller);
+        }
+    }
+
+    private static void marshalTransactions(PaymentInformation paymentInformation,
+                                            Marshaller marshaller,
+                                            ValidatingSplice validation,
+                                            FragmentBuffer buffer,
+                                            boolean formatted) throws JAXBException, SAXException, IOException {
+        while (paymentInformation.transactions.hasNext()) {
+            buffer.reset();
+            Object document = paymentInformation.transactionDocument.apply(paymentInformation.transactions.next());
+            if (validation != null) {
+                validation.startTransaction();
+                marshaller.marshal(document, validation);
+            }
+            buffer.marshal(marshaller, document);
+            int start = buffer.indexOf(PAYMENT_INFORMATION_START) + PAYMENT_INFORMATION_START.length();
+            if (formatted) {
+                start = buffer.skipLineTerminators(start);
+            }
+            int end = buffer.lineStartBefore(buffer.lastIndexOf(PAYMENT_INFORMATION_END));
+            buffer.writeTo(start, end);
+        }
+    }
+
+    /**
+     * A payment information to marshal: its header document, then its transactions one at a time.
+     * <p>
+     * Once marshalled, or if marshalling fails, closing it closes its transactions if they are {@link Closeable}.
+     */
+    static final class PaymentInformation implements Closeable {
+
+        private final Object header;
+        private final Iterator<?> transactions;
+        private final Function<Object, Object> transactionDocument;
+
+        /**
+         * @param header              document without any transaction
+         * @param transactions        transactions
+         * @param transactionDocument creates a document with a single payment information holding a single transaction
+         * @param <T>                 transaction type
+         */
+        @SuppressWarnings("unchecked")
+        <T> PaymentInformation(Object header, Iterator<T> transactions, Function<T, Object> transactionDocument) {
+            this.header = header;
+            this.transactions = transactions;
+            this.transactionDocument = (Function<Object, Object>) transactionDocument;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (transactions instanceof Closeable) {
+                ((Closeable) transactions).close();
+            }
+        }
+    }
+
+    /**
+     * Splices SAX events the same way as text: the header up to the end of its payment information,
+     * then the content of the payment information of each transaction document, then the end of the payment information.
+     * The payment information of each following header is spliced with its start, then its transactions and its end,
+     * then the rest of the first header.
+     */
+    private static final class ValidatingSplice implements ContentHandler {
+
+        private final ContentHandler validator;
+        private final List<Event> footer = new ArrayList<>();
+        private boolean header = true;
+        private boolean paymentHeader;
+        private boolean inFooter;
+        private int depth;
+        private int paymentInformationDepth = -1;
+
+        private ValidatingSplice(ContentHandler validator) {
+            this.validator = validator;
+        }
+
+        private void startPaymentInformation() {
+            header = false;
+            paymentHeader = true;
+            depth = 0;
+            paymentInformationDepth = -1;
+        }
+
+        private void startTransaction() {
+            header = false;
+            paymentHeader = false;
+            depth = 0;
+            paymentInformationDepth = -1;
+        }
+
+        /**
+         * Forward the first deferred event, which ends the payment information of the header
+         */
+        private void endPaymentInformation() throws SAXException {
+            footer.get(0).apply(validator);
+        }
+
+        private void end() throws SAXException {
+            for (Event event : footer.subList(1, footer.size())) {
+                event.apply(validator);
+            }
+        }
+
+        private boolean isInPaymentInformation() {
+            return paymentInformationDepth >= 0 && depth > paymentInformationDepth;
+        }
+
+        /**
+         * Forward header and transaction events, deferring the end of the header
+         */
+        private void forward(Event event) throws SAXException {
+            if (header) {
+                if (inFooter) {
+                    footer.add(event);
+                } else {
+                    event.apply(validator);
+                }
+            } else if (isInPaymentInformation()) {
+                event.apply(validator);
+            }
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            if (header) {
+                validator.setDocumentLocator(locator);
+            }
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            if (header) {
+                forward(ContentHandler::startDocument);
+            }
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            if (header) {
+                forward(ContentHandler::endDocument);
+            }
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            if (header) {
+                forward(handler -> handler.startPrefixMapping(prefix, uri));
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) throws SAXException {
+            if (header) {
+                forward(handler -> handler.endPrefixMapping(prefix));
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            depth++;
+            if (header || isInPaymentInformation()) {
+                Attributes attributes = inFooter ? new AttributesImpl(atts) : atts;
+                forward(handler -> handler.startElement(uri, localName, qName, attributes));
+            }
+            if (paymentInformationDepth < 0 && PAYMENT_INFORMATION.equals(localName)) {
+                paymentInformationDepth = depth;
+                if (paymentHeader) {
+                    validator.startElement(uri, localName, qName, atts);
+                }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (header && depth == paymentInformationDepth) {
+                inFooter = true;
+            }
+            forward(handler -> handler.endElement(uri, localName, qName));
+            if (!header && depth == paymentInformationDepth) {
+                paymentInformationDepth = -1;
+            }
+            depth--;
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            char[] characters = Arrays.copyOfRange(ch, start, start + length);
+            forward(handler -> handler.characters(characters, 0, characters.length));
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            char[] characters = Arrays.copyOfRange(ch, start, start + length);
+            forward(handler -> handler.ignorableWhitespace(characters, 0, characters.length));
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) throws SAXException {
+            forward(handler -> handler.processingInstruction(target, data));
+        }
+
+        @Override
+        public void skippedEntity(String name) throws SAXException {
+            forward(handler -> handler.skippedEntity(name));
+        }
+
+        @FunctionalInterface
+        private interface Event {
+            void apply(ContentHandler handler) throws SAXException;
+        }
+    }
+
+    /**
+     * Reusable buffer a fragment is marshalled to, then searched and partially written to the target.
+     * Searched tags are ASCII, so they are found the same way among characters or UTF-8 bytes.
+     */
+    private abstract static class FragmentBuffer {
+
+        abstract void marshal(Marshaller marshaller, Object jaxbElement) throws JAXBException;
+
+        /**
+         * Marshal a header document, whose root element attributes are ordered as by a marshalling to a writer
+         */
+        void marshalHeader(Marshaller marshaller, Object header) throws JAXBException {
+            marshal(marshaller, header);
+        }
+
+        abstract void reset();
+
+        abstract int size();
+
+        abstract int at(int index);
+
+        abstract void writeTo(int start, int end) throws IOException;
+
+        abstract void keepFooter(int start);
+
+        abstract int footerLength();
+
+        abstract void writeFooter(int start, int end) throws IOException;
+
+        void flush() throws IOException {
+        }
+
+        int indexOf(String tag) {
+            for (int i = 0; i <= size() - tag.length(); i++) {
+                if (matches(tag, i)) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Missing " + tag);
+        }
+
+        int lastIndexOf(String tag) {
+            for (int i = size() - tag.length(); i >= 0; i--) {
+                if (matches(tag, i)) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Missing " + tag);
+        }
+
+        private boolean matches(String tag, int offset) {
+            for (int j = 0; j < tag.length(); j++) {
+                if (at(offset + j) != tag.charAt(j)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @param index index of a tag
+         * @return index of the indentation preceding the tag, if any
+         */
+        int lineStartBefore(int index) {
+            while (index > 0 && (at(index - 1) == ' ' || at(index - 1) == '\t')) {
+                index--;
+            }
+            return index;
+        }
+
+        int skipLineTerminators(int index) {
+            while (index < size() && (at(index) == '\n' || at(index) == '\r')) {
+                index++;
+            }
+            return index;
+        }
+    }
+
+    private static final class CharFragmentBuffer extends FragmentBuffer {
+
+        private final Chars chars = new Chars();
+        private final Writer writer;
+        private char[] footer;
+
+        private CharFragmentBuffer(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void marshal(Marshaller marshaller, Object jaxbElement) throws JAXBException {
+            marshaller.marshal(jaxbElement, chars);
+        }
+
+        @Override
+        void reset() {
+            chars.reset();
+        }
+
+        @Override
+        int size() {
+            return chars.size();
+        }
+
+        @Override
+        int at(int index) {
+            return chars.buf()[index];
+        }
+
+        @Override
+        void writeTo(int start, int end) throws IOException {
+            writer.write(chars.buf(), start, end - start);
+        }
+
+        @Override
+        void keepFooter(int start) {
+            footer = Arrays.copyOfRange(chars.buf(), start, chars.size());
+        }
+
+        @Override
+        int footerLength() {
+            return footer.length;
+        }
+
+        @Override
+        void writeFooter(int start, int end) throws IOException {
+            writer.write(footer, start, end - start);
+        }
+
+        /**
+         * Gives access to its content without copying
+         */
+        private static final class Chars extends CharArrayWriter {
+
+            private Chars() {
+                super(8192);
+            }
+
+            private char[] buf() {
+                return buf;
+            }
+        }
+    }
+
+    private static final class ByteFragmentBuffer extends FragmentBuffer {
+
+        private final Bytes bytes = new Bytes();
+        private final OutputStream outputStream;
+        private byte[] footer;
+
+        private ByteFragmentBuffer(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        void marshal(Marshaller marshaller, Object jaxbElement) throws JAXBException {
+            marshaller.marshal(jaxbElement, bytes);
+        }
+
+        /**
+         * Headers are encoded through a writer: JAXB's own UTF-8 output writes namespace declarations before the schema
+         * location, unlike output to a writer
+         */
+        @Override
+        void marshalHeader(Marshaller marshaller, Object header) throws JAXBException {
+            Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+            marshaller.marshal(header, writer);
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void reset() {
+            bytes.reset();
+        }
+
+        @Override
+        int size() {
+            return bytes.size();
+        }
+
+        @Override
+        int at(int index) {
+            return bytes.buf()[index];
+        }
+
+        @Override
+        void writeTo(int start, int end) throws IOException {
+            outputStream.write(bytes.buf(), start, end - start);
+        }
+
+        @Override
+        void keepFooter(int start) {
+            footer = Arrays.copyOfRange(bytes.buf(), start, bytes.size());
+        }
+
+        @Override
+        int footerLength() {
+            return footer.length;
+        }
+
+        @Override
+        void writeFooter(int start, int end) throws IOException {
+            outputStream.write(footer, start, end - start);
+        }
+
+        @Override
+        void flush() throws IOException {
+            outputStream.flush();
+        }
+
+        /**
+         * Gives access to its content without copying
+         */
+        private static final class Bytes extends ByteArrayOutputStream {
+
+            private Bytes() {
+                super(8192);
+            }
+
+            private byte[] buf() {
+                return buf;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.inisos.bank4j.impl;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Customer credit transfer initiation of a credit transfer, built on first use.
+ * <p>
+ * Creating, comparing and routing a credit transfer does not pay for its JAXB tree.
+ * A retained initiation is built once and kept for later marshalling, otherwise each use builds a new one which can be
+ * collected as soon as it has been marshalled.
+ *
+ * @param <C> customer credit transfer initiation
+ * @author Patrice Blanchardie
+ */
+final class LazyInitiation<C> {
+
+    private final Supplier<C> builder;
+    private final boolean retained;
+    private volatile C initiation;
+
+    /**
+     * Constructor
+     *
+     * @param builder  builds the customer credit transfer initiation
+     * @param retained true to keep the initiation once built, false to build it on each use
+     */
+    LazyInitiation(Supplier<C> builder, boolean retained) {
+        this.builder = Objects.requireNonNull(builder, "Builder cannot be null");
+        this.retained = retained;
+    }
+
+    /**
+     * @return the customer credit transfer initiation
+     */
+    C get() {
+        if (!retained) {
+            return builder.get();
+        }
+        C result = initiation;
+        if (result == null) {
+            synchronized (this) {
+                result = initiation;
+                if (result == null) {
+                    result = builder.get();
+                    initiation = result;
+                }
+            }
+        }
+        return result;
+    }
+}
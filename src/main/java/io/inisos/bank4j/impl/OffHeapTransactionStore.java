@@ -0,0 +1,449 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.BankAccount;
+import io.inisos.bank4j.ChargeBearer;
+import io.inisos.bank4j.Party;
+import io.inisos.bank4j.Transaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.StreamSupport;
+
+/**
+ * Transactions staged off-heap, in direct buffers or in a memory-mapped file, as compact binary records.
+ * <p>
+ * Transactions are appended as they are generated and read back one at a time while marshalling, so that the heap only
+ * holds the transaction being written. Totals are aggregated as transactions are appended.
+ * <p>
+ * Records are written one after the other in fixed-size segments, a record never spanning two segments:
+ * <pre>
+ * byte     flags: 1 name, 2 BIC, 4 identifier, 8 other account identifier instead of IBAN
+ * long     amount in minor units of the currency
+ * byte[3]  currency code
+ * byte     charge bearer, -1 if none
+ * string   IBAN or other account identifier
+ * string   BIC, if flagged
+ * string   creditor name, if flagged
+ * string   end-to-end identifier
+ * string   identifier, if flagged
+ * byte     number of remittance lines, followed by as many strings
+ * </pre>
+ * where a string is an unsigned short length followed by as many UTF-8 bytes.
+ * <p>
+ * Given to {@link JAXBCreditTransferBuilder#transactions(Collection)}, a store is streamed while marshalling: as for
+ * any collection, only transactions appended before that call are marshalled. A store is not thread-safe.
+ *
+ * @author Patrice Blanchardie
+ */
+public class OffHeapTransactionStore extends AbstractCollection<Transaction> implements AggregatedTransactions, AutoCloseable {
+
+    /**
+     * Default segment size, 8 MiB
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 8 << 20;
+
+    private static final int FLAG_NAME = 1;
+    private static final int FLAG_BIC = 2;
+    private static final int FLAG_ID = 4;
+    private static final int FLAG_OTHER_ID = 8;
+    private static final int MAXIMUM_STRING_LENGTH = 0xFFFF;
+    private static final int MAXIMUM_REMITTANCE_LINES = 0xFF;
+    private static final ChargeBearer[] CHARGE_BEARERS = ChargeBearer.values();
+    private static final long MAXIMUM_RELEASED_BYTES = 64 << 20;
+    private static final Deque<ByteBuffer> RELEASED_SEGMENTS = new ArrayDeque<>();
+    private static long releasedBytes;
+
+    private final FileChannel channel;
+    private final int segmentSize;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private final TransactionTotals.Accumulator accumulator = new TransactionTotals.Accumulator();
+    private int size;
+    private boolean closed;
+
+    private OffHeapTransactionStore(FileChannel channel, int segmentSize) {
+        if (segmentSize < 64) {
+            throw new IllegalArgumentException("Segment size must be at least 64");
+        }
+        this.channel = channel;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @return a store in direct buffers of {@link #DEFAULT_SEGMENT_SIZE}
+     */
+    public static OffHeapTransactionStore direct() {
+        return direct(DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize size of each direct buffer, in bytes
+     * @return a store in direct buffers
+     */
+    public static OffHeapTransactionStore direct(int segmentSize) {
+        return new OffHeapTransactionStore(null, segmentSize);
+    }
+
+    /**
+     * @param path file path, created or truncated, left on disk once closed
+     * @return a store in a memory-mapped file, mapped by segments of {@link #DEFAULT_SEGMENT_SIZE}
+     */
+    public static OffHeapTransactionStore mapped(Path path) {
+        return mapped(path, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param path        file path, created or truncated, left on disk once closed
+     * @param segmentSize size of each mapped region, in bytes
+     * @return a store in a memory-mapped file
+     */
+    public static OffHeapTransactionStore mapped(Path path, int segmentSize) {
+        Objects.requireNonNull(path, "Path cannot be null");
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new OffHeapTransactionStore(channel, segmentSize);
+            } catch (RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Append a transaction, whose fields are copied into the store
+     *
+     * @param transaction transaction
+     * @return true
+     * @throws IllegalArgumentException if the transaction cannot be held in a store
+     */
+    @Override
+    public boolean add(Transaction transaction) {
+        Objects.requireNonNull(transaction, "Transaction cannot be null");
+        Party party = transaction.getParty().orElse(null);
+        if (party != null && party.getPostalAddress().isPresent()) {
+            throw new IllegalArgumentException("Postal addresses cannot be held in a transaction store");
+        }
+        BankAccount account = Objects.requireNonNull(transaction.getAccount(), "Account cannot be null");
+        if (account.getName().isPresent()) {
+            throw new IllegalArgumentException("Account names cannot be held in a transaction store");
+        }
+        if (!transaction.getIntermediaryAgents().isEmpty()) {
+            throw new IllegalArgumentException("Intermediary agents cannot be held in a transaction store");
+        }
+        Currency currency = Currency.getInstance(transaction.getCurrencyCode());
+        long unscaledAmount = transaction instanceof CompactTransaction
+                ? ((CompactTransaction) transaction).getUnscaledAmount()
+                : CompactTransaction.unscaledAmount(transaction.getAmount(), currency);
+        append(party == null ? null : party.getName().orElse(null),
+                account.getIban().orElse(null),
+                account.getOtherId().orElse(null),
+                account.getBic().orElse(null),
+                unscaledAmount,
+                currency,
+                transaction.getEndToEndId(),
+                transaction.getId().orElse(null),
+                transaction.getChargeBearer().orElse(null),
+                transaction.getRemittanceInformationUnstructured());
+        return true;
+    }
+
+    /**
+     * @return an appender adding transactions to this store without creating them first, e.g.
+     * {@code store.appender().iban(iban).unscaledAmount(1234).currency(eur).endToEndId(endToEndId).add()}
+     */
+    public TransactionAppender appender() {
+        return new TransactionAppender() {
+            @Override
+            void append(String name, String iban, String otherId, String bic, long unscaledAmount, Currency currency, String endToEndId, String id, ChargeBearer chargeBearer, List<String> remittanceInformation) {
+                OffHeapTransactionStore.this.append(name, iban, otherId, bic, unscaledAmount, currency, endToEndId, id, chargeBearer, remittanceInformation);
+            }
+        };
+    }
+
+    private void append(String name, String iban, String otherId, String bic, long unscaledAmount, Currency currency, String endToEndId, String id, ChargeBearer chargeBearer, Collection<String> remittanceInformation) {
+        ensureOpen();
+        if (SimpleBankAccount.isEmpty(iban) && SimpleBankAccount.isEmpty(otherId)) {
+            throw new IllegalArgumentException("IBAN or otherId must be provided");
+        }
+        boolean byOtherId = SimpleBankAccount.isEmpty(iban);
+        if (!byOtherId && !SimpleBankAccount.isEmpty(otherId)) {
+            throw new IllegalArgumentException("Accounts with both an IBAN and another identifier cannot be held in a transaction store");
+        }
+        Objects.requireNonNull(currency, "Currency cannot be null");
+        Objects.requireNonNull(endToEndId, "End to end id cannot be null");
+        Objects.requireNonNull(remittanceInformation, "Remittance information cannot be null");
+        int scale = currency.getDefaultFractionDigits();
+        if (scale < 0) {
+            throw new IllegalArgumentException("Currency " + currency + " has no minor unit");
+        }
+        if (remittanceInformation.size() > MAXIMUM_REMITTANCE_LINES) {
+            throw new IllegalArgumentException("Remittance information cannot have more than " + MAXIMUM_REMITTANCE_LINES + " lines");
+        }
+
+        byte[] accountId = encode(byOtherId ? otherId : iban);
+        byte[] encodedBic = encode(bic);
+        byte[] encodedName = encode(name);
+        byte[] encodedEndToEndId = encode(endToEndId);
+        byte[] encodedId = encode(id);
+        byte[][] lines = new byte[remittanceInformation.size()][];
+        int length = 1 + 8 + 3 + 1 + length(accountId) + length(encodedBic) + length(encodedName) + length(encodedEndToEndId) + length(encodedId) + 1;
+        int line = 0;
+        for (String remittance : remittanceInformation) {
+            lines[line] = encode(Objects.requireNonNull(remittance, "Remittance information cannot be null"));
+            length += length(lines[line++]);
+        }
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("Transaction " + endToEndId + " does not fit in a segment of " + segmentSize + " bytes");
+        }
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many transactions: " + ((long) size + 1));
+        }
+
+        // totals are only updated once the record is written, so that a failure leaves the store unchanged
+        ByteBuffer segment = segment(length);
+        int flags = (encodedName == null ? 0 : FLAG_NAME) | (encodedBic == null ? 0 : FLAG_BIC) | (encodedId == null ? 0 : FLAG_ID) | (byOtherId ? FLAG_OTHER_ID : 0);
+        segment.put((byte) flags);
+        segment.putLong(unscaledAmount);
+        segment.put(currency.getCurrencyCode().getBytes(StandardCharsets.US_ASCII));
+        segment.put(chargeBearer == null ? -1 : (byte) chargeBearer.ordinal());
+        put(segment, accountId);
+        put(segment, encodedBic);
+        put(segment, encodedName);
+        put(segment, encodedEndToEndId);
+        put(segment, encodedId);
+        segment.put((byte) lines.length);
+        for (byte[] encodedLine : lines) {
+            put(segment, encodedLine);
+        }
+        accumulator.add(currency.getCurrencyCode(), unscaledAmount, scale);
+        size++;
+    }
+
+    /**
+     * Read transactions back, one at a time
+     *
+     * @return an iterator over transactions appended so far
+     */
+    @Override
+    public Iterator<Transaction> iterator() {
+        ensureOpen();
+        return new RecordIterator(this, size, snapshot());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Release the buffers and close the mapped file, if any
+     * <p>
+     * Direct buffers are kept, up to 64 MiB in all, for the next stores having the same segment size, and otherwise
+     * freed by the garbage collector, as are mapped regions: there is no way to free them right away. Iterators over
+     * a closed store fail rather than reading released buffers.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (channel == null) {
+            release(segments);
+        }
+        segments.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public TransactionTotals getTotals() {
+        return accumulator.getTotals();
+    }
+
+    @Override
+    public StreamedTransactions streamed() {
+        int numberOfTransactions = size;
+        List<ByteBuffer> records = snapshot();
+        return StreamedTransactions.aggregated(() -> {
+            ensureOpen();
+            return StreamSupport.stream(Spliterators.spliterator(new RecordIterator(this, numberOfTransactions, records), numberOfTransactions, Spliterator.ORDERED | Spliterator.NONNULL), false);
+        }, getTotals());
+    }
+
+    private List<ByteBuffer> snapshot() {
+        List<ByteBuffer> records = new ArrayList<>(segments.size());
+        for (ByteBuffer segment : segments) {
+            ByteBuffer written = segment.duplicate();
+            written.flip();
+            records.add(written);
+        }
+        return records;
+    }
+
+    private ByteBuffer segment(int length) {
+        if (!segments.isEmpty()) {
+            ByteBuffer last = segments.get(segments.size() - 1);
+            if (last.remaining() >= length) {
+                return last;
+            }
+        }
+        ByteBuffer segment;
+        if (channel == null) {
+            segment = acquire(segmentSize);
+        } else {
+            try {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentSize, segmentSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        segments.add(segment);
+        return segment;
+    }
+
+    private static ByteBuffer acquire(int segmentSize) {
+        synchronized (RELEASED_SEGMENTS) {
+            for (Iterator<ByteBuffer> iterator = RELEASED_SEGMENTS.iterator(); iterator.hasNext(); ) {
+                ByteBuffer segment = iterator.next();
+                if (segment.capacity() == segmentSize) {
+                    iterator.remove();
+                    releasedBytes -= segmentSize;
+                    segment.clear();
+                    return segment;
+                }
+            }
+        }
+        return ByteBuffer.allocateDirect(segmentSize);
+    }
+
+    private static void release(List<ByteBuffer> segments) {
+        synchronized (RELEASED_SEGMENTS) {
+            for (ByteBuffer segment : segments) {
+                if (releasedBytes + segment.capacity() > MAXIMUM_RELEASED_BYTES) {
+                    return;
+                }
+                RELEASED_SEGMENTS.push(segment);
+                releasedBytes += segment.capacity();
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Transaction store is closed");
+        }
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAXIMUM_STRING_LENGTH) {
+            throw new IllegalArgumentException("Value is too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : 2 + bytes.length;
+    }
+
+    private static void put(ByteBuffer segment, byte[] bytes) {
+        if (bytes != null) {
+            segment.putShort((short) bytes.length);
+            segment.put(bytes);
+        }
+    }
+
+    /**
+     * Decodes records one after the other, reusing a single buffer for strings and the last currency
+     */
+    private static final class RecordIterator implements Iterator<Transaction> {
+
+        private final OffHeapTransactionStore store;
+        private final Iterator<ByteBuffer> segments;
+        private final byte[] currencyCode = new byte[3];
+        private final byte[] lastCurrencyCode = new byte[3];
+        private byte[] scratch = new byte[64];
+        private ByteBuffer segment;
+        private int remaining;
+        private Currency currency;
+
+        private RecordIterator(OffHeapTransactionStore store, int numberOfTransactions, List<ByteBuffer> segments) {
+            this.store = store;
+            this.remaining = numberOfTransactions;
+            this.segments = segments.stream().map(ByteBuffer::duplicate).iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            store.ensureOpen();
+            while (segment == null || !segment.hasRemaining()) {
+                segment = segments.next();
+            }
+            int flags = segment.get();
+            long unscaledAmount = segment.getLong();
+            segment.get(currencyCode);
+            if (currency == null || !Arrays.equals(currencyCode, lastCurrencyCode)) {
+                currency = Currency.getInstance(new String(currencyCode, StandardCharsets.US_ASCII));
+                System.arraycopy(currencyCode, 0, lastCurrencyCode, 0, currencyCode.length);
+            }
+            byte chargeBearer = segment.get();
+            String accountId = string();
+            String bic = (flags & FLAG_BIC) == 0 ? null : string();
+            String name = (flags & FLAG_NAME) == 0 ? null : string();
+            String endToEndId = string();
+            String id = (flags & FLAG_ID) == 0 ? null : string();
+            int lines = Byte.toUnsignedInt(segment.get());
+            Set<String> remittanceInformation = lines == 0 ? Collections.emptySet() : new LinkedHashSet<>();
+            for (int i = 0; i < lines; i++) {
+                remittanceInformation.add(string());
+            }
+            remaining--;
+            BankAccount account = (flags & FLAG_OTHER_ID) == 0
+                    ? new SimpleBankAccount(accountId, bic, null, null)
+                    : new SimpleBankAccount(null, bic, null, accountId);
+            return new CompactTransaction(name == null ? null : new SimpleParty(name, null),
+                    account,
+                    unscaledAmount,
+                    currency,
+                    endToEndId,
+                    id,
+                    chargeBearer < 0 ? null : CHARGE_BEARERS[chargeBearer],
+                    null,
+                    remittanceInformation);
+        }
+
+        private String string() {
+            int length = Short.toUnsignedInt(segment.getShort());
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            segment.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Process-wide registry of the bundled XSD schemas, lazily compiled once per pain.001 version.
+ * <p>
+ * Compiled schemas are immutable and thread-safe: they can be shared by any number of validators and marshallers.
+ *
+ * @author Patrice Blanchardie
+ */
+public final class SchemaRegistry {
+
+    private static final SchemaRegistry INSTANCE = new SchemaRegistry();
+
+    private final Map<CustomerCreditTransferInitiationVersion, Entry> entries = new EnumMap<>(CustomerCreditTransferInitiationVersion.class);
+
+    /**
+     * Constructor
+     */
+    public SchemaRegistry() {
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            this.entries.put(version, new Entry(version));
+        }
+    }
+
+    /**
+     * @return the shared registry
+     */
+    public static SchemaRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the schema of a version, compiling it on first use
+     *
+     * @param version pain.001 version
+     * @return the shared schema
+     */
+    public Schema getSchema(CustomerCreditTransferInitiationVersion version) {
+        Entry entry = entries.get(version);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+        return entry.schema();
+    }
+
+    /**
+     * Validate a document against the schema of a version
+     *
+     * @param version pain.001 version
+     * @param source  document
+     * @throws XmlException if the document is invalid
+     */
+    public void validate(CustomerCreditTransferInitiationVersion version, Source source) {
+        try {
+            getSchema(version).newValidator().validate(source);
+        } catch (SAXException e) {
+            throw new XmlException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param version pain.001 version
+     * @return name of the bundled XSD resource
+     */
+    static String resource(CustomerCreditTransferInitiationVersion version) {
+        switch (version) {
+            case V03:
+                return "pain.001.001.03.xsd";
+            case V09:
+                return "pain.001.001.09.xsd";
+            case V03_CH_02:
+                return "pain.001.001.03.ch.02.xsd";
+            case V003_03:
+                return "pain.001.003.03.xsd";
+            default:
+                throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+    }
+
+    private static final class Entry {
+
+        private final CustomerCreditTransferInitiationVersion version;
+        private volatile Schema schema;
+
+        private Entry(CustomerCreditTransferInitiationVersion version) {
+            this.version = version;
+        }
+
+        private Schema schema() {
+            Schema result = schema;
+            if (result != null) {
+                return result;
+            }
+            synchronized (this) {
+                if (schema == null) {
+                    schema = compile();
+                }
+                return schema;
+            }
+        }
+
+        private Schema compile() {
+            String resource = resource(version);
+            URL url = SchemaRegistry.class.getClassLoader().getResource(resource);
+            if (url == null) {
+                throw new IllegalStateException("Missing schema " + resource);
+            }
+            try {
+                return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(url);
+            } catch (SAXException e) {
+                throw new XmlException(e);
+            }
+        }
+    }
+}
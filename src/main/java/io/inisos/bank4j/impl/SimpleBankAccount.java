@@ -54,11 +54,19 @@ public class SimpleBankAccount implements BankAccount {
     }
 
     private void requireIdentification() {
-        if ((iban == null || iban.isEmpty()) && (otherId == null || otherId.isEmpty())) {
+        if (isEmpty(iban) && isEmpty(otherId)) {
             throw new IllegalArgumentException("IBAN or otherId must be provided");
         }
     }
 
+    /**
+     * @param identification IBAN or other identifier
+     * @return true if not provided, null or empty
+     */
+    static boolean isEmpty(String identification) {
+        return identification == null || identification.isEmpty();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,394 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.*;
+import io.inisos.bank4j.util.FileChannelOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Converts pain.001 documents, however large, from one version to another, transaction by transaction.
+ * <p>
+ * Documents are read by {@link StAXCreditTransferReader} and each payment information is mapped
+ * by the JAXB credit transfer of the target version, its transactions being streamed while marshalled:
+ * neither document is held in memory.
+ * Headers are written before transactions, so the number of transactions and the control sum of the message
+ * and of each payment information must be declared by the source document, those of a single payment information
+ * defaulting to those of the message.
+ * <p>
+ * Fields the target version cannot represent are dropped and counted in the report,
+ * such as a requested execution date time, kept as a date, or instant payment up to version 09,
+ * as are elements the reader does not model, such as purposes or structured remittance information.
+ * Values the target version does not accept at all, such as another currency than EUR for pain.001.003.03,
+ * make the conversion fail.
+ *
+ * @author Patrice Blanchardie
+ */
+public class StAXCreditTransferConverter {
+
+    private final StAXCreditTransferReader reader = new StAXCreditTransferReader();
+    private final CustomerCreditTransferInitiationVersion version;
+    private final boolean formatted;
+    private final boolean validated;
+
+    /**
+     * Constructor of a converter writing unformatted documents
+     *
+     * @param version pain.001 version documents are converted to
+     */
+    public StAXCreditTransferConverter(CustomerCreditTransferInitiationVersion version) {
+        this(version, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param version   pain.001 version documents are converted to
+     * @param formatted true to format output, false to leave unformatted
+     */
+    public StAXCreditTransferConverter(CustomerCreditTransferInitiationVersion version, boolean formatted) {
+        this(version, formatted, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param version   pain.001 version documents are converted to
+     * @param formatted true to format output, false to leave unformatted
+     * @param validated true to validate output against the schema of the target version while converting
+     */
+    public StAXCreditTransferConverter(CustomerCreditTransferInitiationVersion version, boolean formatted, boolean validated) {
+        this.version = Objects.requireNonNull(version, "Version cannot be null");
+        this.formatted = formatted;
+        this.validated = validated;
+    }
+
+    /**
+     * If conversion fails, e.g. on an invalid source or undeclared totals, the partially written target is deleted.
+     *
+     * @param source file to read
+     * @param target file to write as UTF-8, created or truncated
+     * @return conversion report
+     */
+    public Report convert(Path source, Path target) {
+        try (InputStream inputStream = Files.newInputStream(source);
+             OutputStream outputStream = new FileChannelOutputStream(target, SyncPolicy.NONE)) {
+            return convert(inputStream, outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException deletion) {
+                e.addSuppressed(deletion);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param inputStream  document to read, left open
+     * @param outputStream output stream written as UTF-8, left open
+     * @return conversion report
+     */
+    public Report convert(InputStream inputStream, OutputStream outputStream) {
+        try (StAXCreditTransferReader.Message message = reader.read(inputStream)) {
+            Conversion conversion = new Conversion(message);
+            JAXBStreamingMarshaller.marshal(version, conversion, outputStream, formatted, validated);
+            return conversion.report();
+        }
+    }
+
+    /**
+     * @return pain.001 version documents are converted to
+     */
+    public CustomerCreditTransferInitiationVersion getVersion() {
+        return version;
+    }
+
+    public boolean isFormatted() {
+        return formatted;
+    }
+
+    public boolean isValidated() {
+        return validated;
+    }
+
+    /**
+     * State of a single conversion, mapping payment information as they are read
+     */
+    private final class Conversion implements Iterator<JAXBStreamingMarshaller.PaymentInformation> {
+
+        private final StAXCreditTransferReader.Message message;
+        private final Map<Field, Long> unrepresentableFields = new EnumMap<>(Field.class);
+        private final int numberOfTransactions;
+        private final BigDecimal controlSum;
+        private int numberOfPaymentInformation;
+        private int convertedTransactions;
+
+        private Conversion(StAXCreditTransferReader.Message message) {
+            this.message = message;
+            this.numberOfTransactions = message.getDeclaredNumberOfTransactions()
+                    .orElseThrow(() -> new IllegalArgumentException("Number of transactions of the message must be declared"));
+            this.controlSum = message.getDeclaredControlSum()
+                    .orElseThrow(() -> new IllegalArgumentException("Control sum of the message must be declared"));
+            message.getInitiatingParty().ifPresent(this::checkInitiatingParty);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return message.hasNext();
+        }
+
+        @Override
+        public JAXBStreamingMarshaller.PaymentInformation next() {
+            StAXCreditTransferReader.ReadCreditTransfer creditTransfer = message.next();
+            numberOfPaymentInformation++;
+            CreditTransferOperation operation = operation(creditTransfer);
+            if (numberOfPaymentInformation == 1) {
+                return JAXBCreditTransferMessage.paymentInformation(version, operation, message.getMessageId(), message.getCreationDateTime(), message.getInitiatingParty().orElse(null), numberOfTransactions, controlSum);
+            }
+            return JAXBCreditTransferMessage.paymentInformation(version, operation);
+        }
+
+        private CreditTransferOperation operation(StAXCreditTransferReader.ReadCreditTransfer creditTransfer) {
+            int declaredNumberOfTransactions = creditTransfer.getDeclaredNumberOfTransactions()
+                    .orElseGet(() -> declaredByMessage(creditTransfer, numberOfTransactions));
+            BigDecimal declaredControlSum = creditTransfer.getDeclaredControlSum()
+                    .orElseGet(() -> declaredByMessage(creditTransfer, controlSum));
+
+            JAXBCreditTransferBuilder builder = new JAXBCreditTransferBuilder().version(version);
+            builder.instructionPriority(creditTransfer.getInstructionPriority())
+                    .serviceLevelCode(creditTransfer.getServiceLevelCode())
+                    .debtor(creditTransfer.getDebtor().orElse(null))
+                    .debtorAccount(creditTransfer.getDebtorAccount())
+                    .id(creditTransfer.getId())
+                    .creationDateTime(creditTransfer.getCreationDateTime())
+                    .chargeBearer(creditTransfer.getChargeBearer())
+                    .batchBooking(creditTransfer.isBatchBooking())
+                    .transactions(creditTransfer.transactions().peek(this::checkTransaction), declaredNumberOfTransactions, declaredControlSum);
+            if (creditTransfer.getRequestedExecutionDateTime() == null) {
+                builder.requestedExecutionDate(creditTransfer.getRequestedExecutionDate());
+            } else if (version == CustomerCreditTransferInitiationVersion.V09) {
+                builder.requestedExecutionDateTime(creditTransfer.getRequestedExecutionDateTime());
+            } else {
+                unrepresentable(Field.REQUESTED_EXECUTION_DATE_TIME);
+                builder.requestedExecutionDate(creditTransfer.getRequestedExecutionDateTime().toLocalDate());
+            }
+            if (creditTransfer.isInstantPayment()) {
+                if (version == CustomerCreditTransferInitiationVersion.V09) {
+                    builder.instantPayment(true);
+                } else {
+                    unrepresentable(Field.INSTANT_PAYMENT);
+                }
+            }
+            creditTransfer.getDebtor().ifPresent(this::checkParty);
+            checkAccountName(creditTransfer.getDebtorAccount());
+            return builder.build();
+        }
+
+        /**
+         * Totals of the first payment information default to the ones of the message, as when it is the only one.
+         * Otherwise, streamed transactions do not match them and the conversion fails once they are exhausted.
+         */
+        private <T> T declaredByMessage(StAXCreditTransferReader.ReadCreditTransfer creditTransfer, T total) {
+            if (numberOfPaymentInformation > 1) {
+                throw new IllegalArgumentException("Number of transactions and control sum of " + creditTransfer.getId() + " must be declared");
+            }
+            return total;
+        }
+
+        private void checkTransaction(Transaction transaction) {
+            convertedTransactions++;
+            transaction.getParty().ifPresent(this::checkParty);
+            checkAccountName(transaction.getAccount());
+            List<BankAccount> intermediaryAgents = transaction.getIntermediaryAgents();
+            if (!intermediaryAgents.isEmpty() && (version == CustomerCreditTransferInitiationVersion.V003_03
+                    || (version == CustomerCreditTransferInitiationVersion.V03_CH_02 && (intermediaryAgents.size() > 1 || hasIdentification(intermediaryAgents.get(0)))))) {
+                unrepresentable(Field.INTERMEDIARY_AGENTS);
+            }
+            if (transaction.getRemittanceInformationUnstructured().size() > 1 && isRestricted()) {
+                unrepresentable(Field.REMITTANCE_INFORMATION);
+            }
+        }
+
+        /**
+         * Only the name of the initiating party is kept by Swiss and SEPA versions
+         */
+        private void checkInitiatingParty(Party party) {
+            if (party.getPostalAddress().isPresent() && isRestricted()) {
+                unrepresentable(Field.POSTAL_ADDRESS);
+            }
+        }
+
+        private void checkParty(Party party) {
+            party.getPostalAddress().ifPresent(postalAddress -> {
+                if (postalAddress.getAddressLines().size() > 2 && isRestricted()) {
+                    unrepresentable(Field.ADDRESS_LINES);
+                }
+                if (version == CustomerCreditTransferInitiationVersion.V003_03 && isStructured(postalAddress)) {
+                    unrepresentable(Field.POSTAL_ADDRESS);
+                }
+            });
+        }
+
+        private void checkAccountName(BankAccount account) {
+            if (account.getName().isPresent() && isRestricted()) {
+                unrepresentable(Field.ACCOUNT_NAME);
+            }
+        }
+
+        /**
+         * @return true for the Swiss and SEPA versions, which restrict remittance information, address lines and accounts
+         */
+        private boolean isRestricted() {
+            return version == CustomerCreditTransferInitiationVersion.V03_CH_02 || version == CustomerCreditTransferInitiationVersion.V003_03;
+        }
+
+        private boolean hasIdentification(BankAccount account) {
+            return account.getIban().isPresent() || account.getOtherId().isPresent() || account.getName().isPresent();
+        }
+
+        private boolean isStructured(PostalAddress postalAddress) {
+            return postalAddress.getType().isPresent()
+                    || postalAddress.getDepartment().isPresent()
+                    || postalAddress.getSubDepartment().isPresent()
+                    || postalAddress.getStreetName().isPresent()
+                    || postalAddress.getBuildingNumber().isPresent()
+                    || postalAddress.getPostCode().isPresent()
+                    || postalAddress.getTownName().isPresent()
+                    || postalAddress.getCountrySubDivision().isPresent();
+        }
+
+        private void unrepresentable(Field field) {
+            unrepresentableFields.merge(field, 1L, Long::sum);
+        }
+
+        private Report report() {
+            Map<String, Long> unmodelledElements = message.getUnmodelledElements();
+            if (!unmodelledElements.isEmpty()) {
+                unrepresentableFields.put(Field.UNMODELLED, unmodelledElements.values().stream().mapToLong(Long::longValue).sum());
+            }
+            return new Report(message.getVersion(), version, numberOfPaymentInformation, convertedTransactions, unrepresentableFields, unmodelledElements);
+        }
+    }
+
+    /**
+     * Field the target version cannot represent
+     */
+    public enum Field {
+        /**
+         * Requested execution date time, kept as a date up to version 09
+         */
+        REQUESTED_EXECUTION_DATE_TIME,
+        /**
+         * Instant payment local instrument, only supported by version 09
+         */
+        INSTANT_PAYMENT,
+        /**
+         * Structured postal address, of which only the country and address lines are kept
+         */
+        POSTAL_ADDRESS,
+        /**
+         * Address lines beyond the second one
+         */
+        ADDRESS_LINES,
+        /**
+         * Unstructured remittance information beyond the first one
+         */
+        REMITTANCE_INFORMATION,
+        /**
+         * Account name
+         */
+        ACCOUNT_NAME,
+        /**
+         * Intermediary agents, or their accounts
+         */
+        INTERMEDIARY_AGENTS,
+        /**
+         * Elements bank4j does not model, whatever the target version, see {@link Report#getUnmodelledElements()}
+         */
+        UNMODELLED
+    }
+
+    /**
+     * Result of a conversion
+     */
+    public static final class Report {
+
+        private final CustomerCreditTransferInitiationVersion sourceVersion;
+        private final CustomerCreditTransferInitiationVersion targetVersion;
+        private final int numberOfPaymentInformation;
+        private final int numberOfTransactions;
+        private final Map<Field, Long> unrepresentableFields;
+        private final Map<String, Long> unmodelledElements;
+
+        private Report(CustomerCreditTransferInitiationVersion sourceVersion, CustomerCreditTransferInitiationVersion targetVersion, int numberOfPaymentInformation, int numberOfTransactions, Map<Field, Long> unrepresentableFields, Map<String, Long> unmodelledElements) {
+            this.sourceVersion = sourceVersion;
+            this.targetVersion = targetVersion;
+            this.numberOfPaymentInformation = numberOfPaymentInformation;
+            this.numberOfTransactions = numberOfTransactions;
+            this.unrepresentableFields = unrepresentableFields.isEmpty()
+                    ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new EnumMap<>(unrepresentableFields));
+            this.unmodelledElements = unmodelledElements.isEmpty()
+                    ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new TreeMap<>(unmodelledElements));
+        }
+
+        public CustomerCreditTransferInitiationVersion getSourceVersion() {
+            return sourceVersion;
+        }
+
+        public CustomerCreditTransferInitiationVersion getTargetVersion() {
+            return targetVersion;
+        }
+
+        public int getNumberOfPaymentInformation() {
+            return numberOfPaymentInformation;
+        }
+
+        public int getNumberOfTransactions() {
+            return numberOfTransactions;
+        }
+
+        /**
+         * @return number of occurrences of each field the target version cannot represent
+         */
+        public Map<Field, Long> getUnrepresentableFields() {
+            return unrepresentableFields;
+        }
+
+        /**
+         * @return number of occurrences of each element dropped because bank4j does not model it, by element name
+         */
+        public Map<String, Long> getUnmodelledElements() {
+            return unmodelledElements;
+        }
+
+        /**
+         * @return true if every field was represented in the target version
+         */
+        public boolean isLossless() {
+            return unrepresentableFields.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Report.class.getSimpleName() + "[", "]")
+                    .add("sourceVersion=" + sourceVersion)
+                    .add("targetVersion=" + targetVersion)
+                    .add("numberOfPaymentInformation=" + numberOfPaymentInformation)
+                    .add("numberOfTransactions=" + numberOfTransactions)
+                    .add("unrepresentableFields=" + unrepresentableFields)
+                    .add("unmodelledElements=" + unmodelledElements)
+                    .toString();
+        }
+    }
+}
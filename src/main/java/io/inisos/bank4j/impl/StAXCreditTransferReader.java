@@ -0,0 +1,942 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.*;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads pain.001 documents, however large, as credit transfers whose transactions are streamed.
+ * <p>
+ * Documents are read with StAX and never unmarshalled: the group header is read when a document is opened,
+ * then each payment information is read on demand, and its transactions one by one while they are streamed.
+ * Memory does not depend on the size of the document.
+ * Transactions are read as {@link SimpleTransaction}, parties, accounts and postal addresses as their simple counterparts.
+ * <p>
+ * Elements bank4j does not model are skipped, and counted by {@link Message#getUnmodelledElements()}.
+ *
+ * @author Patrice Blanchardie
+ */
+public class StAXCreditTransferReader {
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final CustomerCreditTransferInitiationVersion version;
+
+    /**
+     * Constructor of a reader detecting the version of documents from their namespace
+     */
+    public StAXCreditTransferReader() {
+        this.version = null;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param version pain.001 version documents must have
+     */
+    public StAXCreditTransferReader(CustomerCreditTransferInitiationVersion version) {
+        this.version = Objects.requireNonNull(version, "Version cannot be null");
+    }
+
+    /**
+     * @param path file
+     * @return the message, to be closed once read, which closes the file
+     */
+    public Message read(Path path) {
+        InputStream inputStream;
+        try {
+            inputStream = Files.newInputStream(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Message(inputStream);
+    }
+
+    /**
+     * @param inputStream document, left open when the message is closed
+     * @return the message, to be closed once read
+     */
+    public Message read(InputStream inputStream) {
+        return new Message(null, Objects.requireNonNull(inputStream, "Input stream cannot be null"));
+    }
+
+    /**
+     * @return pain.001 version documents must have, empty if detected
+     */
+    public Optional<CustomerCreditTransferInitiationVersion> getVersion() {
+        return Optional.ofNullable(version);
+    }
+
+    /**
+     * @param version pain.001 version
+     * @return namespace of documents
+     */
+    static String namespace(CustomerCreditTransferInitiationVersion version) {
+        switch (version) {
+            case V03:
+                return "urn:iso:std:iso:20022:tech:xsd:pain.001.001.03";
+            case V09:
+                return "urn:iso:std:iso:20022:tech:xsd:pain.001.001.09";
+            case V03_CH_02:
+                return "http://www.six-interbank-clearing.com/de/pain.001.001.03.ch.02.xsd";
+            case V003_03:
+                return "urn:iso:std:iso:20022:tech:xsd:pain.001.003.03";
+            default:
+                throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+    }
+
+    private static CustomerCreditTransferInitiationVersion version(String namespace) {
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            if (namespace(version).equals(namespace)) {
+                return version;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported namespace: " + namespace);
+    }
+
+    /**
+     * A pain.001 message being read: its group header, then its payment information in document order
+     */
+    public final class Message implements Iterator<ReadCreditTransfer>, Closeable {
+
+        private final InputStream owned;
+        private final XMLStreamReader reader;
+        private CustomerCreditTransferInitiationVersion version;
+        private String messageId;
+        private LocalDateTime creationDateTime;
+        private Integer declaredNumberOfTransactions;
+        private BigDecimal declaredControlSum;
+        private Party initiatingParty;
+        private final Map<String, Long> unmodelledElements = new TreeMap<>();
+        private ReadCreditTransfer current;
+        private boolean closed;
+
+        private Message(InputStream owned) {
+            this(owned, owned);
+        }
+
+        private Message(InputStream owned, InputStream inputStream) {
+            this.owned = owned;
+            try {
+                this.reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+                readHeader();
+            } catch (XMLStreamException e) {
+                close();
+                throw new XmlException(e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Reads up to the first payment information
+         */
+        private void readHeader() throws XMLStreamException {
+            reader.nextTag();
+            version = StAXCreditTransferReader.version(reader.getNamespaceURI());
+            if (StAXCreditTransferReader.this.version != null && StAXCreditTransferReader.this.version != version) {
+                throw new IllegalArgumentException("Expected version " + StAXCreditTransferReader.this.version + " but read " + version);
+            }
+            reader.nextTag();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT && !"PmtInf".equals(reader.getLocalName())) {
+                if ("GrpHdr".equals(reader.getLocalName())) {
+                    readGroupHeader();
+                } else {
+                    unmodelled();
+                }
+            }
+        }
+
+        private void readGroupHeader() throws XMLStreamException {
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "MsgId":
+                        messageId = reader.getElementText();
+                        break;
+                    case "CreDtTm":
+                        creationDateTime = LocalDateTime.parse(trimmedText(), DateTimeFormatter.ISO_DATE_TIME);
+                        break;
+                    case "NbOfTxs":
+                        declaredNumberOfTransactions = Integer.valueOf(trimmedText());
+                        break;
+                    case "CtrlSum":
+                        declaredControlSum = new BigDecimal(trimmedText());
+                        break;
+                    case "InitgPty":
+                        initiatingParty = party();
+                        break;
+                    default:
+                        unmodelled();
+                }
+            }
+        }
+
+        /**
+         * @return true if another payment information follows, skipping transactions left of the current one
+         */
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (current != null) {
+                    current.skipTransactions();
+                    current = null;
+                    reader.nextTag();
+                }
+                return reader.isStartElement() && "PmtInf".equals(reader.getLocalName());
+            } catch (XMLStreamException e) {
+                throw new XmlException(e);
+            }
+        }
+
+        /**
+         * Read the header of the next payment information, up to its first transaction
+         *
+         * @return the next payment information
+         */
+        @Override
+        public ReadCreditTransfer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                current = readPaymentInformation();
+                return current;
+            } catch (XMLStreamException e) {
+                throw new XmlException(e);
+            }
+        }
+
+        /**
+         * @return remaining payment information, read lazily
+         */
+        public Stream<ReadCreditTransfer> creditTransfers() {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(this::close);
+        }
+
+        /**
+         * @return transactions of all remaining payment information, read lazily
+         */
+        public Stream<Transaction> transactions() {
+            return creditTransfers().flatMap(ReadCreditTransfer::transactions);
+        }
+
+        private ReadCreditTransfer readPaymentInformation() throws XMLStreamException {
+            ReadCreditTransfer creditTransfer = new ReadCreditTransfer(this);
+            AccountFields debtorAccount = new AccountFields();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT && !"CdtTrfTxInf".equals(reader.getLocalName())) {
+                switch (reader.getLocalName()) {
+                    case "PmtInfId":
+                        creditTransfer.id = reader.getElementText();
+                        break;
+                    case "BtchBookg":
+                        creditTransfer.batchBooking = parseBoolean(trimmedText());
+                        break;
+                    case "NbOfTxs":
+                        creditTransfer.declaredNumberOfTransactions = Integer.valueOf(trimmedText());
+                        break;
+                    case "CtrlSum":
+                        creditTransfer.declaredControlSum = new BigDecimal(trimmedText());
+                        break;
+                    case "PmtTpInf":
+                        readPaymentTypeInformation(creditTransfer);
+                        break;
+                    case "ReqdExctnDt":
+                        readRequestedExecutionDate(creditTransfer);
+                        break;
+                    case "Dbtr":
+                        creditTransfer.debtor = party();
+                        break;
+                    case "DbtrAcct":
+                        account(debtorAccount);
+                        break;
+                    case "DbtrAgt":
+                        agent(debtorAccount);
+                        break;
+                    case "ChrgBr":
+                        creditTransfer.chargeBearer = ChargeBearer.valueOf(trimmedText());
+                        break;
+                    case "PmtMtd":
+                        // credit transfers are the only payment method bank4j writes
+                        if (!"TRF".equals(trimmedText())) {
+                            unmodelled("PmtMtd");
+                        }
+                        break;
+                    default:
+                        unmodelled();
+                }
+            }
+            creditTransfer.debtorAccount = debtorAccount.build();
+            return creditTransfer;
+        }
+
+        private void readPaymentTypeInformation(ReadCreditTransfer creditTransfer) throws XMLStreamException {
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "InstrPrty":
+                        creditTransfer.instructionPriority = Priority.valueOf(trimmedText());
+                        break;
+                    case "SvcLvl":
+                        String serviceLevelCode = code();
+                        if (creditTransfer.serviceLevelCode == null) {
+                            creditTransfer.serviceLevelCode = serviceLevelCode;
+                        }
+                        break;
+                    case "LclInstrm":
+                        if ("INST".equals(code())) {
+                            creditTransfer.instantPayment = true;
+                        }
+                        break;
+                    default:
+                        unmodelled();
+                }
+            }
+        }
+
+        /**
+         * A date up to version 09, a choice of date or date time since
+         */
+        private void readRequestedExecutionDate(ReadCreditTransfer creditTransfer) throws XMLStreamException {
+            if (version != CustomerCreditTransferInitiationVersion.V09) {
+                creditTransfer.requestedExecutionDate = LocalDate.parse(trimmedText(), DateTimeFormatter.ISO_DATE);
+                return;
+            }
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "Dt":
+                        creditTransfer.requestedExecutionDate = LocalDate.parse(trimmedText(), DateTimeFormatter.ISO_DATE);
+                        break;
+                    case "DtTm":
+                        creditTransfer.requestedExecutionDateTime = zonedDateTime(trimmedText());
+                        break;
+                    default:
+                        unmodelled();
+                }
+            }
+        }
+
+        private Transaction readTransaction() throws XMLStreamException {
+            TransactionBuilder transaction = Bank.simpleTransaction();
+            AccountFields creditorAccount = new AccountFields();
+            AccountFields[] intermediaryAgents = new AccountFields[3];
+            Set<String> remittanceInformationUnstructured = new LinkedHashSet<>();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                switch (name) {
+                    case "PmtId":
+                        readPaymentIdentification(transaction);
+                        break;
+                    case "Amt":
+                        readAmount(transaction);
+                        break;
+                    case "ChrgBr":
+                        transaction.chargeBearerCode(ChargeBearer.valueOf(trimmedText()));
+                        break;
+                    case "IntrmyAgt1":
+                    case "IntrmyAgt2":
+                    case "IntrmyAgt3":
+                        agent(intermediaryAgent(intermediaryAgents, name));
+                        break;
+                    case "IntrmyAgt1Acct":
+                    case "IntrmyAgt2Acct":
+                    case "IntrmyAgt3Acct":
+                        account(intermediaryAgent(intermediaryAgents, name));
+                        break;
+                    case "CdtrAgt":
+                        agent(creditorAccount);
+                        break;
+                    case "Cdtr":
+                        transaction.party(party());
+                        break;
+                    case "CdtrAcct":
+                        account(creditorAccount);
+                        break;
+                    case "RmtInf":
+                        readRemittanceInformation(remittanceInformationUnstructured);
+                        break;
+                    default:
+                        unmodelled();
+                }
+            }
+            for (AccountFields intermediaryAgent : intermediaryAgents) {
+                if (intermediaryAgent != null) {
+                    transaction.intermediaryAgent(intermediaryAgent.build());
+                }
+            }
+            return transaction.account(creditorAccount.build())
+                    .remittanceInformationUnstructured(remittanceInformationUnstructured)
+                    .build();
+        }
+
+        private AccountFields intermediaryAgent(AccountFields[] intermediaryAgents, String name) {
+            int index = name.charAt("IntrmyAgt".length()) - '1';
+            if (intermediaryAgents[index] == null) {
+                intermediaryAgents[index] = new AccountFields();
+            }
+            return intermediaryAgents[index];
+        }
+
+        private void readPaymentIdentification(TransactionBuilder transaction) throws XMLStreamException {
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "InstrId":
+                        transaction.id(reader.getElementText());
+                        break;
+                    case "EndToEndId":
+                        transaction.endToEndId(reader.getElementText());
+                        break;
+                    default:
+                        unmodelled();
+                }
+            }
+        }
+
+        private void readAmount(TransactionBuilder transaction) throws XMLStreamException {
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if ("InstdAmt".equals(reader.getLocalName())) {
+                    transaction.currency(reader.getAttributeValue(null, "Ccy"));
+                    transaction.amount(trimmedText());
+                } else {
+                    unmodelled();
+                }
+            }
+        }
+
+        private void readRemittanceInformation(Set<String> remittanceInformationUnstructured) throws XMLStreamException {
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if ("Ustrd".equals(reader.getLocalName())) {
+                    remittanceInformationUnstructured.add(reader.getElementText());
+                } else {
+                    unmodelled();
+                }
+            }
+        }
+
+        private Party party() throws XMLStreamException {
+            PartyBuilder party = Bank.simpleParty();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "Nm":
+                        party.name(reader.getElementText());
+                        break;
+                    case "PstlAdr":
+                        party.postalAddress(postalAddress());
+                        break;
+                    default:
+                        unmodelled();
+                }
+            }
+            return party.build();
+        }
+
+        private PostalAddress postalAddress() throws XMLStreamException {
+            PostalAddressBuilder postalAddress = Bank.simplePostalAddress();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "AdrTp":
+                        // a code up to version 09, a choice of code or proprietary since
+                        postalAddress.type(version == CustomerCreditTransferInitiationVersion.V09 ? code() : trimmedText());
+                        break;
+                    case "Dept":
+                        postalAddress.department(reader.getElementText());
+                        break;
+                    case "SubDept":
+                        postalAddress.subDepartment(reader.getElementText());
+                        break;
+                    case "StrtNm":
+                        postalAddress.streetName(reader.getElementText());
+                        break;
+                    case "BldgNb":
+                        postalAddress.buildingNumber(reader.getElementText());
+                        break;
+                    case "PstCd":
+                        postalAddress.postCode(reader.getElementText());
+                        break;
+                    case "TwnNm":
+                        postalAddress.townName(reader.getElementText());
+                        break;
+                    case "CtrySubDvsn":
+                        postalAddress.countrySubDivision(reader.getElementText());
+                        break;
+                    case "Ctry":
+                        postalAddress.country(reader.getElementText());
+                        break;
+                    case "AdrLine":
+                        postalAddress.addressLine(reader.getElementText());
+                        break;
+                    default:
+                        unmodelled();
+                }
+            }
+            return postalAddress.build();
+        }
+
+        private void account(AccountFields account) throws XMLStreamException {
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "Id":
+                        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                            switch (reader.getLocalName()) {
+                                case "IBAN":
+                                    account.iban = trimmedText();
+                                    break;
+                                case "Othr":
+                                    account.otherId = otherId();
+                                    break;
+                                default:
+                                    unmodelled();
+                            }
+                        }
+                        break;
+                    case "Nm":
+                        account.name = reader.getElementText();
+                        break;
+                    default:
+                        unmodelled();
+                }
+            }
+        }
+
+        private String otherId() throws XMLStreamException {
+            String id = null;
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if ("Id".equals(reader.getLocalName())) {
+                    id = reader.getElementText();
+                } else {
+                    unmodelled();
+                }
+            }
+            return id;
+        }
+
+        private void agent(AccountFields account) throws XMLStreamException {
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if ("FinInstnId".equals(reader.getLocalName())) {
+                    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "BIC":
+                            case "BICFI":
+                                account.bic = trimmedText();
+                                break;
+                            default:
+                                unmodelled();
+                        }
+                    }
+                } else {
+                    unmodelled();
+                }
+            }
+        }
+
+        /**
+         * @return the code of a choice of code or proprietary, null if proprietary
+         */
+        private String code() throws XMLStreamException {
+            String code = null;
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if ("Cd".equals(reader.getLocalName())) {
+                    code = trimmedText();
+                } else {
+                    unmodelled();
+                }
+            }
+            return code;
+        }
+
+        private String trimmedText() throws XMLStreamException {
+            return reader.getElementText().trim();
+        }
+
+        /**
+         * Skips the current element, which bank4j does not model, and counts it
+         */
+        private void unmodelled() throws XMLStreamException {
+            unmodelled(reader.getLocalName());
+            skip();
+        }
+
+        private void unmodelled(String name) {
+            unmodelledElements.merge(name, 1L, Long::sum);
+        }
+
+        /**
+         * Skips the current element and its content
+         */
+        private void skip() throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+
+        /**
+         * @return pain.001 version of the document
+         */
+        public CustomerCreditTransferInitiationVersion getVersion() {
+            return version;
+        }
+
+        public String getMessageId() {
+            return messageId;
+        }
+
+        public LocalDateTime getCreationDateTime() {
+            return creationDateTime;
+        }
+
+        /**
+         * @return number of transactions declared by the group header
+         */
+        public Optional<Integer> getDeclaredNumberOfTransactions() {
+            return Optional.ofNullable(declaredNumberOfTransactions);
+        }
+
+        /**
+         * @return control sum declared by the group header
+         */
+        public Optional<BigDecimal> getDeclaredControlSum() {
+            return Optional.ofNullable(declaredControlSum);
+        }
+
+        public Optional<Party> getInitiatingParty() {
+            return Optional.ofNullable(initiatingParty);
+        }
+
+        /**
+         * Elements skipped so far because bank4j does not model them, transactions skipped without being streamed aside
+         *
+         * @return number of occurrences by element name, sorted by name
+         */
+        public Map<String, Long> getUnmodelledElements() {
+            return Collections.unmodifiableMap(unmodelledElements);
+        }
+
+        /**
+         * Close the reader, and the file it was opened from
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // nothing left to read
+                }
+            }
+            if (owned != null) {
+                try {
+                    owned.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Message.class.getSimpleName() + "[", "]")
+                    .add("version=" + version)
+                    .add("messageId='" + messageId + "'")
+                    .add("creationDateTime=" + creationDateTime)
+                    .add("declaredNumberOfTransactions=" + declaredNumberOfTransactions)
+                    .add("declaredControlSum=" + declaredControlSum)
+                    .add("initiatingParty=" + initiatingParty)
+                    .toString();
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        return "true".equals(value) || "1".equals(value);
+    }
+
+    /**
+     * Date times without offset are read as UTC
+     */
+    private static ZonedDateTime zonedDateTime(String value) {
+        TemporalAccessor dateTime = DateTimeFormatter.ISO_DATE_TIME.parseBest(value, ZonedDateTime::from, LocalDateTime::from);
+        if (dateTime instanceof ZonedDateTime) {
+            return (ZonedDateTime) dateTime;
+        }
+        return ((LocalDateTime) dateTime).atZone(ZoneOffset.UTC);
+    }
+
+    /**
+     * Account fields read from both an account and its agent
+     */
+    private static final class AccountFields {
+
+        private String iban;
+        private String bic;
+        private String name;
+        private String otherId;
+
+        private BankAccount build() {
+            return Bank.simpleBankAccount().iban(iban).bic(bic).name(name).otherId(otherId).build();
+        }
+    }
+
+    /**
+     * A payment information read from a document, whose transactions are read while streamed.
+     * <p>
+     * Its transactions can only be streamed once, and before the next payment information is read.
+     */
+    public static final class ReadCreditTransfer implements CreditTransfer {
+
+        private final Message message;
+        private final CustomerCreditTransferInitiationVersion version;
+        private final String messageId;
+        private final LocalDateTime creationDateTime;
+        private Priority instructionPriority;
+        private String serviceLevelCode;
+        private Party debtor;
+        private BankAccount debtorAccount;
+        private String id;
+        private LocalDate requestedExecutionDate;
+        private ZonedDateTime requestedExecutionDateTime;
+        private ChargeBearer chargeBearer;
+        private boolean batchBooking;
+        private boolean instantPayment;
+        private Integer declaredNumberOfTransactions;
+        private BigDecimal declaredControlSum;
+        private boolean streamed;
+        private boolean exhausted;
+        private boolean skipped;
+        private Collection<Transaction> transactions;
+
+        private ReadCreditTransfer(Message message) {
+            this.message = message;
+            this.version = message.version;
+            this.messageId = message.messageId;
+            this.creationDateTime = message.creationDateTime;
+        }
+
+        /**
+         * Stream transactions, reading them one by one
+         *
+         * @return transactions, read lazily
+         * @throws IllegalStateException if transactions were already streamed, or the next payment information was read
+         */
+        public Stream<Transaction> transactions() {
+            if (streamed) {
+                throw new IllegalStateException("Transactions of " + id + " can only be streamed once");
+            }
+            streamed = true;
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new TransactionIterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+        }
+
+        /**
+         * Transactions are streamed while iterated, then checked against the declared number of transactions and control sum
+         *
+         * @return transactions that can be iterated only once
+         * @throws IllegalStateException if the number of transactions or the control sum is not declared
+         */
+        @Override
+        public synchronized Collection<Transaction> getTransactions() {
+            if (transactions == null) {
+                if (declaredNumberOfTransactions == null || declaredControlSum == null) {
+                    throw new IllegalStateException("Number of transactions and control sum of " + id + " are not declared, use transactions() instead");
+                }
+                transactions = StreamedTransactions.declared(transactions(), declaredNumberOfTransactions, declaredControlSum);
+            }
+            return transactions;
+        }
+
+        /**
+         * @return the declared control sum
+         * @throws IllegalStateException if the control sum is not declared
+         */
+        @Override
+        public BigDecimal getControlSum() {
+            if (declaredControlSum == null) {
+                throw new IllegalStateException("Control sum of " + id + " is not declared");
+            }
+            return declaredControlSum;
+        }
+
+        private void skipTransactions() throws XMLStreamException {
+            if (!exhausted) {
+                while (message.reader.isStartElement() && "CdtTrfTxInf".equals(message.reader.getLocalName())) {
+                    message.skip();
+                    message.reader.nextTag();
+                    skipped = true;
+                }
+                exhausted = true;
+            }
+        }
+
+        /**
+         * @return pain.001 version of the document
+         */
+        public CustomerCreditTransferInitiationVersion getVersion() {
+            return version;
+        }
+
+        /**
+         * @return id of the message, which may differ from the id of the payment information
+         */
+        public String getMessageId() {
+            return messageId;
+        }
+
+        @Override
+        public Priority getInstructionPriority() {
+            return instructionPriority;
+        }
+
+        @Override
+        public String getServiceLevelCode() {
+            return serviceLevelCode;
+        }
+
+        @Override
+        public Optional<Party> getDebtor() {
+            return Optional.ofNullable(debtor);
+        }
+
+        @Override
+        public BankAccount getDebtorAccount() {
+            return debtorAccount;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public LocalDateTime getCreationDateTime() {
+            return creationDateTime;
+        }
+
+        @Override
+        public LocalDate getRequestedExecutionDate() {
+            return requestedExecutionDate;
+        }
+
+        @Override
+        public ZonedDateTime getRequestedExecutionDateTime() {
+            return requestedExecutionDateTime;
+        }
+
+        @Override
+        public ChargeBearer getChargeBearer() {
+            return chargeBearer;
+        }
+
+        @Override
+        public boolean isBatchBooking() {
+            return batchBooking;
+        }
+
+        public boolean isInstantPayment() {
+            return instantPayment;
+        }
+
+        /**
+         * @return number of transactions declared by the payment information
+         */
+        public Optional<Integer> getDeclaredNumberOfTransactions() {
+            return Optional.ofNullable(declaredNumberOfTransactions);
+        }
+
+        /**
+         * @return control sum declared by the payment information
+         */
+        public Optional<BigDecimal> getDeclaredControlSum() {
+            return Optional.ofNullable(declaredControlSum);
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", ReadCreditTransfer.class.getSimpleName() + "[", "]")
+                    .add("version=" + version)
+                    .add("messageId='" + messageId + "'")
+                    .add("instructionPriority=" + instructionPriority)
+                    .add("serviceLevelCode='" + serviceLevelCode + "'")
+                    .add("debtor=" + debtor)
+                    .add("debtorAccount=" + debtorAccount)
+                    .add("id='" + id + "'")
+                    .add("creationDateTime=" + creationDateTime)
+                    .add("requestedExecutionDate=" + requestedExecutionDate)
+                    .add("requestedExecutionDateTime=" + requestedExecutionDateTime)
+                    .add("chargeBearer=" + chargeBearer)
+                    .add("batchBooking=" + batchBooking)
+                    .add("instantPayment=" + instantPayment)
+                    .toString();
+        }
+
+        private final class TransactionIterator implements Iterator<Transaction> {
+
+            @Override
+            public boolean hasNext() {
+                if (skipped) {
+                    throw new IllegalStateException("Transactions of " + id + " must be streamed before the next payment information is read");
+                }
+                if (exhausted) {
+                    return false;
+                }
+                if (message.closed) {
+                    throw new IllegalStateException("Message is closed");
+                }
+                XMLStreamReader reader = message.reader;
+                if (reader.isStartElement() && "CdtTrfTxInf".equals(reader.getLocalName())) {
+                    return true;
+                }
+                exhausted = true;
+                return false;
+            }
+
+            @Override
+            public Transaction next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    Transaction transaction = message.readTransaction();
+                    message.reader.nextTag();
+                    return transaction;
+                } catch (XMLStreamException e) {
+                    throw new XmlException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import io.inisos.bank4j.util.BicCheck;
+import io.inisos.bank4j.util.IbanCheck;
+import io.inisos.bank4j.util.Iso20022ReferenceElementValidator;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.stream.*;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Validates pain.001 documents, however large, in a single streaming pass.
+ * <p>
+ * Documents are read with StAX and checked against the compiled schema of {@link SchemaRegistry}
+ * while business rules are checked on the same events: declared number of transactions and control sums,
+ * IBAN and BIC validity, character set of references and duplicate end-to-end ids.
+ * Memory does not depend on the size of the document, except for the end-to-end ids seen so far, which are kept up to
+ * a maximum number: once reached, later end-to-end ids are no longer checked for duplicates, see
+ * {@link Report#isEndToEndIdCheckComplete()}.
+ * Validation stops once the maximum number of violations is collected.
+ *
+ * @author Patrice Blanchardie
+ */
+public class StAXCreditTransferValidator {
+
+    /**
+     * Default maximum number of violations collected
+     */
+    public static final int DEFAULT_MAXIMUM_VIOLATIONS = 100;
+
+    /**
+     * Default maximum number of end-to-end ids kept to find duplicates, about 150 MB of heap for ids of 35 characters
+     */
+    public static final int DEFAULT_MAXIMUM_END_TO_END_IDS = 1_000_000;
+
+    /**
+     * End-to-end id of transactions without one, which can be repeated
+     */
+    private static final String NOT_PROVIDED = "NOTPROVIDED";
+
+    private static final Set<String> REFERENCES = new HashSet<>(Arrays.asList("MsgId", "PmtInfId", "InstrId", "EndToEndId"));
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final CustomerCreditTransferInitiationVersion version;
+    private final int maximumViolations;
+    private final int maximumEndToEndIds;
+
+    /**
+     * Constructor
+     *
+     * @param version pain.001 version
+     */
+    public StAXCreditTransferValidator(CustomerCreditTransferInitiationVersion version) {
+        this(version, DEFAULT_MAXIMUM_VIOLATIONS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param version           pain.001 version
+     * @param maximumViolations maximum number of violations collected before validation stops
+     */
+    public StAXCreditTransferValidator(CustomerCreditTransferInitiationVersion version, int maximumViolations) {
+        this(version, maximumViolations, DEFAULT_MAXIMUM_END_TO_END_IDS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param version            pain.001 version
+     * @param maximumViolations  maximum number of violations collected before validation stops
+     * @param maximumEndToEndIds maximum number of end-to-end ids kept to find duplicates, 0 not to look for duplicates
+     */
+    public StAXCreditTransferValidator(CustomerCreditTransferInitiationVersion version, int maximumViolations, int maximumEndToEndIds) {
+        this.version = Objects.requireNonNull(version, "Version cannot be null");
+        if (maximumViolations < 1) {
+            throw new IllegalArgumentException("Maximum violations must be at least 1");
+        }
+        if (maximumEndToEndIds < 0) {
+            throw new IllegalArgumentException("Maximum end-to-end ids cannot be negative");
+        }
+        this.maximumViolations = maximumViolations;
+        this.maximumEndToEndIds = maximumEndToEndIds;
+    }
+
+    /**
+     * @param path file
+     * @return validation report
+     */
+    public Report validate(Path path) {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return validate(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param inputStream document, left open
+     * @return validation report
+     */
+    public Report validate(InputStream inputStream) {
+        Validation validation = new Validation();
+        XMLStreamReader reader = null;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+            Validator validator = SchemaRegistry.getInstance().getSchema(version).newValidator();
+            validator.setErrorHandler(validation);
+            validator.validate(new StAXSource(validation.observe(reader)));
+        } catch (XMLStreamException | SAXException | IOException | RuntimeException e) {
+            validation.stopped(e);
+        } finally {
+            close(reader);
+        }
+        return validation.report();
+    }
+
+    /**
+     * @return pain.001 version
+     */
+    public CustomerCreditTransferInitiationVersion getVersion() {
+        return version;
+    }
+
+    /**
+     * @return maximum number of violations collected before validation stops
+     */
+    public int getMaximumViolations() {
+        return maximumViolations;
+    }
+
+    /**
+     * @return maximum number of end-to-end ids kept to find duplicates
+     */
+    public int getMaximumEndToEndIds() {
+        return maximumEndToEndIds;
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // nothing left to read
+            }
+        }
+    }
+
+    /**
+     * State of a single validation
+     */
+    private final class Validation implements ErrorHandler {
+
+        private final List<Violation> violations = new ArrayList<>();
+        private final Deque<String> elements = new ArrayDeque<>();
+        private final StringBuilder text = new StringBuilder();
+        private final Set<String> endToEndIds = new HashSet<>();
+        private XMLStreamReader reader;
+        private boolean truncated;
+        private boolean fatal;
+        private boolean endToEndIdsSkipped;
+
+        private Integer declaredNumberOfTransactions;
+        private BigDecimal declaredControlSum;
+        private int numberOfTransactions;
+        private BigDecimal controlSum = BigDecimal.ZERO;
+
+        private Integer declaredPaymentNumberOfTransactions;
+        private BigDecimal declaredPaymentControlSum;
+        private int paymentNumberOfTransactions;
+        private BigDecimal paymentControlSum = BigDecimal.ZERO;
+
+        private XMLStreamReader observe(XMLStreamReader reader) {
+            this.reader = reader;
+            return new StreamReaderDelegate(reader) {
+                @Override
+                public int next() throws XMLStreamException {
+                    int event = super.next();
+                    switch (event) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            startElement(getLocalName());
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                            text.append(getTextCharacters(), getTextStart(), getTextLength());
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            endElement();
+                            break;
+                        default:
+                            break;
+                    }
+                    return event;
+                }
+            };
+        }
+
+        private void startElement(String name) {
+            elements.push(name);
+            text.setLength(0);
+            switch (name) {
+                case "PmtInf":
+                    declaredPaymentNumberOfTransactions = null;
+                    declaredPaymentControlSum = null;
+                    paymentNumberOfTransactions = 0;
+                    paymentControlSum = BigDecimal.ZERO;
+                    break;
+                case "CdtTrfTxInf":
+                    numberOfTransactions++;
+                    paymentNumberOfTransactions++;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void endElement() {
+            String name = elements.pop();
+            String parent = elements.peek();
+            String value = text.toString().trim();
+            text.setLength(0);
+            switch (name) {
+                case "NbOfTxs":
+                    if ("GrpHdr".equals(parent)) {
+                        declaredNumberOfTransactions = parseInteger(value);
+                    } else if ("PmtInf".equals(parent)) {
+                        declaredPaymentNumberOfTransactions = parseInteger(value);
+                    }
+                    break;
+                case "CtrlSum":
+                    if ("GrpHdr".equals(parent)) {
+                        declaredControlSum = parseDecimal(value);
+                    } else if ("PmtInf".equals(parent)) {
+                        declaredPaymentControlSum = parseDecimal(value);
+                    }
+                    break;
+                case "InstdAmt":
+                    addAmount(value);
+                    break;
+                case "Amt":
+                    if ("EqvtAmt".equals(parent)) {
+                        // amount in the debtor account currency, to be converted into the currency of transfer
+                        addAmount(value);
+                    }
+                    break;
+                case "IBAN":
+                    IbanCheck.Result iban = IbanCheck.check(value);
+                    if (!iban.isValid()) {
+                        add(Rule.IBAN, "Invalid IBAN " + value + ": " + iban);
+                    }
+                    break;
+                case "BIC":
+                case "BICFI":
+                    BicCheck.Result bic = BicCheck.check(value);
+                    if (!bic.isValid()) {
+                        add(Rule.BIC, "Invalid BIC " + value + ": " + bic);
+                    }
+                    break;
+                case "PmtInf":
+                    checkTotals("payment information", declaredPaymentNumberOfTransactions, paymentNumberOfTransactions, declaredPaymentControlSum, paymentControlSum);
+                    break;
+                default:
+                    break;
+            }
+            if (elements.isEmpty()) {
+                checkTotals("group header", declaredNumberOfTransactions, numberOfTransactions, declaredControlSum, controlSum);
+            }
+            if (REFERENCES.contains(name)) {
+                if (!Iso20022ReferenceElementValidator.isValidCharacterSet(value)) {
+                    add(Rule.CHARACTER_SET, name + " " + value + " does not match ISO 20022 character set");
+                }
+                if ("EndToEndId".equals(name) && !NOT_PROVIDED.equals(value)) {
+                    checkEndToEndId(value);
+                }
+            }
+        }
+
+        private void addAmount(String value) {
+            BigDecimal amount = parseDecimal(value);
+            if (amount != null) {
+                controlSum = controlSum.add(amount);
+                paymentControlSum = paymentControlSum.add(amount);
+            }
+        }
+
+        private void checkEndToEndId(String endToEndId) {
+            if (endToEndIds.contains(endToEndId)) {
+                add(Rule.DUPLICATE_END_TO_END_ID, "Duplicate EndToEndId " + endToEndId);
+            } else if (endToEndIds.size() < maximumEndToEndIds) {
+                endToEndIds.add(endToEndId);
+            } else {
+                endToEndIdsSkipped = true;
+            }
+        }
+
+        private void checkTotals(String scope, Integer declaredNumberOfTransactions, int numberOfTransactions, BigDecimal declaredControlSum, BigDecimal controlSum) {
+            if (declaredNumberOfTransactions != null && declaredNumberOfTransactions != numberOfTransactions) {
+                add(Rule.NUMBER_OF_TRANSACTIONS, "Number of transactions of " + scope + " is " + declaredNumberOfTransactions + " but found " + numberOfTransactions);
+            }
+            if (declaredControlSum != null && declaredControlSum.compareTo(controlSum) != 0) {
+                add(Rule.CONTROL_SUM, "Control sum of " + scope + " is " + declaredControlSum + " but found " + controlSum);
+            }
+        }
+
+        private Integer parseInteger(String value) {
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                // reported by schema validation
+                return null;
+            }
+        }
+
+        private BigDecimal parseDecimal(String value) {
+            try {
+                return new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                // reported by schema validation
+                return null;
+            }
+        }
+
+        private void add(Rule rule, String message) {
+            Location location = reader.getLocation();
+            add(new Violation(rule, location.getLineNumber(), location.getColumnNumber(), message));
+        }
+
+        private void add(Violation violation) {
+            if (truncated) {
+                throw new Truncated();
+            }
+            if (violations.size() == maximumViolations) {
+                truncated = true;
+                throw new Truncated();
+            }
+            violations.add(violation);
+        }
+
+        @Override
+        public void warning(SAXParseException exception) {
+            // warnings do not make a document invalid
+        }
+
+        @Override
+        public void error(SAXParseException exception) {
+            add(new Violation(Rule.SCHEMA, exception.getLineNumber(), exception.getColumnNumber(), exception.getMessage()));
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            fatal = true;
+            add(new Violation(Rule.SCHEMA, exception.getLineNumber(), exception.getColumnNumber(), exception.getMessage()));
+            throw exception;
+        }
+
+        /**
+         * @param e cause of validation ending early
+         */
+        private void stopped(Exception e) {
+            if (truncated || fatal) {
+                return;
+            }
+            Throwable cause = e;
+            while (cause.getCause() != null && !(cause instanceof Truncated)) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Truncated) {
+                return;
+            }
+            Location location = reader == null ? null : reader.getLocation();
+            violations.add(new Violation(Rule.SCHEMA,
+                    location == null ? -1 : location.getLineNumber(),
+                    location == null ? -1 : location.getColumnNumber(),
+                    String.valueOf(cause.getMessage())));
+        }
+
+        private Report report() {
+            return new Report(violations, truncated, !endToEndIdsSkipped, numberOfTransactions, controlSum);
+        }
+    }
+
+    /**
+     * Thrown to stop reading once the maximum number of violations is reached
+     */
+    private static final class Truncated extends RuntimeException {
+
+        private Truncated() {
+            super("Maximum number of violations reached", null, false, false);
+        }
+    }
+
+    /**
+     * Rule a document violates
+     */
+    public enum Rule {
+        /**
+         * Not well-formed or not valid against the schema
+         */
+        SCHEMA,
+        /**
+         * Declared number of transactions does not match
+         */
+        NUMBER_OF_TRANSACTIONS,
+        /**
+         * Declared control sum does not match
+         */
+        CONTROL_SUM,
+        /**
+         * Invalid IBAN
+         */
+        IBAN,
+        /**
+         * Invalid BIC
+         */
+        BIC,
+        /**
+         * Reference does not match the ISO 20022 character set
+         */
+        CHARACTER_SET,
+        /**
+         * End-to-end id already used by a previous transaction
+         */
+        DUPLICATE_END_TO_END_ID
+    }
+
+    /**
+     * A rule violated at some location of a document
+     */
+    public static final class Violation {
+
+        private final Rule rule;
+        private final int lineNumber;
+        private final int columnNumber;
+        private final String message;
+
+        private Violation(Rule rule, int lineNumber, int columnNumber, String message) {
+            this.rule = rule;
+            this.lineNumber = lineNumber;
+            this.columnNumber = columnNumber;
+            this.message = message;
+        }
+
+        /**
+         * @return violated rule
+         */
+        public Rule getRule() {
+            return rule;
+        }
+
+        /**
+         * @return line number, -1 if unknown
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * @return column number, -1 if unknown
+         */
+        public int getColumnNumber() {
+            return columnNumber;
+        }
+
+        /**
+         * @return description of the violation
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Violation.class.getSimpleName() + "[", "]")
+                    .add("rule=" + rule)
+                    .add("lineNumber=" + lineNumber)
+                    .add("columnNumber=" + columnNumber)
+                    .add("message='" + message + "'")
+                    .toString();
+        }
+    }
+
+    /**
+     * Outcome of a validation
+     */
+    public static final class Report {
+
+        private final List<Violation> violations;
+        private final boolean truncated;
+        private final boolean endToEndIdCheckComplete;
+        private final int numberOfTransactions;
+        private final BigDecimal controlSum;
+
+        private Report(List<Violation> violations, boolean truncated, boolean endToEndIdCheckComplete, int numberOfTransactions, BigDecimal controlSum) {
+            this.violations = Collections.unmodifiableList(violations);
+            this.truncated = truncated;
+            this.endToEndIdCheckComplete = endToEndIdCheckComplete;
+            this.numberOfTransactions = numberOfTransactions;
+            this.controlSum = controlSum;
+        }
+
+        /**
+         * @return true if no rule is violated
+         */
+        public boolean isValid() {
+            return violations.isEmpty();
+        }
+
+        /**
+         * @return violations in document order
+         */
+        public List<Violation> getViolations() {
+            return violations;
+        }
+
+        /**
+         * @return true if validation stopped at the maximum number of violations
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * @return false if some end-to-end ids were not checked for duplicates, the maximum number of ids being kept
+         */
+        public boolean isEndToEndIdCheckComplete() {
+            return endToEndIdCheckComplete;
+        }
+
+        /**
+         * @return number of transactions read
+         */
+        public int getNumberOfTransactions() {
+            return numberOfTransactions;
+        }
+
+        /**
+         * @return sum of the instructed or equivalent amounts of transactions read
+         */
+        public BigDecimal getControlSum() {
+            return controlSum;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Report.class.getSimpleName() + "[", "]")
+                    .add("violations=" + violations)
+                    .add("truncated=" + truncated)
+                    .add("endToEndIdCheckComplete=" + endToEndIdCheckComplete)
+                    .add("numberOfTransactions=" + numberOfTransactions)
+                    .add("controlSum=" + controlSum)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Transaction;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Transactions read from streams while marshalling, never held in memory.
+ * <p>
+ * Headers are written before transactions, so the number of transactions and the control sum are needed up-front.
+ * They are either declared for a one-shot stream, or aggregated by a first pass over a re-iterable source.
+ * In both cases, they are verified once a stream is exhausted.
+ * Only aggregated totals know the control sum by currency.
+ *
+ * @author Patrice Blanchardie
+ */
+final class StreamedTransactions extends AbstractCollection<Transaction> {
+
+    private final Supplier<? extends Stream<Transaction>> source;
+    private final boolean reiterable;
+    private TransactionTotals totals;
+    private boolean consumed;
+
+    private StreamedTransactions(Supplier<? extends Stream<Transaction>> source, boolean reiterable) {
+        this.source = source;
+        this.reiterable = reiterable;
+    }
+
+    /**
+     * @param stream               one-shot stream
+     * @param numberOfTransactions declared number of transactions
+     * @param controlSum           declared sum of all transaction amounts
+     * @return transactions that can be iterated only once
+     */
+    static StreamedTransactions declared(Stream<Transaction> stream, int numberOfTransactions, BigDecimal controlSum) {
+        Objects.requireNonNull(stream, "Transactions cannot be null");
+        if (numberOfTransactions < 0) {
+            throw new IllegalArgumentException("Number of transactions cannot be negative");
+        }
+        StreamedTransactions transactions = new StreamedTransactions(() -> stream, false);
+        transactions.totals = TransactionTotals.declared(numberOfTransactions, controlSum);
+        return transactions;
+    }
+
+    /**
+     * @param source supplies a new stream over the same transactions on each call
+     * @return transactions whose totals are aggregated by a first pass over the source
+     */
+    static StreamedTransactions reiterable(Supplier<? extends Stream<Transaction>> source) {
+        return new StreamedTransactions(Objects.requireNonNull(source, "Transactions cannot be null"), true);
+    }
+
+    /**
+     * @param source supplies a new stream over the same transactions on each call
+     * @param totals totals of the transactions, already aggregated
+     * @return transactions that can be iterated many times, without a first pass
+     */
+    static StreamedTransactions aggregated(Supplier<? extends Stream<Transaction>> source, TransactionTotals totals) {
+        StreamedTransactions transactions = new StreamedTransactions(Objects.requireNonNull(source, "Transactions cannot be null"), true);
+        transactions.totals = Objects.requireNonNull(totals, "Totals cannot be null");
+        return transactions;
+    }
+
+    /**
+     * @param parts streamed or in-memory transactions, streamed one part after the other
+     * @return transactions that can be iterated many times only if all streamed parts can, totals being summed
+     */
+    static StreamedTransactions concat(List<Collection<Transaction>> parts) {
+        List<Collection<Transaction>> copy = new ArrayList<>(parts);
+        List<TransactionTotals> totals = new ArrayList<>(copy.size());
+        boolean reiterable = true;
+        for (Collection<Transaction> part : copy) {
+            totals.add(TransactionTotals.of(part));
+            reiterable &= !isStreamed(part) || ((StreamedTransactions) part).reiterable;
+        }
+        StreamedTransactions transactions = new StreamedTransactions(() -> {
+            ConcatIterator iterator = new ConcatIterator(copy.iterator());
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(iterator::close);
+        }, reiterable);
+        transactions.totals = TransactionTotals.sum(totals);
+        return transactions;
+    }
+
+    /**
+     * @param transactions transactions
+     * @return true if transactions are streamed while marshalling
+     */
+    static boolean isStreamed(Collection<Transaction> transactions) {
+        return transactions instanceof StreamedTransactions;
+    }
+
+    /**
+     * Iterate over transactions, only once for a one-shot stream.
+     * Once exhausted, the stream is closed and totals are checked.
+     * The iterator is {@link Closeable}, to close the stream if iteration stops before it is exhausted.
+     *
+     * @return an iterator over a stream of transactions
+     * @throws IllegalStateException if a one-shot stream was already consumed
+     */
+    @Override
+    public synchronized Iterator<Transaction> iterator() {
+        if (!reiterable) {
+            if (consumed) {
+                throw new IllegalStateException("Streamed transactions can only be consumed once");
+            }
+            consumed = true;
+        }
+        aggregate();
+        return new CheckingIterator(source.get());
+    }
+
+    @Override
+    public synchronized int size() {
+        aggregate();
+        return totals.getNumberOfTransactions();
+    }
+
+    /**
+     * @return declared totals, or totals aggregated by a first pass over the source
+     */
+    synchronized TransactionTotals getTotals() {
+        aggregate();
+        return totals;
+    }
+
+    private void aggregate() {
+        if (totals != null) {
+            return;
+        }
+        TransactionTotals.Accumulator accumulator = new TransactionTotals.Accumulator();
+        try (Stream<Transaction> stream = source.get()) {
+            for (Iterator<Transaction> iterator = stream.iterator(); iterator.hasNext(); ) {
+                accumulator.add(iterator.next());
+            }
+        }
+        this.totals = accumulator.getTotals();
+    }
+
+    /**
+     * Iterates over each part after the other, closing the iterator of a part once exhausted
+     */
+    private static final class ConcatIterator implements Iterator<Transaction>, Closeable {
+
+        private final Iterator<Collection<Transaction>> parts;
+        private Iterator<Transaction> current = Collections.emptyIterator();
+
+        private ConcatIterator(Iterator<Collection<Transaction>> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                close();
+                if (!parts.hasNext()) {
+                    return false;
+                }
+                current = parts.next().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        /**
+         * Close the iterator of the current part, if closeable
+         */
+        @Override
+        public void close() {
+            if (current instanceof CheckingIterator) {
+                ((CheckingIterator) current).close();
+            }
+            current = Collections.emptyIterator();
+        }
+    }
+
+    private final class CheckingIterator implements Iterator<Transaction>, Closeable {
+
+        private final Stream<Transaction> stream;
+        private final Iterator<Transaction> delegate;
+        private final TransactionTotals.Accumulator streamed = new TransactionTotals.Accumulator();
+        private boolean closed;
+
+        private CheckingIterator(Stream<Transaction> stream) {
+            this.stream = stream;
+            this.delegate = stream.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (delegate.hasNext()) {
+                return true;
+            }
+            close();
+            TransactionTotals streamedTotals = streamed.getTotals();
+            if (streamedTotals.getNumberOfTransactions() != totals.getNumberOfTransactions()) {
+                throw new IllegalStateException("Expected " + totals.getNumberOfTransactions() + " transactions but streamed " + streamedTotals.getNumberOfTransactions());
+            }
+            if (streamedTotals.getControlSum().compareTo(totals.getControlSum()) != 0) {
+                throw new IllegalStateException("Expected control sum " + totals.getControlSum() + " but streamed " + streamedTotals.getControlSum());
+            }
+            return false;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Transaction transaction = delegate.next();
+            streamed.add(transaction);
+            return transaction;
+        }
+
+        /**
+         * Close the stream, without checking totals
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                stream.close();
+            }
+        }
+    }
+}
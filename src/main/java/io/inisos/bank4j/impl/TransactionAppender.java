@@ -0,0 +1,152 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.ChargeBearer;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Appends transactions to a {@link TransactionBatch} or an {@link OffHeapTransactionStore} field by field, without
+ * creating them first.
+ * <p>
+ * Fields are cleared once a transaction is added, so that a single appender is reused for all transactions.
+ *
+ * @author Patrice Blanchardie
+ */
+public abstract class TransactionAppender {
+
+    private String name;
+    private String iban;
+    private String otherId;
+    private String bic;
+    private Long unscaledAmount;
+    private Currency currency;
+    private String endToEndId;
+    private String id;
+    private ChargeBearer chargeBearer;
+    private final List<String> remittanceInformation = new ArrayList<>();
+
+    TransactionAppender() {
+    }
+
+    /**
+     * @param name optional creditor name
+     * @return this
+     */
+    public TransactionAppender name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * @param iban creditor IBAN, unless identified by another identifier
+     * @return this
+     */
+    public TransactionAppender iban(String iban) {
+        this.iban = iban;
+        return this;
+    }
+
+    /**
+     * @param otherId other creditor account identifier, unless identified by an IBAN
+     * @return this
+     */
+    public TransactionAppender otherId(String otherId) {
+        this.otherId = otherId;
+        return this;
+    }
+
+    /**
+     * @param bic optional creditor agent BIC
+     * @return this
+     */
+    public TransactionAppender bic(String bic) {
+        this.bic = bic;
+        return this;
+    }
+
+    /**
+     * @param unscaledAmount amount in minor units of the currency, e.g. cents
+     * @return this
+     */
+    public TransactionAppender unscaledAmount(long unscaledAmount) {
+        this.unscaledAmount = unscaledAmount;
+        return this;
+    }
+
+    /**
+     * @param currency currency, having minor units
+     * @return this
+     */
+    public TransactionAppender currency(Currency currency) {
+        this.currency = currency;
+        return this;
+    }
+
+    /**
+     * @param endToEndId end-to-end identifier
+     * @return this
+     */
+    public TransactionAppender endToEndId(String endToEndId) {
+        this.endToEndId = endToEndId;
+        return this;
+    }
+
+    /**
+     * @param id optional identifier
+     * @return this
+     */
+    public TransactionAppender id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    /**
+     * @param chargeBearer optional charge bearer
+     * @return this
+     */
+    public TransactionAppender chargeBearer(ChargeBearer chargeBearer) {
+        this.chargeBearer = chargeBearer;
+        return this;
+    }
+
+    /**
+     * @param remittanceInformation a line of unstructured remittance information
+     * @return this
+     */
+    public TransactionAppender remittanceInformationUnstructured(String remittanceInformation) {
+        this.remittanceInformation.add(Objects.requireNonNull(remittanceInformation, "Remittance information cannot be null"));
+        return this;
+    }
+
+    /**
+     * Add a transaction with the fields set so far, then clear them, even if the transaction is rejected
+     *
+     * @return this
+     * @throws IllegalArgumentException if the transaction is invalid or cannot be held
+     */
+    public TransactionAppender add() {
+        try {
+            if (unscaledAmount == null) {
+                throw new IllegalArgumentException("Amount must be provided");
+            }
+            append(name, iban, otherId, bic, unscaledAmount, currency, endToEndId, id, chargeBearer, remittanceInformation);
+        } finally {
+            name = null;
+            iban = null;
+            otherId = null;
+            bic = null;
+            unscaledAmount = null;
+            currency = null;
+            endToEndId = null;
+            id = null;
+            chargeBearer = null;
+            remittanceInformation.clear();
+        }
+        return this;
+    }
+
+    abstract void append(String name, String iban, String otherId, String bic, long unscaledAmount, Currency currency, String endToEndId, String id, ChargeBearer chargeBearer, List<String> remittanceInformation);
+}
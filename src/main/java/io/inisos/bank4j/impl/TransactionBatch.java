@@ -0,0 +1,327 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.BankAccount;
+import io.inisos.bank4j.ChargeBearer;
+import io.inisos.bank4j.Party;
+import io.inisos.bank4j.Transaction;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Transactions held column by column, in parallel arrays, rather than as one object graph per transaction.
+ * <p>
+ * Currencies, BICs and charge bearers are dictionary-encoded, amounts are held as minor units of their currency as
+ * for {@link CompactTransaction}. Transactions are read through lightweight views, created on access, and totals are
+ * aggregated as transactions are added.
+ * <p>
+ * A batch holds creditor names, IBANs or other account identifiers, BICs, amounts, currencies, end-to-end identifiers,
+ * identifiers, charge bearers and a single line of unstructured remittance information. Transactions with postal
+ * addresses, account names, accounts having both an IBAN and another identifier, intermediary agents or several
+ * remittance lines are rejected.
+ * <p>
+ * Given to {@link JAXBCreditTransferBuilder#transactions(Collection)}, a batch is streamed while marshalling, one
+ * transaction at a time: as for any collection, only transactions added before that call are marshalled.
+ * A batch is not thread-safe.
+ *
+ * @author Patrice Blanchardie
+ */
+public class TransactionBatch extends AbstractList<Transaction> implements RandomAccess, AggregatedTransactions {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final ChargeBearer[] CHARGE_BEARERS = ChargeBearer.values();
+
+    private final Dictionary<String> bics = new Dictionary<>();
+    private final Dictionary<Currency> currencies = new Dictionary<>();
+    private final TransactionTotals.Accumulator accumulator = new TransactionTotals.Accumulator();
+    private final BitSet otherIds = new BitSet();
+
+    private int size;
+    private String[] names;
+    private String[] accountIds;
+    private int[] bicCodes;
+    private long[] unscaledAmounts;
+    private short[] currencyCodes;
+    private String[] endToEndIds;
+    private String[] ids;
+    private byte[] chargeBearers;
+    private String[] remittanceInformation;
+
+    public TransactionBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity number of transactions to hold before growing
+     */
+    public TransactionBatch(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Initial capacity cannot be negative");
+        }
+        this.names = new String[initialCapacity];
+        this.accountIds = new String[initialCapacity];
+        this.bicCodes = new int[initialCapacity];
+        this.unscaledAmounts = new long[initialCapacity];
+        this.currencyCodes = new short[initialCapacity];
+        this.endToEndIds = new String[initialCapacity];
+        this.ids = new String[initialCapacity];
+        this.chargeBearers = new byte[initialCapacity];
+        this.remittanceInformation = new String[initialCapacity];
+    }
+
+    /**
+     * Add a transaction, whose fields are copied into the batch
+     *
+     * @param transaction transaction
+     * @return true
+     * @throws IllegalArgumentException if the transaction cannot be held in a batch
+     */
+    @Override
+    public boolean add(Transaction transaction) {
+        Objects.requireNonNull(transaction, "Transaction cannot be null");
+        Party party = transaction.getParty().orElse(null);
+        if (party != null && party.getPostalAddress().isPresent()) {
+            throw new IllegalArgumentException("Postal addresses cannot be held in a transaction batch");
+        }
+        BankAccount account = Objects.requireNonNull(transaction.getAccount(), "Account cannot be null");
+        if (account.getName().isPresent()) {
+            throw new IllegalArgumentException("Account names cannot be held in a transaction batch");
+        }
+        if (!transaction.getIntermediaryAgents().isEmpty()) {
+            throw new IllegalArgumentException("Intermediary agents cannot be held in a transaction batch");
+        }
+        Set<String> remittance = transaction.getRemittanceInformationUnstructured();
+        if (remittance.size() > 1) {
+            throw new IllegalArgumentException("Only one line of remittance information can be held in a transaction batch");
+        }
+        Currency currency = Currency.getInstance(transaction.getCurrencyCode());
+        long unscaledAmount = transaction instanceof CompactTransaction
+                ? ((CompactTransaction) transaction).getUnscaledAmount()
+                : CompactTransaction.unscaledAmount(transaction.getAmount(), currency);
+        append(party == null ? null : party.getName().orElse(null),
+                account.getIban().orElse(null),
+                account.getOtherId().orElse(null),
+                account.getBic().orElse(null),
+                unscaledAmount,
+                currency,
+                transaction.getEndToEndId(),
+                transaction.getId().orElse(null),
+                transaction.getChargeBearer().orElse(null),
+                remittance.isEmpty() ? null : remittance.iterator().next());
+        return true;
+    }
+
+    /**
+     * @return an appender adding transactions to this batch without creating them first, e.g.
+     * {@code batch.appender().iban(iban).unscaledAmount(1234).currency(eur).endToEndId(endToEndId).add()}
+     */
+    public TransactionAppender appender() {
+        return new TransactionAppender() {
+            @Override
+            void append(String name, String iban, String otherId, String bic, long unscaledAmount, Currency currency, String endToEndId, String id, ChargeBearer chargeBearer, List<String> remittanceInformation) {
+                if (remittanceInformation.size() > 1) {
+                    throw new IllegalArgumentException("Only one line of remittance information can be held in a transaction batch");
+                }
+                TransactionBatch.this.append(name, iban, otherId, bic, unscaledAmount, currency, endToEndId, id, chargeBearer, remittanceInformation.isEmpty() ? null : remittanceInformation.get(0));
+            }
+        };
+    }
+
+    private void append(String name, String iban, String otherId, String bic, long unscaledAmount, Currency currency, String endToEndId, String id, ChargeBearer chargeBearer, String remittanceInformation) {
+        if (SimpleBankAccount.isEmpty(iban) && SimpleBankAccount.isEmpty(otherId)) {
+            throw new IllegalArgumentException("IBAN or otherId must be provided");
+        }
+        boolean byOtherId = SimpleBankAccount.isEmpty(iban);
+        if (!byOtherId && !SimpleBankAccount.isEmpty(otherId)) {
+            throw new IllegalArgumentException("Accounts with both an IBAN and another identifier cannot be held in a transaction batch");
+        }
+        Objects.requireNonNull(currency, "Currency cannot be null");
+        Objects.requireNonNull(endToEndId, "End to end id cannot be null");
+        int scale = currency.getDefaultFractionDigits();
+        if (scale < 0) {
+            throw new IllegalArgumentException("Currency " + currency + " has no minor unit");
+        }
+        int currencyCode = currencies.encode(currency);
+        if (currencyCode > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many currencies: " + currencyCode);
+        }
+        if (size == endToEndIds.length) {
+            grow();
+        }
+        names[size] = name;
+        accountIds[size] = byOtherId ? otherId : iban;
+        otherIds.set(size, byOtherId);
+        bicCodes[size] = bics.encode(bic);
+        unscaledAmounts[size] = unscaledAmount;
+        currencyCodes[size] = (short) currencyCode;
+        endToEndIds[size] = endToEndId;
+        ids[size] = id;
+        chargeBearers[size] = chargeBearer == null ? -1 : (byte) chargeBearer.ordinal();
+        this.remittanceInformation[size] = remittanceInformation;
+        accumulator.add(currency.getCurrencyCode(), unscaledAmount, scale);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * @param index index of the transaction
+     * @return a view of the transaction
+     */
+    @Override
+    public Transaction get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new Row(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TransactionTotals getTotals() {
+        return accumulator.getTotals();
+    }
+
+    @Override
+    public StreamedTransactions streamed() {
+        int numberOfTransactions = size;
+        return StreamedTransactions.aggregated(() -> IntStream.range(0, numberOfTransactions).mapToObj(this::get), getTotals());
+    }
+
+    private void grow() {
+        int capacity = Math.max(DEFAULT_CAPACITY, endToEndIds.length + (endToEndIds.length >> 1));
+        names = Arrays.copyOf(names, capacity);
+        accountIds = Arrays.copyOf(accountIds, capacity);
+        bicCodes = Arrays.copyOf(bicCodes, capacity);
+        unscaledAmounts = Arrays.copyOf(unscaledAmounts, capacity);
+        currencyCodes = Arrays.copyOf(currencyCodes, capacity);
+        endToEndIds = Arrays.copyOf(endToEndIds, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        chargeBearers = Arrays.copyOf(chargeBearers, capacity);
+        remittanceInformation = Arrays.copyOf(remittanceInformation, capacity);
+    }
+
+    /**
+     * Distinct values, each one encoded by its index
+     *
+     * @param <T> value type
+     */
+    private static final class Dictionary<T> {
+
+        private final Map<T, Integer> codes = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        private int encode(T value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        private T decode(int code) {
+            return code < 0 ? null : values.get(code);
+        }
+    }
+
+    /**
+     * View of a transaction of the batch
+     */
+    private final class Row implements Transaction {
+
+        private final int index;
+
+        private Row(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Optional<Party> getParty() {
+            String name = names[index];
+            return name == null ? Optional.empty() : Optional.of(new SimpleParty(name, null));
+        }
+
+        @Override
+        public BankAccount getAccount() {
+            if (otherIds.get(index)) {
+                return new SimpleBankAccount(null, bics.decode(bicCodes[index]), null, accountIds[index]);
+            }
+            return new SimpleBankAccount(accountIds[index], bics.decode(bicCodes[index]), null, null);
+        }
+
+        @Override
+        public BigDecimal getAmount() {
+            return BigDecimal.valueOf(unscaledAmounts[index], currencies.decode(currencyCodes[index]).getDefaultFractionDigits());
+        }
+
+        @Override
+        public String getCurrencyCode() {
+            return currencies.decode(currencyCodes[index]).getCurrencyCode();
+        }
+
+        @Override
+        public String getEndToEndId() {
+            return endToEndIds[index];
+        }
+
+        @Override
+        public Optional<String> getId() {
+            return Optional.ofNullable(ids[index]);
+        }
+
+        @Override
+        public Optional<ChargeBearer> getChargeBearer() {
+            byte chargeBearer = chargeBearers[index];
+            return chargeBearer < 0 ? Optional.empty() : Optional.of(CHARGE_BEARERS[chargeBearer]);
+        }
+
+        @Override
+        public List<BankAccount> getIntermediaryAgents() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Set<String> getRemittanceInformationUnstructured() {
+            String line = remittanceInformation[index];
+            return line == null ? Collections.emptySet() : Collections.singleton(line);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Row)) return false;
+            Row that = (Row) o;
+            return unscaledAmount() == that.unscaledAmount() && getParty().equals(that.getParty()) && getAccount().equals(that.getAccount()) && getCurrencyCode().equals(that.getCurrencyCode()) && getEndToEndId().equals(that.getEndToEndId()) && getId().equals(that.getId()) && getChargeBearer().equals(that.getChargeBearer()) && getRemittanceInformationUnstructured().equals(that.getRemittanceInformationUnstructured());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getParty(), getAccount(), unscaledAmount(), getCurrencyCode(), getEndToEndId(), getId(), getChargeBearer(), getRemittanceInformationUnstructured());
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", TransactionBatch.class.getSimpleName() + "[", "]")
+                    .add("index=" + index)
+                    .add("party=" + getParty().orElse(null))
+                    .add("account=" + getAccount())
+                    .add("amount=" + getAmount())
+                    .add("currency=" + getCurrencyCode())
+                    .add("endToEndId='" + getEndToEndId() + "'")
+                    .toString();
+        }
+
+        private long unscaledAmount() {
+            return unscaledAmounts[index];
+        }
+    }
+}
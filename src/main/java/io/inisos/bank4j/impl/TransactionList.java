@@ -0,0 +1,84 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Transaction;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Transactions held in memory, whose totals are aggregated as they are added.
+ * <p>
+ * Transactions can only be added, so that totals are read without going through all transactions again.
+ *
+ * @author Patrice Blanchardie
+ */
+final class TransactionList extends AbstractList<Transaction> implements RandomAccess {
+
+    private final List<Transaction> transactions;
+    private final TransactionTotals.Accumulator accumulator;
+
+    TransactionList() {
+        this.transactions = new ArrayList<>();
+        this.accumulator = new TransactionTotals.Accumulator();
+    }
+
+    private TransactionList(TransactionList other) {
+        this.transactions = new ArrayList<>(other.transactions);
+        this.accumulator = other.accumulator.copy();
+    }
+
+    /**
+     * @return a copy of these transactions, that is not affected by later additions
+     */
+    TransactionList copy() {
+        return new TransactionList(this);
+    }
+
+    /**
+     * @param transactions transactions
+     * @return streamed transactions as is, aggregated transactions added so far streamed, otherwise a copy of transactions that is not affected by later changes
+     */
+    static Collection<Transaction> snapshot(Collection<Transaction> transactions) {
+        if (StreamedTransactions.isStreamed(transactions)) {
+            return transactions;
+        }
+        if (transactions instanceof TransactionList) {
+            return ((TransactionList) transactions).copy();
+        }
+        if (transactions instanceof AggregatedTransactions) {
+            return ((AggregatedTransactions) transactions).streamed();
+        }
+        TransactionList copy = new TransactionList();
+        copy.addAll(transactions);
+        return copy;
+    }
+
+    /**
+     * @return totals of transactions added so far
+     */
+    TransactionTotals getTotals() {
+        return accumulator.getTotals();
+    }
+
+    @Override
+    public boolean add(Transaction transaction) {
+        Objects.requireNonNull(transaction, "Transaction cannot be null");
+        accumulator.add(transaction);
+        transactions.add(transaction);
+        return true;
+    }
+
+    @Override
+    public Transaction get(int index) {
+        return transactions.get(index);
+    }
+
+    @Override
+    public int size() {
+        return transactions.size();
+    }
+}
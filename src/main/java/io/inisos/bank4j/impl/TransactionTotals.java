@@ -0,0 +1,241 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Transaction;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Immutable totals of transactions: number of transactions, control sum and control sum by currency.
+ * <p>
+ * Totals are aggregated once, either incrementally by a {@link TransactionList} as transactions are added, or by a
+ * single pass over other transactions.
+ *
+ * @author Patrice Blanchardie
+ */
+final class TransactionTotals {
+
+    static final TransactionTotals EMPTY = new TransactionTotals(0, BigDecimal.ZERO, Collections.emptyMap());
+
+    private final int numberOfTransactions;
+    private final BigDecimal controlSum;
+    private final Map<String, BigDecimal> controlSumByCurrency;
+
+    private TransactionTotals(int numberOfTransactions, BigDecimal controlSum, Map<String, BigDecimal> controlSumByCurrency) {
+        this.numberOfTransactions = numberOfTransactions;
+        this.controlSum = controlSum;
+        this.controlSumByCurrency = controlSumByCurrency;
+    }
+
+    /**
+     * Totals declared for transactions that are not known yet, e.g. streamed ones
+     *
+     * @param numberOfTransactions declared number of transactions
+     * @param controlSum           declared sum of all transaction amounts
+     * @return totals whose control sum by currency is unknown
+     */
+    static TransactionTotals declared(int numberOfTransactions, BigDecimal controlSum) {
+        return new TransactionTotals(numberOfTransactions, Objects.requireNonNull(controlSum, "Control sum cannot be null"), null);
+    }
+
+    /**
+     * @param transactions transactions
+     * @return totals kept by transaction lists, aggregated and streamed transactions, otherwise aggregated by a pass over transactions
+     */
+    static TransactionTotals of(Collection<Transaction> transactions) {
+        if (transactions instanceof TransactionList) {
+            return ((TransactionList) transactions).getTotals();
+        }
+        if (transactions instanceof AggregatedTransactions) {
+            return ((AggregatedTransactions) transactions).getTotals();
+        }
+        if (StreamedTransactions.isStreamed(transactions)) {
+            return ((StreamedTransactions) transactions).getTotals();
+        }
+        Accumulator accumulator = new Accumulator();
+        for (Transaction transaction : transactions) {
+            accumulator.add(transaction);
+        }
+        return accumulator.getTotals();
+    }
+
+    /**
+     * @param parts totals of parts of transactions
+     * @return totals of all parts, whose control sum by currency is unknown if it is unknown for one of them
+     * @throws IllegalArgumentException if there are too many transactions
+     */
+    static TransactionTotals sum(Collection<TransactionTotals> parts) {
+        long numberOfTransactions = 0;
+        BigDecimal controlSum = BigDecimal.ZERO;
+        Map<String, BigDecimal> byCurrency = new TreeMap<>();
+        for (TransactionTotals part : parts) {
+            numberOfTransactions += part.numberOfTransactions;
+            controlSum = controlSum.add(part.controlSum);
+            if (byCurrency != null && part.controlSumByCurrency != null) {
+                for (Map.Entry<String, BigDecimal> entry : part.controlSumByCurrency.entrySet()) {
+                    byCurrency.merge(entry.getKey(), entry.getValue(), BigDecimal::add);
+                }
+            } else {
+                byCurrency = null;
+            }
+        }
+        if (numberOfTransactions > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many transactions: " + numberOfTransactions);
+        }
+        return new TransactionTotals((int) numberOfTransactions, controlSum, byCurrency == null ? null : Collections.unmodifiableMap(byCurrency));
+    }
+
+    /**
+     * @return number of transactions
+     */
+    int getNumberOfTransactions() {
+        return numberOfTransactions;
+    }
+
+    /**
+     * @return sum of all transaction amounts, regardless of currencies
+     */
+    BigDecimal getControlSum() {
+        return controlSum;
+    }
+
+    /**
+     * @return sum of transaction amounts by currency code, sorted by currency code
+     * @throws IllegalStateException if totals were declared
+     */
+    Map<String, BigDecimal> getControlSumByCurrency() {
+        if (controlSumByCurrency == null) {
+            throw new IllegalStateException("Control sum by currency is unknown for declared totals");
+        }
+        return controlSumByCurrency;
+    }
+
+    /**
+     * Aggregates totals as transactions are added
+     * <p>
+     * Amounts of {@link CompactTransaction}s are summed as minor units, without allocating, until a sum overflows.
+     */
+    static final class Accumulator {
+
+        private long numberOfTransactions;
+        private final Map<String, CurrencySum> controlSumByCurrency = new HashMap<>();
+        private TransactionTotals totals = EMPTY;
+
+        /**
+         * @return an accumulator starting from the totals of this one
+         */
+        Accumulator copy() {
+            Accumulator copy = new Accumulator();
+            copy.numberOfTransactions = numberOfTransactions;
+            controlSumByCurrency.forEach((currencyCode, sum) -> copy.controlSumByCurrency.put(currencyCode, sum.copy()));
+            copy.totals = totals;
+            return copy;
+        }
+
+        /**
+         * @param transaction transaction to add to totals
+         * @throws IllegalArgumentException if there are too many transactions
+         */
+        void add(Transaction transaction) {
+            if (transaction instanceof CompactTransaction) {
+                CompactTransaction compactTransaction = (CompactTransaction) transaction;
+                add(compactTransaction.getCurrencyCode(), compactTransaction.getUnscaledAmount(), compactTransaction.getScale());
+            } else {
+                BigDecimal amount = Objects.requireNonNull(transaction.getAmount(), "Amount cannot be null");
+                sum(transaction.getCurrencyCode()).add(amount);
+            }
+        }
+
+        /**
+         * @param currencyCode   currency code
+         * @param unscaledAmount amount in minor units of the currency
+         * @param scale          number of fraction digits of the currency
+         * @throws IllegalArgumentException if there are too many transactions
+         */
+        void add(String currencyCode, long unscaledAmount, int scale) {
+            sum(currencyCode).add(unscaledAmount, scale);
+        }
+
+        private CurrencySum sum(String currencyCode) {
+            if (numberOfTransactions == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many transactions: " + (numberOfTransactions + 1));
+            }
+            Objects.requireNonNull(currencyCode, "Currency cannot be null");
+            CurrencySum sum = controlSumByCurrency.get(currencyCode);
+            if (sum == null) {
+                sum = new CurrencySum();
+                controlSumByCurrency.put(currencyCode, sum);
+            }
+            numberOfTransactions++;
+            totals = null;
+            return sum;
+        }
+
+        /**
+         * @return totals of transactions added so far
+         */
+        TransactionTotals getTotals() {
+            if (totals == null) {
+                BigDecimal controlSum = BigDecimal.ZERO;
+                Map<String, BigDecimal> byCurrency = new TreeMap<>();
+                for (Map.Entry<String, CurrencySum> entry : controlSumByCurrency.entrySet()) {
+                    BigDecimal sum = entry.getValue().get();
+                    controlSum = controlSum.add(sum);
+                    byCurrency.put(entry.getKey(), sum);
+                }
+                totals = new TransactionTotals((int) numberOfTransactions, controlSum, Collections.unmodifiableMap(byCurrency));
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Sum of amounts in one currency, held as minor units while it fits in a long, otherwise as a decimal
+     */
+    private static final class CurrencySum {
+
+        private long unscaled;
+        private int scale = -1;
+        private BigDecimal decimal;
+
+        private CurrencySum copy() {
+            CurrencySum copy = new CurrencySum();
+            copy.unscaled = unscaled;
+            copy.scale = scale;
+            copy.decimal = decimal;
+            return copy;
+        }
+
+        private void add(long unscaledAmount, int scale) {
+            if (this.scale < 0) {
+                this.scale = scale;
+            } else if (this.scale != scale) {
+                add(BigDecimal.valueOf(unscaledAmount, scale));
+                return;
+            }
+            try {
+                unscaled = Math.addExact(unscaled, unscaledAmount);
+            } catch (ArithmeticException e) {
+                add(BigDecimal.valueOf(unscaled, this.scale));
+                unscaled = unscaledAmount;
+            }
+        }
+
+        private void add(BigDecimal amount) {
+            decimal = decimal == null ? amount : decimal.add(amount);
+        }
+
+        private BigDecimal get() {
+            if (scale < 0) {
+                return decimal;
+            }
+            BigDecimal sum = BigDecimal.valueOf(unscaled, scale);
+            return decimal == null ? sum : decimal.add(sum);
+        }
+    }
+}
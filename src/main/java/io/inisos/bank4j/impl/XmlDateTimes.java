@@ -0,0 +1,78 @@
+package io.inisos.bank4j.impl;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+
+/**
+ * Converts java.time values to XML calendars field by field, with a single shared factory.
+ * <p>
+ * Looking up a {@link DatatypeFactory} goes through the service loader, and formatting then parsing lexical forms
+ * is wasted work: values are built from their fields and have the same lexical form as the ISO formatters produce.
+ *
+ * @author Patrice Blanchardie
+ */
+final class XmlDateTimes {
+
+    private static final DatatypeFactory DATATYPE_FACTORY;
+
+    static {
+        try {
+            DATATYPE_FACTORY = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            throw new XmlException(e);
+        }
+    }
+
+    private XmlDateTimes() {
+    }
+
+    /**
+     * @param date date
+     * @return an xs:date without timezone
+     */
+    static XMLGregorianCalendar date(LocalDate date) {
+        return DATATYPE_FACTORY.newXMLGregorianCalendarDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth(), DatatypeConstants.FIELD_UNDEFINED);
+    }
+
+    /**
+     * @param dateTime local date time
+     * @return an xs:dateTime without timezone
+     */
+    static XMLGregorianCalendar dateTime(LocalDateTime dateTime) {
+        return dateTime(dateTime, DatatypeConstants.FIELD_UNDEFINED);
+    }
+
+    /**
+     * @param dateTime zoned date time
+     * @return an xs:dateTime with the offset as timezone
+     */
+    static XMLGregorianCalendar dateTime(ZonedDateTime dateTime) {
+        return dateTime(dateTime.toLocalDateTime(), dateTime.getOffset().getTotalSeconds() / 60);
+    }
+
+    private static XMLGregorianCalendar dateTime(LocalDateTime dateTime, int timezone) {
+        return DATATYPE_FACTORY.newXMLGregorianCalendar(
+                BigInteger.valueOf(dateTime.getYear()),
+                dateTime.getMonthValue(),
+                dateTime.getDayOfMonth(),
+                dateTime.getHour(),
+                dateTime.getMinute(),
+                dateTime.getSecond(),
+                fractionalSecond(dateTime.getNano()),
+                timezone);
+    }
+
+    private static BigDecimal fractionalSecond(int nano) {
+        if (nano == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(nano, 9).stripTrailingZeros();
+    }
+}
@@ -0,0 +1,126 @@
+package io.inisos.bank4j.util;
+
+/**
+ * Exception-free BIC validation, accepting and rejecting the same BICs as {@link org.iban4j.BicUtil#validate(String)}.
+ * <p>
+ * Length and character classes are checked in a single pass, the country code is looked up in a table built once.
+ * Failures are reported as a {@link Result} rather than an exception.
+ *
+ * @author Patrice Blanchardie
+ */
+public final class BicCheck {
+
+    private static final int BIC8_LENGTH = 8;
+    private static final int BIC11_LENGTH = 11;
+
+    private static final int COUNTRY_CODE_INDEX = 4;
+    private static final int LOCATION_CODE_INDEX = 6;
+    private static final int BRANCH_CODE_INDEX = 8;
+
+    /**
+     * Outcome of a BIC check
+     */
+    public enum Result {
+        /**
+         * Valid BIC
+         */
+        VALID,
+        /**
+         * Null or empty value
+         */
+        EMPTY,
+        /**
+         * Length is neither 8 nor 11
+         */
+        INVALID_LENGTH,
+        /**
+         * Contains lower case characters
+         */
+        NOT_UPPER_CASE,
+        /**
+         * Bank code is not 4 letters or digits
+         */
+        INVALID_BANK_CODE,
+        /**
+         * Country code is not 2 letters
+         */
+        INVALID_COUNTRY_CODE,
+        /**
+         * Country code is not a known country
+         */
+        UNSUPPORTED_COUNTRY,
+        /**
+         * Location code is not 2 letters or digits
+         */
+        INVALID_LOCATION_CODE,
+        /**
+         * Branch code is not 3 letters or digits
+         */
+        INVALID_BRANCH_CODE;
+
+        /**
+         * @return true if valid
+         */
+        public boolean isValid() {
+            return this == VALID;
+        }
+    }
+
+    private BicCheck() {
+    }
+
+    /**
+     * @param bic BIC
+     * @return true if valid
+     */
+    public static boolean isValid(CharSequence bic) {
+        return check(bic) == Result.VALID;
+    }
+
+    /**
+     * @param bic BIC
+     * @return outcome of the check, {@link Result#VALID} if valid
+     */
+    public static Result check(CharSequence bic) {
+        if (bic == null || bic.length() == 0) {
+            return Result.EMPTY;
+        }
+        int length = bic.length();
+        if (length != BIC8_LENGTH && length != BIC11_LENGTH) {
+            return Result.INVALID_LENGTH;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.isLowerCase(bic.charAt(i))) {
+                return Result.NOT_UPPER_CASE;
+            }
+        }
+        if (!isAlphanumeric(bic, 0, COUNTRY_CODE_INDEX)) {
+            return Result.INVALID_BANK_CODE;
+        }
+        char first = bic.charAt(COUNTRY_CODE_INDEX);
+        char second = bic.charAt(COUNTRY_CODE_INDEX + 1);
+        if (!CountryCodes.isUpperCaseLetter(first) || !CountryCodes.isUpperCaseLetter(second)) {
+            return Result.INVALID_COUNTRY_CODE;
+        }
+        if (CountryCodes.get(first, second) == null) {
+            return Result.UNSUPPORTED_COUNTRY;
+        }
+        if (!isAlphanumeric(bic, LOCATION_CODE_INDEX, BRANCH_CODE_INDEX)) {
+            return Result.INVALID_LOCATION_CODE;
+        }
+        if (!isAlphanumeric(bic, BRANCH_CODE_INDEX, length)) {
+            return Result.INVALID_BRANCH_CODE;
+        }
+        return Result.VALID;
+    }
+
+    private static boolean isAlphanumeric(CharSequence bic, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = bic.charAt(i);
+            if (!CountryCodes.isUpperCaseLetter(c) && !CountryCodes.isDigit(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package io.inisos.bank4j.util;
+
+import org.iban4j.CountryCode;
+
+/**
+ * Table of ISO 3166-1 alpha-2 country codes known to iban4j, looked up without allocating
+ *
+ * @author Patrice Blanchardie
+ */
+final class CountryCodes {
+
+    private static final int LETTERS = 26;
+
+    private static final CountryCode[] COUNTRY_CODES = new CountryCode[LETTERS * LETTERS];
+
+    static {
+        for (char first = 'A'; first <= 'Z'; first++) {
+            for (char second = 'A'; second <= 'Z'; second++) {
+                COUNTRY_CODES[index(first, second)] = CountryCode.getByCode(new String(new char[]{first, second}));
+            }
+        }
+    }
+
+    private CountryCodes() {
+    }
+
+    /**
+     * @param first  first character
+     * @param second second character
+     * @return the country code, null if characters are not upper case ASCII letters or not a known code
+     */
+    static CountryCode get(char first, char second) {
+        if (!isUpperCaseLetter(first) || !isUpperCaseLetter(second)) {
+            return null;
+        }
+        return COUNTRY_CODES[index(first, second)];
+    }
+
+    static boolean isUpperCaseLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int index(char first, char second) {
+        return (first - 'A') * LETTERS + (second - 'A');
+    }
+}
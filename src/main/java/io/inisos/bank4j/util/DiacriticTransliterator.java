@@ -0,0 +1,137 @@
+package io.inisos.bank4j.util;
+
+import java.text.Normalizer;
+
+/**
+ * Transliterates Latin letters with diacritics to ASCII letters, such as "é" to "e" or "ß" to "ss".
+ * <p>
+ * Latin-1 Supplement, Latin Extended-A, Latin Extended-B and Latin Extended Additional are covered
+ * by a table computed once, so that no normalization happens per call.
+ * A letter is transliterated to at most {@value #MAXIMUM_LENGTH} ASCII letters.
+ *
+ * @author Patrice Blanchardie
+ */
+public final class DiacriticTransliterator {
+
+    /**
+     * Maximum length of the transliteration of a single character
+     */
+    public static final int MAXIMUM_LENGTH = 2;
+
+    private static final char LATIN_START = 'À';
+    private static final char LATIN_END = 'ɏ';
+    private static final char LATIN_ADDITIONAL_START = 'Ḁ';
+    private static final char LATIN_ADDITIONAL_END = 'ỿ';
+
+    /**
+     * Letters that do not decompose to an ASCII letter followed by combining marks
+     */
+    private static final String[][] LETTERS = {
+            {"Æ", "AE"}, {"æ", "ae"}, {"Ð", "D"}, {"ð", "d"}, {"Ø", "O"}, {"ø", "o"}, {"Þ", "TH"}, {"þ", "th"},
+            {"ß", "ss"}, {"ẞ", "SS"}, {"Đ", "D"}, {"đ", "d"}, {"Ħ", "H"}, {"ħ", "h"}, {"ı", "i"}, {"Ł", "L"},
+            {"ł", "l"}, {"Ŋ", "N"}, {"ŋ", "n"}, {"Œ", "OE"}, {"œ", "oe"}, {"Ŧ", "T"}, {"ŧ", "t"}, {"ƀ", "b"},
+            {"Ɓ", "B"}, {"Ƈ", "C"}, {"ƈ", "c"}, {"Ɗ", "D"}, {"Ƌ", "D"}, {"ƌ", "d"}, {"Ƒ", "F"}, {"ƒ", "f"},
+            {"Ɠ", "G"}, {"Ɨ", "I"}, {"Ƙ", "K"}, {"ƙ", "k"}, {"ƚ", "l"}, {"Ɲ", "N"}, {"ƞ", "n"}, {"Ƥ", "P"},
+            {"ƥ", "p"}, {"Ƭ", "T"}, {"ƭ", "t"}, {"Ʈ", "T"}, {"Ʋ", "V"}, {"Ƴ", "Y"}, {"ƴ", "y"}, {"Ƶ", "Z"},
+            {"ƶ", "z"}, {"Ǥ", "G"}, {"ǥ", "g"}, {"ȡ", "d"}, {"ȴ", "l"}, {"ȵ", "n"}, {"ȶ", "t"}, {"ȷ", "j"},
+            {"Ⱥ", "A"}, {"Ȼ", "C"}, {"ȼ", "c"}, {"Ƚ", "L"}, {"Ⱦ", "T"}, {"Ƀ", "B"}, {"Ɇ", "E"}, {"ɇ", "e"},
+            {"Ɉ", "J"}, {"ɉ", "j"}, {"Ɍ", "R"}, {"ɍ", "r"}, {"Ɏ", "Y"}, {"ɏ", "y"}
+    };
+
+    private static final String[] LATIN = new String[LATIN_END - LATIN_START + 1];
+    private static final String[] LATIN_ADDITIONAL = new String[LATIN_ADDITIONAL_END - LATIN_ADDITIONAL_START + 1];
+
+    static {
+        fill(LATIN, LATIN_START);
+        fill(LATIN_ADDITIONAL, LATIN_ADDITIONAL_START);
+        for (String[] letter : LETTERS) {
+            char c = letter[0].charAt(0);
+            if (c <= LATIN_END) {
+                LATIN[c - LATIN_START] = letter[1];
+            } else {
+                LATIN_ADDITIONAL[c - LATIN_ADDITIONAL_START] = letter[1];
+            }
+        }
+    }
+
+    private DiacriticTransliterator() {
+    }
+
+    /**
+     * @param c character
+     * @return ASCII letters, or null if the character is not a Latin letter with diacritics
+     */
+    public static String transliterate(char c) {
+        if (c < LATIN_START) {
+            return null;
+        }
+        if (c <= LATIN_END) {
+            return LATIN[c - LATIN_START];
+        }
+        if (c >= LATIN_ADDITIONAL_START && c <= LATIN_ADDITIONAL_END) {
+            return LATIN_ADDITIONAL[c - LATIN_ADDITIONAL_START];
+        }
+        return null;
+    }
+
+    /**
+     * @param c character
+     * @return true if the character is a Latin letter with diacritics
+     */
+    public static boolean canTransliterate(char c) {
+        return transliterate(c) != null;
+    }
+
+    /**
+     * @param input string
+     * @return the string with Latin letters with diacritics transliterated, other characters are left as is
+     */
+    public static String transliterate(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (canTransliterate(input.charAt(i))) {
+                return transliterate(input, new StringBuilder(input.length() + 16)).toString();
+            }
+        }
+        return input;
+    }
+
+    /**
+     * @param input  string
+     * @param output builder the transliterated string is appended to
+     * @return the output builder
+     */
+    public static StringBuilder transliterate(CharSequence input, StringBuilder output) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            String transliteration = transliterate(c);
+            if (transliteration == null) {
+                output.append(c);
+            } else {
+                output.append(transliteration);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Decomposes each character, keeping it if only combining marks follow ASCII letters
+     */
+    private static void fill(String[] table, char start) {
+        for (int i = 0; i < table.length; i++) {
+            String decomposed = Normalizer.normalize(String.valueOf((char) (start + i)), Normalizer.Form.NFKD);
+            StringBuilder letters = new StringBuilder();
+            boolean ascii = true;
+            for (int j = 0; j < decomposed.length(); j++) {
+                char c = decomposed.charAt(j);
+                if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                    letters.append(c);
+                } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                    ascii = false;
+                }
+            }
+            if (ascii && letters.length() > 0 && letters.length() <= MAXIMUM_LENGTH) {
+                table[i] = letters.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.inisos.bank4j.util;
+
+import io.inisos.bank4j.SyncPolicy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Output stream writing to a file channel through a large direct buffer.
+ * <p>
+ * Bytes are gathered off-heap and written with few system calls, without the intermediate copy the JDK makes
+ * when heap buffers are written to channels.
+ * On close, the file is forced to storage according to a {@link SyncPolicy}.
+ * <p>
+ * Direct memory is only released by the garbage collector, so each thread keeps the buffer of its last closed stream
+ * and reuses it for its next one, rather than allocating a new direct buffer for each file.
+ */
+public class FileChannelOutputStream extends OutputStream {
+
+    /**
+     * Default buffer size, 1 MiB
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final ThreadLocal<ByteBuffer> RELEASED_BUFFER = new ThreadLocal<>();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final SyncPolicy syncPolicy;
+    private boolean closed;
+
+    /**
+     * Create or truncate a file
+     *
+     * @param path       file path
+     * @param syncPolicy what to force to storage on close
+     * @throws IOException if the file cannot be opened
+     */
+    public FileChannelOutputStream(Path path, SyncPolicy syncPolicy) throws IOException {
+        this(path, syncPolicy, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create or truncate a file
+     *
+     * @param path       file path
+     * @param syncPolicy what to force to storage on close
+     * @param bufferSize direct buffer size in bytes
+     * @throws IOException if the file cannot be opened
+     */
+    public FileChannelOutputStream(Path path, SyncPolicy syncPolicy, int bufferSize) throws IOException {
+        Objects.requireNonNull(path, "Path cannot be null");
+        this.syncPolicy = Objects.requireNonNull(syncPolicy, "Sync policy cannot be null");
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be at least 1");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buffer = acquire(bufferSize);
+    }
+
+    /**
+     * @param bufferSize buffer size in bytes
+     * @return the buffer released by the last stream closed by this thread if large enough, otherwise a new one
+     */
+    private static ByteBuffer acquire(int bufferSize) {
+        ByteBuffer released = RELEASED_BUFFER.get();
+        if (released != null && released.capacity() >= bufferSize) {
+            RELEASED_BUFFER.remove();
+            released.clear().limit(bufferSize);
+            return released;
+        }
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * @param buffer buffer no longer used, kept for the next stream of this thread if larger than the one kept
+     */
+    private static void release(ByteBuffer buffer) {
+        ByteBuffer released = RELEASED_BUFFER.get();
+        if (released == null || released.capacity() < buffer.capacity()) {
+            RELEASED_BUFFER.set(buffer);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int chunk = Math.min(len, buffer.remaining());
+            buffer.put(b, off, chunk);
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    /**
+     * Write buffered bytes to the file, without forcing them to storage
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain();
+    }
+
+    /**
+     * Write buffered bytes, force the file to storage according to the sync policy and close it
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (FileChannel toClose = channel) {
+            drain();
+            release(buffer);
+            switch (syncPolicy) {
+                case DATA:
+                    toClose.force(false);
+                    break;
+                case DATA_AND_METADATA:
+                    toClose.force(true);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        int limit = buffer.limit();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear().limit(limit);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
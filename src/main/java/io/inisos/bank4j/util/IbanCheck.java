@@ -0,0 +1,179 @@
+package io.inisos.bank4j.util;
+
+import org.iban4j.CountryCode;
+import org.iban4j.bban.BbanStructure;
+import org.iban4j.bban.BbanStructureEntry;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allocation-free IBAN validation, accepting and rejecting the same IBANs as {@link org.iban4j.IbanUtil#validate(String)}.
+ * <p>
+ * Country codes and BBAN structures are looked up in tables built once from iban4j's structures,
+ * then the mod-97 checksum is computed over the characters with int arithmetic.
+ * Failures are reported as a {@link Result} rather than an exception.
+ *
+ * @author Patrice Blanchardie
+ */
+public final class IbanCheck {
+
+    private static final byte UPPER_CASE_LETTER = 'a';
+    private static final byte DIGIT_OR_UPPER_CASE_LETTER = 'c';
+    private static final byte DIGIT = 'n';
+
+    /**
+     * Expected character class at each BBAN position, for supported countries only
+     */
+    private static final Map<CountryCode, byte[]> BBAN_STRUCTURES = new EnumMap<>(CountryCode.class);
+
+    static {
+        for (CountryCode countryCode : CountryCode.values()) {
+            BbanStructure structure = BbanStructure.forCountry(countryCode);
+            if (structure != null) {
+                BBAN_STRUCTURES.put(countryCode, bbanStructure(structure));
+            }
+        }
+    }
+
+    /**
+     * Outcome of an IBAN check
+     */
+    public enum Result {
+        /**
+         * Valid IBAN
+         */
+        VALID,
+        /**
+         * Null or empty value
+         */
+        EMPTY,
+        /**
+         * First two characters are not the code of a known country
+         */
+        INVALID_COUNTRY_CODE,
+        /**
+         * Country has no IBAN structure
+         */
+        UNSUPPORTED_COUNTRY,
+        /**
+         * Third and fourth characters are not digits
+         */
+        INVALID_CHECK_DIGITS,
+        /**
+         * Length does not match the country
+         */
+        INVALID_LENGTH,
+        /**
+         * BBAN characters do not match the country structure
+         */
+        INVALID_BBAN,
+        /**
+         * Mod-97 checksum is not 1
+         */
+        INVALID_CHECKSUM;
+
+        /**
+         * @return true if valid
+         */
+        public boolean isValid() {
+            return this == VALID;
+        }
+    }
+
+    private IbanCheck() {
+    }
+
+    /**
+     * @param iban IBAN, without spaces
+     * @return true if valid
+     */
+    public static boolean isValid(CharSequence iban) {
+        return check(iban) == Result.VALID;
+    }
+
+    /**
+     * @param iban IBAN, without spaces
+     * @return outcome of the check, {@link Result#VALID} if valid
+     */
+    public static Result check(CharSequence iban) {
+        if (iban == null || iban.length() == 0) {
+            return Result.EMPTY;
+        }
+        CountryCode countryCode = iban.length() < 2 ? null : CountryCodes.get(iban.charAt(0), iban.charAt(1));
+        if (countryCode == null) {
+            return Result.INVALID_COUNTRY_CODE;
+        }
+        byte[] structure = BBAN_STRUCTURES.get(countryCode);
+        if (structure == null) {
+            return Result.UNSUPPORTED_COUNTRY;
+        }
+        if (iban.length() < 4 || !CountryCodes.isDigit(iban.charAt(2)) || !CountryCodes.isDigit(iban.charAt(3))) {
+            return Result.INVALID_CHECK_DIGITS;
+        }
+        if (iban.length() - 4 != structure.length) {
+            return Result.INVALID_LENGTH;
+        }
+
+        // BBAN first, then country code and check digits, each letter counting as two digits
+        int mod = 0;
+        for (int i = 0; i < structure.length; i++) {
+            char c = iban.charAt(i + 4);
+            if (!matches(structure[i], c)) {
+                return Result.INVALID_BBAN;
+            }
+            mod = mod97(mod, c);
+        }
+        for (int i = 0; i < 4; i++) {
+            mod = mod97(mod, iban.charAt(i));
+        }
+        return mod == 1 ? Result.VALID : Result.INVALID_CHECKSUM;
+    }
+
+    private static int mod97(int mod, char c) {
+        if (c <= '9') {
+            return (mod * 10 + (c - '0')) % 97;
+        }
+        return (mod * 100 + (c - 'A' + 10)) % 97;
+    }
+
+    private static boolean matches(byte characterClass, char c) {
+        switch (characterClass) {
+            case UPPER_CASE_LETTER:
+                return CountryCodes.isUpperCaseLetter(c);
+            case DIGIT:
+                return CountryCodes.isDigit(c);
+            case DIGIT_OR_UPPER_CASE_LETTER:
+                return CountryCodes.isUpperCaseLetter(c) || CountryCodes.isDigit(c);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * iban4j checks each entry against the first entry of the same type, hence so does this table:
+     * positions that can never match are left without a character class
+     *
+     * @param structure BBAN structure
+     * @return expected character class at each position
+     */
+    private static byte[] bbanStructure(BbanStructure structure) {
+        byte[] characterClasses = new byte[structure.getBbanLength()];
+        List<BbanStructureEntry> entries = structure.getEntries();
+        int offset = 0;
+        for (BbanStructureEntry entry : entries) {
+            BbanStructureEntry reference = entries.stream()
+                    .filter(e -> e.getEntryType() == entry.getEntryType())
+                    .findFirst()
+                    .orElse(entry);
+            byte characterClass = reference.getLength() == entry.getLength()
+                    ? (byte) reference.getCharacterType().name().charAt(0)
+                    : 0;
+            for (int i = 0; i < entry.getLength(); i++) {
+                characterClasses[offset++] = characterClass;
+            }
+        }
+        return characterClasses;
+    }
+}
@@ -2,15 +2,17 @@ package io.inisos.bank4j.util;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 public class Iso20022ReferenceElementValidator {
-    private static final Pattern ISO20022_VALID_CHARS_PATTERN = Pattern.compile("^[A-Za-z0-9()+,./:\\s-]+$");
-    private static final Pattern ISO20022_INVALID_START_OR_END_PATTERN = Pattern.compile("(^[\\s/]+)|([\\s/]+$)");
-    private static final String ISO20022_INVALID_POSITION = "//";
-    private static final Pattern ISO20022_INVALID_POSITION_PATTERN = Pattern.compile(ISO20022_INVALID_POSITION);
+    private static final String ISO20022_VALID_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789()+,./: \t\n\u000B\f\r-";
+    private static final String ISO20022_INVALID_START_OR_END_CHARS = "/ \t\n\u000B\f\r";
+    private static final char ISO20022_INVALID_POSITION_CHAR = '/';
     private static final char DEFAULT_INVALID_CHAR_REPLACEMENT = '.';
 
+    // lookup tables over ASCII, other characters are all invalid
+    private static final boolean[] VALID_CHARS = table(ISO20022_VALID_CHARS);
+    private static final boolean[] INVALID_START_OR_END_CHARS = table(ISO20022_INVALID_START_OR_END_CHARS);
+
     private static final Map<Character, Character> DEFAULT_REPLACEMENTS;
 
     // default mapping remplacements
@@ -30,46 +32,255 @@ public class Iso20022ReferenceElementValidator {
      * @return true if the input string is valid according to ISO20022, false otherwise.
      */
     public static boolean isValidCharacterSet(String input) {
+        return isValidCharacterSet(input, false);
+    }
+
+    /**
+     * Same as {@link #isValidCharacterSet(String)}, optionally accepting Latin letters with diacritics,
+     * as they can be transliterated by {@link DiacriticTransliterator}.
+     *
+     * @param input String to be checked for validity.
+     * @param allowDiacritics true to accept Latin letters with diacritics.
+     * @return true if the input string is valid according to ISO20022, false otherwise.
+     */
+    public static boolean isValidCharacterSet(String input, boolean allowDiacritics) {
         if (input == null || input.isEmpty()) {
             return false;
         }
+        int length = input.length();
+        if (isInvalidStartOrEnd(input.charAt(0)) || isInvalidStartOrEnd(input.charAt(length - 1))) {
+            return false;
+        }
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if ((!isValidChar(c) && !(allowDiacritics && DiacriticTransliterator.canTransliterate(c)))
+                    || (c == ISO20022_INVALID_POSITION_CHAR && previous == ISO20022_INVALID_POSITION_CHAR)) {
+                return false;
+            }
+            previous = c;
+        }
+        return true;
+    }
 
-        return ISO20022_VALID_CHARS_PATTERN.matcher(input).find()
-            && !ISO20022_INVALID_START_OR_END_PATTERN.matcher(input).find()
-            && !ISO20022_INVALID_POSITION_PATTERN.matcher(input).find();
+    /**
+     * @param c character
+     * @return true if the character belongs to the ISO20022 reference elements character set
+     */
+    public static boolean isValidChar(char c) {
+        return c < VALID_CHARS.length && VALID_CHARS[c];
     }
 
     public static String sanitizeToCharacterSet(String input) {
         return sanitizeToCharacterSet(input, DEFAULT_REPLACEMENTS);
     }
 
+    /**
+     * @param input String to be sanitized.
+     * @param transliterateDiacritics true to transliterate Latin letters with diacritics rather than replacing them.
+     * @return The sanitized string.
+     */
+    public static String sanitizeToCharacterSet(String input, boolean transliterateDiacritics) {
+        return sanitizeToCharacterSet(input, DEFAULT_REPLACEMENTS, transliterateDiacritics);
+    }
+
     /**
      * Sanitizes a given string to conform to the ISO20022 character set standards for reference elements.
-     * 1. Any characters in the input string that do not match the ISO20022 valid characters set are replaced by a character specified in the replacements map. 
-     * 2. If no replacements are provided for a specific character, the default replacement character "DEFAULT_INVALID_CHAR_REPLACEMENT" is used. 
-     * 4. Then, the method ensures that string does not start or end with an invalid character ("/" or " ") 
+     * 1. Any characters in the input string that do not match the ISO20022 valid characters set are replaced by a character specified in the replacements map.
+     * 2. If no replacements are provided for a specific character, the default replacement character "DEFAULT_INVALID_CHAR_REPLACEMENT" is used.
+     * 4. Then, the method ensures that string does not start or end with an invalid character ("/" or " ")
      * by removing them, and remove any "//" sequence aswell.
+     * <p>
+     * A valid input is returned as is, otherwise only the sanitized string is allocated.
      *
      * @param input String to be sanitized.
      * @param replacements Custom map of characters to be replaced and their replacements.
      * @return The sanitized string.
      */
     public static String sanitizeToCharacterSet(String input, Map<Character, Character> replacements) {
-        StringBuilder sanitizedInput = new StringBuilder();
-        char[] inputChars = input.toCharArray();
-
-        char sanitizedChar;
-        for (char inputChar : inputChars) {
-            sanitizedChar = ISO20022_VALID_CHARS_PATTERN.matcher(String.valueOf(inputChar)).find()
-                    ? inputChar
-                    : replacements.getOrDefault(inputChar, DEFAULT_INVALID_CHAR_REPLACEMENT);
-            sanitizedInput.append(sanitizedChar);
+        return sanitizeToCharacterSet(input, replacements, false);
+    }
+
+    /**
+     * Same as {@link #sanitizeToCharacterSet(String, Map)}, optionally transliterating Latin letters with diacritics
+     * by {@link DiacriticTransliterator}, such as "Müller Société" to "Muller Societe".
+     * Characters found in the replacements map are replaced rather than transliterated.
+     *
+     * @param input String to be sanitized.
+     * @param replacements Custom map of characters to be replaced and their replacements.
+     * @param transliterateDiacritics true to transliterate Latin letters with diacritics rather than replacing them.
+     * @return The sanitized string.
+     */
+    public static String sanitizeToCharacterSet(String input, Map<Character, Character> replacements, boolean transliterateDiacritics) {
+        if (isValidCharacterSet(input)) {
+            return input;
         }
+        char[] output = new char[transliterateDiacritics ? input.length() * DiacriticTransliterator.MAXIMUM_LENGTH : input.length()];
+        int length = sanitizeToCharacterSet(input, replacements, transliterateDiacritics, output, 0);
+        return new String(output, 0, length);
+    }
 
-        String result = sanitizedInput.toString();
+    /**
+     * Same as {@link #sanitizeToCharacterSet(String, Map)}, appending to a given builder
+     *
+     * @param input String to be sanitized.
+     * @param replacements Custom map of characters to be replaced and their replacements.
+     * @param output builder the sanitized string is appended to.
+     * @return the output builder.
+     */
+    public static StringBuilder sanitizeToCharacterSet(CharSequence input, Map<Character, Character> replacements, StringBuilder output) {
+        return sanitizeToCharacterSet(input, replacements, false, output);
+    }
+
+    /**
+     * Same as {@link #sanitizeToCharacterSet(String, Map, boolean)}, appending to a given builder
+     *
+     * @param input String to be sanitized.
+     * @param replacements Custom map of characters to be replaced and their replacements.
+     * @param transliterateDiacritics true to transliterate Latin letters with diacritics rather than replacing them.
+     * @param output builder the sanitized string is appended to.
+     * @return the output builder.
+     */
+    public static StringBuilder sanitizeToCharacterSet(CharSequence input, Map<Character, Character> replacements,
+                                                       boolean transliterateDiacritics, StringBuilder output) {
+        int start = start(input, replacements);
+        int end = end(input, replacements, start);
+        output.ensureCapacity(output.length() + end - start);
+        for (int i = start; i < end; i++) {
+            String transliteration = transliterate(input.charAt(i), replacements, transliterateDiacritics);
+            if (transliteration != null) {
+                output.append(transliteration);
+                continue;
+            }
+            char c = replace(input.charAt(i), replacements);
+            if (c == ISO20022_INVALID_POSITION_CHAR) {
+                int run = run(input, replacements, i, end);
+                if (run % 2 == 1) {
+                    output.append(c);
+                }
+                i += run - 1;
+            } else {
+                output.append(c);
+            }
+        }
+        return output;
+    }
 
-        return ISO20022_INVALID_START_OR_END_PATTERN.matcher(result)
-            .replaceAll("")
-            .replace(ISO20022_INVALID_POSITION, "");
+    /**
+     * Same as {@link #sanitizeToCharacterSet(String, Map)}, writing to a given array.
+     * The sanitized string is never longer than the input.
+     *
+     * @param input String to be sanitized.
+     * @param replacements Custom map of characters to be replaced and their replacements.
+     * @param output array the sanitized string is written to.
+     * @param offset index of the output array the sanitized string starts at.
+     * @return the length of the sanitized string.
+     * @throws IndexOutOfBoundsException if the output array is too short.
+     */
+    public static int sanitizeToCharacterSet(CharSequence input, Map<Character, Character> replacements, char[] output, int offset) {
+        return sanitizeToCharacterSet(input, replacements, false, output, offset);
+    }
+
+    /**
+     * Same as {@link #sanitizeToCharacterSet(String, Map, boolean)}, writing to a given array.
+     * The sanitized string is never longer than the input, or than {@link DiacriticTransliterator#MAXIMUM_LENGTH}
+     * times the input when transliterating.
+     *
+     * @param input String to be sanitized.
+     * @param replacements Custom map of characters to be replaced and their replacements.
+     * @param transliterateDiacritics true to transliterate Latin letters with diacritics rather than replacing them.
+     * @param output array the sanitized string is written to.
+     * @param offset index of the output array the sanitized string starts at.
+     * @return the length of the sanitized string.
+     * @throws IndexOutOfBoundsException if the output array is too short.
+     */
+    public static int sanitizeToCharacterSet(CharSequence input, Map<Character, Character> replacements,
+                                             boolean transliterateDiacritics, char[] output, int offset) {
+        int start = start(input, replacements);
+        int end = end(input, replacements, start);
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            String transliteration = transliterate(input.charAt(i), replacements, transliterateDiacritics);
+            if (transliteration != null) {
+                transliteration.getChars(0, transliteration.length(), output, offset + length);
+                length += transliteration.length();
+                continue;
+            }
+            char c = replace(input.charAt(i), replacements);
+            if (c == ISO20022_INVALID_POSITION_CHAR) {
+                int run = run(input, replacements, i, end);
+                if (run % 2 == 1) {
+                    output[offset + length++] = c;
+                }
+                i += run - 1;
+            } else {
+                output[offset + length++] = c;
+            }
+        }
+        return length;
+    }
+
+    private static char replace(char c, Map<Character, Character> replacements) {
+        return isValidChar(c) ? c : replacements.getOrDefault(c, DEFAULT_INVALID_CHAR_REPLACEMENT);
+    }
+
+    /**
+     * Transliterated letters are kept like any other replacement, as they are neither "/" nor a space
+     *
+     * @return the transliteration of a character neither valid nor replaced, null otherwise
+     */
+    private static String transliterate(char c, Map<Character, Character> replacements, boolean transliterateDiacritics) {
+        if (!transliterateDiacritics || isValidChar(c)) {
+            return null;
+        }
+        String transliteration = DiacriticTransliterator.transliterate(c);
+        return transliteration == null || replacements.containsKey(c) ? null : transliteration;
+    }
+
+    private static boolean isInvalidStartOrEnd(char c) {
+        return c < INVALID_START_OR_END_CHARS.length && INVALID_START_OR_END_CHARS[c];
+    }
+
+    /**
+     * @return index of the first character kept once replaced
+     */
+    private static int start(CharSequence input, Map<Character, Character> replacements) {
+        int start = 0;
+        while (start < input.length() && isInvalidStartOrEnd(replace(input.charAt(start), replacements))) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * @return index following the last character kept once replaced
+     */
+    private static int end(CharSequence input, Map<Character, Character> replacements, int start) {
+        int end = input.length();
+        while (end > start && isInvalidStartOrEnd(replace(input.charAt(end - 1), replacements))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Each "//" is removed from a run of slashes, leaving one slash when odd
+     *
+     * @return number of consecutive slashes once replaced
+     */
+    private static int run(CharSequence input, Map<Character, Character> replacements, int start, int end) {
+        int i = start;
+        while (i < end && replace(input.charAt(i), replacements) == ISO20022_INVALID_POSITION_CHAR) {
+            i++;
+        }
+        return i - start;
+    }
+
+    private static boolean[] table(String chars) {
+        boolean[] table = new boolean[128];
+        for (int i = 0; i < chars.length(); i++) {
+            table[chars.charAt(i)] = true;
+        }
+        return table;
     }
 }
@@ -0,0 +1,300 @@
+package io.inisos.bank4j.util;
+
+import org.iban4j.BicFormatException;
+import org.iban4j.BicUtil;
+import org.iban4j.Iban4jException;
+import org.iban4j.IbanFormatException;
+import org.iban4j.IbanUtil;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Process-wide memo of IBAN and BIC validation results, shared by marshalling and constraint validators.
+ * <p>
+ * Results, valid or not, are kept in bounded least-recently-used segments, so that an account reused
+ * across transactions and files is checked once.
+ * Values are checked by {@link IbanCheck} and {@link BicCheck}, only invalid ones go through iban4j to describe the failure.
+ *
+ * @author Patrice Blanchardie
+ */
+public final class ValidationCache {
+
+    /**
+     * Default maximum number of IBANs, and of BICs, kept
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    /**
+     * Maximum number of segments, fewer for smaller caches so that each segment holds at least one result
+     */
+    private static final int SEGMENTS = 16;
+
+    private static final ValidationCache INSTANCE = new ValidationCache(DEFAULT_MAXIMUM_SIZE);
+
+    private final int maximumSize;
+    private final Memo ibans;
+    private final Memo bics;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor
+     *
+     * @param maximumSize maximum number of IBANs, and of BICs, kept
+     */
+    public ValidationCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be at least 1");
+        }
+        this.maximumSize = maximumSize;
+        this.ibans = new Memo(maximumSize, IbanCheck::check, IbanCheck.Result.VALID);
+        this.bics = new Memo(maximumSize, BicCheck::check, BicCheck.Result.VALID);
+    }
+
+    /**
+     * @return the shared cache
+     */
+    public static ValidationCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Same as {@link IbanUtil#validate(String)}
+     *
+     * @param iban IBAN
+     * @throws Iban4jException if invalid
+     */
+    public void validateIban(String iban) {
+        if (!ibans.isValid(iban)) {
+            IbanUtil.validate(iban);
+            throw new IbanFormatException(IbanFormatException.IbanFormatViolation.UNKNOWN, iban, "Invalid IBAN: " + checkIban(iban));
+        }
+    }
+
+    /**
+     * @param iban IBAN
+     * @return outcome of {@link IbanCheck#check(CharSequence)}
+     */
+    public IbanCheck.Result checkIban(String iban) {
+        return (IbanCheck.Result) ibans.result(iban);
+    }
+
+    /**
+     * Same as {@link BicUtil#validate(String)}
+     *
+     * @param bic BIC
+     * @throws Iban4jException if invalid
+     */
+    public void validateBic(String bic) {
+        if (!bics.isValid(bic)) {
+            BicUtil.validate(bic);
+            throw new BicFormatException(BicFormatException.BicFormatViolation.UNKNOWN, bic, "Invalid BIC: " + checkBic(bic));
+        }
+    }
+
+    /**
+     * @param bic BIC
+     * @return outcome of {@link BicCheck#check(CharSequence)}
+     */
+    public BicCheck.Result checkBic(String bic) {
+        return (BicCheck.Result) bics.result(bic);
+    }
+
+    /**
+     * @param iban IBAN
+     * @return true if valid
+     */
+    public boolean isValidIban(String iban) {
+        return ibans.isValid(iban);
+    }
+
+    /**
+     * @param bic BIC
+     * @return true if valid
+     */
+    public boolean isValidBic(String bic) {
+        return bics.isValid(bic);
+    }
+
+    /**
+     * Forget all results, counters are kept
+     */
+    public void clear() {
+        ibans.clear();
+        bics.clear();
+    }
+
+    /**
+     * @return maximum number of IBANs, and of BICs, kept
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return a snapshot of usage counters
+     */
+    public Statistics getStatistics() {
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), ibans.size() + bics.size());
+    }
+
+    /**
+     * Results striped over least-recently-used segments
+     */
+    private final class Memo {
+
+        private final Segment[] segments;
+        private final Function<String, Object> validator;
+        private final Object valid;
+
+        /**
+         * @param maximumSize maximum number of results kept
+         * @param validator   gives the result of a value
+         * @param valid       result of valid values
+         */
+        private Memo(int maximumSize, Function<String, Object> validator, Object valid) {
+            this.validator = validator;
+            this.valid = valid;
+            this.segments = new Segment[Integer.highestOneBit(Math.min(SEGMENTS, maximumSize))];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment(maximumSize / segments.length + (i < maximumSize % segments.length ? 1 : 0));
+            }
+        }
+
+        private boolean isValid(String value) {
+            return result(value) == valid;
+        }
+
+        private Object result(String value) {
+            if (value == null) {
+                return validator.apply(null);
+            }
+            Segment segment = segments[spread(value.hashCode()) & (segments.length - 1)];
+            Object result;
+            synchronized (segment) {
+                result = segment.get(value);
+            }
+            if (result != null) {
+                hits.increment();
+                return result;
+            }
+            misses.increment();
+            result = validator.apply(value);
+            synchronized (segment) {
+                segment.put(value, result);
+            }
+            return result;
+        }
+
+        private void clear() {
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    segment.clear();
+                }
+            }
+        }
+
+        private int size() {
+            int size = 0;
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    size += segment.size();
+                }
+            }
+            return size;
+        }
+
+        private int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<String, Object> {
+
+        private final int maximumSize;
+
+        private Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            if (size() > maximumSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Snapshot of cache counters
+     */
+    public static final class Statistics {
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long size;
+
+        private Statistics(long hits, long misses, long evictions, long size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        /**
+         * @return number of results found in cache
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return number of values validated
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return hits over lookups, 0 without lookups
+         */
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        /**
+         * @return number of results removed to respect the maximum size
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return number of results currently kept
+         */
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Statistics.class.getSimpleName() + "[", "]")
+                    .add("hits=" + hits)
+                    .add("misses=" + misses)
+                    .add("evictions=" + evictions)
+                    .add("size=" + size)
+                    .toString();
+        }
+    }
+}
@@ -6,13 +6,20 @@ import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
 public class Iso20022CharacterSetValidator implements ConstraintValidator<Iso20022CharacterSet, String> {
-    
+
+    private boolean allowDiacritics;
+
+    @Override
+    public void initialize(Iso20022CharacterSet constraintAnnotation) {
+        this.allowDiacritics = constraintAnnotation.allowDiacritics();
+    }
+
     @Override
     public boolean isValid(String value, ConstraintValidatorContext constraintValidatorContext) {
         if (value == null) {
             return true;
         }
         
-        return Iso20022ReferenceElementValidator.isValidCharacterSet(value);
+        return Iso20022ReferenceElementValidator.isValidCharacterSet(value, allowDiacritics);
     }
 }
@@ -0,0 +1,127 @@
+package io.inisos.bank4j;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V09;
+
+class CreditTransferMessageTest {
+
+    private static final LocalDateTime NEW_YEAR_2021 = LocalDateTime.of(2021, 1, 1, 0, 0, 0, 0);
+
+    @Test
+    void test_payment_information_are_grouped() {
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            LocalDate tomorrow = NEW_YEAR_2021.toLocalDate().plusDays(1);
+            LocalDate nextWeek = NEW_YEAR_2021.toLocalDate().plusDays(7);
+
+            CreditTransferMessage message = Bank.jaxbCreditTransferMessage(version)
+                    .id("MSG")
+                    .creationDateTime(NEW_YEAR_2021)
+                    .paymentInformation(creditTransfer(version, "PMT1", tomorrow, "1.00", "2.00"))
+                    .paymentInformation(creditTransfer(version, "PMT2", nextWeek, "3.00"))
+                    .paymentInformation(creditTransfer(version, "PMT3", tomorrow, "4.00"))
+                    .build();
+
+            Assertions.assertEquals(2, message.getPaymentInformation().size(), version.name());
+            Assertions.assertEquals("PMT1", message.getPaymentInformation().get(0).getId());
+            Assertions.assertEquals(3, message.getPaymentInformation().get(0).getTransactions().size());
+            Assertions.assertEquals(4, message.getNumberOfTransactions());
+            Assertions.assertEquals(new BigDecimal("10.00"), message.getControlSum());
+            Assertions.assertEquals("Banque de France", message.getInitiatingParty().flatMap(Party::getName).orElse(null));
+
+            String xml = message.marshal();
+            Assertions.assertTrue(xml.contains("<MsgId>MSG</MsgId><CreDtTm>2021-01-01T00:00:00</CreDtTm><NbOfTxs>4</NbOfTxs><CtrlSum>10.00</CtrlSum>"), version.name());
+            Assertions.assertTrue(xml.contains("<PmtInfId>PMT1</PmtInfId><PmtMtd>TRF</PmtMtd><BtchBookg>false</BtchBookg><NbOfTxs>3</NbOfTxs><CtrlSum>7.00</CtrlSum>"), version.name());
+            Assertions.assertTrue(xml.contains("<PmtInfId>PMT2</PmtInfId><PmtMtd>TRF</PmtMtd><BtchBookg>false</BtchBookg><NbOfTxs>1</NbOfTxs><CtrlSum>3.00</CtrlSum>"), version.name());
+            Assertions.assertDoesNotThrow(() -> SchemaValidator.validateCreditTransfer(version, new StringReader(xml)));
+        }
+    }
+
+    @Test
+    void test_streamed_payment_information_are_chained() {
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            LocalDate tomorrow = NEW_YEAR_2021.toLocalDate().plusDays(1);
+            LocalDate nextWeek = NEW_YEAR_2021.toLocalDate().plusDays(7);
+            AtomicInteger read = new AtomicInteger();
+
+            String expected = Bank.jaxbCreditTransferMessage(version)
+                    .id("MSG")
+                    .creationDateTime(NEW_YEAR_2021)
+                    .paymentInformation(creditTransfer(version, "PMT1", tomorrow, "1.00", "2.00"))
+                    .paymentInformation(creditTransfer(version, "PMT2", nextWeek, "3.00"))
+                    .paymentInformation(creditTransfer(version, "PMT3", tomorrow, "4.00"))
+                    .build()
+                    .marshal(true);
+
+            CreditTransferMessage message = Bank.jaxbCreditTransferMessage(version)
+                    .id("MSG")
+                    .creationDateTime(NEW_YEAR_2021)
+                    .paymentInformation(streamed(version, creditTransfer(version, "PMT1", tomorrow, "1.00", "2.00"), read))
+                    .paymentInformation(creditTransfer(version, "PMT2", nextWeek, "3.00"))
+                    .paymentInformation(streamed(version, creditTransfer(version, "PMT3", tomorrow, "4.00"), read))
+                    .build();
+
+            Assertions.assertEquals(3, message.getPaymentInformation().get(0).getNumberOfTransactions(), version.name());
+            Assertions.assertEquals(0, read.get(), "Streamed transactions are not read before marshalling");
+            Assertions.assertEquals(expected, message.marshal(true), version.name());
+            Assertions.assertEquals(3, read.get());
+        }
+    }
+
+    @Test
+    void test_payment_information_ids_must_be_distinct() {
+        LocalDate tomorrow = NEW_YEAR_2021.toLocalDate().plusDays(1);
+        CreditTransferMessageBuilder builder = Bank.jaxbCreditTransferMessage(V09)
+                .paymentInformation(creditTransfer(V09, "PMT", tomorrow, "1.00"))
+                .paymentInformation(creditTransfer(V09, "PMT", tomorrow.plusDays(1), "2.00"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    private static CreditTransferOperation streamed(CustomerCreditTransferInitiationVersion version, CreditTransferOperation creditTransfer, AtomicInteger read) {
+        return Bank.jaxbCreditTransferSepa(version)
+                .debtor(creditTransfer.getDebtor().orElse(null))
+                .debtorAccount(creditTransfer.getDebtorAccount())
+                .id(creditTransfer.getId())
+                .creationDateTime(creditTransfer.getCreationDateTime())
+                .requestedExecutionDate(creditTransfer.getRequestedExecutionDate())
+                .transactions(creditTransfer.getTransactions().stream().peek(transaction -> read.incrementAndGet()), creditTransfer.getNumberOfTransactions(), creditTransfer.getControlSum())
+                .build();
+    }
+
+    private static CreditTransferOperation creditTransfer(CustomerCreditTransferInitiationVersion version, String id, LocalDate requestedExecutionDate, String... amounts) {
+        CreditTransferOperationBuilder builder = Bank.jaxbCreditTransferSepa(version)
+                .debtor(Bank.simpleParty()
+                        .name("Banque de France")
+                        .build())
+                .debtorAccount(Bank.simpleBankAccount()
+                        .iban("FR7630001007941234567890185")
+                        .bic("BDFEFRPPXXX")
+                        .build())
+                .id(id)
+                .creationDateTime(NEW_YEAR_2021)
+                .requestedExecutionDate(requestedExecutionDate);
+        for (int i = 0; i < amounts.length; i++) {
+            builder.transaction(Bank.simpleTransaction()
+                    .party(Bank.simpleParty()
+                            .name("Creditor")
+                            .build())
+                    .account(Bank.simpleBankAccount()
+                            .iban("FR7610011000201234567890188")
+                            .bic("PSSTFRPP")
+                            .build())
+                    .amount(amounts[i])
+                    .currency("EUR")
+                    .endToEndId(id + "-" + i)
+                    .build());
+        }
+        return builder.build();
+    }
+}
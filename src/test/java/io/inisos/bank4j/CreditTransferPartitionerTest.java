@@ -0,0 +1,124 @@
+package io.inisos.bank4j;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+class CreditTransferPartitionerTest {
+
+    @Test
+    void test_files_per_partition_and_part() {
+        Map<String, String> files = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<CreditTransferPartitioner.ManifestEntry<String>> manifest = Bank.creditTransferPartitioner(Transaction::getCurrencyCode)
+                    .builder((currency, part) -> Bank.jaxbCreditTransfer(CustomerCreditTransferInitiationVersion.V09)
+                            .debtorAccount(Bank.simpleBankAccount()
+                                    .iban("FR7630001007941234567890185")
+                                    .build())
+                            .id("RUN-" + currency + "-" + part)
+                            .creationDateTime(LocalDateTime.of(2021, 1, 1, 0, 0))
+                            .requestedExecutionDate(LocalDate.of(2021, 1, 2)))
+                    .writer(operation -> files.put(operation.getId(), operation.marshal()))
+                    .executor(executor)
+                    .maxTransactionsPerFile(2)
+                    .maxPendingFiles(1)
+                    .generate(Stream.of(
+                            transaction("EUR", "1.00"),
+                            transaction("CHF", "2.00"),
+                            transaction("EUR", "3.00"),
+                            transaction("EUR", "4.00"),
+                            transaction("CHF", "5.00")));
+
+            Assertions.assertEquals(3, manifest.size());
+            assertEntry(manifest.get(0), "EUR", 1, "RUN-EUR-1", 2, "4.00");
+            assertEntry(manifest.get(1), "EUR", 2, "RUN-EUR-2", 1, "4.00");
+            assertEntry(manifest.get(2), "CHF", 1, "RUN-CHF-1", 2, "7.00");
+
+            Assertions.assertEquals(3, files.size());
+            Assertions.assertTrue(files.get("RUN-CHF-1").contains("<NbOfTxs>2</NbOfTxs><CtrlSum>7.00</CtrlSum>"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void test_writer_failure_is_thrown() {
+        CreditTransferPartitioner<String> partitioner = Bank.creditTransferPartitioner(Transaction::getCurrencyCode)
+                .builder((currency, part) -> Bank.jaxbCreditTransfer()
+                        .debtorAccount(Bank.simpleBankAccount()
+                                .iban("FR7630001007941234567890185")
+                                .build()))
+                .writer(operation -> {
+                    throw new IllegalStateException("Disk full");
+                });
+
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(transaction("EUR", "1.00"));
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () -> partitioner.generate(transactions.stream()));
+        Assertions.assertEquals("Disk full", exception.getMessage());
+    }
+
+    @Test
+    void test_written_files_are_discarded_and_reading_stops_on_failure() {
+        Map<String, String> files = new ConcurrentHashMap<>();
+        List<String> discarded = new ArrayList<>();
+        AtomicInteger read = new AtomicInteger();
+        CreditTransferPartitioner<String> partitioner = Bank.creditTransferPartitioner(Transaction::getCurrencyCode)
+                .builder((currency, part) -> Bank.jaxbCreditTransfer()
+                        .debtorAccount(Bank.simpleBankAccount()
+                                .iban("FR7630001007941234567890185")
+                                .build())
+                        .id(currency + "-" + part))
+                .writer(operation -> {
+                    if (operation.getId().equals("EUR-2")) {
+                        throw new IllegalStateException("Disk full");
+                    }
+                    files.put(operation.getId(), operation.marshal());
+                })
+                .discard(entry -> discarded.add(entry.getId()))
+                .executor(Runnable::run)
+                .maxTransactionsPerFile(1);
+
+        Stream<Transaction> transactions = Stream.generate(() -> transaction("EUR", "1.00"))
+                .limit(1000)
+                .peek(transaction -> read.incrementAndGet());
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () -> partitioner.generate(transactions));
+        Assertions.assertEquals("Disk full", exception.getMessage());
+        Assertions.assertEquals(2, read.get());
+        Assertions.assertEquals(Collections.singletonList("EUR-1"), discarded);
+    }
+
+    private static void assertEntry(CreditTransferPartitioner.ManifestEntry<String> entry, String key, int part, String id, int numberOfTransactions, String controlSum) {
+        Assertions.assertEquals(key, entry.getKey());
+        Assertions.assertEquals(part, entry.getPart());
+        Assertions.assertEquals(id, entry.getId());
+        Assertions.assertEquals(numberOfTransactions, entry.getNumberOfTransactions());
+        Assertions.assertEquals(new BigDecimal(controlSum), entry.getControlSum());
+    }
+
+    private static Transaction transaction(String currency, String amount) {
+        return Bank.simpleTransaction()
+                .account(Bank.simpleBankAccount()
+                        .iban("FR7610011000201234567890188")
+                        .build())
+                .amount(amount)
+                .currency(currency)
+                .endToEndId("ENDTOEND")
+                .build();
+    }
+}
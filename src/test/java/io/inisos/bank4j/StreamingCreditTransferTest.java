@@ -0,0 +1,227 @@
+package io.inisos.bank4j;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.*;
+
+class StreamingCreditTransferTest {
+
+    private static final LocalDateTime NEW_YEAR_2021 = LocalDateTime.of(2021, 1, 1, 0, 0, 0, 0);
+
+    @Test
+    void streamed_output_is_identical_for_all_versions() {
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            for (boolean formatted : new boolean[]{false, true}) {
+                List<Transaction> transactions = transactions(version, 25);
+
+                String expected = builder(version)
+                        .transactions(transactions)
+                        .build()
+                        .marshal(formatted);
+
+                String streamed = builder(version)
+                        .transactions(transactions.stream(), transactions.size(), controlSum(transactions))
+                        .build()
+                        .marshal(formatted);
+
+                Assertions.assertEquals(expected, streamed, version + (formatted ? " formatted" : ""));
+                Assertions.assertDoesNotThrow(() -> SchemaValidator.validateCreditTransfer(version, new StringReader(streamed)));
+            }
+        }
+    }
+
+    @Test
+    void streamed_transactions_are_consumed_once() {
+        List<Transaction> transactions = transactions(V09, 2);
+
+        CreditTransferOperation creditTransfer = builder(V09)
+                .transactions(transactions.iterator(), transactions.size(), controlSum(transactions))
+                .build();
+
+        Assertions.assertEquals(2, creditTransfer.getTransactions().size());
+        Assertions.assertEquals(0, new BigDecimal("324.68").compareTo(creditTransfer.getControlSum()));
+
+        creditTransfer.marshal();
+
+        Assertions.assertThrows(IllegalStateException.class, creditTransfer::marshal);
+    }
+
+    @Test
+    void declared_totals_are_checked() {
+        List<Transaction> transactions = transactions(V03, 3);
+
+        CreditTransferOperation wrongCount = builder(V03)
+                .transactions(transactions.stream(), 2, controlSum(transactions))
+                .build();
+        Assertions.assertThrows(IllegalStateException.class, wrongCount::marshal);
+
+        CreditTransferOperation wrongSum = builder(V03)
+                .transactions(transactions.stream(), 3, BigDecimal.ONE)
+                .build();
+        Assertions.assertThrows(IllegalStateException.class, wrongSum::marshal);
+    }
+
+    @Test
+    void stream_is_closed_when_marshalling_fails(@TempDir Path directory) {
+        List<Transaction> transactions = transactions(V09, 3);
+        AtomicBoolean closed = new AtomicBoolean();
+        Path path = directory.resolve("failed.xml");
+
+        CreditTransferOperation creditTransfer = builder(V09)
+                .transactions(transactions.stream()
+                        .map(transaction -> {
+                            if (transaction.getEndToEndId().equals("ENDTOEND2")) {
+                                throw new IllegalArgumentException("Cannot read transaction");
+                            }
+                            return transaction;
+                        })
+                        .onClose(() -> closed.set(true)), transactions.size(), controlSum(transactions))
+                .build();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> creditTransfer.marshal(path));
+        Assertions.assertTrue(closed.get());
+        Assertions.assertFalse(Files.exists(path), "Partially written file is deleted");
+    }
+
+    @Test
+    void streamed_transactions_cannot_be_combined() {
+        List<Transaction> transactions = transactions(V03, 2);
+
+        CreditTransferOperationBuilder builder = builder(V03)
+                .transaction(transactions.get(0))
+                .transactions(transactions.stream(), 2, controlSum(transactions));
+
+        Assertions.assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    @Test
+    void reiterable_source_totals_are_aggregated() {
+        List<Transaction> transactions = transactions(V09, 4);
+        AtomicInteger passes = new AtomicInteger();
+
+        CreditTransferOperation creditTransfer = builder(V09)
+                .transactions(() -> {
+                    passes.incrementAndGet();
+                    return transactions.stream();
+                })
+                .build();
+
+        Assertions.assertEquals(1, passes.get());
+        Assertions.assertEquals(4, creditTransfer.getTransactions().size());
+        Assertions.assertEquals(0, controlSum(transactions).compareTo(creditTransfer.getControlSum()));
+
+        String expected = builder(V09)
+                .transactions(transactions)
+                .build()
+                .marshal(true);
+
+        Assertions.assertEquals(expected, creditTransfer.marshal(true));
+        Assertions.assertEquals(expected, creditTransfer.marshal(true));
+        Assertions.assertEquals(3, passes.get());
+    }
+
+    @Test
+    void reiterable_source_changes_are_detected() {
+        List<Transaction> transactions = transactions(V03, 3);
+
+        CreditTransferOperation creditTransfer = builder(V03)
+                .transactions(() -> new ArrayList<>(transactions).stream())
+                .build();
+        transactions.remove(2);
+
+        Assertions.assertThrows(IllegalStateException.class, creditTransfer::marshal);
+    }
+
+    @Test
+    void requested_execution_date_time_is_streamed() {
+        List<Transaction> transactions = transactions(V09, 3);
+
+        String expected = instantPaymentBuilder()
+                .transactions(transactions)
+                .build()
+                .marshal(true);
+
+        String streamed = instantPaymentBuilder()
+                .transactions(transactions.stream(), transactions.size(), controlSum(transactions))
+                .build()
+                .marshal(true);
+
+        Assertions.assertEquals(expected, streamed);
+    }
+
+    private static CreditTransferOperationBuilder builder(CustomerCreditTransferInitiationVersion version) {
+        return Bank.jaxbCreditTransferSepa(version)
+                .instructionPriority(Priority.HIGH)
+                .debtor(Bank.simpleParty()
+                        .name("Banque de France")
+                        .build())
+                .debtorAccount(Bank.simpleBankAccount()
+                        .iban("FR7630001007941234567890185")
+                        .bic("BDFEFRPPXXX")
+                        .build())
+                .id("MYID")
+                .creationDateTime(NEW_YEAR_2021)
+                .requestedExecutionDate(NEW_YEAR_2021.toLocalDate().plusDays(1));
+    }
+
+    private static CreditTransferOperationBuilder instantPaymentBuilder() {
+        return Bank.jaxbCreditTransferSepa(V09)
+                .debtorAccount(Bank.simpleBankAccount()
+                        .iban("FR7630001007941234567890185")
+                        .build())
+                .creationDateTime(NEW_YEAR_2021)
+                .requestedExecutionDateTime(NEW_YEAR_2021.plusDays(1).atZone(ZoneOffset.UTC))
+                .instantPayment(true);
+    }
+
+    private static List<Transaction> transactions(CustomerCreditTransferInitiationVersion version, int count) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            TransactionBuilder builder = Bank.simpleTransaction()
+                    .party(Bank.simpleParty()
+                            .name("Creditor " + i)
+                            .postalAddress(Bank.simplePostalAddress()
+                                    .addressLine("1, rue de La Vrillière")
+                                    .addressLine("75001 PARIS")
+                                    .country("FR")
+                                    .build())
+                            .build())
+                    .account(Bank.simpleBankAccount()
+                            .iban("FR7610011000201234567890188")
+                            .bic("PSSTFRPP")
+                            .build())
+                    .amount(i + "12.34")
+                    .currency("EUR")
+                    .endToEndId("ENDTOEND" + i)
+                    .id("ID" + i)
+                    .remittanceInformationUnstructured(Collections.singleton("Remittance <" + i + "> & more"));
+            if (version != V003_03) {
+                builder.chargeBearerCode(ChargeBearer.CRED)
+                        .intermediaryAgent(Bank.simpleBankAccount()
+                                .otherId("12345")
+                                .bic("BNPAFRPP")
+                                .build());
+            }
+            transactions.add(builder.build());
+        }
+        return transactions;
+    }
+
+    private static BigDecimal controlSum(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
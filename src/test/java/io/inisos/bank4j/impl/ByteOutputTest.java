@@ -0,0 +1,82 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class ByteOutputTest {
+
+    @Test
+    void output_stream_is_utf8_for_all_versions() {
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            for (boolean formatted : new boolean[]{false, true}) {
+                List<Transaction> transactions = transactions(5);
+
+                CreditTransferOperation creditTransfer = builder(version).transactions(transactions).build();
+                String expected = creditTransfer.marshal(formatted);
+
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                creditTransfer.marshal(outputStream, formatted);
+                String actual = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+                Assertions.assertEquals(expected, actual, version + (formatted ? " formatted" : ""));
+
+                ByteArrayOutputStream streamedOutputStream = new ByteArrayOutputStream();
+                builder(version)
+                        .transactions(transactions::stream)
+                        .build()
+                        .marshal(streamedOutputStream, formatted);
+                Assertions.assertArrayEquals(outputStream.toByteArray(), streamedOutputStream.toByteArray(), version + " streamed" + (formatted ? " formatted" : ""));
+            }
+        }
+    }
+
+    @Test
+    void channel_is_utf8() {
+        CreditTransferOperation creditTransfer = builder(CustomerCreditTransferInitiationVersion.V09).transactions(transactions(2)).build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        creditTransfer.marshal(Channels.newChannel(outputStream));
+
+        Assertions.assertEquals(creditTransfer.marshal(), new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void file_is_written(@TempDir Path directory) throws Exception {
+        CreditTransferOperation creditTransfer = builder(CustomerCreditTransferInitiationVersion.V03).transactions(transactions(2)).build();
+        Path path = directory.resolve("transfer.xml");
+        Files.write(path, new byte[100_000]);
+
+        creditTransfer.marshal(path, true);
+
+        Assertions.assertEquals(creditTransfer.marshal(true), new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+    }
+
+    private static CreditTransferOperationBuilder builder(CustomerCreditTransferInitiationVersion version) {
+        return TestTransactions.builder(version)
+                .debtor(Bank.simpleParty()
+                        .name("Société Générale")
+                        .build());
+    }
+
+    /**
+     * @return shared transactions, followed by one with non-ASCII characters
+     */
+    private static List<Transaction> transactions(int count) {
+        List<Transaction> transactions = new ArrayList<>(TestTransactions.transactions(count - 1));
+        transactions.add(TestTransactions.transaction(count + "0.50", "ENDTOEND" + count)
+                .party(Bank.simpleParty()
+                        .name("Crédit Agricole " + count + " €")
+                        .build())
+                .build());
+        return transactions;
+    }
+}
@@ -0,0 +1,85 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.Transaction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Currency;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V09;
+
+class CompactTransactionTest {
+
+    @Test
+    void amount_is_held_in_minor_units_of_the_currency() {
+        CompactTransaction euros = transaction("EUR").amount(new BigDecimal("12.3")).build();
+        CompactTransaction yens = transaction("JPY").amount(new BigDecimal("1200")).build();
+
+        Assertions.assertEquals(1230, euros.getUnscaledAmount());
+        Assertions.assertEquals(2, euros.getScale());
+        Assertions.assertEquals(new BigDecimal("12.30"), euros.getAmount());
+        Assertions.assertEquals(1200, yens.getUnscaledAmount());
+        Assertions.assertEquals(new BigDecimal("1200"), yens.getAmount());
+        Assertions.assertEquals(euros, transaction("EUR").unscaledAmount(1230).build());
+    }
+
+    @Test
+    void amount_must_fit_in_minor_units() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> transaction("EUR").amount(new BigDecimal("12.345")).build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> transaction("EUR").amount(new BigDecimal(Long.MAX_VALUE)).build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> transaction("XAU").unscaledAmount(1).build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompactTransaction.unscaledAmount(BigDecimal.ONE, Currency.getInstance("XXX")));
+    }
+
+    @Test
+    void totals_do_not_overflow() {
+        TransactionList transactions = new TransactionList();
+        transactions.add(transaction("EUR").unscaledAmount(Long.MAX_VALUE).build());
+        transactions.add(transaction("EUR").unscaledAmount(Long.MAX_VALUE).build());
+        transactions.add(transaction("EUR").unscaledAmount(2).build());
+        transactions.add(Bank.simpleTransaction()
+                .account(Bank.simpleBankAccount().iban("FR7610011000201234567890188").build())
+                .amount("0.005")
+                .currency("EUR")
+                .endToEndId("ENDTOEND")
+                .build());
+
+        BigDecimal expected = BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(2)).add(BigDecimal.valueOf(2)).movePointLeft(2).add(new BigDecimal("0.005"));
+        Assertions.assertEquals(expected, transactions.getTotals().getControlSum());
+        Assertions.assertEquals(expected, transactions.getTotals().getControlSumByCurrency().get("EUR"));
+    }
+
+    @Test
+    void amounts_are_marshalled_with_the_scale_of_their_currency() {
+        CreditTransferOperation creditTransfer = Bank.jaxbCreditTransfer(V09)
+                .debtorAccount(Bank.simpleBankAccount()
+                        .iban("FR7630001007941234567890185")
+                        .build())
+                .transactions(Arrays.<Transaction>asList(
+                        transaction("EUR").amount(new BigDecimal("12.3")).endToEndId("1").build(),
+                        transaction("EUR").unscaledAmount(5).endToEndId("2").build()))
+                .creationDateTime(LocalDateTime.of(2021, 1, 1, 0, 0))
+                .build();
+
+        String xml = creditTransfer.marshal();
+
+        Assertions.assertEquals(new BigDecimal("12.35"), creditTransfer.getControlSum());
+        Assertions.assertTrue(xml.contains("<CtrlSum>12.35</CtrlSum>"), xml);
+        Assertions.assertTrue(xml.contains("<InstdAmt Ccy=\"EUR\">12.30</InstdAmt>"), xml);
+        Assertions.assertTrue(xml.contains("<InstdAmt Ccy=\"EUR\">0.05</InstdAmt>"), xml);
+    }
+
+    private static CompactTransactionBuilder transaction(String currency) {
+        return Bank.compactTransaction()
+                .account(Bank.simpleBankAccount()
+                        .iban("FR7610011000201234567890188")
+                        .build())
+                .currency(Currency.getInstance(currency))
+                .endToEndId("ENDTOEND");
+    }
+}
@@ -0,0 +1,116 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.CreditTransferOperation;
+import jakarta.xml.bind.Marshaller;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V03;
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V09;
+
+class JAXBContextRegistryTest {
+
+    @Test
+    void context_is_created_once_per_version() {
+        JAXBContextRegistry registry = new JAXBContextRegistry(1);
+
+        Assertions.assertSame(registry.getContext(V09), registry.getContext(V09));
+        Assertions.assertNotSame(registry.getContext(V03), registry.getContext(V09));
+
+        JAXBContextRegistry.Statistics statistics = registry.getStatistics();
+        Assertions.assertEquals(2, statistics.getContextMisses());
+        Assertions.assertEquals(2, statistics.getContextHits());
+    }
+
+    @Test
+    void marshallers_are_reused() {
+        JAXBContextRegistry registry = new JAXBContextRegistry(2);
+        CreditTransferOperation creditTransfer = creditTransfer();
+        String expected = creditTransfer.marshal();
+
+        for (int i = 0; i < 5; i++) {
+            StringWriter writer = new StringWriter();
+            registry.marshal(V09, ((JAXBCreditTransferV09) creditTransfer).createDocument(), writer, false);
+            Assertions.assertEquals(expected, writer.toString());
+        }
+
+        JAXBContextRegistry.Statistics statistics = registry.getStatistics();
+        Assertions.assertEquals(1, statistics.getMarshallerMisses());
+        Assertions.assertEquals(4, statistics.getMarshallerHits());
+        Assertions.assertEquals(0, statistics.getPoolWaits());
+    }
+
+    @Test
+    void callers_wait_when_pool_is_exhausted() throws Exception {
+        JAXBContextRegistry registry = new JAXBContextRegistry(1);
+        Marshaller marshaller = registry.acquireMarshaller(V09, false);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Marshaller> waiting = executor.submit(() -> registry.acquireMarshaller(V09, true));
+            while (registry.getStatistics().getPoolWaits() == 0) {
+                Thread.sleep(1);
+            }
+            Assertions.assertFalse(waiting.isDone());
+
+            registry.releaseMarshaller(V09, marshaller);
+
+            Assertions.assertSame(marshaller, waiting.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(true, marshaller.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+            Assertions.assertEquals(1, registry.getStatistics().getMarshallerMisses());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrent_marshalling_produces_identical_output() throws Exception {
+        JAXBContextRegistry registry = new JAXBContextRegistry(2);
+        JAXBCreditTransferV09 creditTransfer = (JAXBCreditTransferV09) creditTransfer();
+        String expected = creditTransfer.marshal(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() -> {
+                    StringWriter writer = new StringWriter();
+                    registry.marshal(V09, creditTransfer.createDocument(), writer, true);
+                    return writer.toString();
+                }));
+            }
+            for (Future<String> result : results) {
+                Assertions.assertEquals(expected, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertTrue(registry.getStatistics().getMarshallerMisses() <= 2);
+    }
+
+    private static CreditTransferOperation creditTransfer() {
+        return Bank.jaxbCreditTransferSepa(V09)
+                .debtorAccount(Bank.simpleBankAccount()
+                        .iban("FR7630001007941234567890185")
+                        .build())
+                .transaction(Bank.simpleTransaction()
+                        .account(Bank.simpleBankAccount()
+                                .iban("FR7610011000201234567890188")
+                                .build())
+                        .amount("12.34")
+                        .currency("EUR")
+                        .endToEndId("ENDTOEND")
+                        .build())
+                .creationDateTime(LocalDateTime.of(2021, 1, 1, 0, 0))
+                .requestedExecutionDate(LocalDate.of(2021, 1, 2))
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.BankAccount;
+import io.inisos.bank4j.Party;
+import iso._20022.pain_001_001_03.*;
+import org.iban4j.Iban4jException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+class JAXBFragmentsTest {
+
+    private static final JAXBFragments.PostalAddresses<PostalAddress6> POSTAL_ADDRESSES = new JAXBFragments.PostalAddresses<>(PostalAddress6::new, PostalAddress6::getAdrLine, 2)
+            .townName(PostalAddress6::setTwnNm)
+            .country(PostalAddress6::setCtry);
+
+    private static final JAXBFragments.Parties<PartyIdentification32> PARTIES = new JAXBFragments.Parties<>(PartyIdentification32::new, PartyIdentification32::setNm)
+            .postalAddress(POSTAL_ADDRESSES, PartyIdentification32::setPstlAdr);
+
+    @Test
+    void postal_address_keeps_mapped_fields_and_limits_address_lines() {
+        Party party = Bank.simpleParty()
+                .name("Creditor")
+                .postalAddress(Bank.simplePostalAddress()
+                        .streetName("115 rue de Sèvres")
+                        .townName("Paris")
+                        .country("FR")
+                        .addressLines(Arrays.asList("Line 1", "Line 2", "Line 3"))
+                        .build())
+                .build();
+
+        PartyIdentification32 fragment = PARTIES.map(party);
+
+        Assertions.assertEquals("Creditor", fragment.getNm());
+        Assertions.assertNull(fragment.getPstlAdr().getStrtNm());
+        Assertions.assertEquals("Paris", fragment.getPstlAdr().getTwnNm());
+        Assertions.assertEquals("FR", fragment.getPstlAdr().getCtry());
+        Assertions.assertEquals(Arrays.asList("Line 1", "Line 2"), fragment.getPstlAdr().getAdrLine());
+    }
+
+    @Test
+    void missing_party_is_empty_unless_name_is_required() {
+        Assertions.assertNull(PARTIES.map(null).getNm());
+
+        JAXBFragments.Parties<PartyIdentification32> named = new JAXBFragments.Parties<>(PartyIdentification32::new, PartyIdentification32::setNm)
+                .requireName("Party name is required");
+        Party anonymous = Bank.simpleParty().build();
+
+        IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class, () -> named.map(anonymous));
+        Assertions.assertEquals("Party name is required", exception.getMessage());
+    }
+
+    @Test
+    void accounts_are_identified_by_iban_then_other_id() {
+        JAXBFragments.Accounts<CashAccount16> accounts = new JAXBFragments.Accounts<>(JAXBFragmentsTest::cashAccount, (cashAccount, iban) -> cashAccount.getId().setIBAN(iban))
+                .otherId((cashAccount, otherId) -> {
+                    GenericAccountIdentification1 genericAccountIdentification = new GenericAccountIdentification1();
+                    genericAccountIdentification.setId(otherId);
+                    cashAccount.getId().setOthr(genericAccountIdentification);
+                });
+        JAXBFragments.Accounts<CashAccount16> ibanOnly = new JAXBFragments.Accounts<>(JAXBFragmentsTest::cashAccount, (cashAccount, iban) -> cashAccount.getId().setIBAN(iban))
+                .requireIban("IBAN must be provided");
+        BankAccount other = Bank.simpleBankAccount().otherId("1234567890").name("Account").build();
+
+        CashAccount16 fragment = accounts.map(other);
+        Assertions.assertEquals("1234567890", fragment.getId().getOthr().getId());
+        Assertions.assertNull(fragment.getNm(), "Name is not mapped");
+
+        Assertions.assertEquals("FR7630001007941234567890185", accounts.map(Bank.simpleBankAccount().iban("FR7630001007941234567890185").otherId("1234567890").build()).getId().getIBAN());
+        Assertions.assertThrows(Iban4jException.class, () -> accounts.map(Bank.simpleBankAccount().iban("FR0000000000000000000000000").build()));
+        IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class, () -> ibanOnly.map(other));
+        Assertions.assertEquals("IBAN must be provided", exception.getMessage());
+    }
+
+    @Test
+    void mandatory_agent_without_bic_is_marked_as_not_provided() {
+        JAXBFragments.Agents<BranchAndFinancialInstitutionIdentification4> agents = new JAXBFragments.Agents<>(JAXBFragmentsTest::agent, (agent, bic) -> agent.getFinInstnId().setBIC(bic))
+                .notProvided(agent -> agent.getFinInstnId().setNm("NOTPROVIDED"));
+        BankAccount withoutBic = Bank.simpleBankAccount().iban("FR7630001007941234567890185").build();
+
+        Assertions.assertFalse(agents.optional(withoutBic).isPresent());
+        Assertions.assertEquals("NOTPROVIDED", agents.mandatory(withoutBic).getFinInstnId().getNm());
+        Assertions.assertEquals("BDFEFRPPXXX", agents.mandatory(Bank.simpleBankAccount().iban("FR7630001007941234567890185").bic("BDFEFRPPXXX").build()).getFinInstnId().getBIC());
+        Assertions.assertThrows(Iban4jException.class, () -> agents.optional(Bank.simpleBankAccount().iban("FR7630001007941234567890185").bic("INVALID").build()));
+    }
+
+    @Test
+    void cache_maps_same_party_and_account_once() {
+        Party party = Bank.simpleParty().name("Creditor").postalAddress(Bank.simplePostalAddress().country("FR").build()).build();
+        JAXBFragments.Accounts<CashAccount16> accounts = new JAXBFragments.Accounts<>(JAXBFragmentsTest::cashAccount, (cashAccount, iban) -> cashAccount.getId().setIBAN(iban));
+        BankAccount account = Bank.simpleBankAccount().iban("FR7630001007941234567890185").build();
+        JAXBFragments.Cache cache = new JAXBFragments.Cache();
+
+        Assertions.assertSame(PARTIES.map(party, cache), PARTIES.map(party, cache));
+        Assertions.assertSame(accounts.map(account, cache), accounts.map(account, cache));
+        Assertions.assertNotSame(PARTIES.map(party, cache), PARTIES.map(party, new JAXBFragments.Cache()), "Cache is scoped to one build");
+        Assertions.assertNotSame(PARTIES.map(party), PARTIES.map(party), "No cache, no sharing");
+        Assertions.assertNotSame(PARTIES.map(party, cache), PARTIES.map(Bank.simpleParty().name("Creditor").build(), cache));
+    }
+
+    @Test
+    void cache_maps_agents_by_bic() {
+        JAXBFragments.Agents<BranchAndFinancialInstitutionIdentification4> agents = new JAXBFragments.Agents<>(JAXBFragmentsTest::agent, (agent, bic) -> agent.getFinInstnId().setBIC(bic));
+        JAXBFragments.Cache cache = new JAXBFragments.Cache();
+
+        BranchAndFinancialInstitutionIdentification4 agent = agents.mandatory(Bank.simpleBankAccount().iban("FR7630001007941234567890185").bic("BDFEFRPPXXX").build(), cache);
+
+        Assertions.assertSame(agent, agents.mandatory(Bank.simpleBankAccount().iban("DE89370400440532013000").bic("BDFEFRPPXXX").build(), cache));
+        Assertions.assertSame(agent, agents.optional(Bank.simpleBankAccount().otherId("1234567890").bic("BDFEFRPPXXX").build(), cache).orElse(null));
+        Assertions.assertNotSame(agent, agents.mandatory(Bank.simpleBankAccount().otherId("1234567890").bic("DEUTDEFFXXX").build(), cache));
+    }
+
+    @Test
+    void cache_is_bounded_per_mapping() {
+        JAXBFragments.Cache cache = new JAXBFragments.Cache();
+        Party first = Bank.simpleParty().name("Party 0").build();
+        PartyIdentification32 fragment = PARTIES.map(first, cache);
+
+        for (int i = 1; i < JAXBFragments.Cache.MAXIMUM_SIZE; i++) {
+            PARTIES.map(Bank.simpleParty().name("Party " + i).build(), cache);
+        }
+        Assertions.assertSame(fragment, PARTIES.map(first, cache));
+
+        PARTIES.map(Bank.simpleParty().name("Party " + JAXBFragments.Cache.MAXIMUM_SIZE).build(), cache);
+        Assertions.assertNotSame(fragment, PARTIES.map(first, cache), "Cache is cleared once full");
+    }
+
+    private static CashAccount16 cashAccount() {
+        CashAccount16 cashAccount = new CashAccount16();
+        cashAccount.setId(new AccountIdentification4Choice());
+        return cashAccount;
+    }
+
+    private static BranchAndFinancialInstitutionIdentification4 agent() {
+        BranchAndFinancialInstitutionIdentification4 agent = new BranchAndFinancialInstitutionIdentification4();
+        agent.setFinInstnId(new FinancialInstitutionIdentification7());
+        return agent;
+    }
+}
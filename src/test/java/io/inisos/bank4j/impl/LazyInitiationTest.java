@@ -0,0 +1,83 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.CreditTransferOperationBuilder;
+import org.iban4j.Iban4jException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V03;
+
+class LazyInitiationTest {
+
+    @Test
+    void retained_initiation_is_built_once_on_first_use() {
+        AtomicInteger builds = new AtomicInteger();
+        LazyInitiation<Object> initiation = new LazyInitiation<>(() -> {
+            builds.incrementAndGet();
+            return new Object();
+        }, true);
+
+        Assertions.assertEquals(0, builds.get());
+        Assertions.assertSame(initiation.get(), initiation.get());
+        Assertions.assertEquals(1, builds.get());
+    }
+
+    @Test
+    void discarded_initiation_is_built_on_each_use() {
+        AtomicInteger builds = new AtomicInteger();
+        LazyInitiation<Object> initiation = new LazyInitiation<>(() -> {
+            builds.incrementAndGet();
+            return new Object();
+        }, false);
+
+        Assertions.assertNotSame(initiation.get(), initiation.get());
+        Assertions.assertEquals(2, builds.get());
+    }
+
+    @Test
+    void credit_transfer_builds_its_document_when_marshalled() {
+        CreditTransferOperation creditTransfer = builder("INVALID").build();
+
+        Assertions.assertEquals(new BigDecimal("11.50"), creditTransfer.getControlSum());
+        Assertions.assertEquals(creditTransfer, builder("INVALID").build());
+        Assertions.assertThrows(Iban4jException.class, creditTransfer::marshal);
+    }
+
+    @Test
+    void credit_transfer_document_can_be_discarded_after_marshalling() {
+        JAXBCreditTransferV03 retained = (JAXBCreditTransferV03) builder("PSSTFRPP").build();
+        JAXBCreditTransferV03 discarded = (JAXBCreditTransferV03) builder("PSSTFRPP").retainDocument(false).build();
+
+        Assertions.assertSame(retained.createDocument().getValue().getCstmrCdtTrfInitn(), retained.createDocument().getValue().getCstmrCdtTrfInitn());
+        Assertions.assertNotSame(discarded.createDocument().getValue().getCstmrCdtTrfInitn(), discarded.createDocument().getValue().getCstmrCdtTrfInitn());
+        Assertions.assertEquals(retained.marshal(), discarded.marshal());
+        Assertions.assertEquals(retained.marshal(), discarded.marshal());
+    }
+
+    private static CreditTransferOperationBuilder builder(String creditorBic) {
+        return Bank.jaxbCreditTransferSepa(V03)
+                .debtorAccount(Bank.simpleBankAccount()
+                        .iban("FR7630001007941234567890185")
+                        .bic("BDFEFRPPXXX")
+                        .build())
+                .transaction(Bank.simpleTransaction()
+                        .account(Bank.simpleBankAccount()
+                                .iban("FR7610011000201234567890188")
+                                .bic(creditorBic)
+                                .build())
+                        .amount(new BigDecimal("11.50"))
+                        .currency("EUR")
+                        .endToEndId("ENDTOEND")
+                        .build())
+                .id("MYID")
+                .creationDateTime(LocalDateTime.of(2021, 1, 1, 0, 0))
+                .requestedExecutionDate(LocalDate.of(2021, 1, 2));
+    }
+}
@@ -0,0 +1,113 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.ChargeBearer;
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.Transaction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.Iterator;
+
+import static io.inisos.bank4j.impl.TestTransactions.assertMarshalledAsTheSameTransactions;
+import static io.inisos.bank4j.impl.TestTransactions.transaction;
+import static io.inisos.bank4j.impl.TestTransactions.transactions;
+
+class OffHeapTransactionStoreTest {
+
+    @Test
+    void transactions_are_read_back_from_records() {
+        try (OffHeapTransactionStore store = OffHeapTransactionStore.direct(128)) {
+            store.appender()
+                    .name("Créditeur")
+                    .iban("FR7610011000201234567890188")
+                    .bic("PSSTFRPP")
+                    .unscaledAmount(1234)
+                    .currency(Currency.getInstance("EUR"))
+                    .endToEndId("ENDTOEND1")
+                    .id("ID1")
+                    .chargeBearer(ChargeBearer.SLEV)
+                    .remittanceInformationUnstructured("Line 1")
+                    .remittanceInformationUnstructured("Line 2")
+                    .add()
+                    .otherId("1234567890")
+                    .unscaledAmount(5)
+                    .currency(Currency.getInstance("JPY"))
+                    .endToEndId("ENDTOEND2")
+                    .add();
+
+            Iterator<Transaction> iterator = store.iterator();
+            Transaction first = iterator.next();
+            Transaction second = iterator.next();
+
+            Assertions.assertFalse(iterator.hasNext());
+            Assertions.assertEquals("Créditeur", first.getParty().flatMap(party -> party.getName()).orElse(null));
+            Assertions.assertEquals("FR7610011000201234567890188", first.getAccount().getIban().orElse(null));
+            Assertions.assertEquals("PSSTFRPP", first.getAccount().getBic().orElse(null));
+            Assertions.assertEquals(new BigDecimal("12.34"), first.getAmount());
+            Assertions.assertEquals("EUR", first.getCurrencyCode());
+            Assertions.assertEquals("ENDTOEND1", first.getEndToEndId());
+            Assertions.assertEquals("ID1", first.getId().orElse(null));
+            Assertions.assertEquals(ChargeBearer.SLEV, first.getChargeBearer().orElse(null));
+            Assertions.assertEquals(Arrays.asList("Line 1", "Line 2"), new ArrayList<>(first.getRemittanceInformationUnstructured()));
+            Assertions.assertFalse(second.getParty().isPresent());
+            Assertions.assertEquals("1234567890", second.getAccount().getOtherId().orElse(null));
+            Assertions.assertFalse(second.getAccount().getBic().isPresent());
+            Assertions.assertEquals(new BigDecimal("5"), second.getAmount());
+            Assertions.assertFalse(second.getId().isPresent());
+            Assertions.assertFalse(second.getChargeBearer().isPresent());
+            Assertions.assertTrue(second.getRemittanceInformationUnstructured().isEmpty());
+        }
+    }
+
+    @Test
+    void records_must_fit_in_a_segment() {
+        try (OffHeapTransactionStore store = OffHeapTransactionStore.direct(64)) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> store.add(transaction("1.00", "E2E").remittanceInformationUnstructured(Collections.singleton(String.join("", Collections.nCopies(60, "x")))).build()));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> store.add(transaction("1.00", "E2E").party(Bank.simpleParty().postalAddress(Bank.simplePostalAddress().country("FR").build()).build()).build()));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> store.add(transaction("1.00", "E2E").account(Bank.simpleBankAccount().iban("FR7610011000201234567890188").otherId("1").build()).build()));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> store.appender().iban("FR7610011000201234567890188").otherId("1").unscaledAmount(1).currency(Currency.getInstance("EUR")).endToEndId("E2E").add());
+            Assertions.assertThrows(IllegalArgumentException.class, () -> store.appender().iban("").otherId("").unscaledAmount(1).currency(Currency.getInstance("EUR")).endToEndId("E2E").add());
+            Assertions.assertTrue(store.isEmpty());
+            Assertions.assertEquals(0, store.getTotals().getNumberOfTransactions());
+        }
+    }
+
+    @Test
+    void released_buffers_are_not_read_once_closed() {
+        OffHeapTransactionStore store = OffHeapTransactionStore.direct(96);
+        store.addAll(transactions());
+        Iterator<Transaction> iterator = store.iterator();
+        Assertions.assertEquals("1", iterator.next().getEndToEndId());
+
+        store.close();
+        try (OffHeapTransactionStore next = OffHeapTransactionStore.direct(96)) {
+            next.add(transaction("9.99", "NEXT").build());
+
+            Assertions.assertThrows(IllegalStateException.class, iterator::next);
+            Assertions.assertEquals("NEXT", next.iterator().next().getEndToEndId());
+        }
+    }
+
+    @Test
+    void store_is_marshalled_as_the_same_transactions(@TempDir Path directory) {
+        try (OffHeapTransactionStore store = OffHeapTransactionStore.mapped(directory.resolve("transactions.bin"), 128)) {
+            store.addAll(transactions());
+
+            CreditTransferOperation streamed = assertMarshalledAsTheSameTransactions(store);
+            Assertions.assertEquals(4, store.size());
+            Assertions.assertEquals(new BigDecimal("23.79"), TransactionTotals.of(store).getControlSum());
+
+            store.close();
+            Assertions.assertThrows(IllegalStateException.class, streamed::marshal);
+            Assertions.assertThrows(IllegalStateException.class, store::iterator);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import io.inisos.bank4j.Transaction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V09;
+import static io.inisos.bank4j.impl.TestTransactions.builder;
+import static io.inisos.bank4j.impl.TestTransactions.transaction;
+import static io.inisos.bank4j.impl.TestTransactions.transactions;
+
+class SchemaRegistryTest {
+
+    @Test
+    void schema_is_compiled_once_per_version() {
+        SchemaRegistry registry = new SchemaRegistry();
+
+        Assertions.assertSame(registry.getSchema(V09), registry.getSchema(V09));
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            String xml = builder(version).transactions(transactions(3)).build().marshal();
+            Assertions.assertDoesNotThrow(() -> registry.validate(version, new StreamSource(new StringReader(xml))));
+        }
+        Assertions.assertThrows(XmlException.class, () -> registry.validate(V09, new StreamSource(new StringReader("<Document/>"))));
+    }
+
+    @Test
+    void output_is_validated_while_marshalling() {
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            List<Transaction> valid = transactions(3);
+            List<Transaction> invalid = Collections.singletonList(transaction("1.50", "END TO END IDENTIFIER LONGER THAN 35 CHARACTERS").build());
+
+            for (boolean formatted : new boolean[]{false, true}) {
+                Assertions.assertDoesNotThrow(() -> builder(version).schemaValidation(true).transactions(valid).build().marshal(formatted), version.name());
+                Assertions.assertDoesNotThrow(() -> builder(version).schemaValidation(true).transactions(valid::stream).build().marshal(new ByteArrayOutputStream(), formatted), version.name());
+                Assertions.assertThrows(XmlException.class, () -> builder(version).schemaValidation(true).transactions(invalid).build().marshal(formatted), version.name());
+                Assertions.assertThrows(XmlException.class, () -> builder(version).schemaValidation(true).transactions(invalid::stream).build().marshal(formatted), version.name());
+                Assertions.assertThrows(XmlException.class, () -> Bank.jaxbCreditTransferMessage(version).schemaValidation(true).paymentInformation(builder(version).transactions(invalid).build()).build().marshal(formatted), version.name());
+                Assertions.assertDoesNotThrow(() -> builder(version).transactions(invalid).build().marshal(formatted), version.name());
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V03;
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V09;
+import static io.inisos.bank4j.impl.TestTransactions.builder;
+import static io.inisos.bank4j.impl.TestTransactions.transactions;
+
+class StAXCreditTransferConverterTest {
+
+    @Test
+    void files_are_converted_between_all_versions(@TempDir Path directory) {
+        for (CustomerCreditTransferInitiationVersion source : CustomerCreditTransferInitiationVersion.values()) {
+            Path sourcePath = directory.resolve(source + ".xml");
+            List<Transaction> transactions = transactions(3);
+            builder(source).transactions(transactions).build().marshal(sourcePath);
+
+            for (CustomerCreditTransferInitiationVersion target : CustomerCreditTransferInitiationVersion.values()) {
+                Path targetPath = directory.resolve(source + "-" + target + ".xml");
+
+                StAXCreditTransferConverter.Report report = new StAXCreditTransferConverter(target).convert(sourcePath, targetPath);
+
+                Assertions.assertTrue(report.isLossless(), report.toString());
+                Assertions.assertEquals(source, report.getSourceVersion());
+                Assertions.assertEquals(1, report.getNumberOfPaymentInformation());
+                Assertions.assertEquals(3, report.getNumberOfTransactions());
+                Assertions.assertTrue(Bank.staxCreditTransferValidator(target).validate(targetPath).isValid(), source + " to " + target);
+                try (StAXCreditTransferReader.Message message = Bank.staxCreditTransferReader(target).read(targetPath)) {
+                    Assertions.assertEquals(transactions, message.transactions().collect(Collectors.toList()), source + " to " + target);
+                }
+            }
+        }
+    }
+
+    @Test
+    void messages_are_converted_as_marshalled_in_the_target_version() {
+        List<Transaction> first = transactions(2);
+        List<Transaction> second = transactions(3);
+        String source = message(V03, first, second).marshal(true);
+
+        String converted = convert(new StAXCreditTransferConverter(V09, true), source).toString(StandardCharsets.UTF_8);
+
+        Assertions.assertEquals(message(V09, first, second).marshal(true), converted);
+    }
+
+    @Test
+    void messages_are_validated_while_converted() {
+        String source = message(V03, transactions(2), transactions(3)).marshal();
+        for (CustomerCreditTransferInitiationVersion target : CustomerCreditTransferInitiationVersion.values()) {
+            for (boolean formatted : new boolean[]{false, true}) {
+                ByteArrayOutputStream output = convert(new StAXCreditTransferConverter(target, formatted, true), source);
+                SchemaRegistry.getInstance().validate(target, new StreamSource(new StringReader(output.toString(StandardCharsets.UTF_8))));
+            }
+        }
+    }
+
+    @Test
+    void unrepresentable_fields_are_reported() {
+        String source = builder(V09, null)
+                .requestedExecutionDateTime(ZonedDateTime.of(2021, 1, 2, 10, 30, 0, 0, ZoneOffset.ofHours(1)))
+                .instantPayment(true)
+                .transactions(transactions(2))
+                .build()
+                .marshal();
+
+        StAXCreditTransferConverter.Report report = new StAXCreditTransferConverter(V03).convert(
+                new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream());
+
+        Assertions.assertFalse(report.isLossless());
+        Assertions.assertEquals(Long.valueOf(1), report.getUnrepresentableFields().get(StAXCreditTransferConverter.Field.REQUESTED_EXECUTION_DATE_TIME));
+        Assertions.assertEquals(Long.valueOf(1), report.getUnrepresentableFields().get(StAXCreditTransferConverter.Field.INSTANT_PAYMENT));
+    }
+
+    @Test
+    void unmodelled_elements_are_reported(@TempDir Path directory) throws Exception {
+        Path source = directory.resolve("source.xml");
+        Path target = directory.resolve("target.xml");
+        String xml = builder(V09).transactions(transactions(2)).build().marshal()
+                .replace("<RmtInf><Ustrd>Invoice 1</Ustrd></RmtInf>", "<Purp><Cd>SALA</Cd></Purp><RmtInf><Ustrd>Invoice 1</Ustrd><Strd><CdtrRefInf><Ref>RF18539007547034</Ref></CdtrRefInf></Strd></RmtInf>");
+        Files.write(source, xml.getBytes(StandardCharsets.UTF_8));
+        Assertions.assertTrue(Bank.staxCreditTransferValidator(V09).validate(source).isValid(), xml);
+
+        StAXCreditTransferConverter.Report report = new StAXCreditTransferConverter(V09).convert(source, target);
+
+        Assertions.assertFalse(report.isLossless());
+        Assertions.assertEquals(Long.valueOf(2), report.getUnrepresentableFields().get(StAXCreditTransferConverter.Field.UNMODELLED));
+        Map<String, Long> unmodelledElements = new TreeMap<>();
+        unmodelledElements.put("Purp", 1L);
+        unmodelledElements.put("Strd", 1L);
+        Assertions.assertEquals(unmodelledElements, report.getUnmodelledElements());
+    }
+
+    @Test
+    void failed_conversions_leave_no_target(@TempDir Path directory) throws Exception {
+        Path source = directory.resolve("source.xml");
+        Path target = directory.resolve("target.xml");
+        String xml = builder(V03).transactions(transactions(2)).build().marshal()
+                .replaceAll("<NbOfTxs>2</NbOfTxs>", "")
+                .replaceAll("<CtrlSum>[0-9.]+</CtrlSum>", "");
+        Files.write(source, xml.getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new StAXCreditTransferConverter(V09).convert(source, target));
+
+        Assertions.assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void restricted_versions_report_dropped_transaction_fields() {
+        List<Transaction> transactions = Collections.singletonList(Bank.simpleTransaction()
+                .party(Bank.simpleParty()
+                        .name("Creditor")
+                        .postalAddress(Bank.simplePostalAddress()
+                                .streetName("Rue du Louvre")
+                                .country("FR")
+                                .build())
+                        .build())
+                .account(Bank.simpleBankAccount()
+                        .iban("FR7610011000201234567890188")
+                        .name("Creditor account")
+                        .build())
+                .amount("10.50")
+                .currency("EUR")
+                .endToEndId("ENDTOEND")
+                .remittanceInformationUnstructured(new LinkedHashSet<>(Arrays.asList("Invoice 1", "Invoice 2")))
+                .build());
+        String source = builder(V03).transactions(transactions).build().marshal();
+
+        StAXCreditTransferConverter.Report report = new StAXCreditTransferConverter(CustomerCreditTransferInitiationVersion.V003_03).convert(
+                new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream());
+
+        Assertions.assertEquals(EnumSet.of(
+                        StAXCreditTransferConverter.Field.POSTAL_ADDRESS,
+                        StAXCreditTransferConverter.Field.REMITTANCE_INFORMATION,
+                        StAXCreditTransferConverter.Field.ACCOUNT_NAME),
+                report.getUnrepresentableFields().keySet());
+    }
+
+    private static ByteArrayOutputStream convert(StAXCreditTransferConverter converter, String source) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        converter.convert(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)), output);
+        return output;
+    }
+
+    private static CreditTransferMessage message(CustomerCreditTransferInitiationVersion version, List<Transaction> first, List<Transaction> second) {
+        return Bank.jaxbCreditTransferMessage(version)
+                .id("MESSAGE")
+                .creationDateTime(LocalDateTime.of(2021, 1, 1, 0, 0))
+                .paymentInformation(builder(version).id("FIRST").transactions(first).build())
+                .paymentInformation(builder(version, LocalDate.of(2021, 1, 3)).id("SECOND").transactions(second).build())
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V03;
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V09;
+import static io.inisos.bank4j.impl.TestTransactions.builder;
+import static io.inisos.bank4j.impl.TestTransactions.transactions;
+
+class StAXCreditTransferReaderTest {
+
+    @Test
+    void written_files_are_read_back_for_all_versions(@TempDir Path directory) {
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            Path path = directory.resolve(version + ".xml");
+            List<Transaction> transactions = transactions(3);
+            builder(version).transactions(transactions).build().marshal(path, true);
+
+            try (StAXCreditTransferReader.Message message = Bank.staxCreditTransferReader().read(path)) {
+                Assertions.assertEquals(version, message.getVersion());
+                Assertions.assertEquals("MYID", message.getMessageId());
+                Assertions.assertEquals(LocalDateTime.of(2021, 1, 1, 0, 0), message.getCreationDateTime());
+                Assertions.assertEquals(Optional.of(3), message.getDeclaredNumberOfTransactions());
+                Assertions.assertEquals(Optional.of("Debtor"), message.getInitiatingParty().flatMap(Party::getName));
+
+                StAXCreditTransferReader.ReadCreditTransfer creditTransfer = message.next();
+                Assertions.assertEquals("MYID", creditTransfer.getId());
+                Assertions.assertEquals("SEPA", creditTransfer.getServiceLevelCode());
+                Assertions.assertEquals(LocalDate.of(2021, 1, 2), creditTransfer.getRequestedExecutionDate());
+                Assertions.assertEquals(Optional.of("Debtor"), creditTransfer.getDebtor().flatMap(Party::getName));
+                Assertions.assertEquals(Optional.of("FR7630001007941234567890185"), creditTransfer.getDebtorAccount().getIban());
+                Assertions.assertEquals(Optional.of("BDFEFRPPXXX"), creditTransfer.getDebtorAccount().getBic());
+                Assertions.assertEquals(0, new BigDecimal("61.50").compareTo(creditTransfer.getControlSum()));
+                Assertions.assertEquals(transactions, creditTransfer.transactions().collect(Collectors.toList()), version.toString());
+                Assertions.assertFalse(message.hasNext());
+            }
+        }
+    }
+
+    @Test
+    void requested_execution_date_time_and_instant_payment_are_read() {
+        String xml = builder(V09, null)
+                .requestedExecutionDateTime(ZonedDateTime.of(2021, 1, 2, 10, 30, 0, 0, ZoneOffset.ofHours(1)))
+                .instantPayment(true)
+                .transactions(transactions(1))
+                .build()
+                .marshal();
+
+        try (StAXCreditTransferReader.Message message = read(V09, xml)) {
+            StAXCreditTransferReader.ReadCreditTransfer creditTransfer = message.next();
+            Assertions.assertNull(creditTransfer.getRequestedExecutionDate());
+            Assertions.assertEquals(ZonedDateTime.of(2021, 1, 2, 10, 30, 0, 0, ZoneOffset.ofHours(1)), creditTransfer.getRequestedExecutionDateTime());
+            Assertions.assertTrue(creditTransfer.isInstantPayment());
+        }
+    }
+
+    @Test
+    void transactions_of_several_payment_information_are_streamed_in_order() {
+        List<Transaction> first = transactions(2);
+        List<Transaction> second = transactions(3);
+        String xml = Bank.jaxbCreditTransferMessage(V03)
+                .id("MESSAGE")
+                .creationDateTime(LocalDateTime.of(2021, 1, 1, 0, 0))
+                .paymentInformation(builder(V03).id("FIRST").transactions(first).build())
+                .paymentInformation(builder(V03, LocalDate.of(2021, 1, 3)).id("SECOND").transactions(second).build())
+                .build()
+                .marshal();
+
+        try (StAXCreditTransferReader.Message message = read(V03, xml)) {
+            Assertions.assertEquals("MESSAGE", message.getMessageId());
+            Assertions.assertEquals(
+                    Stream.concat(first.stream(), second.stream()).collect(Collectors.toList()),
+                    message.transactions().collect(Collectors.toList()));
+        }
+        try (StAXCreditTransferReader.Message message = read(V03, xml)) {
+            Assertions.assertEquals(Arrays.asList("FIRST", "SECOND"), message.creditTransfers()
+                    .map(StAXCreditTransferReader.ReadCreditTransfer::getId)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void transactions_must_be_streamed_before_the_next_payment_information() {
+        String xml = Bank.jaxbCreditTransferMessage(V03)
+                .id("MESSAGE")
+                .creationDateTime(LocalDateTime.of(2021, 1, 1, 0, 0))
+                .paymentInformation(builder(V03).id("FIRST").transactions(transactions(2)).build())
+                .paymentInformation(builder(V03, LocalDate.of(2021, 1, 3)).id("SECOND").transactions(transactions(1)).build())
+                .build()
+                .marshal();
+
+        try (StAXCreditTransferReader.Message message = read(V03, xml)) {
+            StAXCreditTransferReader.ReadCreditTransfer first = message.next();
+            Iterator<Transaction> iterator = first.transactions().iterator();
+            Assertions.assertEquals("ENDTOEND1", iterator.next().getEndToEndId());
+
+            StAXCreditTransferReader.ReadCreditTransfer second = message.next();
+            Assertions.assertEquals("SECOND", second.getId());
+            Assertions.assertThrows(IllegalStateException.class, iterator::hasNext);
+            Assertions.assertThrows(IllegalStateException.class, first::transactions);
+            Assertions.assertEquals(1, second.transactions().count());
+        }
+    }
+
+    @Test
+    void read_transactions_are_checked_against_declared_totals() {
+        String xml = builder(V03).transactions(transactions(2)).build().marshal()
+                .replace("<CtrlSum>31.00</CtrlSum>", "<CtrlSum>31.01</CtrlSum>");
+
+        try (StAXCreditTransferReader.Message message = read(V03, xml)) {
+            Collection<Transaction> transactions = message.next().getTransactions();
+            Assertions.assertEquals(2, transactions.size());
+            Assertions.assertThrows(IllegalStateException.class, () -> transactions.forEach(Objects::requireNonNull));
+        }
+    }
+
+    @Test
+    void unexpected_version_is_rejected() {
+        String xml = builder(V03).transactions(transactions(1)).build().marshal();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> read(V09, xml));
+    }
+
+    private static StAXCreditTransferReader.Message read(CustomerCreditTransferInitiationVersion version, String xml) {
+        return Bank.staxCreditTransferReader(version).read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
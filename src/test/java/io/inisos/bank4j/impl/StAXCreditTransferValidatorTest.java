@@ -0,0 +1,127 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V03;
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V09;
+import static io.inisos.bank4j.impl.TestTransactions.builder;
+import static io.inisos.bank4j.impl.TestTransactions.transactions;
+
+class StAXCreditTransferValidatorTest {
+
+    @Test
+    void valid_files_pass_for_all_versions(@TempDir Path directory) {
+        for (CustomerCreditTransferInitiationVersion version : CustomerCreditTransferInitiationVersion.values()) {
+            Path path = directory.resolve(version + ".xml");
+            builder(version).transactions(transactions(3)).build().marshal(path, true);
+
+            StAXCreditTransferValidator.Report report = Bank.staxCreditTransferValidator(version).validate(path);
+
+            Assertions.assertTrue(report.isValid(), version + " " + report);
+            Assertions.assertEquals(3, report.getNumberOfTransactions());
+            Assertions.assertEquals(0, new BigDecimal("61.50").compareTo(report.getControlSum()));
+        }
+    }
+
+    @Test
+    void business_rules_are_checked() {
+        String xml = builder(V09).transactions(transactions(3)).build().marshal(true)
+                .replace("<NbOfTxs>3</NbOfTxs>", "<NbOfTxs>4</NbOfTxs>")
+                .replace("<CtrlSum>61.50</CtrlSum>", "<CtrlSum>61.51</CtrlSum>")
+                .replace("FR7610011000201234567890188", "FR7610011000201234567890189")
+                .replace("<BICFI>PSSTFRPP</BICFI>", "<BICFI>PSSTZZPP</BICFI>")
+                .replace("<EndToEndId>ENDTOEND2</EndToEndId>", "<EndToEndId>ENDTOEND1</EndToEndId>")
+                .replace("<EndToEndId>ENDTOEND3</EndToEndId>", "<EndToEndId>END#3</EndToEndId>");
+
+        StAXCreditTransferValidator.Report report = validate(V09, xml, 100);
+
+        Assertions.assertFalse(report.isValid());
+        Assertions.assertFalse(report.isTruncated());
+        List<StAXCreditTransferValidator.Rule> rules = report.getViolations().stream()
+                .map(StAXCreditTransferValidator.Violation::getRule)
+                .distinct()
+                .collect(Collectors.toList());
+        Assertions.assertTrue(rules.contains(StAXCreditTransferValidator.Rule.NUMBER_OF_TRANSACTIONS), report.toString());
+        Assertions.assertTrue(rules.contains(StAXCreditTransferValidator.Rule.CONTROL_SUM), report.toString());
+        Assertions.assertTrue(rules.contains(StAXCreditTransferValidator.Rule.IBAN), report.toString());
+        Assertions.assertTrue(rules.contains(StAXCreditTransferValidator.Rule.BIC), report.toString());
+        Assertions.assertTrue(rules.contains(StAXCreditTransferValidator.Rule.DUPLICATE_END_TO_END_ID), report.toString());
+        Assertions.assertTrue(rules.contains(StAXCreditTransferValidator.Rule.CHARACTER_SET), report.toString());
+        Assertions.assertTrue(report.getViolations().stream().allMatch(violation -> violation.getLineNumber() > 0));
+    }
+
+    @Test
+    void schema_violations_are_reported() {
+        String xml = builder(V03).transactions(transactions(1)).build().marshal(true)
+                .replace("<MsgId>MYID</MsgId>", "<MessageId>MYID</MessageId>");
+
+        StAXCreditTransferValidator.Report report = validate(V03, xml, 100);
+
+        Assertions.assertFalse(report.isValid());
+        Assertions.assertEquals(StAXCreditTransferValidator.Rule.SCHEMA, report.getViolations().get(0).getRule());
+    }
+
+    @Test
+    void malformed_documents_are_reported() {
+        StAXCreditTransferValidator.Report report = validate(V03, "<Document><CstmrCdtTrfInitn>", 100);
+
+        Assertions.assertFalse(report.isValid());
+        Assertions.assertEquals(StAXCreditTransferValidator.Rule.SCHEMA, report.getViolations().get(0).getRule());
+    }
+
+    @Test
+    void violations_are_capped() {
+        String xml = builder(V09).transactions(transactions(20)).build().marshal()
+                .replace("FR7610011000201234567890188", "FR7610011000201234567890189");
+
+        StAXCreditTransferValidator.Report report = validate(V09, xml, 5);
+
+        Assertions.assertTrue(report.isTruncated());
+        Assertions.assertEquals(5, report.getViolations().size());
+        Assertions.assertTrue(report.getNumberOfTransactions() < 20);
+    }
+
+    @Test
+    void equivalent_amounts_are_summed() {
+        String xml = builder(V09).transactions(transactions(2)).build().marshal()
+                .replace("<InstdAmt Ccy=\"EUR\">10.50</InstdAmt>", "<EqvtAmt><Amt Ccy=\"EUR\">10.50</Amt><CcyOfTrf>USD</CcyOfTrf></EqvtAmt>");
+
+        StAXCreditTransferValidator.Report report = validate(V09, xml, 100);
+
+        Assertions.assertTrue(xml.contains("<EqvtAmt>"), xml);
+        Assertions.assertTrue(report.isValid(), report.toString());
+        Assertions.assertEquals(0, new BigDecimal("31.00").compareTo(report.getControlSum()));
+    }
+
+    @Test
+    void end_to_end_ids_kept_are_bounded() {
+        String xml = builder(V09).transactions(transactions(3)).build().marshal()
+                .replace("<EndToEndId>ENDTOEND3</EndToEndId>", "<EndToEndId>ENDTOEND2</EndToEndId>");
+
+        StAXCreditTransferValidator.Report bounded = new StAXCreditTransferValidator(V09, 100, 1)
+                .validate(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        StAXCreditTransferValidator.Report unbounded = validate(V09, xml, 100);
+
+        Assertions.assertTrue(bounded.isValid(), bounded.toString());
+        Assertions.assertFalse(bounded.isEndToEndIdCheckComplete());
+        Assertions.assertEquals(StAXCreditTransferValidator.Rule.DUPLICATE_END_TO_END_ID, unbounded.getViolations().get(0).getRule());
+        Assertions.assertTrue(unbounded.isEndToEndIdCheckComplete());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new StAXCreditTransferValidator(V09, 100, -1));
+    }
+
+    private static StAXCreditTransferValidator.Report validate(CustomerCreditTransferInitiationVersion version, String xml, int maximumViolations) {
+        return new StAXCreditTransferValidator(version, maximumViolations)
+                .validate(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
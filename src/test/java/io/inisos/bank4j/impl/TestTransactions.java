@@ -0,0 +1,127 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.ChargeBearer;
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.CreditTransferOperationBuilder;
+import io.inisos.bank4j.CustomerCreditTransferInitiationVersion;
+import io.inisos.bank4j.Transaction;
+import io.inisos.bank4j.TransactionBuilder;
+import org.junit.jupiter.api.Assertions;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static io.inisos.bank4j.CustomerCreditTransferInitiationVersion.V09;
+
+/**
+ * Transactions and credit transfers shared by tests
+ */
+final class TestTransactions {
+
+    private TestTransactions() {
+    }
+
+    static CreditTransferOperationBuilder builder() {
+        return Bank.jaxbCreditTransfer(V09)
+                .debtorAccount(Bank.simpleBankAccount()
+                        .iban("FR7630001007941234567890185")
+                        .bic("BDFEFRPPXXX")
+                        .build())
+                .id("MYID")
+                .creationDateTime(LocalDateTime.of(2021, 1, 1, 0, 0))
+                .requestedExecutionDate(LocalDate.of(2021, 1, 2));
+    }
+
+    static CreditTransferOperationBuilder builder(CustomerCreditTransferInitiationVersion version) {
+        return builder(version, LocalDate.of(2021, 1, 2));
+    }
+
+    /**
+     * @param version                pain.001 version
+     * @param requestedExecutionDate optional requested execution date, left unset if null
+     * @return a SEPA builder of the given version, with a debtor
+     */
+    static CreditTransferOperationBuilder builder(CustomerCreditTransferInitiationVersion version, LocalDate requestedExecutionDate) {
+        CreditTransferOperationBuilder builder = Bank.jaxbCreditTransferSepa(version)
+                .debtor(Bank.simpleParty()
+                        .name("Debtor")
+                        .build())
+                .debtorAccount(Bank.simpleBankAccount()
+                        .iban("FR7630001007941234567890185")
+                        .bic("BDFEFRPPXXX")
+                        .build())
+                .id("MYID")
+                .creationDateTime(LocalDateTime.of(2021, 1, 1, 0, 0));
+        return requestedExecutionDate == null ? builder : builder.requestedExecutionDate(requestedExecutionDate);
+    }
+
+    /**
+     * @param count number of transactions
+     * @return EUR transactions with a creditor address, an instruction id and remittance information, the i-th one of i0.50
+     */
+    static List<Transaction> transactions(int count) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            transactions.add(transaction(i + "0.50", "ENDTOEND" + i)
+                    .party(Bank.simpleParty()
+                            .name("Creditor " + i)
+                            .postalAddress(Bank.simplePostalAddress()
+                                    .country("FR")
+                                    .addressLine(i + " rue du Louvre")
+                                    .addressLine("75001 Paris")
+                                    .build())
+                            .build())
+                    .id("INSTRUCTION" + i)
+                    .remittanceInformationUnstructured(Collections.singleton("Invoice " + i))
+                    .build());
+        }
+        return transactions;
+    }
+
+    /**
+     * @return three EUR transactions summing to 13.80
+     */
+    static List<Transaction> transactions() {
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(transaction("10.50", "1").party(Bank.simpleParty().name("Creditor 1").build()).id("ID1").build());
+        transactions.add(transaction("2.25", "2").chargeBearerCode(ChargeBearer.CRED).build());
+        transactions.add(transaction("1.05", "3").remittanceInformationUnstructured(Collections.singleton("Invoice 3")).build());
+        return transactions;
+    }
+
+    static TransactionBuilder transaction(String amount, String endToEndId) {
+        return Bank.simpleTransaction()
+                .account(Bank.simpleBankAccount()
+                        .iban("FR7610011000201234567890188")
+                        .bic("PSSTFRPP")
+                        .build())
+                .amount(amount)
+                .currency("EUR")
+                .endToEndId(endToEndId);
+    }
+
+    /**
+     * Assert that a credit transfer of the given {@link #transactions()} is marshalled as one of the same transactions
+     * held in a list, a transaction added after {@code transactions(...)} being left out
+     *
+     * @param transactions collection holding {@link #transactions()}
+     * @return the credit transfer of the given transactions
+     */
+    static CreditTransferOperation assertMarshalledAsTheSameTransactions(Collection<Transaction> transactions) {
+        CreditTransferOperationBuilder builder = builder().transactions(transactions);
+        transactions.add(transaction("9.99", "LATE").build());
+        CreditTransferOperation creditTransfer = builder.build();
+
+        Assertions.assertEquals(builder().transactions(transactions()).build().marshal(), creditTransfer.marshal());
+        Assertions.assertEquals(new BigDecimal("13.80"), creditTransfer.getControlSum());
+        Assertions.assertEquals(3, creditTransfer.getNumberOfTransactions());
+        Assertions.assertEquals(creditTransfer.marshal(), creditTransfer.marshal(), "Transactions can be marshalled again");
+        return creditTransfer;
+    }
+}
@@ -0,0 +1,103 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.ChargeBearer;
+import io.inisos.bank4j.Transaction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Currency;
+
+import static io.inisos.bank4j.impl.TestTransactions.assertMarshalledAsTheSameTransactions;
+import static io.inisos.bank4j.impl.TestTransactions.transaction;
+import static io.inisos.bank4j.impl.TestTransactions.transactions;
+
+class TransactionBatchTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    @Test
+    void transactions_are_read_through_views() {
+        TransactionBatch batch = new TransactionBatch(1);
+        batch.appender()
+                .name("Creditor")
+                .iban("FR7610011000201234567890188")
+                .bic("PSSTFRPP")
+                .unscaledAmount(1234)
+                .currency(EUR)
+                .endToEndId("ENDTOEND1")
+                .id("ID1")
+                .chargeBearer(ChargeBearer.SLEV)
+                .remittanceInformationUnstructured("Invoice 1")
+                .add();
+        batch.add(Bank.simpleTransaction()
+                .account(Bank.simpleBankAccount().otherId("1234567890").bic("PSSTFRPP").build())
+                .amount("5")
+                .currency("JPY")
+                .endToEndId("ENDTOEND2")
+                .build());
+
+        Transaction first = batch.get(0);
+        Transaction second = batch.get(1);
+
+        Assertions.assertEquals(2, batch.size());
+        Assertions.assertEquals("Creditor", first.getParty().flatMap(party -> party.getName()).orElse(null));
+        Assertions.assertEquals("FR7610011000201234567890188", first.getAccount().getIban().orElse(null));
+        Assertions.assertEquals(new BigDecimal("12.34"), first.getAmount());
+        Assertions.assertEquals("EUR", first.getCurrencyCode());
+        Assertions.assertEquals("ID1", first.getId().orElse(null));
+        Assertions.assertEquals(ChargeBearer.SLEV, first.getChargeBearer().orElse(null));
+        Assertions.assertEquals(Collections.singleton("Invoice 1"), first.getRemittanceInformationUnstructured());
+        Assertions.assertFalse(second.getParty().isPresent());
+        Assertions.assertEquals("1234567890", second.getAccount().getOtherId().orElse(null));
+        Assertions.assertFalse(second.getAccount().getIban().isPresent());
+        Assertions.assertEquals(new BigDecimal("5"), second.getAmount());
+        Assertions.assertFalse(second.getChargeBearer().isPresent());
+        Assertions.assertSame(first.getAccount().getBic().orElse(null), second.getAccount().getBic().orElse(null), "BICs are dictionary-encoded");
+        Assertions.assertEquals(first, batch.get(0));
+        TransactionBatch other = new TransactionBatch();
+        other.add(first);
+        Assertions.assertEquals(first, other.get(0), "Rows of different batches holding the same values are equal");
+        Assertions.assertEquals(first.hashCode(), other.get(0).hashCode());
+        Assertions.assertNotEquals(first, second);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> batch.get(2));
+    }
+
+    @Test
+    void totals_are_aggregated_as_transactions_are_added() {
+        TransactionBatch batch = new TransactionBatch();
+        for (Transaction transaction : transactions()) {
+            batch.add(transaction);
+        }
+
+        Assertions.assertEquals(TransactionTotals.of(transactions()).getControlSum(), batch.getTotals().getControlSum());
+        Assertions.assertEquals(TransactionTotals.of(transactions()).getControlSumByCurrency(), TransactionTotals.of(batch).getControlSumByCurrency());
+        Assertions.assertEquals(3, batch.getTotals().getNumberOfTransactions());
+    }
+
+    @Test
+    void transactions_that_cannot_be_held_are_rejected() {
+        TransactionBatch batch = new TransactionBatch();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.add(transaction("1.00", "E2E").party(Bank.simpleParty().postalAddress(Bank.simplePostalAddress().country("FR").build()).build()).build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.add(transaction("1.00", "E2E").intermediaryAgent(Bank.simpleBankAccount().bic("PSSTFRPP").otherId("1").build()).build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.add(transaction("1.005", "E2E").build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.add(transaction("1.00", "E2E").account(Bank.simpleBankAccount().iban("FR7610011000201234567890188").otherId("1").build()).build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.appender().unscaledAmount(1).currency(EUR).endToEndId("E2E").add());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.appender().otherId("1").currency(EUR).endToEndId("E2E").add());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.appender().iban("").unscaledAmount(1).currency(EUR).endToEndId("E2E").add());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.appender().otherId("1").unscaledAmount(1).currency(EUR).endToEndId("E2E").remittanceInformationUnstructured("Line 1").remittanceInformationUnstructured("Line 2").add());
+        Assertions.assertTrue(batch.isEmpty());
+    }
+
+    @Test
+    void batch_is_marshalled_as_the_same_transactions() {
+        TransactionBatch batch = new TransactionBatch();
+        batch.addAll(transactions());
+
+        assertMarshalledAsTheSameTransactions(batch);
+        Assertions.assertEquals(4, batch.size());
+    }
+}
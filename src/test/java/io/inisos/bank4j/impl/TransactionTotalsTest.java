@@ -0,0 +1,106 @@
+package io.inisos.bank4j.impl;
+
+import io.inisos.bank4j.Bank;
+import io.inisos.bank4j.CreditTransferOperation;
+import io.inisos.bank4j.CreditTransferOperationBuilder;
+import io.inisos.bank4j.Transaction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.inisos.bank4j.impl.TestTransactions.builder;
+import static io.inisos.bank4j.impl.TestTransactions.transaction;
+
+class TransactionTotalsTest {
+
+    private static final List<Transaction> TRANSACTIONS = Arrays.asList(
+            transaction("10.50", "1").build(),
+            transaction("2.25", "2").currency("CHF").build(),
+            transaction("1.05", "3").build());
+
+    @Test
+    void totals_are_aggregated_as_transactions_are_added() {
+        TransactionList transactions = new TransactionList();
+        Assertions.assertSame(TransactionTotals.EMPTY, transactions.getTotals());
+
+        transactions.addAll(TRANSACTIONS);
+        TransactionTotals totals = transactions.getTotals();
+
+        Assertions.assertSame(totals, transactions.getTotals(), "Totals are kept until a transaction is added");
+        Assertions.assertEquals(3, totals.getNumberOfTransactions());
+        Assertions.assertEquals(new BigDecimal("13.80"), totals.getControlSum());
+        Assertions.assertEquals(byCurrency("CHF", "2.25", "EUR", "11.55"), totals.getControlSumByCurrency());
+        Assertions.assertEquals(Arrays.asList("CHF", "EUR"), Arrays.asList(totals.getControlSumByCurrency().keySet().toArray()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> totals.getControlSumByCurrency().clear());
+    }
+
+    @Test
+    void copy_is_not_affected_by_later_additions() {
+        TransactionList transactions = new TransactionList();
+        transactions.add(TRANSACTIONS.get(0));
+        TransactionList copy = transactions.copy();
+
+        transactions.add(TRANSACTIONS.get(1));
+
+        Assertions.assertEquals(1, copy.size());
+        Assertions.assertEquals(new BigDecimal("10.50"), copy.getTotals().getControlSum());
+        Assertions.assertEquals(new BigDecimal("12.75"), transactions.getTotals().getControlSum());
+        Assertions.assertEquals(TRANSACTIONS.subList(0, 1), copy);
+    }
+
+    @Test
+    void credit_transfer_totals_match_transactions() {
+        CreditTransferOperationBuilder builder = builder().transactions(TRANSACTIONS);
+        CreditTransferOperation creditTransfer = builder.build();
+        builder.transaction(transaction("1.00", "4").currency("USD").build());
+
+        Assertions.assertEquals(3, creditTransfer.getNumberOfTransactions());
+        Assertions.assertEquals(3, creditTransfer.getTransactions().size());
+        Assertions.assertEquals(new BigDecimal("13.80"), creditTransfer.getControlSum());
+        Assertions.assertEquals(byCurrency("CHF", "2.25", "EUR", "11.55"), creditTransfer.getControlSumByCurrency());
+        Assertions.assertEquals(creditTransfer, builder().transactions(TRANSACTIONS).build());
+        Assertions.assertEquals(4, builder.build().getNumberOfTransactions());
+    }
+
+    @Test
+    void credit_transfer_is_not_affected_by_later_changes_to_its_transactions() {
+        List<Transaction> transactions = new ArrayList<>(TRANSACTIONS.subList(0, 1));
+        JAXBCreditTransferV03 creditTransfer = new JAXBCreditTransferV03(null, null, null, Bank.simpleBankAccount()
+                .iban("FR7630001007941234567890185")
+                .bic("BNPAFRPP")
+                .build(), transactions, null, LocalDateTime.of(2021, 1, 1, 0, 0), null, null, null);
+
+        transactions.add(TRANSACTIONS.get(2));
+        String xml = creditTransfer.marshal();
+
+        Assertions.assertEquals(1, creditTransfer.getTransactions().size());
+        Assertions.assertEquals(1, xml.split("<CdtTrfTxInf>", -1).length - 1, xml);
+        Assertions.assertEquals(2, xml.split("<NbOfTxs>1</NbOfTxs>", -1).length - 1, xml);
+        Assertions.assertEquals(2, xml.split("<CtrlSum>10.50</CtrlSum>", -1).length - 1, xml);
+    }
+
+    @Test
+    void streamed_totals_by_currency_are_only_known_once_aggregated() {
+        CreditTransferOperation reiterable = builder().transactions(TRANSACTIONS::stream).build();
+        CreditTransferOperation declared = builder().transactions(TRANSACTIONS.stream(), 3, new BigDecimal("13.80")).build();
+
+        Assertions.assertEquals(byCurrency("CHF", "2.25", "EUR", "11.55"), reiterable.getControlSumByCurrency());
+        Assertions.assertEquals(3, declared.getNumberOfTransactions());
+        Assertions.assertEquals(new BigDecimal("13.80"), declared.getControlSum());
+        Assertions.assertThrows(IllegalStateException.class, declared::getControlSumByCurrency);
+    }
+
+    private static Map<String, BigDecimal> byCurrency(String currency, String amount, String otherCurrency, String otherAmount) {
+        Map<String, BigDecimal> byCurrency = new LinkedHashMap<>();
+        byCurrency.put(currency, new BigDecimal(amount));
+        byCurrency.put(otherCurrency, new BigDecimal(otherAmount));
+        return byCurrency;
+    }
+}
@@ -0,0 +1,39 @@
+package io.inisos.bank4j.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.datatype.DatatypeFactory;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+
+class XmlDateTimesTest {
+
+    @Test
+    void lexical_forms_match_iso_formatters() throws Exception {
+        DatatypeFactory datatypeFactory = DatatypeFactory.newInstance();
+        LocalDateTime[] dateTimes = {
+                LocalDateTime.of(2021, 1, 1, 0, 0),
+                LocalDateTime.of(1999, 12, 31, 23, 59, 59),
+                LocalDateTime.of(2024, 2, 29, 12, 30, 5, 500_000_000),
+                LocalDateTime.of(2024, 7, 14, 8, 0, 0, 1),
+                LocalDateTime.of(2026, 10, 17, 19, 34, 7, 478_422_977)
+        };
+        ZoneId[] zones = {ZoneOffset.UTC, ZoneId.of("Europe/Paris"), ZoneOffset.ofHoursMinutes(-9, -30)};
+
+        for (LocalDateTime dateTime : dateTimes) {
+            Assertions.assertEquals(
+                    datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE.format(dateTime)).toXMLFormat(),
+                    XmlDateTimes.date(dateTime.toLocalDate()).toXMLFormat());
+            Assertions.assertEquals(
+                    datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime)).toXMLFormat(),
+                    XmlDateTimes.dateTime(dateTime).toXMLFormat());
+            for (ZoneId zone : zones) {
+                ZonedDateTime zonedDateTime = dateTime.atZone(zone);
+                Assertions.assertEquals(
+                        datatypeFactory.newXMLGregorianCalendar(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(zonedDateTime)).toXMLFormat(),
+                        XmlDateTimes.dateTime(zonedDateTime).toXMLFormat());
+            }
+        }
+    }
+}
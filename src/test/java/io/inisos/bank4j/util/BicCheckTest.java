@@ -0,0 +1,61 @@
+package io.inisos.bank4j.util;
+
+import org.iban4j.BicUtil;
+import org.iban4j.Iban4jException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class BicCheckTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcz -éß";
+
+    @Test
+    void test_results() {
+        Assertions.assertEquals(BicCheck.Result.VALID, BicCheck.check("BDFEFRPP"));
+        Assertions.assertEquals(BicCheck.Result.VALID, BicCheck.check(new StringBuilder("BDFEFRPPXXX")));
+        Assertions.assertEquals(BicCheck.Result.EMPTY, BicCheck.check(null));
+        Assertions.assertEquals(BicCheck.Result.EMPTY, BicCheck.check(""));
+        Assertions.assertEquals(BicCheck.Result.INVALID_LENGTH, BicCheck.check("BDFEFRPPX"));
+        Assertions.assertEquals(BicCheck.Result.NOT_UPPER_CASE, BicCheck.check("bdfefrpp"));
+        Assertions.assertEquals(BicCheck.Result.INVALID_BANK_CODE, BicCheck.check("BD-EFRPP"));
+        Assertions.assertEquals(BicCheck.Result.INVALID_COUNTRY_CODE, BicCheck.check("BDFEF1PP"));
+        Assertions.assertEquals(BicCheck.Result.UNSUPPORTED_COUNTRY, BicCheck.check("BDFEZZPP"));
+        Assertions.assertEquals(BicCheck.Result.INVALID_LOCATION_CODE, BicCheck.check("BDFEFRP "));
+        Assertions.assertEquals(BicCheck.Result.INVALID_BRANCH_CODE, BicCheck.check("BDFEFRPPXX-"));
+        Assertions.assertTrue(BicCheck.isValid("BDFEFRPPXXX"));
+        Assertions.assertFalse(BicCheck.isValid("BDFEZZPPXXX"));
+    }
+
+    @Test
+    void test_same_outcome_as_iban4j() {
+        Random random = new Random(42);
+        List<String> bics = new ArrayList<>();
+        for (String bic : new String[]{"BDFEFRPP", "BDFEFRPPXXX", "PSSTFRPP", "DEUTDEFF500", "UBSWCHZH80A"}) {
+            bics.add(bic);
+            for (int i = 0; i < 500; i++) {
+                char[] chars = bic.toCharArray();
+                chars[random.nextInt(chars.length)] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+                bics.add(new String(chars));
+            }
+            bics.add(bic.substring(0, random.nextInt(bic.length())));
+            bics.add(bic + "X");
+        }
+
+        for (String bic : bics) {
+            Assertions.assertEquals(isValid(bic), BicCheck.isValid(bic), bic);
+        }
+    }
+
+    private static boolean isValid(String bic) {
+        try {
+            BicUtil.validate(bic);
+            return true;
+        } catch (Iban4jException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.inisos.bank4j.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+class DiacriticTransliteratorTest {
+
+    @Test
+    void test_letters_are_transliterated() {
+        Assertions.assertEquals("Muller Societe Generale", DiacriticTransliterator.transliterate("Müller Société Générale"));
+        Assertions.assertEquals("Strasse", DiacriticTransliterator.transliterate("Straße"));
+        Assertions.assertEquals("OEuvre AEro Lodz Nguyen", DiacriticTransliterator.transliterate("Œuvre Æro Łódź Nguyễn"));
+        Assertions.assertEquals("Dz", DiacriticTransliterator.transliterate(String.valueOf('ǅ')));
+    }
+
+    @Test
+    void test_other_characters_are_kept() {
+        String input = "ABC 123 /#€×÷";
+        Assertions.assertSame(input, DiacriticTransliterator.transliterate(input));
+        Assertions.assertNull(DiacriticTransliterator.transliterate('€'));
+        Assertions.assertNull(DiacriticTransliterator.transliterate('A'));
+        Assertions.assertFalse(DiacriticTransliterator.canTransliterate('×'));
+    }
+
+    @Test
+    void test_transliterations_are_short_ascii_letters() {
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+            String transliteration = DiacriticTransliterator.transliterate(c);
+            if (transliteration != null) {
+                Assertions.assertTrue(transliteration.matches("[A-Za-z]{1," + DiacriticTransliterator.MAXIMUM_LENGTH + "}"), transliteration);
+            }
+        }
+    }
+
+    @Test
+    void test_sanitized_with_transliteration() {
+        Assertions.assertEquals("Muller Societe", Iso20022ReferenceElementValidator.sanitizeToCharacterSet(" Müller Société/", true));
+        Assertions.assertEquals("M.ller Soci.t.", Iso20022ReferenceElementValidator.sanitizeToCharacterSet(" Müller Société/", false));
+        Assertions.assertTrue(Iso20022ReferenceElementValidator.isValidCharacterSet("Müller Société", true));
+        Assertions.assertFalse(Iso20022ReferenceElementValidator.isValidCharacterSet("Müller Société", false));
+        Assertions.assertFalse(Iso20022ReferenceElementValidator.isValidCharacterSet("Müller € Société", true));
+
+        char[] output = new char[8];
+        int length = Iso20022ReferenceElementValidator.sanitizeToCharacterSet("ßßßß", new HashMap<>(), true, output, 0);
+        Assertions.assertEquals("ssssssss", new String(output, 0, length));
+    }
+}
@@ -0,0 +1,74 @@
+package io.inisos.bank4j.util;
+
+import io.inisos.bank4j.SyncPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+class FileChannelOutputStreamTest {
+
+    @Test
+    void test_writes_larger_than_buffer(@TempDir Path directory) throws IOException {
+        byte[] content = new byte[10_000];
+        new Random(42).nextBytes(content);
+        Path path = directory.resolve("content.bin");
+        Files.write(path, new byte[20_000]);
+
+        try (OutputStream outputStream = new FileChannelOutputStream(path, SyncPolicy.DATA, 64)) {
+            outputStream.write(content[0]);
+            outputStream.write(content, 1, 99);
+            outputStream.write(content, 100, content.length - 100);
+        }
+
+        Assertions.assertArrayEquals(content, Files.readAllBytes(path));
+    }
+
+    @Test
+    void test_streams_of_a_thread_reuse_a_larger_buffer(@TempDir Path directory) throws IOException {
+        byte[] content = new byte[1_000];
+        new Random(7).nextBytes(content);
+        Path first = directory.resolve("first.bin");
+        Path second = directory.resolve("second.bin");
+
+        try (OutputStream outputStream = new FileChannelOutputStream(first, SyncPolicy.NONE, 128)) {
+            outputStream.write(content);
+        }
+        try (OutputStream outputStream = new FileChannelOutputStream(second, SyncPolicy.NONE, 16)) {
+            outputStream.write(content, 0, 10);
+            Assertions.assertEquals(0, Files.size(second));
+            outputStream.write(content, 10, 10);
+            Assertions.assertEquals(16, Files.size(second), "A reused buffer is limited to the requested size");
+            outputStream.write(content, 20, content.length - 20);
+        }
+
+        Assertions.assertArrayEquals(content, Files.readAllBytes(first));
+        Assertions.assertArrayEquals(content, Files.readAllBytes(second));
+    }
+
+    @Test
+    void test_flush_writes_buffered_bytes(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("content.bin");
+
+        try (OutputStream outputStream = new FileChannelOutputStream(path, SyncPolicy.DATA_AND_METADATA)) {
+            outputStream.write(new byte[]{1, 2, 3});
+            Assertions.assertEquals(0, Files.size(path));
+            outputStream.flush();
+            Assertions.assertEquals(3, Files.size(path));
+        }
+    }
+
+    @Test
+    void test_closed_stream_cannot_be_written(@TempDir Path directory) throws IOException {
+        OutputStream outputStream = new FileChannelOutputStream(directory.resolve("content.bin"), SyncPolicy.NONE);
+        outputStream.close();
+        outputStream.close();
+
+        Assertions.assertThrows(IOException.class, () -> outputStream.write(1));
+    }
+}
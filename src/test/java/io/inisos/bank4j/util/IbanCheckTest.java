@@ -0,0 +1,61 @@
+package io.inisos.bank4j.util;
+
+import org.iban4j.CountryCode;
+import org.iban4j.Iban;
+import org.iban4j.IbanUtil;
+import org.iban4j.bban.BbanStructure;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class IbanCheckTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcz -é";
+
+    @Test
+    void test_results() {
+        Assertions.assertEquals(IbanCheck.Result.VALID, IbanCheck.check("FR7630001007941234567890185"));
+        Assertions.assertEquals(IbanCheck.Result.VALID, IbanCheck.check(new StringBuilder("DE89370400440532013000")));
+        Assertions.assertEquals(IbanCheck.Result.EMPTY, IbanCheck.check(null));
+        Assertions.assertEquals(IbanCheck.Result.EMPTY, IbanCheck.check(""));
+        Assertions.assertEquals(IbanCheck.Result.INVALID_COUNTRY_CODE, IbanCheck.check("F"));
+        Assertions.assertEquals(IbanCheck.Result.INVALID_COUNTRY_CODE, IbanCheck.check("fr7630001007941234567890185"));
+        Assertions.assertEquals(IbanCheck.Result.INVALID_COUNTRY_CODE, IbanCheck.check("ZZ7630001007941234567890185"));
+        Assertions.assertEquals(IbanCheck.Result.UNSUPPORTED_COUNTRY, IbanCheck.check("US7630001007941234567890185"));
+        Assertions.assertEquals(IbanCheck.Result.INVALID_CHECK_DIGITS, IbanCheck.check("FR7A30001007941234567890185"));
+        Assertions.assertEquals(IbanCheck.Result.INVALID_LENGTH, IbanCheck.check("FR763000100794123456789018"));
+        Assertions.assertEquals(IbanCheck.Result.INVALID_BBAN, IbanCheck.check("FR76300010079412345678901 5"));
+        Assertions.assertEquals(IbanCheck.Result.INVALID_CHECKSUM, IbanCheck.check("FR7630001007941234567890186"));
+        Assertions.assertTrue(IbanCheck.isValid("FR7630001007941234567890185"));
+        Assertions.assertFalse(IbanCheck.isValid("FR7630001007941234567890186"));
+    }
+
+    @Test
+    void test_same_outcome_as_iban4j() {
+        Random random = new Random(42);
+        List<String> ibans = new ArrayList<>();
+        for (CountryCode countryCode : BbanStructure.supportedCountries()) {
+            for (int i = 0; i < 20; i++) {
+                String iban = new Iban.Builder(random).countryCode(countryCode).buildRandom().toString();
+                ibans.add(iban);
+                ibans.add(mutate(iban, random));
+                ibans.add(iban.substring(0, random.nextInt(iban.length())));
+                ibans.add(iban + ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                ibans.add(iban.toLowerCase());
+            }
+        }
+
+        for (String iban : ibans) {
+            Assertions.assertEquals(IbanUtil.isValid(iban), IbanCheck.isValid(iban), iban);
+        }
+    }
+
+    private static String mutate(String iban, Random random) {
+        char[] chars = iban.toCharArray();
+        chars[random.nextInt(chars.length)] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        return new String(chars);
+    }
+}
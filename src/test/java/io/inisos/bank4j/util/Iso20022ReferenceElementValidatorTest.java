@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
 
 class Iso20022ReferenceElementValidatorTest {
     
@@ -53,4 +55,57 @@ class Iso20022ReferenceElementValidatorTest {
 
         Assertions.assertEquals("Hello World?", Iso20022ReferenceElementValidator.sanitizeToCharacterSet(input, customReplacements));
     }
+
+    @Test
+    void test_sanitized_into_builder_and_array() {
+        Map<Character, Character> replacements = new HashMap<>();
+        replacements.put('#', '/');
+
+        StringBuilder builder = new StringBuilder("ID:");
+        Iso20022ReferenceElementValidator.sanitizeToCharacterSet(" A#B##C###D/ ", replacements, builder);
+        Assertions.assertEquals("ID:A/BC/D", builder.toString());
+
+        char[] array = new char[16];
+        int length = Iso20022ReferenceElementValidator.sanitizeToCharacterSet(" A#B##C###D/ ", replacements, array, 3);
+        Assertions.assertEquals("A/BC/D", new String(array, 3, length));
+    }
+
+    @Test
+    void test_valid_input_is_not_copied() {
+        String input = "INVOICE 2021/01-0001";
+        Assertions.assertSame(input, Iso20022ReferenceElementValidator.sanitizeToCharacterSet(input));
+    }
+
+    @Test
+    void test_same_outcome_as_regular_expressions() {
+        Pattern validChars = Pattern.compile("^[A-Za-z0-9()+,./:\\s-]+$");
+        Pattern invalidStartOrEnd = Pattern.compile("(^[\\s/]+)|([\\s/]+$)");
+        Map<Character, Character> replacements = new HashMap<>();
+        replacements.put('#', '/');
+        replacements.put('_', ' ');
+        replacements.put('é', 'e');
+
+        String alphabet = "aZ09()+,./:- \t\n/#_é€\\";
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            String input = new String(chars);
+
+            boolean expectedValid = !input.isEmpty()
+                    && validChars.matcher(input).find()
+                    && !invalidStartOrEnd.matcher(input).find()
+                    && !input.contains("//");
+            Assertions.assertEquals(expectedValid, Iso20022ReferenceElementValidator.isValidCharacterSet(input), input);
+
+            StringBuilder replaced = new StringBuilder();
+            for (char c : chars) {
+                replaced.append(validChars.matcher(String.valueOf(c)).find() ? c : replacements.getOrDefault(c, '.'));
+            }
+            String expectedSanitized = invalidStartOrEnd.matcher(replaced).replaceAll("").replace("//", "");
+            Assertions.assertEquals(expectedSanitized, Iso20022ReferenceElementValidator.sanitizeToCharacterSet(input, replacements), input);
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package io.inisos.bank4j.util;
+
+import org.iban4j.InvalidCheckDigitException;
+import org.iban4j.UnsupportedCountryException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ValidationCacheTest {
+
+    @Test
+    void test_results_are_memoised() {
+        ValidationCache cache = new ValidationCache(100);
+
+        Assertions.assertTrue(cache.isValidIban("FR7630001007941234567890185"));
+        Assertions.assertTrue(cache.isValidIban("FR7630001007941234567890185"));
+        Assertions.assertFalse(cache.isValidIban("FR7630001007941234567890186"));
+        Assertions.assertTrue(cache.isValidBic("BDFEFRPPXXX"));
+        Assertions.assertFalse(cache.isValidBic("BDFE"));
+        Assertions.assertFalse(cache.isValidBic("BDFE"));
+
+        ValidationCache.Statistics statistics = cache.getStatistics();
+        Assertions.assertEquals(2, statistics.getHits());
+        Assertions.assertEquals(4, statistics.getMisses());
+        Assertions.assertEquals(4, statistics.getSize());
+        Assertions.assertEquals(1 / 3d, statistics.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void test_invalid_values_throw_each_time() {
+        ValidationCache cache = new ValidationCache(100);
+
+        Assertions.assertThrows(InvalidCheckDigitException.class, () -> cache.validateIban("FR7630001007941234567890186"));
+        Assertions.assertThrows(InvalidCheckDigitException.class, () -> cache.validateIban("FR7630001007941234567890186"));
+        Assertions.assertEquals(IbanCheck.Result.INVALID_CHECKSUM, cache.checkIban("FR7630001007941234567890186"));
+        Assertions.assertThrows(UnsupportedCountryException.class, () -> cache.validateBic("BDFEZZPPXXX"));
+        Assertions.assertThrows(UnsupportedCountryException.class, () -> cache.validateBic("BDFEZZPPXXX"));
+        Assertions.assertEquals(BicCheck.Result.UNSUPPORTED_COUNTRY, cache.checkBic("BDFEZZPPXXX"));
+        Assertions.assertDoesNotThrow(() -> cache.validateBic("BDFEFRPPXXX"));
+    }
+
+    @Test
+    void test_size_is_bounded() {
+        ValidationCache cache = new ValidationCache(16);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.isValidBic("BDFEFRPP" + i);
+        }
+
+        ValidationCache.Statistics statistics = cache.getStatistics();
+        Assertions.assertTrue(statistics.getSize() <= 16);
+        Assertions.assertEquals(1000, statistics.getEvictions() + statistics.getSize());
+    }
+
+    @Test
+    void test_small_sizes_are_respected() {
+        for (int maximumSize : new int[]{1, 3, 17}) {
+            ValidationCache cache = new ValidationCache(maximumSize);
+
+            for (int i = 0; i < 1000; i++) {
+                cache.isValidBic("BDFEFRPP" + i);
+            }
+
+            Assertions.assertTrue(cache.getStatistics().getSize() <= maximumSize, String.valueOf(maximumSize));
+        }
+        ValidationCache single = new ValidationCache(1);
+        single.isValidBic("BDFEFRPP");
+        single.isValidBic("BDFEFRPP");
+        Assertions.assertEquals(1, single.getStatistics().getHits());
+    }
+}
@@ -67,4 +67,25 @@ class Iso20022CharacterSetValidatorTest {
 
         Assertions.assertTrue(violations.isEmpty());
     }
+
+    @Test
+    void isValid_pass_with_diacritics_when_allowed() {
+        Assertions.assertTrue(validator.validate(new Names("Müller Société", "Muller Societe")).isEmpty());
+        Assertions.assertEquals(1, validator.validate(new Names("Müller Société", "Müller Société")).size());
+        Assertions.assertEquals(1, validator.validate(new Names("Müller # Société", "Muller Societe")).size());
+    }
+
+    private static class Names {
+
+        @Iso20022CharacterSet(allowDiacritics = true)
+        private final String withDiacritics;
+
+        @Iso20022CharacterSet
+        private final String withoutDiacritics;
+
+        private Names(String withDiacritics, String withoutDiacritics) {
+            this.withDiacritics = withDiacritics;
+            this.withoutDiacritics = withoutDiacritics;
+        }
+    }
 }